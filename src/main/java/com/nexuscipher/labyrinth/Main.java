@@ -1,27 +1,56 @@
 package com.nexuscipher.labyrinth;
 
+import com.nexuscipher.labyrinth.crypto.DilithiumLevel;
+import com.nexuscipher.labyrinth.crypto.IdentityStore;
+import com.nexuscipher.labyrinth.crypto.NodeIdentity;
+import com.nexuscipher.labyrinth.crypto.PublicKeyCache;
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.network.ConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.nexuscipher.labyrinth.core.Node;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
-    public static void main(String[] args) {
+    // Where the node ID and key pair are kept between runs; override with -Dlabyrinth.identity=<file>
+    private static final String IDENTITY_FILE = System.getProperty("labyrinth.identity", "labyrinth-identity.bin");
+    // Dilithium level (2, 3 or 5) for a newly created identity; override with -Dlabyrinth.dilithium.level=<level>
+    private static final String DILITHIUM_LEVEL = System.getProperty("labyrinth.dilithium.level", "3");
+
+    public static void main(String[] args) throws InterruptedException, IOException {
         logger.info("Starting Nexus Cipher Labyrinth...");
 
+        // Reuse the identity from the last run, so peers recognize us and no keys are generated
+        long start = System.nanoTime();
+        NodeIdentity identity = new IdentityStore(Paths.get(IDENTITY_FILE),
+                DilithiumLevel.parse(DILITHIUM_LEVEL)).loadOrCreate();
+        QuantumResistantCrypto crypto = new QuantumResistantCrypto(identity.getKeyPair(), PublicKeyCache.shared());
+        logger.info("Identity ready in {} ms", (System.nanoTime() - start) / 1_000_000);
+
         // Create a new node
-        Node node = new Node();
+        ConnectionManager connectionManager = new ConnectionManager(identity.getNodeId(), crypto);
+        Node node = new Node(0, connectionManager);
 
         // Start the node
         node.start();
 
         // Add shutdown hook
+        CountDownLatch stopped = new CountDownLatch(1);
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Shutting down node...");
             node.stop();
+            connectionManager.shutdown();
+            stopped.countDown();
         }));
 
         logger.info("Node initialized successfully. Press Ctrl+C to stop.");
+
+        // Virtual threads are daemon threads, so keep the JVM alive ourselves
+        stopped.await();
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,23 @@
 package com.nexuscipher.labyrinth.core;
 
+import com.nexuscipher.labyrinth.network.ConnectionManager;
+import com.nexuscipher.labyrinth.network.TransportMode;
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.net.ServerSocket;
 import java.net.Socket;
 import java.io.IOException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Node {
@@ -22,7 +27,8 @@ public class Node {
     private final ConcurrentMap<String, PeerConnection> peers;
     private final String hostAddress;
     private final int port;
-    private ServerSocket serverSocket;
+    private final ServerSocketChannel serverChannel;
+    private final ConnectionManager connectionManager;  // Null when connections are not handled yet
     private final ExecutorService connectionExecutor;
     private final AtomicBoolean isRunning;
 
@@ -31,16 +37,32 @@ public class Node {
     }
 
     public Node(int port) {
-        this.nodeId = UUID.randomUUID().toString();
+        this(port, UUID.randomUUID().toString(), null, ExecutionMode.current());
+    }
+
+    /**
+     * Creates a node that hands accepted connections to the given connection manager
+     * and shares its node ID and execution mode.
+     */
+    public Node(int port, ConnectionManager connectionManager) {
+        this(port, connectionManager.getNodeId(), connectionManager,
+                connectionManager.getExecutionMode());
+    }
+
+    private Node(int port, String nodeId, ConnectionManager connectionManager,
+                 ExecutionMode executionMode) {
+        this.nodeId = nodeId;
+        this.connectionManager = connectionManager;
         this.peers = new ConcurrentHashMap<>();
-        this.port = port;
-        this.connectionExecutor = Executors.newCachedThreadPool();
+        this.connectionExecutor = ExecutorFactory.newTaskExecutor(executionMode, "node-" + nodeId);
         this.isRunning = new AtomicBoolean(false);
 
         try {
             this.hostAddress = InetAddress.getLocalHost().getHostAddress();
-            this.serverSocket = new ServerSocket(port);
-            this.port = serverSocket.getLocalPort(); // Get the actual port if we used 0
+            this.serverChannel = ServerSocketChannel.open();
+            this.serverChannel.bind(new InetSocketAddress(port));
+            // Get the actual port if we used 0
+            this.port = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
             logger.info("Created new node with ID: {} on {}:{}", nodeId, hostAddress, this.port);
         } catch (UnknownHostException e) {
             logger.error("Failed to get host address", e);
@@ -53,8 +75,19 @@ public class Node {
 
     public void start() {
         if (isRunning.compareAndSet(false, true)) {
-            // Start listening for connections in a separate thread
-            connectionExecutor.submit(this::listenForConnections);
+            if (usesNioTransport()) {
+                // The transport's selector loops accept connections; no listener thread needed
+                try {
+                    connectionManager.acceptConnections(serverChannel);
+                } catch (IOException e) {
+                    isRunning.set(false);
+                    logger.error("Failed to register server channel with transport", e);
+                    throw new RuntimeException("Failed to start node", e);
+                }
+            } else {
+                // Start listening for connections in a separate thread
+                connectionExecutor.submit(this::listenForConnections);
+            }
             logger.info("Node started and listening for connections on port {}", port);
         }
     }
@@ -62,7 +95,7 @@ public class Node {
     public void stop() {
         if (isRunning.compareAndSet(true, false)) {
             try {
-                serverSocket.close();
+                serverChannel.close();
                 connectionExecutor.shutdown();
                 logger.info("Node stopped");
             } catch (IOException e) {
@@ -71,11 +104,16 @@ public class Node {
         }
     }
 
+    private boolean usesNioTransport() {
+        return connectionManager != null
+                && connectionManager.getTransportMode() == TransportMode.NIO;
+    }
+
     private void listenForConnections() {
         while (isRunning.get()) {
             try {
-                Socket clientSocket = serverSocket.accept();
-                handleNewConnection(clientSocket);
+                SocketChannel clientChannel = serverChannel.accept();
+                handleNewConnection(clientChannel.socket());
             } catch (IOException e) {
                 if (isRunning.get()) {
                     logger.error("Error accepting connection", e);
@@ -85,12 +123,16 @@ public class Node {
     }
 
     private void handleNewConnection(Socket clientSocket) {
+        logger.info("New connection from {}", clientSocket.getInetAddress());
+        if (connectionManager != null) {
+            // Codec negotiation blocks, so keep it off the accept loop
+            connectionExecutor.submit(() -> connectionManager.handleIncomingConnection(clientSocket));
+            return;
+        }
+
         connectionExecutor.submit(() -> {
             try {
-                // TODO: Implement handshake protocol
-                logger.info("New connection from {}", clientSocket.getInetAddress());
-
-                // For now, just close the connection
+                // No connection manager attached, so nobody can handshake with this peer
                 clientSocket.close();
             } catch (IOException e) {
                 logger.error("Error handling connection", e);
@@ -127,4 +169,4 @@ public class Node {
         }
         return false;
     }
-}
\ No newline at end of file
+}
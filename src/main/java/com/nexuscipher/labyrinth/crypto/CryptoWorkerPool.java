@@ -0,0 +1,191 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs signing, verification, key exchange and chunk hashing on a fixed set of
+ * workers, so CPU-heavy crypto never runs on the threads that read sockets or
+ * fire timers.
+ *
+ * The queue is bounded: work beyond it is rejected instead of piling up. Callers
+ * that start new, optional work (such as accepting a new peer's handshake) should
+ * check {@link #isSaturated()} first and turn it away early, which keeps latency
+ * flat for the peers already connected. Work that waits in a queue of its own
+ * before reaching the pool, like {@link SignatureVerificationService}'s, is not
+ * counted here; check that queue too.
+ */
+public class CryptoWorkerPool implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(CryptoWorkerPool.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    // Share of the queue in use at which new handshakes are turned away
+    public static final double DEFAULT_ADMISSION_THRESHOLD = 0.75;
+
+    private final ThreadPoolExecutor executor;
+    private final int workers;
+    private final int queueCapacity;
+    private final int admissionLimit;
+    private final AtomicInteger queued;
+    private final AtomicInteger maxQueueDepth;
+    private final AtomicLong submitted;
+    private final AtomicLong completed;
+    private final AtomicLong rejected;
+    private final AtomicLong queueNanos;
+    private final AtomicLong runNanos;
+
+    public CryptoWorkerPool(int workers) {
+        this(workers, DEFAULT_QUEUE_CAPACITY, DEFAULT_ADMISSION_THRESHOLD, ExecutionMode.PLATFORM);
+    }
+
+    /**
+     * @param admissionThreshold share of {@code queueCapacity} at which the pool reports itself saturated
+     */
+    public CryptoWorkerPool(int workers, int queueCapacity, double admissionThreshold,
+                            ExecutionMode executionMode) {
+        if (workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Workers and queue capacity must be positive");
+        }
+        if (admissionThreshold <= 0 || admissionThreshold > 1) {
+            throw new IllegalArgumentException("Admission threshold must be in (0, 1]");
+        }
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.admissionLimit = Math.max(1, (int) (queueCapacity * admissionThreshold));
+        this.executor = ExecutorFactory.newBoundedExecutor(executionMode, "crypto-worker",
+                workers, queueCapacity);
+        this.queued = new AtomicInteger(0);
+        this.maxQueueDepth = new AtomicInteger(0);
+        this.submitted = new AtomicLong(0);
+        this.completed = new AtomicLong(0);
+        this.rejected = new AtomicLong(0);
+        this.queueNanos = new AtomicLong(0);
+        this.runNanos = new AtomicLong(0);
+    }
+
+    /**
+     * Runs {@code task} on a worker. The future fails with {@link RejectedExecutionException}
+     * if the queue is full or the pool has shut down.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            schedule(() -> {
+                try {
+                    T value = task.call();
+                    return () -> result.complete(value);
+                } catch (Exception e) {
+                    return () -> result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the queue is full or the pool has shut down
+     */
+    @Override
+    public void execute(Runnable task) {
+        schedule(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // Runs the task on a worker, then what it returns once the task is counted, so a
+    // caller woken by its result sees the metrics include it
+    private void schedule(Supplier<Runnable> task) {
+        long enqueued = System.nanoTime();
+        int depth = queued.incrementAndGet();
+        try {
+            executor.execute(() -> run(task, enqueued));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            throw e;
+        }
+        submitted.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    private void run(Supplier<Runnable> task, long enqueued) {
+        long started = System.nanoTime();
+        queued.decrementAndGet();
+        queueNanos.addAndGet(started - enqueued);
+        Runnable publish = null;
+        try {
+            publish = task.get();
+        } catch (RuntimeException e) {
+            logger.error("Crypto task failed", e);
+        } finally {
+            runNanos.addAndGet(System.nanoTime() - started);
+            completed.incrementAndGet();
+        }
+        if (publish != null) {
+            publish.run();
+        }
+    }
+
+    /**
+     * Whether enough work is waiting that new, optional work should be turned away
+     */
+    public boolean isSaturated() {
+        return queued.get() >= admissionLimit;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Crypto worker pool shutdown interrupted");
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Getters
+    public int getWorkers() { return workers; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public int getQueueDepth() { return queued.get(); }
+    public int getMaxQueueDepth() { return maxQueueDepth.get(); }
+    public int getActiveWorkers() { return executor.getActiveCount(); }
+    public long getSubmittedCount() { return submitted.get(); }
+    public long getCompletedCount() { return completed.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+
+    /**
+     * Average time a task waited for a worker
+     */
+    public double getAverageQueueMillis() {
+        return averageMillis(queueNanos.get(), completed.get());
+    }
+
+    /**
+     * Average time a task ran once it had a worker
+     */
+    public double getAverageRunMillis() {
+        return averageMillis(runNanos.get(), completed.get());
+    }
+
+    private static double averageMillis(long nanos, long count) {
+        return count == 0 ? 0 : nanos / 1e6 / count;
+    }
+}
@@ -0,0 +1,82 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import org.bouncycastle.pqc.jcajce.interfaces.DilithiumKey;
+import org.bouncycastle.pqc.jcajce.spec.DilithiumParameterSpec;
+
+import java.security.Key;
+
+/**
+ * Dilithium parameter sets a node can sign with. Higher levels are stronger but
+ * have larger keys and signatures and are slower; run DilithiumBenchmark to compare.
+ *
+ * Each node picks its own level. Every key carries its level, so peers verify any
+ * mix of levels without agreeing on one.
+ */
+public enum DilithiumLevel {
+    DILITHIUM2((byte) 2, DilithiumParameterSpec.dilithium2),
+    DILITHIUM3((byte) 3, DilithiumParameterSpec.dilithium3),
+    DILITHIUM5((byte) 5, DilithiumParameterSpec.dilithium5);
+
+    public static final DilithiumLevel DEFAULT = DILITHIUM3;
+
+    private final byte id;
+    private final DilithiumParameterSpec parameterSpec;
+
+    DilithiumLevel(byte id, DilithiumParameterSpec parameterSpec) {
+        this.id = id;
+        this.parameterSpec = parameterSpec;
+    }
+
+    /**
+     * The NIST security level, which is also the ID sent in handshakes
+     */
+    public byte getId() {
+        return id;
+    }
+
+    public DilithiumParameterSpec getParameterSpec() {
+        return parameterSpec;
+    }
+
+    /**
+     * @return the level with this ID, or null if it is not one we know
+     */
+    public static DilithiumLevel fromId(byte id) {
+        for (DilithiumLevel level : values()) {
+            if (level.id == id) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a configured level: "2", "dilithium2" and "DILITHIUM2" all name the same one.
+     * @throws IllegalArgumentException if the value names no level
+     */
+    public static DilithiumLevel parse(String value) {
+        String name = value.trim().toUpperCase();
+        for (DilithiumLevel level : values()) {
+            if (level.name().equals(name) || String.valueOf(level.id).equals(name)) {
+                return level;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Dilithium level: " + value);
+    }
+
+    /**
+     * @return the level of a Dilithium key, or null if it is not a Dilithium key
+     */
+    public static DilithiumLevel of(Key key) {
+        if (!(key instanceof DilithiumKey)) {
+            return null;
+        }
+        String name = ((DilithiumKey) key).getParameterSpec().getName();
+        for (DilithiumLevel level : values()) {
+            if (level.parameterSpec.getName().equalsIgnoreCase(name)) {
+                return level;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,165 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.UUID;
+
+/**
+ * Keeps a node's identity on disk so that it survives restarts.
+ *
+ * The first call to {@link #loadOrCreate} reads the file in one go (it is a few KB)
+ * and decodes the key pair; later calls return the same identity. If there is no
+ * file yet, a new node ID and key pair are generated and written out, so only the
+ * very first start pays for key generation. New key pairs are generated at the
+ * store's {@link DilithiumLevel}; a stored key pair keeps the level it was made with.
+ *
+ * The file holds the private key in the clear and is created readable by its owner only.
+ */
+public class IdentityStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdentityStore.class);
+    private static final int MAGIC = 0x4C424944;  // "LBID"
+    private static final byte FORMAT_VERSION = 1;
+    private static final int MAX_FIELD_LENGTH = 64 * 1024;
+
+    private final Path path;
+    private final DilithiumLevel level;
+    private volatile NodeIdentity identity;
+
+    public IdentityStore(Path path) {
+        this(path, DilithiumLevel.DEFAULT);
+    }
+
+    /**
+     * @param level the level to generate a key pair at if there is no stored identity yet
+     */
+    public IdentityStore(Path path, DilithiumLevel level) {
+        this.path = path;
+        this.level = level;
+    }
+
+    /**
+     * Returns the stored identity, creating and saving a new one if there is none.
+     * @throws IOException if the file cannot be read or written, or is not a valid identity
+     */
+    public NodeIdentity loadOrCreate() throws IOException {
+        NodeIdentity loaded = identity;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (this) {
+            if (identity == null) {
+                if (Files.exists(path)) {
+                    identity = read();
+                    logger.info("Loaded node identity {} from {}", identity.getNodeId(), path);
+                    DilithiumLevel stored = DilithiumLevel.of(identity.getKeyPair().getPublic());
+                    if (stored != level) {
+                        // Changing the key would make us a stranger to every peer that knows us
+                        logger.warn("Stored identity signs at {}, not the configured {}; "
+                                + "delete {} to start over with a new key", stored, level, path);
+                    }
+                } else {
+                    identity = new NodeIdentity(UUID.randomUUID().toString(),
+                            QuantumResistantCrypto.generateKeyPair(level));
+                    write(identity);
+                    logger.info("Created node identity {} in {}", identity.getNodeId(), path);
+                }
+            }
+            return identity;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    private NodeIdentity read() throws IOException {
+        try {
+            return decode(new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path))));
+        } catch (EOFException e) {
+            throw new IOException("Truncated identity file: " + path, e);
+        }
+    }
+
+    private NodeIdentity decode(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a node identity file: " + path);
+        }
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported identity format version " + version + " in " + path);
+        }
+        String nodeId = new String(readField(in), StandardCharsets.UTF_8);
+        byte[] publicKey = readField(in);
+        byte[] privateKey = readField(in);
+        try {
+            return new NodeIdentity(nodeId, QuantumResistantCrypto.decodeKeyPair(publicKey, privateKey));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Invalid key pair in " + path, e);
+        }
+    }
+
+    private void write(NodeIdentity identity) throws IOException {
+        KeyPair keyPair = identity.getKeyPair();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        writeField(out, identity.getNodeId().getBytes(StandardCharsets.UTF_8));
+        writeField(out, keyPair.getPublic().getEncoded());
+        writeField(out, keyPair.getPrivate().getEncoded());
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        // Written next to the target and moved over it, so a crash never leaves half a file
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            restrictToOwner(temp);
+            Files.write(temp, bytes.toByteArray());
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void restrictToOwner(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system; rely on the directory's permissions
+        }
+    }
+
+    private static void writeField(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private byte[] readField(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FIELD_LENGTH) {
+            throw new IOException("Corrupt identity file " + path + ": field length " + length);
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+}
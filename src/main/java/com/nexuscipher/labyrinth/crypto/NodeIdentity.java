@@ -0,0 +1,21 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import java.security.KeyPair;
+
+/**
+ * A node's ID together with the Dilithium key pair it signs handshakes with.
+ * Peers that kept our key from an earlier handshake recognize us as long as both stay the same.
+ */
+public final class NodeIdentity {
+    private final String nodeId;
+    private final KeyPair keyPair;
+
+    public NodeIdentity(String nodeId, KeyPair keyPair) {
+        this.nodeId = nodeId;
+        this.keyPair = keyPair;
+    }
+
+    // Getters
+    public String getNodeId() { return nodeId; }
+    public KeyPair getKeyPair() { return keyPair; }
+}
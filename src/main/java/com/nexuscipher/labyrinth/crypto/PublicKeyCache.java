@@ -0,0 +1,95 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.PublicKey;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of decoded public keys, keyed by their X.509 encoding.
+ *
+ * Peers present the same Dilithium key at every handshake step and on every
+ * reconnect; decoding it once saves the parse on each verification. Entries are
+ * evicted oldest-first once the cache is full.
+ */
+public class PublicKeyCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final PublicKeyCache SHARED = new PublicKeyCache(DEFAULT_CAPACITY);
+
+    private final int capacity;
+    private final Map<ByteBuffer, PublicKey> keys;
+    private final Queue<ByteBuffer> insertionOrder;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    public PublicKeyCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keys = new ConcurrentHashMap<>();
+        this.insertionOrder = new ConcurrentLinkedQueue<>();
+        this.hits = new AtomicLong(0);
+        this.misses = new AtomicLong(0);
+        this.evictions = new AtomicLong(0);
+    }
+
+    /**
+     * Process-wide cache used by default by every {@link QuantumResistantCrypto}.
+     */
+    public static PublicKeyCache shared() {
+        return SHARED;
+    }
+
+    public PublicKey get(byte[] encoded) {
+        PublicKey key = keys.get(ByteBuffer.wrap(encoded));
+        if (key != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return key;
+    }
+
+    public void put(byte[] encoded, PublicKey key) {
+        // Copied so a caller reusing its array cannot change the entry's identity
+        ByteBuffer id = ByteBuffer.wrap(encoded.clone());
+        if (keys.putIfAbsent(id, key) == null) {
+            insertionOrder.add(id);
+            while (keys.size() > capacity) {
+                ByteBuffer oldest = insertionOrder.poll();
+                if (oldest == null) {
+                    break;
+                }
+                if (keys.remove(oldest) != null) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        keys.clear();
+        insertionOrder.clear();
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    // Getters
+    public int getCapacity() { return capacity; }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+}
@@ -3,27 +3,74 @@ package com.nexuscipher.labyrinth.crypto;
 import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
-import org.bouncycastle.pqc.jcajce.spec.DilithiumParameterSpec;  // For DILITHIUM_MODE_III
 
 import java.security.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public class QuantumResistantCrypto {
     private static final Logger logger = LoggerFactory.getLogger(QuantumResistantCrypto.class);
 
-    private KeyPair keyPair;
+    // Idle engines kept for reuse; more may exist while many threads sign at once
+    private static final int MAX_POOLED_ENGINES = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final KeyPair keyPair;
+    private final DilithiumLevel level;
+    private final PublicKeyCache keyCache;  // Null disables caching
+
+    // Signers stay initialized with our private key; verifiers are re-initialized per peer key
+    private final BlockingQueue<Signature> signers = new ArrayBlockingQueue<>(MAX_POOLED_ENGINES);
+    private final BlockingQueue<Signature> verifiers = new ArrayBlockingQueue<>(MAX_POOLED_ENGINES);
+
+    static {
+        // Register Bouncy Castle Provider
+        Security.addProvider(new BouncyCastlePQCProvider());
+    }
 
     public QuantumResistantCrypto() {
-        try {
-            // Register Bouncy Castle Provider
-            Security.addProvider(new BouncyCastlePQCProvider());
+        this(PublicKeyCache.shared());
+    }
+
+    /**
+     * @param keyCache cache for decoded peer keys, or null to decode on every verification
+     */
+    public QuantumResistantCrypto(PublicKeyCache keyCache) {
+        this(DilithiumLevel.DEFAULT, keyCache);
+    }
 
+    /**
+     * Generates a key pair at the given level.
+     */
+    public QuantumResistantCrypto(DilithiumLevel level, PublicKeyCache keyCache) {
+        this(generateKeyPair(level), keyCache);
+    }
+
+    /**
+     * Uses an existing key pair, such as one loaded from an {@link IdentityStore},
+     * so that no key generation happens at startup.
+     */
+    public QuantumResistantCrypto(KeyPair keyPair, PublicKeyCache keyCache) {
+        this.keyPair = keyPair;
+        this.level = DilithiumLevel.of(keyPair.getPublic());
+        this.keyCache = keyCache;
+        logger.info("Initialized quantum-resistant cryptography ({})", level);
+    }
+
+    /**
+     * Generates a new key pair at the default level.
+     */
+    public static KeyPair generateKeyPair() {
+        return generateKeyPair(DilithiumLevel.DEFAULT);
+    }
+
+    public static KeyPair generateKeyPair(DilithiumLevel level) {
+        try {
             // Generate quantum-resistant keys (we'll use Dilithium for now)
             KeyPairGenerator kpg = KeyPairGenerator.getInstance("Dilithium");
-            kpg.initialize(DilithiumParameterSpec.dilithium3);
-            keyPair = kpg.generateKeyPair();
-
-            logger.info("Initialized quantum-resistant cryptography");
+            kpg.initialize(level.getParameterSpec());
+            return kpg.generateKeyPair();
         } catch (NoSuchAlgorithmException e) {
             logger.error("Failed to initialize quantum-resistant cryptography", e);
             throw new RuntimeException(e);
@@ -32,31 +79,90 @@ public class QuantumResistantCrypto {
         }
     }
 
+    /**
+     * Restores a key pair from its X.509 and PKCS#8 encodings.
+     */
+    public static KeyPair decodeKeyPair(byte[] publicKey, byte[] privateKey) throws GeneralSecurityException {
+        KeyFactory factory = KeyFactory.getInstance("Dilithium");
+        return new KeyPair(factory.generatePublic(new X509EncodedKeySpec(publicKey)),
+                factory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)));
+    }
+
     public byte[] getPublicKey() {
         return keyPair.getPublic().getEncoded();
     }
 
+    /**
+     * The level our own key signs at
+     */
+    public DilithiumLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * The level of a peer's encoded public key, or null if it is not a valid Dilithium key.
+     */
+    public DilithiumLevel levelOf(byte[] publicKey) {
+        try {
+            return DilithiumLevel.of(decodePublicKey(publicKey));
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Signs with a pooled engine. Safe to call from any number of threads.
+     */
     public byte[] sign(byte[] data) throws SignatureException {
+        Signature signer = signers.poll();
         try {
-            Signature signature = Signature.getInstance("Dilithium");
-            signature.initSign(keyPair.getPrivate());
-            signature.update(data);
-            return signature.sign();
+            if (signer == null) {
+                signer = Signature.getInstance("Dilithium");
+                signer.initSign(keyPair.getPrivate());
+            }
+            signer.update(data);
+            // sign() resets the engine to its initialized state, ready for the next caller
+            byte[] result = signer.sign();
+            signers.offer(signer);
+            return result;
         } catch (NoSuchAlgorithmException | InvalidKeyException e) {
             throw new SignatureException("Failed to sign data", e);
         }
     }
 
+    /**
+     * Verifies with a pooled engine. Safe to call from any number of threads.
+     */
     public boolean verify(byte[] data, byte[] signature, byte[] publicKey) {
         try {
-            Signature verifier = Signature.getInstance("Dilithium");
-            verifier.initVerify(KeyFactory.getInstance("Dilithium")
-                    .generatePublic(new X509EncodedKeySpec(publicKey)));
+            Signature verifier = verifiers.poll();
+            if (verifier == null) {
+                verifier = Signature.getInstance("Dilithium");
+            }
+            verifier.initVerify(decodePublicKey(publicKey));
             verifier.update(data);
-            return verifier.verify(signature);
+            boolean valid = verifier.verify(signature);
+            // Engines that threw are dropped rather than returned in an unknown state
+            verifiers.offer(verifier);
+            return valid;
         } catch (Exception e) {
             logger.error("Failed to verify signature", e);
             return false;
         }
     }
-}
\ No newline at end of file
+
+    private PublicKey decodePublicKey(byte[] encoded) throws GeneralSecurityException {
+        PublicKey key = keyCache == null ? null : keyCache.get(encoded);
+        if (key == null) {
+            key = KeyFactory.getInstance("Dilithium").generatePublic(new X509EncodedKeySpec(encoded));
+            if (keyCache != null) {
+                keyCache.put(encoded, key);
+            }
+        }
+        return key;
+    }
+
+    public PublicKeyCache getKeyCache() {
+        return keyCache;
+    }
+}
@@ -0,0 +1,93 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Lets a peer we completed a full handshake with reconnect without Dilithium.
+ *
+ * Both sides derive the same ticket from the session keys of that handshake, so
+ * issuing one costs no extra message. A resuming peer proves it holds the ticket
+ * secret with an HMAC instead of a signature, and the new session is keyed from
+ * the ticket secret and two fresh challenges. Tickets are single use; each
+ * resumed session issues the next one.
+ */
+public final class ResumptionTicket {
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int ID_LENGTH = 16;
+    private static final String ID_LABEL = "labyrinth ticket id";
+
+    private final String peerId;
+    private final String ticketId;
+    private final byte[] secret;
+    private final long expiresAt;
+
+    private ResumptionTicket(String peerId, String ticketId, byte[] secret, long expiresAt) {
+        this.peerId = peerId;
+        this.ticketId = ticketId;
+        this.secret = secret;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Derives the ticket for resuming {@code session} with {@code peerId}. Both ends
+     * of the session get the same ticket ID and secret.
+     */
+    public static ResumptionTicket issue(String peerId, SessionCipher session, long lifetimeMillis)
+            throws GeneralSecurityException {
+        byte[] secret = session.getResumptionSecret();
+        byte[] id = Arrays.copyOf(mac(secret, ID_LABEL), ID_LENGTH);
+        return new ResumptionTicket(peerId, Base64.getEncoder().encodeToString(id), secret,
+                System.currentTimeMillis() + lifetimeMillis);
+    }
+
+    /**
+     * HMAC of the ticket secret over a label and the given fields, each length-prefixed
+     * so that no two field lists produce the same input.
+     */
+    public byte[] proof(String label, String... fields) throws GeneralSecurityException {
+        return mac(secret, label, fields);
+    }
+
+    public boolean verifyProof(byte[] proof, String label, String... fields) throws GeneralSecurityException {
+        return proof != null && MessageDigest.isEqual(proof, proof(label, fields));
+    }
+
+    /**
+     * Keys a new session from the ticket secret, see {@link SessionCipher#derive}.
+     */
+    public SessionCipher resume(byte[] context, boolean initiator) throws GeneralSecurityException {
+        return SessionCipher.derive(secret, context, initiator);
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    private static byte[] mac(byte[] key, String label, String... fields) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+        update(mac, label);
+        for (String field : fields) {
+            update(mac, field);
+        }
+        return mac.doFinal();
+    }
+
+    private static void update(Mac mac, String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        mac.update(bytes);
+    }
+
+    // Getters
+    public String getPeerId() { return peerId; }
+    public String getTicketId() { return ticketId; }
+    public long getExpiresAt() { return expiresAt; }
+}
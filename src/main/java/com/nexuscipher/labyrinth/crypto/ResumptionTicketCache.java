@@ -0,0 +1,123 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded store of resumption tickets, indexed by ticket ID for peers resuming
+ * with us and by peer ID for reconnecting to a peer ourselves.
+ *
+ * Every ticket for a peer stays redeemable by ID until it expires or is evicted,
+ * since the two sides may finish concurrent handshakes in a different order; only
+ * the newest is offered when we reconnect. Taking a ticket removes it, so each
+ * one is redeemed at most once, and nothing keeps its secret afterwards. Entries
+ * are evicted oldest-first once full. Both indexes are guarded by the cache's lock.
+ */
+public class ResumptionTicketCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final long DEFAULT_LIFETIME_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final int capacity;
+    private final long lifetimeMillis;
+    private final Map<String, ResumptionTicket> byId;    // Oldest first
+    private final Map<String, ResumptionTicket> byPeer;
+    private final AtomicLong issued;
+    private final AtomicLong redeemed;
+    private final AtomicLong expired;
+    private final AtomicLong evictions;
+
+    public ResumptionTicketCache(int capacity, long lifetimeMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (lifetimeMillis <= 0) {
+            throw new IllegalArgumentException("Ticket lifetime must be positive");
+        }
+        this.capacity = capacity;
+        this.lifetimeMillis = lifetimeMillis;
+        this.byId = new LinkedHashMap<>();
+        this.byPeer = new HashMap<>();
+        this.issued = new AtomicLong(0);
+        this.redeemed = new AtomicLong(0);
+        this.expired = new AtomicLong(0);
+        this.evictions = new AtomicLong(0);
+    }
+
+    public synchronized void put(ResumptionTicket ticket) {
+        byId.put(ticket.getTicketId(), ticket);
+        byPeer.put(ticket.getPeerId(), ticket);
+        issued.incrementAndGet();
+
+        // Tickets share one lifetime, so the oldest are also the first to expire
+        long now = System.currentTimeMillis();
+        Iterator<ResumptionTicket> oldestFirst = byId.values().iterator();
+        while (oldestFirst.hasNext()) {
+            ResumptionTicket oldest = oldestFirst.next();
+            if (byId.size() <= capacity && !oldest.isExpired(now)) {
+                break;
+            }
+            oldestFirst.remove();
+            byPeer.remove(oldest.getPeerId(), oldest);
+            if (oldest.isExpired(now)) {
+                expired.incrementAndGet();
+            } else {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the newest unexpired ticket for resuming with {@code peerId}.
+     */
+    public synchronized ResumptionTicket takeForPeer(String peerId) {
+        ResumptionTicket ticket = byPeer.get(peerId);
+        return ticket != null && remove(ticket) ? redeem(ticket) : null;
+    }
+
+    /**
+     * Removes and returns the unexpired ticket a peer presented, or null if it is unknown.
+     */
+    public synchronized ResumptionTicket take(String ticketId) {
+        ResumptionTicket ticket = byId.get(ticketId);
+        return ticket != null && remove(ticket) ? redeem(ticket) : null;
+    }
+
+    // True if the ticket was still held, so two takers cannot both get it
+    private boolean remove(ResumptionTicket ticket) {
+        if (!byId.remove(ticket.getTicketId(), ticket)) {
+            return false;
+        }
+        byPeer.remove(ticket.getPeerId(), ticket);
+        return true;
+    }
+
+    private ResumptionTicket redeem(ResumptionTicket ticket) {
+        if (ticket.isExpired(System.currentTimeMillis())) {
+            expired.incrementAndGet();
+            return null;
+        }
+        redeemed.incrementAndGet();
+        return ticket;
+    }
+
+    public synchronized void clear() {
+        byId.clear();
+        byPeer.clear();
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    // Getters
+    public int getCapacity() { return capacity; }
+    public long getLifetimeMillis() { return lifetimeMillis; }
+    public long getIssued() { return issued.get(); }
+    public long getRedeemed() { return redeemed.get(); }
+    public long getExpired() { return expired.get(); }
+    public long getEvictions() { return evictions.get(); }
+}
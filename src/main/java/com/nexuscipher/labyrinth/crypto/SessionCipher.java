@@ -0,0 +1,148 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Authenticated encryption for one connection once its handshake has agreed a
+ * shared secret, using AES-256-GCM.
+ *
+ * Each direction has its own key, derived from the secret with HKDF-SHA256, so the
+ * two sides can never produce the same key and nonce pair. Sealed records carry an
+ * 8-byte sequence number that is also the nonce; the receiver only accepts
+ * increasing sequence numbers, which rejects replayed and reordered records.
+ *
+ * Sealing and opening are each meant for a single thread (the connection's writer
+ * and reader) but are safe to call from several.
+ */
+public class SessionCipher {
+    public static final int SEQUENCE_LENGTH = 8;
+    public static final int TAG_LENGTH = 16;
+    /** Bytes a sealed record adds to its plaintext */
+    public static final int OVERHEAD = SEQUENCE_LENGTH + TAG_LENGTH;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String KDF_ALGORITHM = "HmacSHA256";
+    private static final int NONCE_LENGTH = 12;
+    // Records are encrypted in slices this size: the JIT only compiles the intrinsic
+    // AES-GCM path after many calls, which a handful of 1MB calls takes seconds to reach
+    private static final int SLICE_SIZE = 16 * 1024;
+    private static final String INITIATOR_LABEL = "labyrinth session initiator";
+    private static final String RESPONDER_LABEL = "labyrinth session responder";
+    private static final String RESUMPTION_LABEL = "labyrinth session resumption";
+
+    private final SecretKey sendKey;
+    private final SecretKey receiveKey;
+    private final byte[] resumptionSecret;  // Same on both sides, see ResumptionTicket
+    private final Cipher sealer;
+    private final Cipher opener;
+    private long nextSendSequence;          // Guarded by sealer
+    private long lastReceivedSequence = -1; // Guarded by opener
+
+    private SessionCipher(SecretKey sendKey, SecretKey receiveKey, byte[] resumptionSecret)
+            throws GeneralSecurityException {
+        this.sendKey = sendKey;
+        this.receiveKey = receiveKey;
+        this.resumptionSecret = resumptionSecret;
+        this.sealer = Cipher.getInstance(TRANSFORMATION);
+        this.opener = Cipher.getInstance(TRANSFORMATION);
+    }
+
+    /**
+     * Derives the session keys for one side of a handshake.
+     *
+     * @param sharedSecret secret agreed through {@link SessionKeyExchange}
+     * @param context      handshake transcript both sides know (e.g. the two challenges),
+     *                     so keys are unique to this handshake
+     * @param initiator    true on the side that sent HANDSHAKE_INIT
+     */
+    public static SessionCipher derive(byte[] sharedSecret, byte[] context, boolean initiator)
+            throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(KDF_ALGORITHM);
+        // HKDF extract, then one expand step per direction (32 bytes = one HMAC block)
+        mac.init(new SecretKeySpec(context.length == 0 ? new byte[mac.getMacLength()] : context,
+                KDF_ALGORITHM));
+        byte[] pseudoRandomKey = mac.doFinal(sharedSecret);
+        SecretKey initiatorKey = expand(mac, pseudoRandomKey, INITIATOR_LABEL);
+        SecretKey responderKey = expand(mac, pseudoRandomKey, RESPONDER_LABEL);
+        byte[] resumptionSecret = expand(mac, pseudoRandomKey, RESUMPTION_LABEL).getEncoded();
+        return initiator
+                ? new SessionCipher(initiatorKey, responderKey, resumptionSecret)
+                : new SessionCipher(responderKey, initiatorKey, resumptionSecret);
+    }
+
+    private static SecretKey expand(Mac mac, byte[] pseudoRandomKey, String label)
+            throws GeneralSecurityException {
+        mac.init(new SecretKeySpec(pseudoRandomKey, KDF_ALGORITHM));
+        mac.update(label.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 1);
+        return new SecretKeySpec(mac.doFinal(), "AES");
+    }
+
+    /**
+     * Encrypts the remaining bytes of {@code plaintext} (read in order, positions
+     * untouched) into one record: sequence number, ciphertext, tag.
+     */
+    public byte[] seal(ByteBuffer... plaintext) throws GeneralSecurityException {
+        int length = 0;
+        for (ByteBuffer segment : plaintext) {
+            length += segment.remaining();
+        }
+        byte[] sealed = new byte[SEQUENCE_LENGTH + length + TAG_LENGTH];
+        ByteBuffer output = ByteBuffer.wrap(sealed);
+        synchronized (sealer) {
+            long sequence = nextSendSequence++;
+            output.putLong(sequence);
+            sealer.init(Cipher.ENCRYPT_MODE, sendKey, nonce(sequence));
+            for (ByteBuffer segment : plaintext) {
+                ByteBuffer input = segment.duplicate();
+                int end = input.limit();
+                while (input.position() < end) {
+                    input.limit(Math.min(end, input.position() + SLICE_SIZE));
+                    sealer.update(input, output);
+                }
+            }
+            sealer.doFinal(ByteBuffer.allocate(0), output);
+        }
+        return sealed;
+    }
+
+    /**
+     * Decrypts and authenticates a record from {@link #seal}.
+     * @throws GeneralSecurityException if the record was modified, replayed or reordered
+     */
+    public byte[] open(byte[] sealed) throws GeneralSecurityException {
+        if (sealed.length < OVERHEAD) {
+            throw new GeneralSecurityException("Sealed record too short: " + sealed.length);
+        }
+        long sequence = ByteBuffer.wrap(sealed).getLong();
+        synchronized (opener) {
+            if (sequence <= lastReceivedSequence) {
+                throw new GeneralSecurityException("Replayed or reordered record " + sequence);
+            }
+            opener.init(Cipher.DECRYPT_MODE, receiveKey, nonce(sequence));
+            // One call: GCM withholds decrypted output until the tag checks out, so
+            // slicing would only add buffering (sealing already warms up the JIT)
+            byte[] plaintext = opener.doFinal(sealed, SEQUENCE_LENGTH, sealed.length - SEQUENCE_LENGTH);
+            lastReceivedSequence = sequence;
+            return plaintext;
+        }
+    }
+
+    // Independent of both traffic keys, so a ticket reveals nothing about this session
+    byte[] getResumptionSecret() {
+        return resumptionSecret.clone();
+    }
+
+    private static GCMParameterSpec nonce(long sequence) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        ByteBuffer.wrap(nonce).putLong(NONCE_LENGTH - SEQUENCE_LENGTH, sequence);
+        return new GCMParameterSpec(TAG_LENGTH * 8, nonce);
+    }
+}
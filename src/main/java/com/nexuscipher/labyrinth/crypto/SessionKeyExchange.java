@@ -0,0 +1,79 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import org.bouncycastle.jcajce.SecretKeyWithEncapsulation;
+import org.bouncycastle.jcajce.spec.KEMExtractSpec;
+import org.bouncycastle.jcajce.spec.KEMGenerateSpec;
+import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.bouncycastle.pqc.jcajce.spec.KyberParameterSpec;
+
+import javax.crypto.KeyGenerator;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Post-quantum key agreement for the handshake, using the Kyber KEM (ML-KEM-768).
+ *
+ * The initiator sends a fresh public key, the responder encapsulates a random
+ * secret to it, and only the initiator's private key can recover that secret.
+ * Key pairs are ephemeral: one per handshake, never stored.
+ */
+public final class SessionKeyExchange {
+    private static final String ALGORITHM = "Kyber";
+    // Only the encapsulated secret is used; the key algorithm name just labels it
+    private static final String SECRET_ALGORITHM = "AES";
+
+    static {
+        Security.addProvider(new BouncyCastlePQCProvider());
+    }
+
+    private SessionKeyExchange() {
+    }
+
+    public static KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(ALGORITHM);
+        generator.initialize(KyberParameterSpec.kyber768);
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Creates a new shared secret for the holder of {@code encodedPublicKey}.
+     */
+    public static Encapsulation encapsulate(byte[] encodedPublicKey) throws GeneralSecurityException {
+        PublicKey publicKey = KeyFactory.getInstance(ALGORITHM)
+                .generatePublic(new X509EncodedKeySpec(encodedPublicKey));
+        KeyGenerator generator = KeyGenerator.getInstance(ALGORITHM);
+        generator.init(new KEMGenerateSpec(publicKey, SECRET_ALGORITHM));
+        SecretKeyWithEncapsulation secret = (SecretKeyWithEncapsulation) generator.generateKey();
+        return new Encapsulation(secret.getEncoded(), secret.getEncapsulation());
+    }
+
+    /**
+     * Recovers the shared secret the peer encapsulated to our public key.
+     */
+    public static byte[] decapsulate(PrivateKey privateKey, byte[] encapsulation)
+            throws GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance(ALGORITHM);
+        generator.init(new KEMExtractSpec(privateKey, encapsulation, SECRET_ALGORITHM));
+        return generator.generateKey().getEncoded();
+    }
+
+    public static final class Encapsulation {
+        private final byte[] secret;
+        private final byte[] encapsulation;
+
+        Encapsulation(byte[] secret, byte[] encapsulation) {
+            this.secret = secret;
+            this.encapsulation = encapsulation;
+        }
+
+        // Getters
+        public byte[] getSecret() { return secret; }
+        public byte[] getEncapsulation() { return encapsulation; }
+    }
+}
@@ -0,0 +1,213 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs signature verifications off the caller's thread.
+ *
+ * Requests are queued and taken in batches by at most {@code workers} drain
+ * tasks at a time, so a burst of handshakes is spread over a fixed number of
+ * cores while I/O threads only enqueue. The worker bound holds in both execution
+ * modes; in virtual mode it just means the drain tasks run on virtual threads.
+ *
+ * Built on a {@link CryptoWorkerPool}, the drain tasks share the pool's workers
+ * with the node's other crypto work instead of having threads of their own. The
+ * pool then only ever sees the drain tasks, not the verifications waiting for
+ * them, so callers deciding whether to admit new work check {@link #isSaturated()}
+ * as well as the pool's.
+ */
+public class SignatureVerificationService {
+    private static final Logger logger = LoggerFactory.getLogger(SignatureVerificationService.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final int MAX_BATCH_SIZE = 16;
+    // Share of the queue in use at which new handshakes are turned away
+    public static final double DEFAULT_ADMISSION_THRESHOLD = CryptoWorkerPool.DEFAULT_ADMISSION_THRESHOLD;
+
+    private final QuantumResistantCrypto crypto;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;  // Null when running on a shared pool
+    private final int workers;
+    private final int queueCapacity;
+    private final int admissionLimit;
+    private final Queue<VerifyRequest> pending;
+    private final AtomicInteger pendingCount;
+    private final AtomicInteger activeDrainers;
+    private final AtomicLong batches;
+    private final AtomicLong verifications;
+
+    private static final class VerifyRequest {
+        final byte[] data;
+        final byte[] signature;
+        final byte[] publicKey;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        VerifyRequest(byte[] data, byte[] signature, byte[] publicKey) {
+            this.data = data;
+            this.signature = signature;
+            this.publicKey = publicKey;
+        }
+    }
+
+    public SignatureVerificationService(QuantumResistantCrypto crypto, int workers) {
+        this(crypto, workers, DEFAULT_QUEUE_CAPACITY, ExecutionMode.current());
+    }
+
+    public SignatureVerificationService(QuantumResistantCrypto crypto, int workers,
+                                        int queueCapacity, ExecutionMode executionMode) {
+        if (workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Workers and queue capacity must be positive");
+        }
+        this.crypto = crypto;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.admissionLimit = admissionLimit(queueCapacity);
+        this.ownedExecutor = ExecutorFactory.newWorkerExecutor(executionMode, "crypto-verify", workers);
+        this.executor = ownedExecutor;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.pendingCount = new AtomicInteger(0);
+        this.activeDrainers = new AtomicInteger(0);
+        this.batches = new AtomicLong(0);
+        this.verifications = new AtomicLong(0);
+    }
+
+    /**
+     * Verifies on the shared pool, draining on at most all of its workers at once.
+     * Shutting this service down leaves the pool running.
+     */
+    public SignatureVerificationService(QuantumResistantCrypto crypto, CryptoWorkerPool pool) {
+        this.crypto = crypto;
+        this.workers = pool.getWorkers();
+        this.queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        this.admissionLimit = admissionLimit(queueCapacity);
+        this.ownedExecutor = null;
+        this.executor = pool;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.pendingCount = new AtomicInteger(0);
+        this.activeDrainers = new AtomicInteger(0);
+        this.batches = new AtomicLong(0);
+        this.verifications = new AtomicLong(0);
+    }
+
+    /**
+     * Queues a verification. The future completes on a worker thread, or
+     * exceptionally with {@link RejectedExecutionException} if the queue is full.
+     */
+    public CompletableFuture<Boolean> verify(byte[] data, byte[] signature, byte[] publicKey) {
+        VerifyRequest request = new VerifyRequest(data, signature, publicKey);
+        if (pendingCount.incrementAndGet() > queueCapacity) {
+            pendingCount.decrementAndGet();
+            request.result.completeExceptionally(
+                    new RejectedExecutionException("Verification queue is full"));
+            return request.result;
+        }
+        pending.add(request);
+        startDrainerIfNeeded();
+        return request.result;
+    }
+
+    private static int admissionLimit(int queueCapacity) {
+        return Math.max(1, (int) (queueCapacity * DEFAULT_ADMISSION_THRESHOLD));
+    }
+
+    /**
+     * Whether enough verifications are waiting that new, optional work should be turned
+     * away, well before the queue fills and starts failing requests already admitted
+     */
+    public boolean isSaturated() {
+        return pendingCount.get() >= admissionLimit;
+    }
+
+    private void startDrainerIfNeeded() {
+        while (true) {
+            int active = activeDrainers.get();
+            if (active >= workers || pending.isEmpty()) {
+                return;
+            }
+            if (activeDrainers.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    activeDrainers.decrementAndGet();
+                    failPending(e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            VerifyRequest request;
+            int batch = 0;
+            while ((request = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                // Counted before completing, so callers see the metrics include their request
+                if (batch++ == 0) {
+                    batches.incrementAndGet();
+                }
+                verifications.incrementAndGet();
+                try {
+                    request.result.complete(crypto.verify(request.data, request.signature, request.publicKey));
+                } catch (RuntimeException e) {
+                    request.result.completeExceptionally(e);
+                }
+                // Hand the thread back between batches so other pool work is not starved
+                if (batch == MAX_BATCH_SIZE) {
+                    break;
+                }
+            }
+        } finally {
+            activeDrainers.decrementAndGet();
+            startDrainerIfNeeded();
+        }
+    }
+
+    private void failPending(Exception cause) {
+        VerifyRequest request;
+        while ((request = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            request.result.completeExceptionally(cause);
+        }
+    }
+
+    public void shutdown() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+            try {
+                if (!ownedExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    ownedExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                logger.warn("Verification service shutdown interrupted");
+                ownedExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        failPending(new RejectedExecutionException("Verification service shut down"));
+    }
+
+    // Getters
+    public int getQueueDepth() { return pendingCount.get(); }
+    public int getWorkers() { return workers; }
+    public long getBatchCount() { return batches.get(); }
+    public long getVerificationCount() { return verifications.get(); }
+
+    public double getAverageBatchSize() {
+        long count = batches.get();
+        return count == 0 ? 0 : (double) verifications.get() / count;
+    }
+}
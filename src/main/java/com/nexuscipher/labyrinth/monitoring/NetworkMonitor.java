@@ -6,6 +6,8 @@ import com.nexuscipher.labyrinth.core.PeerConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.nexuscipher.labyrinth.network.ConnectionManager;
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -33,13 +35,21 @@ public class NetworkMonitor {
     private final Queue<NetworkEvent> eventHistory;
 
     public NetworkMonitor(String nodeId, ConnectionManager connectionManager) {
+        this(nodeId, connectionManager, ExecutionMode.current());
+    }
+
+    public NetworkMonitor(String nodeId, ConnectionManager connectionManager,
+                          ExecutionMode executionMode) {
         this.nodeId = nodeId;
         this.connectionManager = connectionManager;
         this.peerHealth = new ConcurrentHashMap<>();
-        this.scheduler = Executors.newScheduledThreadPool(2);
+        this.scheduler = ExecutorFactory.newScheduler(executionMode, "network-monitor", 2);
         this.metrics = new NetworkMetrics();
         this.eventHistory = new ConcurrentLinkedQueue<>();
 
+        // Any message from a verified peer shows it is alive
+        connectionManager.setPeerActivityListener(this::recordActivity);
+
         // Start health monitoring
         startMonitoring();
     }
@@ -75,12 +85,31 @@ public class NetworkMonitor {
 
             if (health.checkHealth()) {
                 logger.debug("Peer {} is healthy", peer.getPeerId());
+                measureLatency(peer.getPeerId(), health);
             } else {
                 handleUnhealthyPeer(peer);
             }
         });
     }
 
+    // The reply also counts as traffic, so a quiet but live peer stays healthy
+    private void measureLatency(String peerId, PeerHealth health) {
+        connectionManager.ping(peerId).whenComplete((rtt, error) -> {
+            if (error != null) {
+                logger.debug("Ping to peer {} failed: {}", peerId, error.getMessage());
+                health.incrementErrorCount();
+            } else {
+                recordLatency(peerId, rtt);
+            }
+        });
+    }
+
+    private void recordActivity(String peerId) {
+        PeerHealth health = peerHealth.computeIfAbsent(peerId, id -> new PeerHealth());
+        health.updateLastSeen();
+        health.incrementMessageCount();
+    }
+
     private void handleUnhealthyPeer(PeerConnection peer) {
         logger.warn("Detected unhealthy peer: {}", peer.getPeerId());
 
@@ -101,7 +130,8 @@ public class NetworkMonitor {
         // Implement exponential backoff for reconnection attempts
         PeerHealth health = peerHealth.get(peer.getPeerId());
         if (health.shouldAttemptReconnect()) {
-            connectionManager.connectToPeer(peer.getAddress(), peer.getPort());
+            // By peer ID, so a ticket from the last handshake can be used to resume
+            connectionManager.connectToPeer(peer.getPeerId(), peer.getAddress(), peer.getPort());
             health.recordReconnectionAttempt();
         } else {
             logger.error("Exceeded maximum reconnection attempts for peer: {}",
@@ -109,6 +139,28 @@ public class NetworkMonitor {
         }
     }
 
+    /**
+     * Records a round-trip latency measured to a peer. The monitor pings every
+     * healthy peer on each health check and records the replies itself.
+     */
+    public void recordLatency(String peerId, long latencyMs) {
+        peerHealth.computeIfAbsent(peerId, id -> new PeerHealth()).recordLatency(latencyMs);
+    }
+
+    /**
+     * Latest ping round trip in ms for each healthy peer, for link-state advertisements;
+     * 0 until the first reply
+     */
+    public Map<String, Long> getPeerLatencies() {
+        Map<String, Long> latencies = new HashMap<>();
+        peerHealth.forEach((peerId, health) -> {
+            if (health.checkHealth()) {
+                latencies.put(peerId, health.getLatency());
+            }
+        });
+        return latencies;
+    }
+
     public NetworkStats getNetworkStats() {
         return new NetworkStats(
                 peerHealth.size(),
@@ -0,0 +1,201 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.network.protocol.BinaryMessageCodec;
+import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thread-per-connection handler: {@link #run()} blocks reading frames from the socket.
+ * Writes are drained from the outbound queue by a task on the write executor,
+ * at most one at a time per connection.
+ */
+public class BlockingMessageHandler extends MessageHandler implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(BlockingMessageHandler.class);
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final Socket socket;
+    private final QuantumResistantCrypto crypto;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final MessageCodec codec;
+    private final AtomicBoolean isRunning;
+    private final Executor writeExecutor;
+    private final AtomicBoolean writeScheduled;
+
+    public BlockingMessageHandler(Socket socket, String nodeId, QuantumResistantCrypto crypto,
+                                  ConnectionManager connectionManager) throws IOException {
+        this(socket, nodeId, crypto, connectionManager, BinaryMessageCodec.INSTANCE);
+    }
+
+    public BlockingMessageHandler(Socket socket, String nodeId, QuantumResistantCrypto crypto,
+                                  ConnectionManager connectionManager,
+                                  MessageCodec preferredCodec) throws IOException {
+        super(nodeId, connectionManager);
+        this.socket = socket;
+        this.crypto = crypto;
+        this.writeExecutor = connectionManager.getWriteExecutor();
+        this.writeScheduled = new AtomicBoolean(false);
+        this.out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER_SIZE));
+        this.in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream(), STREAM_BUFFER_SIZE));
+        this.codec = negotiateCodec(preferredCodec);
+        this.isRunning = new AtomicBoolean(true);
+    }
+
+    /**
+     * Both sides announce their preferred codec before anything else is sent.
+     */
+    private MessageCodec negotiateCodec(MessageCodec preferredCodec) throws IOException {
+        // Write our preference first to prevent deadlock
+        out.writeShort(CODEC_HELLO_MAGIC);
+        out.writeByte(preferredCodec.getId());
+        out.flush();
+
+        checkPreambleMagic(in.readShort());
+        MessageCodec negotiated = selectCodec(preferredCodec, in.readByte());
+        logger.debug("Negotiated message codec {} with {}",
+                negotiated.getId(), socket.getRemoteSocketAddress());
+        return negotiated;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (isRunning.get() && !socket.isClosed()) {
+                Message message = readFrame();
+                // Pass the message to connection manager along with this handler
+                connectionManager.handleMessage(message, this);
+            }
+        } catch (IOException e) {
+            logger.error("Connection error with peer at {}: {}",
+                    socket.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            cleanup();
+        }
+    }
+
+    private Message readFrame() throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return codec.decode(payload);
+    }
+
+    @Override
+    protected void scheduleWrite() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            writeExecutor.execute(this::drainOutbound);
+        }
+    }
+
+    /**
+     * Single writer: takes queued messages until the batch reaches MAX_BATCH_FRAMES
+     * or MAX_BATCH_BYTES, writes them through the buffered stream and flushes once
+     * for the whole batch.
+     */
+    private void drainOutbound() {
+        do {
+            Message message;
+            while (isActive() && (message = outbound.poll()) != null) {
+                try {
+                    int frames = 0;
+                    long bytes = 0;
+                    do {
+                        bytes += writeFrame(encodePayload(codec, message));
+                        frames++;
+                    } while (frames < MAX_BATCH_FRAMES && bytes < MAX_BATCH_BYTES
+                            && (message = outbound.poll()) != null);
+                    out.flush();
+                    writeMetrics.recordBatch(frames, bytes);
+                    logger.debug("Sent {} messages ({} bytes) to {}",
+                            frames, bytes, socket.getRemoteSocketAddress());
+                } catch (IOException e) {
+                    logger.error("Failed to send message to {}: {}",
+                            socket.getRemoteSocketAddress(), e.getMessage());
+                    close();
+                }
+            }
+            writeScheduled.set(false);
+        } while (isActive() && !outbound.isEmpty() && writeScheduled.compareAndSet(false, true));
+    }
+
+    private long writeFrame(ByteBuffer[] segments) throws IOException {
+        int length = 0;
+        for (ByteBuffer segment : segments) {
+            length += segment.remaining();
+        }
+        out.writeInt(length);
+        for (ByteBuffer segment : segments) {
+            writeSegment(segment);
+        }
+        return FRAME_HEADER_LENGTH + length;
+    }
+
+    // Large heap segments bypass the stream buffer; direct and mapped ones are copied through it
+    private void writeSegment(ByteBuffer segment) throws IOException {
+        if (segment.hasArray()) {
+            out.write(segment.array(), segment.arrayOffset() + segment.position(), segment.remaining());
+            return;
+        }
+        ByteBuffer source = segment.duplicate();
+        byte[] transfer = new byte[Math.min(source.remaining(), STREAM_BUFFER_SIZE)];
+        while (source.hasRemaining()) {
+            int count = Math.min(source.remaining(), transfer.length);
+            source.get(transfer, 0, count);
+            out.write(transfer, 0, count);
+        }
+    }
+
+    @Override
+    public void close() {
+        isRunning.set(false);
+        cleanup();
+        outbound.clear();
+    }
+
+    private void cleanup() {
+        try {
+            if (in != null) in.close();
+            if (out != null) out.close();
+            if (socket != null && !socket.isClosed()) {
+                socket.close();
+                logger.info("Closed connection to {}", socket.getRemoteSocketAddress());
+            }
+        } catch (IOException e) {
+            logger.error("Error during connection cleanup: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Socket getSocket() {
+        return socket;
+    }
+
+    @Override
+    public MessageCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public boolean isActive() {
+        return isRunning.get() && !socket.isClosed();
+    }
+}
@@ -0,0 +1,218 @@
+package com.nexuscipher.labyrinth.network;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Probabilistic {@link DuplicateFilter} for floods in large meshes, at a few bytes
+ * per message instead of a string and a map entry.
+ *
+ * IDs go into the current of two Bloom filters, and lookups check both. The pair
+ * rotates when the current filter is a window old or has taken its expected number
+ * of messages: the previous filter is dropped and an empty one takes over. An ID is
+ * therefore remembered for at least one window, unless traffic exceeds the expected
+ * rate, in which case the false-positive rate is kept and the memory is shortened.
+ *
+ * A false positive makes this node drop a flood it has never seen, so the flood
+ * is not relayed from here and reaches the rest of the mesh only through other
+ * paths. Callers must not use it to decide whether to deliver a message, as
+ * RoutingManager checks floods addressed to itself exactly. Each ID is reduced to
+ * a 128-bit hash once, and its bit positions are derived from the two halves.
+ */
+public class BloomDuplicateFilter implements DuplicateFilter {
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+
+    private static final double LN2 = Math.log(2);
+
+    private final long windowMillis;
+    private final int capacity;  // Messages per filter before it rotates early
+    private final long bitCount;
+    private final int hashCount;
+    private final LongSupplier clock;
+    private volatile Filter current;
+    private volatile Filter previous;
+    private final AtomicLong hits;
+    private final AtomicLong inserts;
+    private final AtomicLong rotations;
+
+    // One Bloom filter and what it has taken so far
+    private static final class Filter {
+        private final AtomicLongArray words;
+        private final AtomicInteger count;
+        private final long startedAt;
+
+        Filter(long bitCount, long startedAt) {
+            this.words = new AtomicLongArray((int) (bitCount >>> 6));
+            this.count = new AtomicInteger();
+            this.startedAt = startedAt;
+        }
+    }
+
+    public BloomDuplicateFilter(long windowMillis, int expectedMessages) {
+        this(windowMillis, expectedMessages, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * @param expectedMessages messages expected per window
+     * @param falsePositiveRate chance that a new ID is reported as a duplicate
+     */
+    public BloomDuplicateFilter(long windowMillis, int expectedMessages, double falsePositiveRate) {
+        this(windowMillis, expectedMessages, falsePositiveRate, System::currentTimeMillis);
+    }
+
+    BloomDuplicateFilter(long windowMillis, int expectedMessages, double falsePositiveRate, LongSupplier clock) {
+        if (windowMillis <= 0 || expectedMessages <= 0) {
+            throw new IllegalArgumentException("Window and expected messages must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        // Lookups check two filters, so each gets half the error budget
+        double perFilterRate = falsePositiveRate / 2;
+        long bits = (long) Math.ceil(-expectedMessages * Math.log(perFilterRate) / (LN2 * LN2));
+        this.bitCount = Math.max(64, (bits + 63) & ~63L);
+        if (bitCount >>> 6 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter for " + expectedMessages + " messages is too large");
+        }
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedMessages * LN2));
+        this.windowMillis = windowMillis;
+        this.capacity = expectedMessages;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.current = new Filter(bitCount, now);
+        this.previous = new Filter(bitCount, now);
+        this.hits = new AtomicLong(0);
+        this.inserts = new AtomicLong(0);
+        this.rotations = new AtomicLong(0);
+    }
+
+    @Override
+    public boolean markSeen(String messageId) {
+        UUID key = key(messageId);
+        long h1 = mix(key.getMostSignificantBits());
+        long h2 = mix(key.getLeastSignificantBits()) | 1;  // Odd, so the k positions never collapse onto one
+        Filter filter = advance();
+        if (mightContain(previous, h1, h2) || !add(filter, h1, h2)) {
+            hits.incrementAndGet();
+            return false;
+        }
+        inserts.incrementAndGet();
+        if (filter.count.incrementAndGet() >= capacity) {
+            rotate(filter, clock.getAsLong());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(String messageId) {
+        UUID key = key(messageId);
+        long h1 = mix(key.getMostSignificantBits());
+        long h2 = mix(key.getLeastSignificantBits()) | 1;
+        Filter filter = advance();
+        return mightContain(filter, h1, h2) || mightContain(previous, h1, h2);
+    }
+
+    @Override
+    public synchronized void clear() {
+        long now = clock.getAsLong();
+        previous = new Filter(bitCount, now);
+        current = new Filter(bitCount, now);
+    }
+
+    /**
+     * Bytes held by the bit arrays of both filters
+     */
+    public long getMemoryBytes() {
+        return 2 * (bitCount >>> 3);
+    }
+
+    // Getters
+    public long getBitCount() { return bitCount; }
+    public int getHashCount() { return hashCount; }
+    public long getHits() { return hits.get(); }
+    public long getInserts() { return inserts.get(); }
+    public long getRotations() { return rotations.get(); }
+
+    private Filter advance() {
+        Filter filter = current;
+        long now = clock.getAsLong();
+        if (now - filter.startedAt >= windowMillis) {
+            rotate(filter, now);
+            return current;
+        }
+        return filter;
+    }
+
+    // Rotates unless another thread already replaced the filter we saw
+    private synchronized void rotate(Filter full, long now) {
+        if (current != full) {
+            return;
+        }
+        // After a whole idle window the current filter is stale too
+        previous = now - full.startedAt >= 2 * windowMillis ? new Filter(bitCount, now) : full;
+        current = new Filter(bitCount, now);
+        rotations.incrementAndGet();
+    }
+
+    private boolean mightContain(Filter filter, long h1, long h2) {
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(h1, h2, i);
+            if ((filter.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sets the ID's bits; false if they were all set already
+    private boolean add(Filter filter, long h1, long h2) {
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(h1, h2, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((filter.words.get(word) & mask) == 0) {
+                changed |= (filter.words.getAndAccumulate(word, mask, (a, b) -> a | b) & mask) == 0;
+            }
+        }
+        return changed;
+    }
+
+    // Double hashing: k positions from two independent 64-bit hashes
+    private long index(long h1, long h2, int i) {
+        return ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+    }
+
+    // The 128 bits of an ID: message IDs are random UUIDs, anything else is hashed
+    private static UUID key(String messageId) {
+        if (messageId.length() == 36) {
+            try {
+                return UUID.fromString(messageId);
+            } catch (IllegalArgumentException e) {
+                // Not a UUID after all
+            }
+        }
+        return new UUID(hashChars(messageId, 0x9E3779B97F4A7C15L), hashChars(messageId, 0xC2B2AE3D27D4EB4FL));
+    }
+
+    private static long hashChars(String value, long seed) {
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,220 @@
+package com.nexuscipher.labyrinth.network;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.concurrent.Flow;
+import java.util.function.IntConsumer;
+
+/**
+ * Publishes an incoming chunked message as an ordered sequence of buffers,
+ * one per chunk, as soon as every earlier chunk has arrived.
+ *
+ * Chunks that arrive ahead of a gap are held until the gap is filled; a chunk
+ * is released as soon as it has been handed to the subscriber, so memory is
+ * bounded by how far out of order the sender's chunks arrive rather than by the
+ * size of the message. Only one subscriber is supported.
+ *
+ * The receiver acknowledges a chunk once the subscriber has taken it, through the
+ * consumed callback, rather than when it arrives. The sender's credit window then
+ * holds back a subscriber that falls behind, and at most a window of chunks waits here.
+ */
+public class ChunkStream implements Flow.Publisher<ByteBuffer> {
+    private final String messageGroupId;
+    private final String senderId;
+    private final int totalChunks;
+    private final ByteBuffer[] pending;
+    private final long creationTime;
+    private final IntConsumer onConsumed;
+
+    // All guarded by this
+    private long lastActivityTime;  // Last chunk received, delivered or asked for
+    private Flow.Subscriber<? super ByteBuffer> subscriber;
+    private long demand;
+    private int nextChunk;
+    private final BitSet received;
+    private boolean draining;
+    private boolean finished;
+    private boolean cancelled;
+    private Throwable failure;
+
+    public ChunkStream(String messageGroupId, String senderId, int totalChunks) {
+        this(messageGroupId, senderId, totalChunks, chunkNumber -> { });
+    }
+
+    /**
+     * @param onConsumed called with each chunk number once the subscriber has taken the
+     *                   chunk, or once it was dropped because the subscriber cancelled
+     */
+    public ChunkStream(String messageGroupId, String senderId, int totalChunks, IntConsumer onConsumed) {
+        if (totalChunks <= 0) {
+            throw new IllegalArgumentException("Invalid chunk count: " + totalChunks);
+        }
+        this.messageGroupId = messageGroupId;
+        this.senderId = senderId;
+        this.totalChunks = totalChunks;
+        this.pending = new ByteBuffer[totalChunks];
+        this.received = new BitSet(totalChunks);
+        this.creationTime = System.currentTimeMillis();
+        this.onConsumed = onConsumed;
+        this.lastActivityTime = creationTime;
+    }
+
+    @Override
+    public synchronized void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (this.subscriber != null) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Stream " + messageGroupId
+                    + " already has a subscriber"));
+            return;
+        }
+        this.subscriber = subscriber;
+        subscriber.onSubscribe(new ChunkSubscription());
+        drain();
+    }
+
+    /**
+     * Accepts a chunk from the network. The buffer is kept by reference until delivered;
+     * chunks arriving after the subscriber cancelled are counted but dropped.
+     * @return false if the chunk was a duplicate
+     */
+    public synchronized boolean addChunk(int chunkNumber, ByteBuffer data) {
+        if (chunkNumber < 0 || chunkNumber >= totalChunks) {
+            throw new IllegalArgumentException("Invalid chunk number");
+        }
+        if (received.get(chunkNumber)) {
+            return false;
+        }
+        received.set(chunkNumber);
+        lastActivityTime = System.currentTimeMillis();
+        if (!finished) {
+            pending[chunkNumber] = data;
+            drain();
+        } else if (cancelled) {
+            onConsumed.accept(chunkNumber);
+        }
+        return true;
+    }
+
+    /**
+     * Ends the stream with an error, for example when the transfer times out.
+     */
+    public synchronized void fail(Throwable cause) {
+        if (finished) {
+            return;
+        }
+        failure = cause;
+        release();
+        drain();
+    }
+
+    /**
+     * Whether every chunk has been received, whether or not it has been consumed yet.
+     */
+    public synchronized boolean isComplete() {
+        return received.cardinality() == totalChunks;
+    }
+
+    public synchronized int getReceivedCount() {
+        return received.cardinality();
+    }
+
+    public synchronized int getDeliveredCount() {
+        return nextChunk;
+    }
+
+    /**
+     * Whether a chunk has been taken by the subscriber, or dropped after it cancelled.
+     */
+    public synchronized boolean isConsumed(int chunkNumber) {
+        return chunkNumber < nextChunk || (cancelled && received.get(chunkNumber));
+    }
+
+    // Subscriber callbacks may re-enter request(); the outer loop picks up new demand
+    private void drain() {
+        if (draining || subscriber == null || finished) {
+            return;
+        }
+        draining = true;
+        try {
+            while (!finished) {
+                if (failure != null) {
+                    finished = true;
+                    subscriber.onError(failure);
+                } else if (nextChunk == totalChunks) {
+                    finished = true;
+                    subscriber.onComplete();
+                } else if (demand > 0 && pending[nextChunk] != null) {
+                    ByteBuffer chunk = pending[nextChunk];
+                    pending[nextChunk++] = null;
+                    demand--;
+                    lastActivityTime = System.currentTimeMillis();
+                    subscriber.onNext(chunk);
+                    onConsumed.accept(nextChunk - 1);
+                } else {
+                    return;
+                }
+            }
+        } finally {
+            draining = false;
+        }
+    }
+
+    private void release() {
+        for (int i = nextChunk; i < totalChunks; i++) {
+            if (pending[i] != null) {
+                pending[i] = null;
+                if (cancelled) {
+                    onConsumed.accept(i);
+                }
+            }
+        }
+    }
+
+    public String getMessageGroupId() { return messageGroupId; }
+    public String getSenderId() { return senderId; }
+    public int getTotalChunks() { return totalChunks; }
+    public long getCreationTime() { return creationTime; }
+
+    /**
+     * When a chunk last arrived, was delivered, or was asked for; a transfer is only
+     * stalled once nothing has happened for a while, however long it has been running.
+     */
+    public synchronized long getLastActivityTime() {
+        return lastActivityTime;
+    }
+
+    private class ChunkSubscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            synchronized (ChunkStream.this) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Non-positive request: " + n));
+                    return;
+                }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                lastActivityTime = System.currentTimeMillis();
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (ChunkStream.this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                cancelled = true;
+                release();
+            }
+        }
+    }
+}
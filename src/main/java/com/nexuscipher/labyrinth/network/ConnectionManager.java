@@ -1,81 +1,337 @@
 package com.nexuscipher.labyrinth.network;
 
 import com.nexuscipher.labyrinth.core.PeerConnection;
+import com.nexuscipher.labyrinth.crypto.CryptoWorkerPool;
 import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.crypto.SessionCipher;
+import com.nexuscipher.labyrinth.crypto.SignatureVerificationService;
+import com.nexuscipher.labyrinth.network.protocol.BinaryMessageCodec;
+import com.nexuscipher.labyrinth.network.protocol.EncryptedMessage;
 import com.nexuscipher.labyrinth.network.protocol.HandshakeMessage;
 import com.nexuscipher.labyrinth.network.protocol.HandshakeProtocol;
+import com.nexuscipher.labyrinth.network.protocol.FindNodeMessage;
+import com.nexuscipher.labyrinth.network.protocol.LinkStateMessage;
 import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.PingMessage;
+import com.nexuscipher.labyrinth.network.protocol.RoutingMessage;
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithm;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithms;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.util.ArrayList;
 import java.util.Collection;
 
 public class ConnectionManager {
     private static final Logger logger = LoggerFactory.getLogger(ConnectionManager.class);
+    private static final long HANDSHAKE_TIMEOUT_MS = 30000;
+    private static final long PING_TIMEOUT_MS = 10000;
+
+    // An outgoing connection attempt and where it was made to
+    private static final class PendingDial {
+        final String peerId;   // Null if we do not know who listens there yet
+        final String address;
+        final int port;
+        final CompletableFuture<MessageHandler> result;
+        volatile long handshakeStartNanos;
+        volatile boolean resumed;  // Handshake started from a resumption ticket
+        final Queue<String> challenges = new ConcurrentLinkedQueue<>();  // Of the handshake messages we sent
+
+        PendingDial(String peerId, String address, int port, CompletableFuture<MessageHandler> result) {
+            this.peerId = peerId;
+            this.address = address;
+            this.port = port;
+            this.result = result;
+        }
+    }
+
+    // A probe waiting for its reply
+    private static final class PendingPing {
+        final String peerId;
+        final long sentNanos = System.nanoTime();
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        PendingPing(String peerId) {
+            this.peerId = peerId;
+        }
+    }
 
     private final String nodeId;
     private final QuantumResistantCrypto crypto;
     private final HandshakeProtocol handshakeProtocol;
-    private final Map<String, MessageHandler> activeConnections;
+    private final CryptoWorkerPool cryptoPool;
+    private final SignatureVerificationService verificationService;
+    private final HandshakeMetrics handshakeMetrics;
+    // Tail of the work still running for a connection; later messages wait for it
+    private final Map<MessageHandler, CompletableFuture<Void>> processingChains;
+    private final Set<MessageHandler> pendingConnections;     // Handshake still in progress
+    private final ConnectionRegistry registry;                 // Verified connections by peer ID
+    private final Map<MessageHandler, PendingDial> pendingDials;  // Outgoing, awaiting verification
+    private final Map<String, CompletableFuture<MessageHandler>> dialsInProgress;  // By peer ID or address
+    private final Map<String, String> dialedAddresses;         // "host:port" -> peer ID found there
     private final Map<String, PeerConnection> verifiedPeers;
+    private final Map<String, byte[]> peerKeys;  // Peer ID -> Dilithium key it proved in a full handshake
+    private final Map<String, PendingPing> pendingPings;  // By ping ID
+    private volatile int connectionsPerPeer = 1;
+    private volatile Consumer<LinkStateMessage> linkStateListener;  // Null unless link-state routing runs
+    private volatile BiConsumer<FindNodeMessage, String> findNodeListener;  // Null unless the DHT runs
+    private volatile Consumer<String> peerActivityListener;         // Null unless something watches liveness
+    private volatile BiConsumer<RoutingMessage, MessageHandler> routingListener;  // Null until routing runs
     private final ExecutorService connectionExecutor;
+    private final TransportMode transportMode;
+    private final ExecutionMode executionMode;
+    private final NioTransport transport;  // Only used in NIO mode
 
     public ConnectionManager(String nodeId, QuantumResistantCrypto crypto) {
+        this(nodeId, crypto, TransportMode.BLOCKING);
+    }
+
+    public ConnectionManager(String nodeId, QuantumResistantCrypto crypto, TransportMode transportMode) {
+        this(nodeId, crypto, transportMode, ExecutionMode.current());
+    }
+
+    /**
+     * @param executionMode VIRTUAL runs every blocking connection loop, outgoing
+     *                      connection attempt and handshake on its own virtual thread
+     */
+    public ConnectionManager(String nodeId, QuantumResistantCrypto crypto,
+                             TransportMode transportMode, ExecutionMode executionMode) {
         this.nodeId = nodeId;
         this.crypto = crypto;
         this.handshakeProtocol = new HandshakeProtocol(nodeId, crypto);
-        this.activeConnections = new ConcurrentHashMap<>();
+        // Platform threads: crypto is pure CPU work, bounded by the core count
+        this.cryptoPool = new CryptoWorkerPool(Runtime.getRuntime().availableProcessors());
+        this.verificationService = new SignatureVerificationService(crypto, cryptoPool);
+        this.handshakeMetrics = new HandshakeMetrics();
+        this.processingChains = new ConcurrentHashMap<>();
+        this.pendingConnections = ConcurrentHashMap.newKeySet();
+        this.registry = new ConnectionRegistry();
+        this.pendingDials = new ConcurrentHashMap<>();
+        this.dialsInProgress = new ConcurrentHashMap<>();
+        this.dialedAddresses = new ConcurrentHashMap<>();
         this.verifiedPeers = new ConcurrentHashMap<>();
-        this.connectionExecutor = Executors.newCachedThreadPool();
+        this.peerKeys = new ConcurrentHashMap<>();
+        this.pendingPings = new ConcurrentHashMap<>();
+        this.connectionExecutor = ExecutorFactory.newTaskExecutor(executionMode, "connection");
+        this.transportMode = transportMode;
+        this.executionMode = executionMode;
+
+        if (transportMode == TransportMode.NIO) {
+            try {
+                this.transport = new NioTransport(nodeId, this, BinaryMessageCodec.INSTANCE,
+                        ExecutorFactory.newWorkerExecutor(executionMode, "nio-dispatch",
+                                Runtime.getRuntime().availableProcessors()));
+            } catch (IOException e) {
+                logger.error("Failed to start NIO transport", e);
+                throw new RuntimeException("Failed to initialize connection manager", e);
+            }
+        } else {
+            this.transport = null;
+        }
+    }
+
+    /**
+     * Connects to the peer listening at an address, reusing a live connection if
+     * one was already made to that address. Concurrent calls share one attempt.
+     * @return completes with the connection once the peer's handshake is verified
+     */
+    public CompletableFuture<MessageHandler> connectToPeer(String address, int port) {
+        String addressKey = address + ":" + port;
+        String knownPeer = dialedAddresses.get(addressKey);
+        if (knownPeer != null) {
+            MessageHandler existing = registry.select(knownPeer);
+            if (existing != null) {
+                return CompletableFuture.completedFuture(existing);
+            }
+        }
+        return dialOnce(addressKey, knownPeer, address, port);
     }
 
     /**
-     * Initiates a connection to a new peer
+     * Connects to a known peer unless it already has {@link #setConnectionsPerPeer
+     * enough} live connections. Concurrent calls for the same peer share one attempt.
      */
-    public void connectToPeer(String address, int port) {
+    public CompletableFuture<MessageHandler> connectToPeer(String peerId, String address, int port) {
+        if (registry.liveCount(peerId) >= connectionsPerPeer) {
+            return CompletableFuture.completedFuture(registry.select(peerId));
+        }
+        return dialOnce(peerId, peerId, address, port);
+    }
+
+    private CompletableFuture<MessageHandler> dialOnce(String key, String peerId, String address, int port) {
+        CompletableFuture<MessageHandler> created = new CompletableFuture<>();
+        CompletableFuture<MessageHandler> existing = dialsInProgress.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        // A peer that goes silent mid-handshake must not block later attempts
+        created.orTimeout(HANDSHAKE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((handler, error) -> dialsInProgress.remove(key, created));
+        dial(new PendingDial(peerId, address, port, created));
+        return created;
+    }
+
+    private void dial(PendingDial pending) {
+        String address = pending.address;
+        int port = pending.port;
+        if (transport != null) {
+            transport.connect(address, port).whenComplete((handler, error) -> {
+                if (error != null) {
+                    logger.error("Failed to connect to peer at {}:{}", address, port, error);
+                    pending.result.completeExceptionally(error);
+                } else {
+                    logger.info("Connected to peer at {}:{}", address, port);
+                    startHandshake(handler, pending);
+                }
+            });
+            return;
+        }
+
         connectionExecutor.submit(() -> {
             try {
                 Socket socket = new Socket(address, port);
                 logger.info("Connected to peer at {}:{}", address, port);
 
                 // Create message handler for the new connection
-                MessageHandler handler = new MessageHandler(socket, nodeId, crypto, this);
-
-                // Start handshake process
-                HandshakeMessage initMessage = handshakeProtocol.createInitialHandshake();
-                handler.sendMessage(initMessage);
+                BlockingMessageHandler handler = new BlockingMessageHandler(socket, nodeId, crypto, this);
 
                 // Start handling messages from this peer
                 connectionExecutor.submit(handler);
 
-                // Store the handler until peer is verified
-                activeConnections.put(initMessage.getMessageId(), handler);
+                startHandshake(handler, pending);
 
             } catch (IOException e) {
                 logger.error("Failed to connect to peer at {}:{}", address, port, e);
+                pending.result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void startHandshake(MessageHandler handler, PendingDial pending) {
+        pending.handshakeStartNanos = System.nanoTime();
+
+        // Track the handler until peer is verified
+        pendingConnections.add(handler);
+        pendingDials.put(handler, pending);
+        pending.result.whenComplete((verified, error) -> {
+            if (error != null) {
+                pendingDials.remove(handler);
+                pendingConnections.remove(handler);
+                handler.close();
+                // No reply will come; drop the state and tickets the protocol holds for them
+                pending.challenges.forEach(handshakeProtocol::abandon);
+            }
+        });
+
+        cryptoPool.submit(() -> {
+            // A peer we were verified with before can skip the signatures with its ticket
+            HandshakeMessage resumeMessage = pending.peerId == null
+                    ? null
+                    : handshakeProtocol.createResumption(pending.peerId);
+            pending.resumed = resumeMessage != null;
+            return resumeMessage != null ? resumeMessage : handshakeProtocol.createInitialHandshake();
+        }).whenComplete((initMessage, error) -> {
+            if (error != null) {
+                logger.error("Failed to start handshake with {}:{}", pending.address, pending.port, error);
+                pending.result.completeExceptionally(unwrap(error));
+            } else {
+                sendHandshakeMessage(handler, pending, initMessage);
             }
         });
     }
 
+    // Remembers the challenge, so the protocol's state for it can be dropped if the dial fails
+    private void sendHandshakeMessage(MessageHandler handler, PendingDial pending, HandshakeMessage message) {
+        pending.challenges.add(message.getChallenge());
+        if (pending.result.isCompletedExceptionally()) {
+            handshakeProtocol.abandon(message.getChallenge());  // Failed while we built the message
+            return;
+        }
+        handler.sendMessage(message);
+    }
+
+    /**
+     * Moves a connection whose peer just proved its identity into the registry.
+     */
+    private void onPeerVerified(String peerId, MessageHandler handler) {
+        PendingDial expected = pendingDials.get(handler);
+        if (expected != null && expected.peerId != null && !expected.peerId.equals(peerId)) {
+            // Someone else answered at the address we dialed for this peer
+            logger.warn("Expected peer {} at {}:{} but {} answered, closing connection",
+                    expected.peerId, expected.address, expected.port, peerId);
+            onHandshakeFailed(handler, new IOException(
+                    "Expected peer " + expected.peerId + " but " + peerId + " answered"));
+            return;
+        }
+        pendingConnections.remove(handler);
+        handler.setPeerId(peerId);
+        // Both ends pick from each other's offers with the same rule, so they agree
+        handler.setIntegrityAlgorithm(IntegrityAlgorithms.negotiate(
+                handler.getPeerIntegrityOffer(), handler.getSession() != null));
+        int live = registry.register(peerId, handler);
+        PeerConnection peer = new PeerConnection(
+                peerId,
+                handler.getSocket().getInetAddress().getHostAddress(),
+                handler.getSocket().getPort()
+        );
+        verifiedPeers.put(peerId, peer);
+
+        PendingDial dial = pendingDials.remove(handler);
+        if (dial != null) {
+            long elapsed = System.nanoTime() - dial.handshakeStartNanos;
+            if (dial.resumed) {
+                handshakeMetrics.recordResumed(elapsed);
+            } else {
+                handshakeMetrics.recordFull(elapsed);
+            }
+            dialedAddresses.put(dial.address + ":" + dial.port, peerId);
+            dial.result.complete(handler);
+            // Open the rest of the pool one connection at a time
+            if (live < connectionsPerPeer) {
+                dialOnce(peerId, peerId, dial.address, dial.port);
+            }
+        }
+    }
+
+    private void onHandshakeFailed(MessageHandler handler, Exception cause) {
+        PendingDial dial = pendingDials.remove(handler);
+        if (dial != null) {
+            dial.result.completeExceptionally(cause);
+        }
+        pendingConnections.remove(handler);
+        handler.close();
+    }
+
     /**
      * Handles a new incoming connection
      */
     public void handleIncomingConnection(Socket socket) {
         try {
-            MessageHandler handler = new MessageHandler(socket, nodeId, crypto, this);
+            BlockingMessageHandler handler = new BlockingMessageHandler(socket, nodeId, crypto, this);
+            registerIncomingConnection(handler);
             connectionExecutor.submit(handler);
 
-            // The message ID will be set when we receive their handshake init
-            activeConnections.put(socket.getRemoteSocketAddress().toString(), handler);
-
         } catch (IOException e) {
             logger.error("Failed to handle incoming connection from {}",
                     socket.getRemoteSocketAddress(), e);
@@ -83,18 +339,106 @@ public class ConnectionManager {
     }
 
     /**
-     * Processes a message received from a peer
+     * Starts accepting connections from a server channel on the NIO transport
+     */
+    public void acceptConnections(ServerSocketChannel serverChannel) throws IOException {
+        if (transport == null) {
+            throw new IllegalStateException("Accepting channels requires the NIO transport");
+        }
+        transport.listen(serverChannel);
+    }
+
+    void registerIncomingConnection(MessageHandler handler) {
+        // Registered under the peer's ID once its handshake confirmation checks out
+        pendingConnections.add(handler);
+    }
+
+    /**
+     * Processes a message received from a peer.
+     *
+     * Handshake crypto runs on the {@link CryptoWorkerPool}, so the calling I/O
+     * thread returns right away. Messages that arrive on a connection while one
+     * of its handshake steps is still running are queued behind it, so each
+     * connection still sees its messages handled in order.
      */
     public void handleMessage(Message message, MessageHandler handler) {
+        // Each handler delivers its messages from one thread at a time
+        CompletableFuture<Void> previous = processingChains.get(handler);
+        if (previous == null && !isHandshake(message)) {
+            dispatchMessage(message, handler);
+            return;
+        }
+        CompletableFuture<Void> next = (previous == null ? CompletableFuture.<Void>completedFuture(null) : previous)
+                .thenCompose(ignored -> processMessage(message, handler));
+        processingChains.put(handler, next);
+        next.whenComplete((ignored, error) -> processingChains.remove(handler, next));
+    }
+
+    private static boolean isHandshake(Message message) {
         switch (message.getType()) {
             case HANDSHAKE_INIT:
-                handleHandshakeInit((HandshakeMessage) message, handler);
-                break;
             case HANDSHAKE_RESPONSE:
-                handleHandshakeResponse((HandshakeMessage) message, handler);
-                break;
             case HANDSHAKE_CONFIRM:
-                handleHandshakeConfirm((HandshakeMessage) message, handler);
+            case HANDSHAKE_RESUME:
+            case HANDSHAKE_RESUME_ACCEPT:
+            case HANDSHAKE_RESUME_REJECT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Never completes exceptionally, so one failed step does not stall the chain
+    private CompletableFuture<Void> processMessage(Message message, MessageHandler handler) {
+        try {
+            if (message instanceof HandshakeMessage handshake && handshake.getIntegrityAlgorithms() != null) {
+                handler.setPeerIntegrityOffer(handshake.getIntegrityAlgorithms());
+            }
+            switch (message.getType()) {
+                case HANDSHAKE_INIT:
+                    return handleHandshakeInit((HandshakeMessage) message, handler);
+                case HANDSHAKE_RESPONSE:
+                    return handleHandshakeResponse((HandshakeMessage) message, handler);
+                case HANDSHAKE_CONFIRM:
+                    return handleHandshakeConfirm((HandshakeMessage) message, handler);
+                case HANDSHAKE_RESUME:
+                    return handleResume((HandshakeMessage) message, handler);
+                case HANDSHAKE_RESUME_ACCEPT:
+                    return handleResumeAccept((HandshakeMessage) message, handler);
+                case HANDSHAKE_RESUME_REJECT:
+                    return handleResumeReject((HandshakeMessage) message, handler);
+                default:
+                    dispatchMessage(message, handler);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to handle message {} from {}",
+                    message.getMessageId(), message.getSenderId(), e);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void dispatchMessage(Message message, MessageHandler handler) {
+        if (message.getType() == Message.MessageType.ENCRYPTED) {
+            message = openEncrypted((EncryptedMessage) message, handler);
+            if (message == null) {
+                return;
+            }
+        } else if (handler.getSession() != null) {
+            // Once a session is up, anything sent in the clear may have been injected
+            logger.warn("Dropping unencrypted {} from {} on a secured connection",
+                    message.getType(), message.getSenderId());
+            return;
+        }
+
+        String peerId = handler.getPeerId();
+        Consumer<String> activity = peerActivityListener;
+        if (peerId != null && activity != null) {
+            activity.accept(peerId);
+        }
+
+        switch (message.getType()) {
+            case PING:
+                handlePing((PingMessage) message, handler);
                 break;
             case DATA:
                 // Only process data messages from verified peers
@@ -105,63 +449,220 @@ public class ConnectionManager {
                             message.getSenderId());
                 }
                 break;
+            case ROUTING:
+                BiConsumer<RoutingMessage, MessageHandler> routing = routingListener;
+                if (routing == null) {
+                    logger.debug("Ignoring routed message from {}: routing is off", message.getSenderId());
+                } else if (peerId != null) {
+                    routing.accept((RoutingMessage) message, handler);
+                } else {
+                    logger.warn("Received routed message from unverified peer: {}",
+                            message.getSenderId());
+                }
+                break;
+            case LINK_STATE:
+                Consumer<LinkStateMessage> listener = linkStateListener;
+                if (listener == null) {
+                    logger.debug("Ignoring link state from {}: link-state routing is off",
+                            message.getSenderId());
+                } else if (verifiedPeers.containsKey(message.getSenderId())) {
+                    listener.accept((LinkStateMessage) message);
+                } else {
+                    logger.warn("Received link state from unverified peer: {}",
+                            message.getSenderId());
+                }
+                break;
+            case FIND_NODE:
+                BiConsumer<FindNodeMessage, String> findNode = findNodeListener;
+                if (findNode == null) {
+                    logger.debug("Ignoring DHT lookup from {}: the DHT is off", message.getSenderId());
+                } else if (peerId == null) {
+                    logger.warn("Received DHT lookup from unverified peer: {}",
+                            message.getSenderId());
+                } else if (!peerId.equals(message.getSenderId())) {
+                    logger.warn("Dropping DHT lookup claiming to be from {} on the connection to {}",
+                            message.getSenderId(), peerId);
+                } else {
+                    findNode.accept((FindNodeMessage) message, peerId);
+                }
+                break;
             default:
                 logger.warn("Received unknown message type: {}", message.getType());
         }
     }
 
-    private void handleHandshakeInit(HandshakeMessage message, MessageHandler handler) {
-        try {
-            HandshakeMessage response = handshakeProtocol.handleInitialHandshake(message);
-            handler.sendMessage(response);
-
-            // Update connection mapping with the actual message ID
-            activeConnections.remove(handler.getSocket().getRemoteSocketAddress().toString());
-            activeConnections.put(message.getMessageId(), handler);
-
-        } catch (SecurityException e) {
-            logger.error("Handshake initialization failed", e);
-            handler.close();
+    private void handlePing(PingMessage ping, MessageHandler handler) {
+        String peerId = handler.getPeerId();
+        if (peerId == null) {
+            logger.warn("Received ping from unverified peer: {}", ping.getSenderId());
+        } else if (!ping.isResponse()) {
+            handler.offerMessage(ping.reply(nodeId));
+        } else {
+            PendingPing pending = pendingPings.get(ping.getPingId());
+            // Only the peer we probed can answer; a reply from anyone else would fake its latency
+            if (pending != null && pending.peerId.equals(peerId) && pendingPings.remove(ping.getPingId(), pending)) {
+                long elapsedNanos = System.nanoTime() - pending.sentNanos;
+                pending.result.complete(TimeUnit.NANOSECONDS.toMillis(elapsedNanos + 999_999));
+            }
         }
     }
 
-    private void handleHandshakeResponse(HandshakeMessage message, MessageHandler handler) {
+    /**
+     * Returns the message sealed inside {@code message}, or null if it cannot be trusted;
+     * a record that fails authentication closes the connection.
+     */
+    private Message openEncrypted(EncryptedMessage message, MessageHandler handler) {
+        SessionCipher session = handler.getSession();
+        if (session == null) {
+            logger.warn("Dropping encrypted message from {}: no session on this connection",
+                    message.getSenderId());
+            return null;
+        }
         try {
-            HandshakeMessage confirmation = handshakeProtocol.handleHandshakeResponse(message);
-            handler.sendMessage(confirmation);
-
-            // Add to verified peers
-            PeerConnection peer = new PeerConnection(
-                    message.getSenderId(),
-                    handler.getSocket().getInetAddress().getHostAddress(),
-                    handler.getSocket().getPort()
-            );
-            verifiedPeers.put(message.getSenderId(), peer);
-
-        } catch (SecurityException e) {
-            logger.error("Handshake response verification failed", e);
+            Message inner = handler.getCodec().decode(session.open(message.getSealed()));
+            if (inner instanceof HandshakeMessage || inner instanceof EncryptedMessage) {
+                logger.warn("Dropping {} sealed inside an encrypted message from {}",
+                        inner.getType(), message.getSenderId());
+                return null;
+            }
+            return inner;
+        } catch (GeneralSecurityException | IOException e) {
+            logger.error("Failed to open encrypted message from {}, closing connection: {}",
+                    message.getSenderId(), e.getMessage());
             handler.close();
-            activeConnections.remove(message.getMessageId());
+            return null;
         }
     }
 
-    private void handleHandshakeConfirm(HandshakeMessage message, MessageHandler handler) {
-        boolean verified = handshakeProtocol.verifyHandshakeConfirmation(message);
-        if (verified) {
-            // Add to verified peers
-            PeerConnection peer = new PeerConnection(
-                    message.getSenderId(),
-                    handler.getSocket().getInetAddress().getHostAddress(),
-                    handler.getSocket().getPort()
-            );
-            verifiedPeers.put(message.getSenderId(), peer);
-            logger.info("Peer verified and added: {}", message.getSenderId());
-        } else {
-            logger.error("Handshake confirmation verification failed for peer: {}",
-                    message.getSenderId());
-            handler.close();
-            activeConnections.remove(message.getMessageId());
+    private CompletableFuture<Void> handleHandshakeInit(HandshakeMessage message, MessageHandler handler) {
+        // A full handshake costs a verification, a key exchange and a signature; while
+        // the crypto workers are backed up, turn new peers away before doing any of it.
+        // Verifications wait in the service's own queue, so the pool's depth misses them.
+        if (cryptoPool.isSaturated() || verificationService.isSaturated()) {
+            handshakeMetrics.recordRefused();
+            logger.warn("Refusing handshake from {}: crypto workers saturated ({} queued, {} verifications)",
+                    message.getSenderId(), cryptoPool.getQueueDepth(), verificationService.getQueueDepth());
+            onHandshakeFailed(handler, new RejectedExecutionException("Crypto workers saturated"));
+            return CompletableFuture.completedFuture(null);
         }
+        return handshakeProtocol.handleInitialHandshakeAsync(message, verificationService)
+                .handle((response, error) -> {
+                    if (error == null && !handler.startSession(response.getSession())) {
+                        error = new SecurityException("Connection already has a session");
+                    }
+                    if (error != null) {
+                        logger.error("Handshake initialization failed", unwrap(error));
+                        onHandshakeFailed(handler, unwrap(error));
+                    } else {
+                        handler.sendMessage(response);
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> handleHandshakeResponse(HandshakeMessage message, MessageHandler handler) {
+        return handshakeProtocol.handleHandshakeResponseAsync(message, verificationService)
+                .handle((confirmation, error) -> {
+                    if (error == null && !handler.startSession(confirmation.getSession())) {
+                        error = new SecurityException("Connection already has a session");
+                    }
+                    if (error != null) {
+                        logger.error("Handshake response verification failed", unwrap(error));
+                        onHandshakeFailed(handler, unwrap(error));
+                    } else {
+                        handler.sendMessage(confirmation);
+                        peerKeys.put(message.getSenderId(), message.getPublicKey());
+                        // Add to verified peers
+                        onPeerVerified(message.getSenderId(), handler);
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> handleHandshakeConfirm(HandshakeMessage message, MessageHandler handler) {
+        return handshakeProtocol.verifyHandshakeConfirmationAsync(message, verificationService)
+                .handle((verified, error) -> {
+                    if (error == null && verified) {
+                        peerKeys.put(message.getSenderId(), message.getPublicKey());
+                        // Add to verified peers
+                        onPeerVerified(message.getSenderId(), handler);
+                        logger.info("Peer verified and added: {}", message.getSenderId());
+                    } else {
+                        logger.error("Handshake confirmation verification failed for peer: {}",
+                                message.getSenderId());
+                        onHandshakeFailed(handler, error != null
+                                ? unwrap(error)
+                                : new SecurityException("Handshake confirmation failed"));
+                    }
+                    return null;
+                });
+    }
+
+    // Resumption takes no signatures, so it is admitted even when the workers are
+    // saturated; it still runs on them, since deriving the session keys is crypto work
+    private CompletableFuture<Void> handleResume(HandshakeMessage message, MessageHandler handler) {
+        return cryptoPool.submit(() -> handshakeProtocol.handleResumption(message))
+                .handle((reply, error) -> {
+                    if (error == null && !handler.startSession(reply.getSession())) {
+                        error = new SecurityException("Connection already has a session");
+                    }
+                    if (error != null) {
+                        logger.error("Handshake resumption failed", unwrap(error));
+                        onHandshakeFailed(handler, unwrap(error));
+                        return null;
+                    }
+                    handler.sendMessage(reply);
+                    if (reply.getType() == Message.MessageType.HANDSHAKE_RESUME_ACCEPT) {
+                        onPeerVerified(message.getSenderId(), handler);
+                        logger.info("Peer resumed and verified: {}", message.getSenderId());
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> handleResumeAccept(HandshakeMessage message, MessageHandler handler) {
+        return cryptoPool.submit(() -> handshakeProtocol.handleResumptionAccept(message))
+                .handle((session, error) -> {
+                    if (error == null && !handler.startSession(session)) {
+                        error = new SecurityException("Connection already has a session");
+                    }
+                    if (error != null) {
+                        logger.error("Handshake resumption accept verification failed", unwrap(error));
+                        onHandshakeFailed(handler, unwrap(error));
+                    } else {
+                        onPeerVerified(message.getSenderId(), handler);
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> handleResumeReject(HandshakeMessage message, MessageHandler handler) {
+        PendingDial dial = pendingDials.get(handler);
+        if (dial == null || !handshakeProtocol.handleResumptionReject(message)) {
+            logger.error("Unexpected resumption reject from {}", message.getSenderId());
+            onHandshakeFailed(handler, new SecurityException("Unexpected resumption reject"));
+            return CompletableFuture.completedFuture(null);
+        }
+        // The peer no longer has our ticket; run the full handshake on this connection
+        handshakeMetrics.recordFallback();
+        dial.resumed = false;
+        return cryptoPool.submit(handshakeProtocol::createInitialHandshake)
+                .handle((initMessage, error) -> {
+                    if (error != null) {
+                        logger.error("Failed to fall back to a full handshake", unwrap(error));
+                        onHandshakeFailed(handler, unwrap(error));
+                    } else {
+                        sendHandshakeMessage(handler, dial, initMessage);
+                    }
+                    return null;
+                });
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        return cause instanceof Exception ? (Exception) cause : new CompletionException(cause);
     }
 
     private void processDataMessage(Message message) {
@@ -171,9 +672,73 @@ public class ConnectionManager {
 
     public void shutdown() {
         connectionExecutor.shutdown();
-        activeConnections.values().forEach(MessageHandler::close);
-        activeConnections.clear();
+        verificationService.shutdown();
+        cryptoPool.shutdown();
+        if (transport != null) {
+            transport.shutdown();
+        }
+        pendingConnections.forEach(MessageHandler::close);
+        registry.getAllConnections().forEach(MessageHandler::close);
+        pendingConnections.clear();
+        registry.clear();
+        pendingDials.clear();
+        processingChains.clear();
+        dialsInProgress.clear();
         verifiedPeers.clear();
+        peerKeys.clear();
+        pendingPings.clear();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public TransportMode getTransportMode() {
+        return transportMode;
+    }
+
+    public SignatureVerificationService getVerificationService() {
+        return verificationService;
+    }
+
+    /**
+     * Resumed versus full handshakes on connections this node opened, and their latency
+     */
+    public HandshakeMetrics getHandshakeMetrics() {
+        return handshakeMetrics;
+    }
+
+    /**
+     * The workers all handshake crypto runs on, with their queue depth and latency
+     */
+    public CryptoWorkerPool getCryptoPool() {
+        return cryptoPool;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    // Runs the outbound writers of blocking connections
+    Executor getWriteExecutor() {
+        return connectionExecutor;
+    }
+
+    /**
+     * Total number of messages waiting in outbound queues across all connections
+     */
+    public int getOutboundQueueDepth() {
+        return Stream.concat(pendingConnections.stream(), registry.getAllConnections().stream())
+                .mapToInt(MessageHandler::getQueueDepth)
+                .sum();
+    }
+
+    /**
+     * Number of open connections, including peers still in the handshake
+     */
+    public int getActiveConnectionCount() {
+        pendingConnections.removeIf(handler -> !handler.isActive());
+        return pendingConnections.size() + registry.size();
     }
 
     /**
@@ -190,15 +755,125 @@ public class ConnectionManager {
         return Optional.ofNullable(verifiedPeers.get(peerId));
     }
 
+    /**
+     * Whether there is at least one live, verified connection to the peer
+     */
+    public boolean isConnected(String peerId) {
+        return registry.isConnected(peerId);
+    }
+
+    /**
+     * The public key a peer proved in a full handshake with this node, or null if it
+     * never completed one. Kept after the peer disconnects, so messages it signs can
+     * be checked when they arrive through relays.
+     */
+    public byte[] getPeerPublicKey(String peerId) {
+        byte[] key = peerKeys.get(peerId);
+        return key == null ? null : key.clone();
+    }
+
+    /**
+     * Whether a message received on this connection came straight from the peer over
+     * its sealed session, so no relay could have produced or altered it
+     */
+    public boolean isSealedLink(String peerId, MessageHandler handler) {
+        return handler != null && handler.getSession() != null && registry.contains(peerId, handler);
+    }
+
+    /**
+     * Chunk integrity algorithm agreed with a peer, or SHA-256 if it is not directly connected.
+     * A non-cryptographic result is only safe for chunks sent over that connection.
+     */
+    public IntegrityAlgorithm getIntegrityAlgorithm(String peerId) {
+        MessageHandler handler = registry.select(peerId);
+        return handler != null ? handler.getIntegrityAlgorithm() : IntegrityAlgorithms.DEFAULT;
+    }
+
+    /**
+     * Number of connections kept open to each peer. Extra connections are opened
+     * in the background after the first one is verified and let bulk transfers
+     * spread over several sockets. Defaults to 1.
+     */
+    public void setConnectionsPerPeer(int connectionsPerPeer) {
+        if (connectionsPerPeer < 1) {
+            throw new IllegalArgumentException("connectionsPerPeer must be at least 1");
+        }
+        this.connectionsPerPeer = connectionsPerPeer;
+    }
+
+    public int getConnectionsPerPeer() {
+        return connectionsPerPeer;
+    }
+
+    /**
+     * Receives link-state advertisements from verified peers; null to stop.
+     */
+    public void setLinkStateListener(Consumer<LinkStateMessage> listener) {
+        this.linkStateListener = listener;
+    }
+
+    /**
+     * Receives DHT lookup requests and replies from verified peers, with the ID of the
+     * peer whose connection each arrived on; null to stop.
+     */
+    public void setFindNodeListener(BiConsumer<FindNodeMessage, String> listener) {
+        this.findNodeListener = listener;
+    }
+
+    /**
+     * Receives routed messages from verified peers, with the connection each arrived on; null to stop.
+     */
+    public void setRoutingListener(BiConsumer<RoutingMessage, MessageHandler> listener) {
+        this.routingListener = listener;
+    }
+
+    /**
+     * Told the ID of a verified peer each time a message arrives from it; null to stop.
+     */
+    public void setPeerActivityListener(Consumer<String> listener) {
+        this.peerActivityListener = listener;
+    }
+
+    /**
+     * Probes a connected peer. The reply takes the control lane back, ahead of any
+     * bulk data, so the time measures the link rather than the peer's send queue.
+     * @return completes with the round-trip time in ms, rounded up; fails if the peer
+     *         is not connected or does not answer in time
+     */
+    public CompletableFuture<Long> ping(String peerId) {
+        MessageHandler handler = registry.select(peerId);
+        if (handler == null) {
+            return CompletableFuture.failedFuture(new IOException("Not connected to peer: " + peerId));
+        }
+        PingMessage ping = new PingMessage(nodeId);
+        PendingPing pending = new PendingPing(peerId);
+        pendingPings.put(ping.getPingId(), pending);
+        pending.result.orTimeout(PING_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((rtt, error) -> pendingPings.remove(ping.getPingId(), pending));
+        if (!handler.offerMessage(ping)) {
+            pending.result.completeExceptionally(new IOException("Outbound queue full for peer: " + peerId));
+        }
+        return pending.result;
+    }
+
     /**
      * Sends a message to a specific peer
      */
     public void sendMessage(Message message, String peerId) throws IOException {
-        MessageHandler handler = activeConnections.get(peerId);
+        MessageHandler handler = registry.select(peerId);
         if (handler != null && handler.isActive()) {
             handler.sendMessage(message);
         } else {
             throw new IOException("No active connection to peer: " + peerId);
         }
     }
+
+    /**
+     * Queues a message for a specific peer without blocking.
+     * Returns false if there is no active connection or its outbound queue is full.
+     */
+    public boolean offerMessage(Message message, String peerId) {
+        MessageHandler handler = registry.select(peerId);
+        return handler != null && handler.offerMessage(message);
+    }
 }
\ No newline at end of file
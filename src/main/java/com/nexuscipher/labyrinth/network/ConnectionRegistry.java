@@ -0,0 +1,109 @@
+package com.nexuscipher.labyrinth.network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Live connections grouped by verified peer ID. A peer may have several
+ * connections; sends go to the one with the shortest outbound queue.
+ * Closed connections are dropped lazily the next time the peer is looked up.
+ */
+public class ConnectionRegistry {
+    private final Map<String, CopyOnWriteArrayList<MessageHandler>> connections;
+
+    public ConnectionRegistry() {
+        this.connections = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a connection whose peer has completed the handshake.
+     * @return number of live connections to the peer, including this one
+     */
+    public int register(String peerId, MessageHandler handler) {
+        connections.compute(peerId, (id, pool) -> {
+            CopyOnWriteArrayList<MessageHandler> updated = pool == null ? new CopyOnWriteArrayList<>() : pool;
+            updated.addIfAbsent(handler);
+            return updated;
+        });
+        return liveCount(peerId);
+    }
+
+    /**
+     * Returns the least loaded live connection to a peer, or null if there is none.
+     */
+    public MessageHandler select(String peerId) {
+        List<MessageHandler> pool = prune(peerId);
+        MessageHandler best = null;
+        for (MessageHandler handler : pool) {
+            if (best == null || handler.getQueueDepth() < best.getQueueDepth()) {
+                best = handler;
+            }
+        }
+        return best;
+    }
+
+    public int liveCount(String peerId) {
+        return prune(peerId).size();
+    }
+
+    public boolean isConnected(String peerId) {
+        return liveCount(peerId) > 0;
+    }
+
+    /**
+     * Whether the connection is registered to the peer, i.e. the peer proved its identity on it.
+     */
+    public boolean contains(String peerId, MessageHandler handler) {
+        List<MessageHandler> pool = connections.get(peerId);
+        return pool != null && pool.contains(handler);
+    }
+
+    public void remove(String peerId, MessageHandler handler) {
+        CopyOnWriteArrayList<MessageHandler> pool = connections.get(peerId);
+        if (pool != null) {
+            pool.remove(handler);
+            removeIfEmpty(peerId);
+        }
+    }
+
+    /**
+     * All registered connections, including ones that may have closed since.
+     */
+    public Collection<MessageHandler> getAllConnections() {
+        List<MessageHandler> all = new ArrayList<>();
+        connections.values().forEach(all::addAll);
+        return all;
+    }
+
+    public int size() {
+        int total = 0;
+        for (CopyOnWriteArrayList<MessageHandler> pool : connections.values()) {
+            total += pool.size();
+        }
+        return total;
+    }
+
+    public void clear() {
+        connections.clear();
+    }
+
+    private List<MessageHandler> prune(String peerId) {
+        CopyOnWriteArrayList<MessageHandler> pool = connections.get(peerId);
+        if (pool == null) {
+            return List.of();
+        }
+        if (pool.removeIf(handler -> !handler.isActive())) {
+            removeIfEmpty(peerId);
+        }
+        return pool;
+    }
+
+    // Atomic with register(), so a connection added concurrently is never lost
+    private void removeIfEmpty(String peerId) {
+        connections.computeIfPresent(peerId, (id, pool) -> pool.isEmpty() ? null : pool);
+    }
+}
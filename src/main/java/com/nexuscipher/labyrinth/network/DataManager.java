@@ -1,87 +1,277 @@
 package com.nexuscipher.labyrinth.network;
 
+import com.nexuscipher.labyrinth.crypto.CryptoWorkerPool;
 import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
 import com.nexuscipher.labyrinth.network.protocol.DataMessage;
-import com.nexuscipher.labyrinth.util.CryptoUtil;
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithm;
+import com.nexuscipher.labyrinth.util.MerkleTree;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.*;
-
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Splits outgoing data into chunks and reassembles incoming ones.
+ *
+ * Before the first chunk of a transfer is sent, all chunks are hashed into a
+ * Merkle tree, and the sender signs the root into a manifest. Chunks follow once
+ * the receiver has acknowledged the manifest, each with its inclusion proof. The
+ * receiver only accepts a manifest that arrived on the sender's own sealed
+ * connection, or whose signature checks out against the key the sender proved in
+ * a handshake with it; without either, the transfer cannot start. Every chunk is
+ * checked against the manifest's root, so a completed message is exactly the
+ * payload the sender hashed, whichever relays carried it.
+ *
+ * The tree is hashed with the integrity algorithm agreed with the target during
+ * the handshake. A non-cryptographic algorithm only protects chunks that nobody
+ * but the two peers can touch, so such transfers are pinned to the direct sealed
+ * connection, and receivers reject those chunks unless they arrived on the
+ * sender's own sealed session. Anything a relay might carry uses SHA-256.
+ *
+ * Incoming chunks are verified on the connection manager's {@link CryptoWorkerPool},
+ * not on the thread that delivered them. A chunk the saturated pool turns away is
+ * dropped unacknowledged, and the sender resends it when the transfer times out.
+ */
 public class DataManager {
     private static final Logger logger = LoggerFactory.getLogger(DataManager.class);
 
     private static final int MAX_RETRY_ATTEMPTS = 3;
     private static final long CHUNK_TIMEOUT = 30000; // 30 seconds
     private static final int MAX_CHUNK_SIZE = 1024 * 1024; // 1MB
+    private static final int STREAM_WINDOW_CHUNKS = 16; // Unacknowledged chunks per transfer
+    private static final long MAP_WINDOW_SIZE = 64L * MAX_CHUNK_SIZE; // 64 chunks per mapping
+    static final int MANIFEST_CHUNK = -1;  // Chunk number of a manifest and of its acknowledgement
 
     private final String nodeId;
     private final QuantumResistantCrypto crypto;
     private final RoutingManager routingManager;
     private final Map<String, MessageAssembler> incomingMessages;
     private final Map<String, MessageTracker> outgoingMessages;
+    private final Map<String, ChunkStream> incomingStreams;
+    private final Map<String, ExpectedRoot> incomingRoots;  // Root from each incoming transfer's manifest
+    private final DuplicateFilter finishedStreams;    // Streams completed or failed; late chunks are dropped
+    private volatile Consumer<ChunkStream> streamHandler;
     private final ScheduledExecutorService timeoutChecker;
 
     public DataManager(String nodeId,
                        QuantumResistantCrypto crypto,
                        RoutingManager routingManager) {
+        this(nodeId, crypto, routingManager, ExecutionMode.current());
+    }
+
+    public DataManager(String nodeId,
+                       QuantumResistantCrypto crypto,
+                       RoutingManager routingManager,
+                       ExecutionMode executionMode) {
         this.nodeId = nodeId;
         this.crypto = crypto;
         this.routingManager = routingManager;
         this.incomingMessages = new ConcurrentHashMap<>();
         this.outgoingMessages = new ConcurrentHashMap<>();
-        this.timeoutChecker = Executors.newScheduledThreadPool(1);
+        this.incomingStreams = new ConcurrentHashMap<>();
+        this.incomingRoots = new ConcurrentHashMap<>();
+        this.finishedStreams = new RecentMessageCache(2 * CHUNK_TIMEOUT);
+        this.timeoutChecker = ExecutorFactory.newScheduler(executionMode, "data-timeout", 1);
 
         // Start timeout checker
         startTimeoutChecker();
+        routingManager.setDataListener(this::handleDataMessage);
     }
 
     /**
      * Sends data to a target node, fragmenting if necessary
      */
     public void sendData(String targetNodeId, byte[] data) {
+        sendData(targetNodeId, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Sends the remaining bytes of a buffer. Chunks are slices of the buffer rather
+     * than copies, so the buffer must not be modified until the transfer completes.
+     */
+    public void sendData(String targetNodeId, ByteBuffer data) {
         String messageGroupId = UUID.randomUUID().toString();
 
         // Calculate number of chunks needed
-        int totalChunks = (int) Math.ceil((double) data.length / MAX_CHUNK_SIZE);
+        int totalChunks = (int) Math.ceil((double) data.remaining() / MAX_CHUNK_SIZE);
+
+        // Chunks are cut from the buffer as the window allows
+        ByteBuffer source = data.slice();
+        MessageTracker tracker = startTransfer(messageGroupId, totalChunks, targetNodeId,
+                i -> source.slice(i * MAX_CHUNK_SIZE,
+                        Math.min(MAX_CHUNK_SIZE, source.limit() - i * MAX_CHUNK_SIZE)));
+        if (tracker == null) {
+            return;
+        }
+
+        logger.info("Started sending message {} in {} chunks to {}",
+                messageGroupId, totalChunks, targetNodeId);
+    }
 
-        // Create message tracker
-        MessageTracker tracker = new MessageTracker(messageGroupId, totalChunks);
+    /**
+     * Sends a file by memory-mapping it a window at a time; chunk data is read
+     * from the page cache when the frame is written instead of being loaded up front.
+     */
+    public void sendFile(String targetNodeId, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkCount = (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE;
+            if (chunkCount > Integer.MAX_VALUE) {
+                throw new IOException("File too large to send: " + file);
+            }
+            int totalChunks = (int) chunkCount;
+            String messageGroupId = UUID.randomUUID().toString();
+
+            // Mappings stay valid after the channel is closed
+            int chunksPerWindow = (int) (MAP_WINDOW_SIZE / MAX_CHUNK_SIZE);
+            MappedByteBuffer[] windows = new MappedByteBuffer[(int) ((size + MAP_WINDOW_SIZE - 1) / MAP_WINDOW_SIZE)];
+            for (int w = 0; w < windows.length; w++) {
+                long windowStart = w * MAP_WINDOW_SIZE;
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        windowStart, Math.min(MAP_WINDOW_SIZE, size - windowStart));
+            }
+            MessageTracker tracker = startTransfer(messageGroupId, totalChunks, targetNodeId,
+                    i -> {
+                        MappedByteBuffer window = windows[i / chunksPerWindow];
+                        int offset = (i % chunksPerWindow) * MAX_CHUNK_SIZE;
+                        return window.slice(offset, Math.min(MAX_CHUNK_SIZE, window.limit() - offset));
+                    });
+            if (tracker == null) {
+                return;
+            }
+
+            logger.info("Started sending file {} as message {} in {} chunks to {}",
+                    file, messageGroupId, totalChunks, targetNodeId);
+        }
+    }
+
+    // Root of an incoming transfer, from a manifest that proved to come from the sender
+    private static final class ExpectedRoot {
+        final byte[] root;
+        final long acceptedTime;
+
+        ExpectedRoot(byte[] root) {
+            this.root = root;
+            this.acceptedTime = System.currentTimeMillis();
+        }
+    }
+
+    // Hashes every chunk into the transfer's Merkle tree, then signs and sends its manifest
+    private MessageTracker startTransfer(String messageGroupId, int totalChunks, String targetNodeId,
+                                         IntFunction<ByteBuffer> chunkSource) {
+        if (totalChunks == 0) {
+            logger.warn("Not sending empty message {} to {}", messageGroupId, targetNodeId);
+            return null;
+        }
+        // Non-cryptographic only when agreed over a live sealed connection to the target;
+        // sendChunk then keeps the transfer on that connection
+        IntegrityAlgorithm algorithm =
+                routingManager.getConnectionManager().getIntegrityAlgorithm(targetNodeId);
+        MerkleTree tree = MerkleTree.build(algorithm, totalChunks, chunkSource);
+        MessageTracker tracker = new MessageTracker(messageGroupId, totalChunks, targetNodeId,
+                chunkSource, tree, STREAM_WINDOW_CHUNKS);
         outgoingMessages.put(messageGroupId, tracker);
 
-        // Split and send data chunks
-        for (int i = 0; i < totalChunks; i++) {
-            int start = i * MAX_CHUNK_SIZE;
-            int end = Math.min(start + MAX_CHUNK_SIZE, data.length);
-            byte[] chunk = Arrays.copyOfRange(data, start, end);
-            byte[] checksum = CryptoUtil.calculateChecksum(chunk);
-
-            DataMessage message = new DataMessage(
-                    nodeId,
-                    messageGroupId,
-                    totalChunks,
-                    i,
-                    chunk,
-                    checksum,
-                    DataMessage.MessageState.DATA_CHUNK
-            );
+        // The window opens once the receiver has accepted the signed root
+        byte[] root = tree.rootRecord();
+        routingManager.getConnectionManager().getCryptoPool()
+                .submit(() -> crypto.sign(manifestData(nodeId, targetNodeId, messageGroupId, totalChunks, root)))
+                .whenComplete((signature, error) -> {
+                    if (error != null) {
+                        logger.error("Failed to sign manifest of message {}", messageGroupId, error);
+                        outgoingMessages.remove(messageGroupId);
+                        return;
+                    }
+                    DataMessage manifest = new DataMessage(nodeId, messageGroupId, totalChunks,
+                            MANIFEST_CHUNK, signature, root, DataMessage.MessageState.MANIFEST);
+                    tracker.setManifest(manifest);
+                    send(tracker, manifest);
+                });
+        return tracker;
+    }
+
+    // What a manifest's signature covers: who sends which root to whom, for which transfer
+    static byte[] manifestData(String senderId, String targetNodeId, String messageGroupId,
+                               int totalChunks, byte[] root) {
+        byte[] text = (senderId + "\n" + targetNodeId + "\n" + messageGroupId + "\n" + totalChunks + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] data = Arrays.copyOf(text, text.length + root.length);
+        System.arraycopy(root, 0, data, text.length, root.length);
+        return data;
+    }
+
+    // Sends whatever the transfer's credit window currently allows
+    private void sendAvailableChunks(MessageTracker tracker) {
+        for (int chunkNumber : tracker.takeSendableChunks()) {
+            sendChunk(tracker, chunkNumber);
+        }
+    }
 
+    private void sendChunk(MessageTracker tracker, int chunkNumber) {
+        ByteBuffer chunk = tracker.getChunk(chunkNumber);
+        byte[] proof = tracker.getProof(chunkNumber);
+
+        DataMessage message = new DataMessage(
+                nodeId,
+                tracker.getMessageGroupId(),
+                tracker.getTotalChunks(),
+                chunkNumber,
+                chunk,
+                proof,
+                DataMessage.MessageState.DATA_CHUNK
+        );
+        send(tracker, message);
+    }
+
+    // A weak proof must not pass through a relay, which could forge it
+    private void send(MessageTracker tracker, DataMessage message) {
+        if (MerkleTree.algorithmOf(message.getChecksum()).isCryptographic()) {
             // Send through routing manager
-            routingManager.routeMessage(targetNodeId, message);
+            routingManager.routeMessage(tracker.getTargetNodeId(), message);
+        } else if (!routingManager.sendToNeighbour(tracker.getTargetNodeId(), message)) {
+            logger.debug("No direct connection for chunk {} of message {}; resending on timeout",
+                    message.getChunkNumber(), tracker.getMessageGroupId());
         }
+    }
 
-        logger.info("Started sending message {} in {} chunks to {}",
-                messageGroupId, totalChunks, targetNodeId);
+    /**
+     * Switches incoming transfers to streaming mode. The handler is called once per
+     * transfer with a {@link ChunkStream} that publishes chunks in order as soon as
+     * each contiguous prefix has arrived, so large transfers never need to fit in memory.
+     * Pass null to go back to assembling whole messages.
+     */
+    public void setStreamHandler(Consumer<ChunkStream> streamHandler) {
+        this.streamHandler = streamHandler;
     }
 
     /**
      * Handles incoming data messages
      */
     public void handleDataMessage(DataMessage message) {
+        handleDataMessage(message, null);
+    }
+
+    /**
+     * Handles an incoming data message delivered on the given connection, or null if
+     * the connection is unknown; chunks with non-cryptographic proofs need it. The routing
+     * manager calls this for every data message addressed to this node.
+     */
+    public void handleDataMessage(DataMessage message, MessageHandler receivedOn) {
         switch (message.getState()) {
             case DATA_CHUNK:
-                handleDataChunk(message);
+                handleDataChunk(message, receivedOn);
                 break;
             case ACKNOWLEDGMENT:
                 handleAcknowledgment(message);
@@ -92,19 +282,85 @@ public class DataManager {
             case COMPLETE:
                 handleComplete(message);
                 break;
+            case MANIFEST:
+                handleManifest(message, receivedOn);
+                break;
         }
     }
 
-    private void handleDataChunk(DataMessage message) {
-        // Verify checksum
-        byte[] calculatedChecksum = CryptoUtil.calculateChecksum(message.getData());
-        if (!Arrays.equals(calculatedChecksum, message.getChecksum())) {
-            logger.warn("Checksum mismatch for chunk {} of message {}",
+    // Accepts a transfer's root once the manifest is shown to come from the sender
+    private void handleManifest(DataMessage message, MessageHandler receivedOn) {
+        byte[] root = message.getChecksum();
+        if (!MerkleTree.isRootRecord(root) || message.getTotalChunks() < 1) {
+            logger.warn("Ignoring malformed manifest for message {}", message.getMessageGroupId());
+            return;
+        }
+        ConnectionManager connections = routingManager.getConnectionManager();
+        CompletableFuture<Boolean> authentic;
+        if (connections.isSealedLink(message.getSenderId(), receivedOn)) {
+            // Sealed by the sender itself, on its own connection to us
+            authentic = CompletableFuture.completedFuture(true);
+        } else {
+            byte[] senderKey = connections.getPeerPublicKey(message.getSenderId());
+            if (senderKey == null) {
+                logger.warn("Ignoring manifest for message {}: no key to check {}'s signature with",
+                        message.getMessageGroupId(), message.getSenderId());
+                return;
+            }
+            authentic = connections.getVerificationService().verify(
+                    manifestData(message.getSenderId(), nodeId, message.getMessageGroupId(),
+                            message.getTotalChunks(), root),
+                    message.getData(), senderKey);
+        }
+        authentic.whenComplete((valid, error) -> {
+            if (error != null || !valid) {
+                logger.warn("Rejected manifest for message {} from {}",
+                        message.getMessageGroupId(), message.getSenderId());
+                return;
+            }
+            ExpectedRoot existing = incomingRoots.putIfAbsent(message.getMessageGroupId(), new ExpectedRoot(root));
+            if (existing != null && !Arrays.equals(existing.root, root)) {
+                logger.warn("Ignoring conflicting manifest for message {}", message.getMessageGroupId());
+                return;
+            }
+            // Acknowledged again if resent, in case the first acknowledgement was lost
+            sendAcknowledgment(message.getMessageGroupId(), message.getSenderId(),
+                    message.getTotalChunks(), MANIFEST_CHUNK);
+        });
+    }
+
+    private void handleDataChunk(DataMessage message, MessageHandler receivedOn) {
+        if (!incomingRoots.containsKey(message.getMessageGroupId())) {
+            // Nothing vouches for it; senders only send chunks after their manifest was accepted
+            logger.debug("Dropping chunk {} of message {} without an accepted manifest",
+                    message.getChunkNumber(), message.getMessageGroupId());
+            return;
+        }
+        routingManager.getConnectionManager().getCryptoPool()
+                .submit(() -> verifyChunk(message, receivedOn))
+                .whenComplete((valid, error) -> {
+                    if (error != null) {
+                        logger.warn("Dropping chunk {} of message {}: {}", message.getChunkNumber(),
+                                message.getMessageGroupId(), error.getMessage());
+                    } else {
+                        acceptDataChunk(message, valid);
+                    }
+                });
+    }
+
+    private void acceptDataChunk(DataMessage message, boolean valid) {
+        if (!valid) {
+            logger.warn("Integrity check failed for chunk {} of message {}",
                     message.getChunkNumber(), message.getMessageGroupId());
             requestRetransmission(message);
             return;
         }
 
+        if (streamHandler != null) {
+            handleStreamChunk(message);
+            return;
+        }
+
         // Get or create message assembler
         MessageAssembler assembler = incomingMessages.computeIfAbsent(
                 message.getMessageGroupId(),
@@ -112,28 +368,109 @@ public class DataManager {
         );
 
         // Add chunk to assembler
-        assembler.addChunk(message.getChunkNumber(), message.getData());
+        try {
+            assembler.addChunk(message.getChunkNumber(), message.getDataBuffer());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected chunk {} of message {}: {}",
+                    message.getChunkNumber(), message.getMessageGroupId(), e.getMessage());
+            return;
+        }
 
         // Send acknowledgment
         sendAcknowledgment(message);
 
         // Check if message is complete
         if (assembler.isComplete()) {
-            processCompleteMessage(message.getMessageGroupId(), assembler);
+            processCompleteMessage(message.getMessageGroupId(), message.getSenderId(), assembler);
         }
     }
 
-// ... continuing DataManager class
+    /**
+     * Checks the chunk against its Merkle proof, and the proof's root against the
+     * root from the transfer's manifest. A non-cryptographic proof is only trusted on the sender's own sealed connection,
+     * and only if it is what we agreed on that connection.
+     */
+    private boolean verifyChunk(DataMessage message, MessageHandler receivedOn) {
+        byte[] proof = message.getChecksum();
+        IntegrityAlgorithm algorithm = MerkleTree.algorithmOf(proof);
+        if (algorithm == null) {
+            return false;
+        }
+        if (!algorithm.isCryptographic() && (!routingManager.getConnectionManager()
+                .isSealedLink(message.getSenderId(), receivedOn) || algorithm != receivedOn.getIntegrityAlgorithm())) {
+            return false;
+        }
+        ExpectedRoot expected = incomingRoots.get(message.getMessageGroupId());
+        if (expected == null || proof.length < expected.root.length
+                || !Arrays.equals(expected.root, MerkleTree.rootOf(proof))) {
+            return false;
+        }
+        return MerkleTree.verify(message.getDataBuffer(), message.getChunkNumber(),
+                message.getTotalChunks(), proof);
+    }
+
+    // Streaming mode: chunks go to the subscriber in order instead of being assembled
+    private void handleStreamChunk(DataMessage message) {
+        ChunkStream stream = incomingStreams.get(message.getMessageGroupId());
+        if (stream == null && finishedStreams.contains(message.getMessageGroupId())) {
+            // A resend or straggler; a new stream for it could never get its first chunk
+            logger.debug("Dropping late chunk {} of finished stream {}",
+                    message.getChunkNumber(), message.getMessageGroupId());
+            return;
+        }
+        if (stream == null) {
+            ChunkStream created;
+            try {
+                // Chunks are acknowledged as the subscriber takes them, so it paces the sender
+                created = new ChunkStream(message.getMessageGroupId(), message.getSenderId(),
+                        message.getTotalChunks(), chunkNumber -> sendAcknowledgment(
+                                message.getMessageGroupId(), message.getSenderId(),
+                                message.getTotalChunks(), chunkNumber));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Rejected stream {}: {}", message.getMessageGroupId(), e.getMessage());
+                return;
+            }
+            stream = incomingStreams.putIfAbsent(message.getMessageGroupId(), created);
+            if (stream == null) {
+                stream = created;
+                streamHandler.accept(created);
+            }
+        }
+
+        try {
+            if (!stream.addChunk(message.getChunkNumber(), message.getDataBuffer())
+                    && stream.isConsumed(message.getChunkNumber())) {
+                sendAcknowledgment(message);  // A resend; the first acknowledgement was lost
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected chunk {} of message {}: {}",
+                    message.getChunkNumber(), message.getMessageGroupId(), e.getMessage());
+            return;
+        }
+
+        if (stream.isComplete() && incomingStreams.remove(message.getMessageGroupId(), stream)) {
+            finishedStreams.markSeen(message.getMessageGroupId());
+            incomingRoots.remove(message.getMessageGroupId());
+            logger.info("Received all {} chunks of streamed message {}",
+                    stream.getTotalChunks(), message.getMessageGroupId());
+            sendCompletion(message.getMessageGroupId(), message.getSenderId());
+        }
+    }
 
     private void handleAcknowledgment(DataMessage message) {
         MessageTracker tracker = outgoingMessages.get(message.getMessageGroupId());
-        if (tracker != null) {
-            tracker.acknowledgeChunk(message.getChunkNumber());
-
+        if (tracker != null && message.getChunkNumber() == MANIFEST_CHUNK) {
+            if (tracker.acknowledgeManifest()) {
+                sendAvailableChunks(tracker);
+            }
+        } else if (tracker != null && tracker.acknowledgeChunk(message.getChunkNumber())) {
             if (tracker.isComplete()) {
                 logger.info("Message {} fully acknowledged by recipient",
                         message.getMessageGroupId());
                 outgoingMessages.remove(message.getMessageGroupId());
+            } else {
+                // Each acknowledgement returns a credit to the window
+                sendAvailableChunks(tracker);
             }
         }
     }
@@ -141,6 +478,11 @@ public class DataManager {
     private void handleRetransmitRequest(DataMessage message) {
         MessageTracker tracker = outgoingMessages.get(message.getMessageGroupId());
         if (tracker != null) {
+            if (message.getChunkNumber() < 0 || message.getChunkNumber() >= tracker.getTotalChunks()) {
+                logger.warn("Ignoring retransmit request for invalid chunk {} of message {}",
+                        message.getChunkNumber(), message.getMessageGroupId());
+                return;
+            }
             if (tracker.incrementRetryCount() > MAX_RETRY_ATTEMPTS) {
                 logger.error("Max retry attempts exceeded for message {}",
                         message.getMessageGroupId());
@@ -149,46 +491,53 @@ public class DataManager {
             }
 
             // Resend the requested chunk
-            sendData(message.getSenderId(), message.getData());
+            sendChunk(tracker, message.getChunkNumber());
             logger.debug("Retransmitted chunk {} of message {}",
                     message.getChunkNumber(), message.getMessageGroupId());
         }
     }
 
+    // The recipient has assembled the whole message; nothing is left to track
     private void handleComplete(DataMessage message) {
-        MessageAssembler assembler = incomingMessages.remove(message.getMessageGroupId());
-        if (assembler != null && assembler.isComplete()) {
-            byte[] completeData = assembler.assembleMessage();
-            processCompleteMessage(message.getMessageGroupId(), assembler);
+        if (outgoingMessages.remove(message.getMessageGroupId()) != null) {
+            logger.info("Message {} completed by {}",
+                    message.getMessageGroupId(), message.getSenderId());
         }
     }
 
-    private void processCompleteMessage(String messageGroupId, MessageAssembler assembler) {
+    private void processCompleteMessage(String messageGroupId, String senderId,
+                                        MessageAssembler assembler) {
+        // Only the caller that removes the assembler reports completion
+        if (!incomingMessages.remove(messageGroupId, assembler)) {
+            return;
+        }
+        incomingRoots.remove(messageGroupId);
         try {
-            byte[] completeData = assembler.assembleMessage();
+            ByteBuffer completeData = assembler.assembleBuffer();
             // Here we would typically pass the complete data to an application layer handler
-            logger.info("Successfully assembled complete message {}", messageGroupId);
-
-            // Clean up
-            incomingMessages.remove(messageGroupId);
-
-            // Send completion acknowledgment
-            DataMessage completeMessage = new DataMessage(
-                    nodeId,
-                    messageGroupId,
-                    0,  // Not relevant for completion message
-                    0,  // Not relevant for completion message
-                    new byte[0],  // No data needed
-                    new byte[0],  // No checksum needed
-                    DataMessage.MessageState.COMPLETE
-            );
-
-            routingManager.routeMessage(completeMessage.getSenderId(), completeMessage);
+            logger.info("Successfully assembled complete message {} ({} bytes)",
+                    messageGroupId, completeData.remaining());
+
+            sendCompletion(messageGroupId, senderId);
         } catch (Exception e) {
             logger.error("Failed to process complete message {}", messageGroupId, e);
         }
     }
 
+    private void sendCompletion(String messageGroupId, String senderId) {
+        DataMessage completeMessage = new DataMessage(
+                nodeId,
+                messageGroupId,
+                0,  // Not relevant for completion message
+                0,  // Not relevant for completion message
+                new byte[0],  // No data needed
+                new byte[0],  // No checksum needed
+                DataMessage.MessageState.COMPLETE
+        );
+
+        routingManager.routeMessage(senderId, completeMessage);
+    }
+
     private void requestRetransmission(DataMessage message) {
         DataMessage retransmitRequest = new DataMessage(
                 nodeId,
@@ -204,17 +553,22 @@ public class DataManager {
     }
 
     private void sendAcknowledgment(DataMessage message) {
+        sendAcknowledgment(message.getMessageGroupId(), message.getSenderId(),
+                message.getTotalChunks(), message.getChunkNumber());
+    }
+
+    private void sendAcknowledgment(String messageGroupId, String senderId, int totalChunks, int chunkNumber) {
         DataMessage ack = new DataMessage(
                 nodeId,
-                message.getMessageGroupId(),
-                message.getTotalChunks(),
-                message.getChunkNumber(),
+                messageGroupId,
+                totalChunks,
+                chunkNumber,
                 new byte[0],  // No data needed
                 new byte[0],  // No checksum needed
                 DataMessage.MessageState.ACKNOWLEDGMENT
         );
 
-        routingManager.routeMessage(message.getSenderId(), ack);
+        routingManager.routeMessage(senderId, ack);
     }
 
     private void startTimeoutChecker() {
@@ -223,17 +577,26 @@ public class DataManager {
 
             // Check outgoing messages for timeouts
             outgoingMessages.forEach((messageId, tracker) -> {
-                if (currentTime - tracker.getCreationTime() > CHUNK_TIMEOUT) {
+                if (currentTime - tracker.getLastActivityTime() > CHUNK_TIMEOUT) {
                     if (tracker.incrementRetryCount() > MAX_RETRY_ATTEMPTS) {
                         logger.error("Message {} timed out after max retries", messageId);
                         outgoingMessages.remove(messageId);
+                    } else if (!tracker.isManifestAcknowledged()) {
+                        DataMessage manifest = tracker.getManifest();
+                        if (manifest != null) {
+                            logger.warn("Manifest of message {} not acknowledged, resending", messageId);
+                            // A new message ID, or relays would drop it as a copy of the first
+                            send(tracker, new DataMessage(nodeId, messageId, manifest.getTotalChunks(),
+                                    MANIFEST_CHUNK, manifest.getData(), manifest.getChecksum(),
+                                    DataMessage.MessageState.MANIFEST));
+                        }
                     } else {
-                        // Resend missing chunks
+                        // Resend chunks whose acknowledgement never arrived
                         logger.warn("Message {} timed out, retrying...", messageId);
-                        for (int chunkNumber : tracker.getMissingChunks()) {
-                            // Implement resend logic here
+                        for (int chunkNumber : tracker.getInFlightChunks()) {
                             logger.debug("Resending chunk {} of message {}",
                                     chunkNumber, messageId);
+                            sendChunk(tracker, chunkNumber);
                         }
                     }
                 }
@@ -242,11 +605,27 @@ public class DataManager {
             // Check incoming messages for timeouts
             incomingMessages.entrySet().removeIf(entry ->
                     currentTime - entry.getValue().getCreationTime() > CHUNK_TIMEOUT);
+            incomingStreams.values().removeIf(stream -> {
+                if (currentTime - stream.getLastActivityTime() <= CHUNK_TIMEOUT) {
+                    return false;
+                }
+                finishedStreams.markSeen(stream.getMessageGroupId());
+                stream.fail(new TimeoutException("Message " + stream.getMessageGroupId()
+                        + " timed out with " + stream.getReceivedCount() + " of "
+                        + stream.getTotalChunks() + " chunks, idle for " + CHUNK_TIMEOUT + " ms"));
+                return true;
+            });
+            // Roots of transfers that were just dropped, or never got a valid chunk in
+            incomingRoots.entrySet().removeIf(entry ->
+                    currentTime - entry.getValue().acceptedTime > CHUNK_TIMEOUT
+                            && !incomingMessages.containsKey(entry.getKey())
+                            && !incomingStreams.containsKey(entry.getKey()));
 
         }, CHUNK_TIMEOUT, CHUNK_TIMEOUT, TimeUnit.MILLISECONDS);
     }
 
     public void shutdown() {
+        routingManager.setDataListener(null);
         timeoutChecker.shutdown();
         try {
             timeoutChecker.awaitTermination(5, TimeUnit.SECONDS);
@@ -0,0 +1,190 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.KademliaTable.Contact;
+import com.nexuscipher.labyrinth.network.protocol.FindNodeMessage;
+import com.nexuscipher.labyrinth.network.protocol.PeerDiscoveryMessage.PeerInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kademlia overlay for finding nodes we have no route to. Each node keeps a
+ * {@link KademliaTable} of contacts and answers FIND_NODE requests from it; a
+ * {@link KademliaLookup} walks towards the target in O(log n) rounds, so locating
+ * a node costs a few dozen messages instead of a flood through the whole mesh.
+ *
+ * Queries open a connection to the contact being asked, so lookups leave this
+ * node connected to the nodes closest to the target, and to the target itself.
+ * Contacts come from verified peers, but a verified peer can still name nodes
+ * that do not exist; those simply time out and are dropped.
+ */
+public class DhtRouter {
+    private static final Logger logger = LoggerFactory.getLogger(DhtRouter.class);
+
+    public static final long DEFAULT_QUERY_TIMEOUT_MS = 2000;
+
+    private final String nodeId;
+    private final String host;  // Where this node accepts connections, as given to other nodes
+    private final int port;
+    private final ConnectionManager connectionManager;
+    private final KademliaTable table;
+    private final KademliaLookup lookup;
+    private final long queryTimeoutMs;
+    private final Map<String, PendingQuery> pendingQueries;  // Request ID -> query awaiting its reply
+
+    private final AtomicLong lookups;
+    private final AtomicLong queriesSent;
+    private final AtomicLong queriesFailed;
+    private final AtomicLong requestsAnswered;
+
+    public DhtRouter(String nodeId, String host, int port, ConnectionManager connectionManager) {
+        this(nodeId, host, port, connectionManager, KademliaTable.DEFAULT_BUCKET_SIZE,
+                KademliaLookup.DEFAULT_PARALLELISM, DEFAULT_QUERY_TIMEOUT_MS);
+    }
+
+    /**
+     * @param bucketSize contacts per k-bucket, and per reply
+     * @param parallelism queries a lookup keeps in flight
+     */
+    public DhtRouter(String nodeId, String host, int port, ConnectionManager connectionManager,
+                     int bucketSize, int parallelism, long queryTimeoutMs) {
+        this.nodeId = nodeId;
+        this.host = host;
+        this.port = port;
+        this.connectionManager = connectionManager;
+        this.table = new KademliaTable(nodeId, bucketSize);
+        this.lookup = new KademliaLookup(table, this::query, parallelism);
+        this.queryTimeoutMs = queryTimeoutMs;
+        this.pendingQueries = new ConcurrentHashMap<>();
+        this.lookups = new AtomicLong(0);
+        this.queriesSent = new AtomicLong(0);
+        this.queriesFailed = new AtomicLong(0);
+        this.requestsAnswered = new AtomicLong(0);
+    }
+
+    /**
+     * Starts answering and receiving FIND_NODE messages.
+     */
+    public void start() {
+        connectionManager.setFindNodeListener(this::handleFindNode);
+        logger.info("DHT started for node: {}", nodeId);
+    }
+
+    /**
+     * Joins the overlay through known nodes: looks up our own ID, which fills our
+     * buckets and puts us in the tables of the nodes closest to us.
+     */
+    public CompletableFuture<KademliaLookup.Result> bootstrap(Collection<PeerInfo> seeds) {
+        for (PeerInfo seed : seeds) {
+            table.observe(seed);
+        }
+        return lookup(nodeId);
+    }
+
+    /**
+     * Finds a node's contact, from our table if we know it or by a lookup.
+     * @return completes with the contact, or null if no node knew it
+     */
+    public CompletableFuture<PeerInfo> locate(String targetId) {
+        Contact known = table.get(targetId);
+        if (known != null) {
+            return CompletableFuture.completedFuture(known.getPeer());
+        }
+        return lookup(targetId).thenApply(KademliaLookup.Result::getTarget);
+    }
+
+    public CompletableFuture<KademliaLookup.Result> lookup(String targetId) {
+        lookups.incrementAndGet();
+        return lookup.lookup(targetId);
+    }
+
+    /**
+     * Takes a FIND_NODE request or reply that arrived on the connection to {@code peerId}.
+     * The message's own sender field is only a claim, so the verified ID is used instead.
+     */
+    public void handleFindNode(FindNodeMessage message, String peerId) {
+        if (message.getPort() > 0) {
+            table.observe(new PeerInfo(peerId, message.getHost(), message.getPort()));
+        }
+        if (message.isResponse()) {
+            // Only the contact we asked may answer; another peer echoing the request ID is ignored
+            PendingQuery pending = pendingQueries.get(message.getRequestId());
+            if (pending != null && pending.contactId.equals(peerId)
+                    && pendingQueries.remove(message.getRequestId(), pending)) {
+                pending.reply.complete(message.getContacts());
+            } else {
+                logger.debug("Ignoring unexpected DHT reply from {}", peerId);
+            }
+            return;
+        }
+        List<PeerInfo> closest = new ArrayList<>();
+        for (Contact contact : table.closest(NodeKey.of(message.getTargetId()), table.getBucketSize())) {
+            if (!contact.getPeer().getNodeId().equals(peerId)) {
+                closest.add(contact.getPeer());
+            }
+        }
+        if (connectionManager.offerMessage(message.reply(nodeId, host, port, closest), peerId)) {
+            requestsAnswered.incrementAndGet();
+        } else {
+            logger.debug("Could not answer DHT lookup from {}", peerId);
+        }
+    }
+
+    public KademliaTable getTable() {
+        return table;
+    }
+
+    // Getters
+    public long getLookups() { return lookups.get(); }
+    public long getQueriesSent() { return queriesSent.get(); }
+    public long getQueriesFailed() { return queriesFailed.get(); }
+    public long getRequestsAnswered() { return requestsAnswered.get(); }
+
+    public void shutdown() {
+        connectionManager.setFindNodeListener(null);
+        pendingQueries.values().forEach(pending -> pending.reply.cancel(false));
+        pendingQueries.clear();
+        table.clear();
+    }
+
+    // One FIND_NODE round trip, over a connection to the contact opened if needed.
+    // The query timeout starts once connected; the dial has the handshake timeout of its own.
+    private CompletableFuture<List<PeerInfo>> query(PeerInfo contact, String targetId) {
+        FindNodeMessage request = new FindNodeMessage(nodeId, targetId, host, port);
+        PendingQuery pending = new PendingQuery(contact.getNodeId());
+        queriesSent.incrementAndGet();
+        return connectionManager.connectToPeer(contact.getNodeId(), contact.getHost(), contact.getPort())
+                .thenCompose(handler -> {
+                    pendingQueries.put(request.getRequestId(), pending);
+                    if (!connectionManager.offerMessage(request, contact.getNodeId())) {
+                        pending.reply.completeExceptionally(
+                                new IllegalStateException("Could not send to " + contact.getNodeId()));
+                    }
+                    return pending.reply.orTimeout(queryTimeoutMs, TimeUnit.MILLISECONDS);
+                })
+                .whenComplete((contacts, error) -> {
+                    pendingQueries.remove(request.getRequestId());
+                    if (error != null) {
+                        queriesFailed.incrementAndGet();
+                        logger.debug("DHT query to {} failed", contact.getNodeId(), error);
+                    }
+                });
+    }
+
+    private static final class PendingQuery {
+        final String contactId;  // Node the request went to, the only one whose reply counts
+        final CompletableFuture<List<PeerInfo>> reply = new CompletableFuture<>();
+
+        PendingQuery(String contactId) {
+            this.contactId = contactId;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.nexuscipher.labyrinth.network;
+
+/**
+ * Remembers message IDs for a while, so RoutingManager can drop duplicates and
+ * loops. {@link RecentMessageCache} is exact; {@link BloomDuplicateFilter} trades
+ * a small false-positive rate for a few bytes per message.
+ */
+public interface DuplicateFilter {
+
+    /**
+     * Records an ID.
+     * @return true if it was not seen recently, false for a (possible) duplicate
+     */
+    boolean markSeen(String messageId);
+
+    /**
+     * Whether an ID was seen recently, without recording it.
+     */
+    boolean contains(String messageId);
+
+    void clear();
+}
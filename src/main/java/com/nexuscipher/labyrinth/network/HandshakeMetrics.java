@@ -0,0 +1,73 @@
+package com.nexuscipher.labyrinth.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the handshakes on connections this node opened: how many were
+ * resumed from a ticket rather than run in full, and how long each kind took
+ * from sending the first handshake message to the peer being verified.
+ * A resumption the peer declined counts as a fallback and then as a full handshake.
+ * Also counts the full handshakes peers started that we turned away because the
+ * crypto workers were saturated.
+ */
+public class HandshakeMetrics {
+    private final AtomicLong fullHandshakes;
+    private final AtomicLong fullNanos;
+    private final AtomicLong resumedHandshakes;
+    private final AtomicLong resumedNanos;
+    private final AtomicLong fallbacks;
+    private final AtomicLong refused;
+
+    public HandshakeMetrics() {
+        this.fullHandshakes = new AtomicLong(0);
+        this.fullNanos = new AtomicLong(0);
+        this.resumedHandshakes = new AtomicLong(0);
+        this.resumedNanos = new AtomicLong(0);
+        this.fallbacks = new AtomicLong(0);
+        this.refused = new AtomicLong(0);
+    }
+
+    public void recordFull(long nanos) {
+        fullHandshakes.incrementAndGet();
+        fullNanos.addAndGet(nanos);
+    }
+
+    public void recordResumed(long nanos) {
+        resumedHandshakes.incrementAndGet();
+        resumedNanos.addAndGet(nanos);
+    }
+
+    public void recordFallback() {
+        fallbacks.incrementAndGet();
+    }
+
+    public void recordRefused() {
+        refused.incrementAndGet();
+    }
+
+    // Getters
+    public long getFullHandshakes() { return fullHandshakes.get(); }
+    public long getResumedHandshakes() { return resumedHandshakes.get(); }
+    public long getFallbacks() { return fallbacks.get(); }
+    public long getRefusedHandshakes() { return refused.get(); }
+
+    /**
+     * Share of completed handshakes that were resumed, between 0 and 1
+     */
+    public double getResumedRatio() {
+        long total = fullHandshakes.get() + resumedHandshakes.get();
+        return total == 0 ? 0 : (double) resumedHandshakes.get() / total;
+    }
+
+    public double getAverageFullMillis() {
+        return averageMillis(fullNanos.get(), fullHandshakes.get());
+    }
+
+    public double getAverageResumedMillis() {
+        return averageMillis(resumedNanos.get(), resumedHandshakes.get());
+    }
+
+    private static double averageMillis(long nanos, long count) {
+        return count == 0 ? 0 : nanos / 1e6 / count;
+    }
+}
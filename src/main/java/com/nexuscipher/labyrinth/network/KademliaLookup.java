@@ -0,0 +1,231 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.KademliaTable.Contact;
+import com.nexuscipher.labyrinth.network.protocol.PeerDiscoveryMessage.PeerInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Iterative Kademlia node lookup. Starting from the closest contacts in our own
+ * table, up to {@code alpha} queries are in flight at a time, each asking a node
+ * for the contacts it knows closest to the target. Every reply can only bring
+ * closer nodes, and each round halves the remaining distance on average, so a
+ * lookup takes O(log n) rounds and a few messages per round.
+ *
+ * The lookup ends as soon as a reply names the target, or once the k closest
+ * nodes it has heard of have all answered or failed. Nodes that fail are removed
+ * from the table, and every node that answers or is named in a reply is offered
+ * to it, so lookups keep the table current.
+ */
+public class KademliaLookup {
+    public static final int DEFAULT_PARALLELISM = 3;
+
+    private final KademliaTable table;
+    private final Query query;
+    private final int alpha;
+
+    /**
+     * Asks one contact for the contacts it knows closest to a target.
+     */
+    @FunctionalInterface
+    public interface Query {
+        CompletableFuture<List<PeerInfo>> findNode(PeerInfo contact, String targetId);
+    }
+
+    /**
+     * What a lookup found.
+     */
+    public static final class Result {
+        private final PeerInfo target;
+        private final List<PeerInfo> closest;
+        private final int queries;
+        private final int rounds;
+
+        Result(PeerInfo target, List<PeerInfo> closest, int queries, int rounds) {
+            this.target = target;
+            this.closest = closest;
+            this.queries = queries;
+            this.rounds = rounds;
+        }
+
+        /**
+         * The target's contact, or null if no node knew it
+         */
+        public PeerInfo getTarget() { return target; }
+
+        /**
+         * Closest contacts that answered, closest first
+         */
+        public List<PeerInfo> getClosest() { return closest; }
+
+        /**
+         * Requests sent; each is one message out and one back
+         */
+        public int getQueries() { return queries; }
+
+        /**
+         * Longest chain of queries, each sent to a node named by the previous reply
+         */
+        public int getRounds() { return rounds; }
+    }
+
+    private enum State { PENDING, IN_FLIGHT, ANSWERED, FAILED }
+
+    private static final class Candidate {
+        final Contact contact;
+        final int depth;  // 1 for contacts from our own table, one more per reply
+        State state = State.PENDING;
+
+        Candidate(Contact contact, int depth) {
+            this.contact = contact;
+            this.depth = depth;
+        }
+    }
+
+    public KademliaLookup(KademliaTable table, Query query) {
+        this(table, query, DEFAULT_PARALLELISM);
+    }
+
+    public KademliaLookup(KademliaTable table, Query query, int alpha) {
+        if (alpha < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.table = table;
+        this.query = query;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Looks up a node. The future never fails; a node nobody knows gives a result without a target.
+     */
+    public CompletableFuture<Result> lookup(String targetId) {
+        Lookup lookup = new Lookup(targetId);
+        lookup.advance();
+        return lookup.result;
+    }
+
+    // The state of one lookup; replies may arrive on any thread
+    private final class Lookup {
+        final String targetId;
+        final NodeKey target;
+        final TreeMap<NodeKey, Candidate> shortlist;  // Distance to the target -> candidate
+        final Map<String, Boolean> heard;             // Every node ID added to the shortlist
+        final CompletableFuture<Result> result;
+        PeerInfo found;
+        int inFlight;
+        int queries;
+        int rounds;
+
+        Lookup(String targetId) {
+            this.targetId = targetId;
+            this.target = NodeKey.of(targetId);
+            this.shortlist = new TreeMap<>();
+            this.heard = new HashMap<>();
+            this.result = new CompletableFuture<>();
+            for (Contact contact : table.closest(target, table.getBucketSize())) {
+                add(contact, 1);
+            }
+        }
+
+        void advance() {
+            List<Candidate> toQuery = new ArrayList<>();
+            Result finished = null;
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                // Query the closest nodes not asked yet, among the k closest still in the running
+                int considered = 0;
+                for (Candidate candidate : shortlist.values()) {
+                    if (found != null || inFlight >= alpha) {
+                        break;  // Nothing left to ask once the target is known
+                    }
+                    if (candidate.state == State.FAILED) {
+                        continue;
+                    }
+                    if (++considered > table.getBucketSize()) {
+                        break;
+                    }
+                    if (candidate.state == State.PENDING) {
+                        candidate.state = State.IN_FLIGHT;
+                        inFlight++;
+                        queries++;
+                        toQuery.add(candidate);
+                    }
+                }
+                if (found != null || (toQuery.isEmpty() && inFlight == 0)) {
+                    finished = finish();
+                }
+            }
+            if (finished != null) {
+                result.complete(finished);
+                return;
+            }
+            for (Candidate candidate : toQuery) {
+                CompletableFuture<List<PeerInfo>> reply;
+                try {
+                    reply = query.findNode(candidate.contact.getPeer(), targetId);
+                } catch (RuntimeException e) {
+                    reply = CompletableFuture.failedFuture(e);
+                }
+                reply.whenComplete((contacts, error) -> {
+                    if (error != null || contacts == null) {
+                        failed(candidate);
+                    } else {
+                        answered(candidate, contacts);
+                    }
+                    advance();
+                });
+            }
+        }
+
+        synchronized void answered(Candidate candidate, List<PeerInfo> contacts) {
+            inFlight--;
+            candidate.state = State.ANSWERED;
+            rounds = Math.max(rounds, candidate.depth);
+            table.observe(candidate.contact);
+            for (PeerInfo peer : contacts) {
+                if (peer.getNodeId().equals(table.getSelfId())) {
+                    continue;
+                }
+                if (peer.getNodeId().equals(targetId)) {
+                    found = peer;
+                }
+                if (!heard.containsKey(peer.getNodeId())) {
+                    Contact contact = new Contact(peer);
+                    table.observe(contact);
+                    add(contact, candidate.depth + 1);
+                }
+            }
+        }
+
+        synchronized void failed(Candidate candidate) {
+            inFlight--;
+            candidate.state = State.FAILED;
+            table.remove(candidate.contact.getPeer().getNodeId());
+        }
+
+        private void add(Contact contact, int depth) {
+            heard.put(contact.getPeer().getNodeId(), Boolean.TRUE);
+            shortlist.put(contact.getKey().distanceTo(target), new Candidate(contact, depth));
+            if (contact.getPeer().getNodeId().equals(targetId)) {
+                found = contact.getPeer();
+            }
+        }
+
+        private Result finish() {
+            List<PeerInfo> closest = new ArrayList<>();
+            for (Candidate candidate : shortlist.values()) {
+                if (candidate.state == State.ANSWERED && closest.size() < table.getBucketSize()) {
+                    closest.add(candidate.contact.getPeer());
+                }
+            }
+            return new Result(found, closest, queries, rounds);
+        }
+    }
+}
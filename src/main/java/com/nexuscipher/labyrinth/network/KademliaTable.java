@@ -0,0 +1,135 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.protocol.PeerDiscoveryMessage.PeerInfo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kademlia k-buckets: contacts grouped by the highest bit in which their
+ * {@link NodeKey} differs from ours, at most {@code k} per bucket. Far buckets
+ * cover half, a quarter, an eighth... of the network each, so a node knows many
+ * nodes close to it and a few everywhere else, about k log2(n) contacts in all.
+ *
+ * Each bucket is ordered from least to most recently seen. A full bucket keeps
+ * its contacts and ignores new ones: nodes that have been up for long tend to
+ * stay up, and it leaves no room for an attacker to flush a bucket. Contacts that
+ * stop answering are removed, which makes room again.
+ */
+public class KademliaTable {
+    public static final int DEFAULT_BUCKET_SIZE = 20;
+
+    private final String selfId;
+    private final NodeKey selfKey;
+    private final int bucketSize;
+    private final List<LinkedHashMap<String, Contact>> buckets;
+
+    /**
+     * A contact and its key, hashed once.
+     */
+    public static final class Contact {
+        private final PeerInfo peer;
+        private final NodeKey key;
+
+        public Contact(PeerInfo peer) {
+            this(peer, NodeKey.of(peer.getNodeId()));
+        }
+
+        public Contact(PeerInfo peer, NodeKey key) {
+            this.peer = peer;
+            this.key = key;
+        }
+
+        // Getters
+        public PeerInfo getPeer() { return peer; }
+        public NodeKey getKey() { return key; }
+    }
+
+    public KademliaTable(String selfId) {
+        this(selfId, DEFAULT_BUCKET_SIZE);
+    }
+
+    public KademliaTable(String selfId, int bucketSize) {
+        this.selfId = selfId;
+        this.selfKey = NodeKey.of(selfId);
+        this.bucketSize = bucketSize;
+        this.buckets = new ArrayList<>(NodeKey.BITS);
+        for (int i = 0; i < NodeKey.BITS; i++) {
+            buckets.add(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Records that a node was seen, marking it most recently seen if it is known.
+     * @return whether the node is in the table afterwards
+     */
+    public synchronized boolean observe(Contact contact) {
+        int index = selfKey.bucketIndex(contact.key);
+        if (index < 0 || contact.peer.getNodeId().equals(selfId)) {
+            return false;
+        }
+        LinkedHashMap<String, Contact> bucket = buckets.get(index);
+        if (bucket.remove(contact.peer.getNodeId()) == null && bucket.size() >= bucketSize) {
+            return false;
+        }
+        bucket.put(contact.peer.getNodeId(), contact);
+        return true;
+    }
+
+    public boolean observe(PeerInfo peer) {
+        return observe(new Contact(peer));
+    }
+
+    public synchronized void remove(String nodeId) {
+        buckets.get(Math.max(0, selfKey.bucketIndex(NodeKey.of(nodeId)))).remove(nodeId);
+    }
+
+    /**
+     * @return up to {@code count} known contacts closest to a key, closest first
+     */
+    public synchronized List<Contact> closest(NodeKey target, int count) {
+        List<Contact> all = new ArrayList<>();
+        for (Map<String, Contact> bucket : buckets) {
+            all.addAll(bucket.values());
+        }
+        all.sort(Comparator.comparing(contact -> contact.key.distanceTo(target)));
+        return all.size() > count ? new ArrayList<>(all.subList(0, count)) : all;
+    }
+
+    public synchronized Contact get(String nodeId) {
+        return buckets.get(Math.max(0, selfKey.bucketIndex(NodeKey.of(nodeId)))).get(nodeId);
+    }
+
+    /**
+     * Number of contacts in all buckets
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Map<String, Contact> bucket : buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (Map<String, Contact> bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    public String getSelfId() {
+        return selfId;
+    }
+
+    public NodeKey getSelfKey() {
+        return selfKey;
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+}
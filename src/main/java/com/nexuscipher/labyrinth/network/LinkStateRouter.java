@@ -0,0 +1,258 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.core.PeerConnection;
+import com.nexuscipher.labyrinth.network.protocol.LinkStateMessage;
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Link-state routing: every node periodically floods the latencies to its
+ * neighbours, and each node keeps a {@link TopologyGraph} of all advertisements
+ * and a next-hop table of least-latency paths derived from it.
+ *
+ * Advertisements are relayed as soon as they arrive, but applied to the graph on
+ * the router's own thread. Updates that arrive together are applied in one batch,
+ * and paths are recomputed incrementally, so forwarding only ever reads the
+ * finished {@link RoutingTable}, whose costs are latencies in milliseconds.
+ *
+ * Advertisements are accepted from verified peers only, but are not signed by
+ * their origin; a verified peer can misreport links on another node's behalf.
+ */
+public class LinkStateRouter {
+    private static final Logger logger = LoggerFactory.getLogger(LinkStateRouter.class);
+
+    public static final long DEFAULT_ADVERTISE_INTERVAL_MS = 10000;
+    // Origins silent for this many intervals are dropped from the graph
+    private static final int MAX_AGE_INTERVALS = 4;
+    // A latency of 0 means it was not measured yet; still a link, just the cheapest kind
+    private static final long MIN_LINK_COST = 1;
+
+    private final String nodeId;
+    private final ConnectionManager connectionManager;
+    private final Supplier<Map<String, Long>> neighbourLatencies;
+    private final long advertiseIntervalMs;
+    private final TopologyGraph graph;                    // Only used on the scheduler thread
+    private final RoutingTable routingTable;              // Destination -> least-latency next hop
+    private final Queue<LinkStateMessage> pendingUpdates; // Received, not applied to the graph yet
+    private final Map<String, Long> sequences;            // Newest sequence relayed per origin
+    private final Map<String, Long> lastHeard;            // Origin -> when it last advertised
+    private final AtomicBoolean recomputeScheduled;
+    private final AtomicLong sequence;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong advertisementsSent;
+    private final AtomicLong updatesAccepted;
+    private final AtomicLong recomputations;
+    private final AtomicLong lastRecomputeNanos;
+
+    public LinkStateRouter(String nodeId,
+                           ConnectionManager connectionManager,
+                           Supplier<Map<String, Long>> neighbourLatencies) {
+        this(nodeId, connectionManager, neighbourLatencies, DEFAULT_ADVERTISE_INTERVAL_MS,
+                connectionManager.getExecutionMode());
+    }
+
+    /**
+     * @param neighbourLatencies latest measured latency in ms per peer ID, such as
+     *                           {@link com.nexuscipher.labyrinth.monitoring.NetworkMonitor#getPeerLatencies()},
+     *                           which pings each peer on every health check
+     */
+    public LinkStateRouter(String nodeId,
+                           ConnectionManager connectionManager,
+                           Supplier<Map<String, Long>> neighbourLatencies,
+                           long advertiseIntervalMs,
+                           ExecutionMode executionMode) {
+        this.nodeId = nodeId;
+        this.connectionManager = connectionManager;
+        this.neighbourLatencies = neighbourLatencies;
+        this.advertiseIntervalMs = advertiseIntervalMs;
+        this.graph = new TopologyGraph(nodeId);
+        this.routingTable = new RoutingTable();
+        this.pendingUpdates = new ConcurrentLinkedQueue<>();
+        this.sequences = new ConcurrentHashMap<>();
+        this.lastHeard = new ConcurrentHashMap<>();
+        this.recomputeScheduled = new AtomicBoolean(false);
+        // Starts from the clock, so a restarted node's advertisements replace its old ones
+        this.sequence = new AtomicLong(System.currentTimeMillis());
+        this.scheduler = ExecutorFactory.newScheduler(executionMode, "link-state", 1);
+        this.advertisementsSent = new AtomicLong(0);
+        this.updatesAccepted = new AtomicLong(0);
+        this.recomputations = new AtomicLong(0);
+        this.lastRecomputeNanos = new AtomicLong(0);
+    }
+
+    /**
+     * Starts receiving advertisements and sending our own.
+     */
+    public void start() {
+        connectionManager.setLinkStateListener(this::handleLinkState);
+        scheduler.scheduleAtFixedRate(this::advertise, 0, advertiseIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::expireSilentOrigins,
+                advertiseIntervalMs, advertiseIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Link-state routing started for node: {}", nodeId);
+    }
+
+    /**
+     * Takes an advertisement from a peer: relays it if it is news, and queues it for the graph.
+     */
+    public void handleLinkState(LinkStateMessage message) {
+        String origin = message.getOriginId();
+        if (origin.equals(nodeId) || !acceptSequence(origin, message.getSequence())) {
+            return;  // Our own, or one we already relayed
+        }
+        lastHeard.put(origin, System.currentTimeMillis());
+        updatesAccepted.incrementAndGet();
+        pendingUpdates.add(message);
+        scheduleRecompute();
+
+        LinkStateMessage relayed = message.relayedBy(nodeId);
+        for (PeerConnection peer : connectionManager.getAllPeers()) {
+            if (!peer.getPeerId().equals(message.getSenderId()) && !peer.getPeerId().equals(origin)) {
+                connectionManager.offerMessage(relayed, peer.getPeerId());
+            }
+        }
+    }
+
+    /**
+     * @return the next hop on the least-latency path to a node, or null if none is known
+     */
+    public String nextHop(String destination) {
+        return routingTable.bestNextHop(destination);
+    }
+
+    public boolean hasRoute(String destination) {
+        return routingTable.contains(destination);
+    }
+
+    /**
+     * Least-latency next hops; costs are path latencies in ms
+     */
+    public RoutingTable getRoutingTable() {
+        return routingTable;
+    }
+
+    // Getters
+    public long getAdvertisementsSent() { return advertisementsSent.get(); }
+    public long getUpdatesAccepted() { return updatesAccepted.get(); }
+    public long getRecomputations() { return recomputations.get(); }
+    public long getLastRecomputeNanos() { return lastRecomputeNanos.get(); }
+
+    public void shutdown() {
+        connectionManager.setLinkStateListener(null);
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            logger.warn("Link-state router shutdown interrupted");
+            Thread.currentThread().interrupt();
+        }
+        routingTable.clear();
+    }
+
+    // Floods the latencies to our connected neighbours
+    private void advertise() {
+        try {
+            Map<String, Long> latencies = new HashMap<>();
+            neighbourLatencies.get().forEach((peerId, latency) -> {
+                if (connectionManager.isConnected(peerId)) {
+                    latencies.put(peerId, Math.max(MIN_LINK_COST, latency));
+                }
+            });
+            LinkStateMessage message = new LinkStateMessage(nodeId, nodeId, sequence.incrementAndGet(), latencies);
+            pendingUpdates.add(message);
+            scheduleRecompute();
+            for (PeerConnection peer : connectionManager.getAllPeers()) {
+                connectionManager.offerMessage(message, peer.getPeerId());
+            }
+            advertisementsSent.incrementAndGet();
+        } catch (RuntimeException e) {
+            logger.error("Failed to advertise link state", e);
+        }
+    }
+
+    private void expireSilentOrigins() {
+        long cutoff = System.currentTimeMillis() - MAX_AGE_INTERVALS * advertiseIntervalMs;
+        lastHeard.forEach((origin, heard) -> {
+            if (heard < cutoff && lastHeard.remove(origin, heard)) {
+                sequences.remove(origin);
+                graph.removeOrigin(origin);
+                logger.debug("Dropped link state of silent node {}", origin);
+            }
+        });
+        recompute();
+    }
+
+    // True if the sequence is newer than any we have relayed for the origin
+    private boolean acceptSequence(String origin, long candidate) {
+        while (true) {
+            Long known = sequences.get(origin);
+            if (known == null) {
+                if (sequences.putIfAbsent(origin, candidate) == null) {
+                    return true;
+                }
+                continue;
+            }
+            if (candidate <= known) {
+                return false;
+            }
+            if (sequences.replace(origin, known, candidate)) {
+                return true;
+            }
+        }
+    }
+
+    // Coalesces bursts of updates into one recomputation on the scheduler thread
+    private void scheduleRecompute() {
+        if (recomputeScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::recompute);
+            } catch (RejectedExecutionException e) {
+                recomputeScheduled.set(false);  // Shutting down
+            }
+        }
+    }
+
+    private void recompute() {
+        recomputeScheduled.set(false);
+        try {
+            LinkStateMessage update;
+            while ((update = pendingUpdates.poll()) != null) {
+                graph.applyLinkState(update.getOriginId(), update.getSequence(), update.getLatencies());
+            }
+            long start = System.nanoTime();
+            Map<String, String> changed = graph.recompute();
+            publish(changed);
+            lastRecomputeNanos.set(System.nanoTime() - start);
+            recomputations.incrementAndGet();
+        } catch (RuntimeException e) {
+            logger.error("Failed to recompute link-state routes", e);
+        }
+    }
+
+    // Installs the new next hop before removing the old one, so lookups never miss a reachable node
+    private void publish(Map<String, String> changed) {
+        changed.forEach((destination, previousHop) -> {
+            String nextHop = graph.nextHop(destination);
+            if (nextHop != null) {
+                routingTable.update(destination, nextHop, graph.distance(destination));
+            }
+            if (previousHop != null && !previousHop.equals(nextHop)) {
+                routingTable.remove(destination, previousHop);
+            }
+        });
+    }
+}
@@ -1,59 +1,131 @@
 package com.nexuscipher.labyrinth.network;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.BitSet;
 
+/**
+ * Reassembles a chunked message by copying each chunk straight to its final
+ * offset in a single destination array.
+ *
+ * Senders cut every chunk but the last to the same size, so the destination can
+ * be allocated as soon as one full-size chunk arrives. A last chunk that arrives
+ * before any other is held by reference until the chunk size is known.
+ */
 public class MessageAssembler {
-    private static final Logger logger = LoggerFactory.getLogger(MessageAssembler.class);
-
-    private final byte[][] chunks;
     private final BitSet receivedChunks;
     private final int totalChunks;
-    // Add this field at the top of MessageAssembler class
     private final long creationTime;
 
+    private byte[] destination;
+    private int chunkSize = -1;     // Size of every chunk but the last, once known
+    private int lastChunkSize = -1;
+    private ByteBuffer pendingLastChunk;
 
     public long getCreationTime() {
         return creationTime;
     }
 
     public MessageAssembler(int totalChunks) {
-        this.chunks = new byte[totalChunks][];
+        if (totalChunks <= 0) {
+            throw new IllegalArgumentException("Invalid chunk count: " + totalChunks);
+        }
         this.receivedChunks = new BitSet(totalChunks);
         this.totalChunks = totalChunks;
         this.creationTime = System.currentTimeMillis();
     }
 
-    public synchronized void addChunk(int chunkNumber, byte[] data) {
-        if (chunkNumber >= totalChunks) {
+    public void addChunk(int chunkNumber, byte[] data) {
+        addChunk(chunkNumber, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Copies the remaining bytes of {@code data} into place. Duplicate chunks are ignored.
+     */
+    public synchronized void addChunk(int chunkNumber, ByteBuffer data) {
+        if (chunkNumber < 0 || chunkNumber >= totalChunks) {
             throw new IllegalArgumentException("Invalid chunk number");
         }
-        chunks[chunkNumber] = data;
+        if (receivedChunks.get(chunkNumber)) {
+            return;
+        }
+
+        boolean last = chunkNumber == totalChunks - 1;
+        int length = data.remaining();
+        if (last) {
+            if (chunkSize >= 0 && length > chunkSize) {
+                throw new IllegalArgumentException("Last chunk larger than chunk size " + chunkSize);
+            }
+            lastChunkSize = length;
+            if (destination == null && totalChunks > 1) {
+                // Offset unknown until a full-size chunk shows up
+                pendingLastChunk = data.duplicate();
+                receivedChunks.set(chunkNumber);
+                return;
+            }
+        } else if (chunkSize < 0) {
+            if (lastChunkSize > length) {
+                throw new IllegalArgumentException("Chunk " + chunkNumber + " smaller than last chunk");
+            }
+            chunkSize = length;
+        } else if (length != chunkSize) {
+            throw new IllegalArgumentException("Chunk " + chunkNumber + " has " + length
+                    + " bytes, expected " + chunkSize);
+        }
+
+        if (destination == null) {
+            allocateDestination();
+        }
+        data.duplicate().get(destination, chunkOffset(chunkNumber), length);
         receivedChunks.set(chunkNumber);
     }
 
+    private void allocateDestination() {
+        long size = totalChunks == 1
+                ? lastChunkSize
+                : (long) chunkSize * (totalChunks - 1) + (lastChunkSize >= 0 ? lastChunkSize : chunkSize);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Message too large to assemble: " + size + " bytes");
+        }
+        destination = new byte[(int) size];
+        if (pendingLastChunk != null) {
+            pendingLastChunk.get(destination, chunkOffset(totalChunks - 1), lastChunkSize);
+            pendingLastChunk = null;
+        }
+    }
+
+    private int chunkOffset(int chunkNumber) {
+        return chunkNumber * Math.max(chunkSize, 0);
+    }
+
+    private int messageLength() {
+        return chunkOffset(totalChunks - 1) + lastChunkSize;
+    }
+
     public synchronized boolean isComplete() {
         return receivedChunks.cardinality() == totalChunks;
     }
 
+    /**
+     * Returns the assembled message. This is the destination array itself unless it
+     * was sized before the last chunk's length was known, in which case it is trimmed.
+     */
     public synchronized byte[] assembleMessage() {
         if (!isComplete()) {
             throw new IllegalStateException("Message is not complete");
         }
+        int length = messageLength();
+        return length == destination.length ? destination : Arrays.copyOf(destination, length);
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        for (byte[] chunk : chunks) {
-            try {
-                outputStream.write(chunk);
-            } catch (Exception e) {
-                logger.error("Failed to assemble message", e);
-                throw new RuntimeException("Message assembly failed", e);
-            }
+    /**
+     * Returns a read-only view of the assembled message without copying it.
+     */
+    public synchronized ByteBuffer assembleBuffer() {
+        if (!isComplete()) {
+            throw new IllegalStateException("Message is not complete");
         }
-        return outputStream.toByteArray();
+        return ByteBuffer.wrap(destination, 0, messageLength()).slice().asReadOnlyBuffer();
     }
 
     public synchronized int[] getMissingChunks() {
@@ -68,4 +140,4 @@ public class MessageAssembler {
         }
         return missingChunks;
     }
-}
\ No newline at end of file
+}
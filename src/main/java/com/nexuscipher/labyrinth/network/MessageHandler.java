@@ -1,107 +1,241 @@
 package com.nexuscipher.labyrinth.network;
 
-import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
-import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.crypto.SessionCipher;
+import com.nexuscipher.labyrinth.network.protocol.EncryptedMessage;
 import com.nexuscipher.labyrinth.network.protocol.HandshakeMessage;
+import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithm;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithms;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
 import java.net.Socket;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
 
-public class MessageHandler implements Runnable {
+/**
+ * A framed connection to a single peer. Incoming messages are passed to
+ * {@link ConnectionManager#handleMessage} together with the handler they arrived on.
+ *
+ * Both transports use the same wire format: a codec preamble (magic + preferred
+ * codec ID) from each side, then frames made of a 4-byte length and a codec payload.
+ *
+ * Outgoing messages go through a bounded {@link StreamMultiplexer} drained by a
+ * single writer, which writes several queued frames per batch and flushes once per
+ * batch. Control messages are taken ahead of bulk chunks, and chunks of concurrent
+ * transfers are interleaved. Senders never touch the socket themselves.
+ *
+ * Once the handshake has agreed a session, every other message is sealed by the
+ * writer as it is encoded, so records leave in sequence-number order.
+ */
+public abstract class MessageHandler {
     private static final Logger logger = LoggerFactory.getLogger(MessageHandler.class);
 
-    private final Socket socket;
-    private final String nodeId;
-    private final QuantumResistantCrypto crypto;
-    private final ObjectInputStream in;
-    private final ObjectOutputStream out;
-    private final ConnectionManager connectionManager;
-    private final AtomicBoolean isRunning;
-
-    public MessageHandler(Socket socket, String nodeId, QuantumResistantCrypto crypto,
-                          ConnectionManager connectionManager) throws IOException {
-        this.socket = socket;
+    // Preamble each side sends before the first frame: magic + preferred codec ID. Nodes from
+    // before the preamble wrote one object stream per socket; their message classes and
+    // handshake differ from ours, so they are recognised by the stream magic and turned away.
+    protected static final short CODEC_HELLO_MAGIC = 0x4E43;  // "NC"
+    protected static final int CODEC_HELLO_LENGTH = 3;
+    protected static final int FRAME_HEADER_LENGTH = 4;
+    protected static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;  // 16MB
+
+    protected static final int OUTBOUND_QUEUE_CAPACITY = 1024;  // Messages per lane per connection
+    protected static final int MAX_BATCH_FRAMES = 64;
+    // Caps how much bulk data is committed to one batch, so control messages queued
+    // behind it wait for at most this much to be written
+    protected static final int MAX_BATCH_BYTES = 256 * 1024;
+    private static final long SEND_RETRY_MS = 100;
+
+    protected final String nodeId;
+    protected final ConnectionManager connectionManager;
+    protected final StreamMultiplexer outbound;
+    protected final WriteQueueMetrics writeMetrics;
+    private volatile String peerId;  // Null until the handshake verifies the peer
+    private volatile SessionCipher session;  // Null until the handshake agrees one
+    private volatile byte[] peerIntegrityOffer;  // Integrity algorithm IDs from the peer's handshake
+    private volatile IntegrityAlgorithm integrityAlgorithm = IntegrityAlgorithms.DEFAULT;
+
+    protected MessageHandler(String nodeId, ConnectionManager connectionManager) {
         this.nodeId = nodeId;
-        this.crypto = crypto;
         this.connectionManager = connectionManager;
-        // Create output stream first to prevent deadlock
-        this.out = new ObjectOutputStream(socket.getOutputStream());
-        this.in = new ObjectInputStream(socket.getInputStream());
-        this.isRunning = new AtomicBoolean(true);
+        this.outbound = new StreamMultiplexer(OUTBOUND_QUEUE_CAPACITY, OUTBOUND_QUEUE_CAPACITY);
+        this.writeMetrics = new WriteQueueMetrics();
     }
 
-    @Override
-    public void run() {
+    /**
+     * Queues a message for the connected peer, waiting for room if the
+     * outbound queue is full. Messages are dropped once the connection closes.
+     */
+    public void sendMessage(Message message) {
         try {
-            while (isRunning.get() && !socket.isClosed()) {
-                Message message = (Message) in.readObject();
-                // Pass the message to connection manager along with this handler
-                connectionManager.handleMessage(message, this);
+            while (isActive()) {
+                if (outbound.offer(message, SEND_RETRY_MS, TimeUnit.MILLISECONDS)) {
+                    scheduleWrite();
+                    return;
+                }
             }
-        } catch (IOException e) {
-            logger.error("Connection error with peer at {}: {}",
-                    socket.getRemoteSocketAddress(), e.getMessage());
-        } catch (ClassNotFoundException e) {
-            logger.error("Received malformed message from {}",
-                    socket.getRemoteSocketAddress());
-        } finally {
-            cleanup();
+            logger.warn("Dropping message {} for closed connection to {}",
+                    message.getMessageId(), getSocket().getRemoteSocketAddress());
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while queueing message {}", message.getMessageId());
+            Thread.currentThread().interrupt();
         }
     }
 
     /**
-     * Sends a message to the connected peer
+     * Queues a message without blocking.
+     * @return false if the connection is closed or its outbound queue is full
      */
-    public synchronized void sendMessage(Message message) {
-        try {
-            out.writeObject(message);
-            out.flush();
-            logger.debug("Sent message type {} to {}",
-                    message.getType(), socket.getRemoteSocketAddress());
-        } catch (IOException e) {
-            logger.error("Failed to send message to {}: {}",
-                    socket.getRemoteSocketAddress(), e.getMessage());
-            close();
+    public boolean offerMessage(Message message) {
+        if (isActive() && outbound.offer(message)) {
+            scheduleWrite();
+            return true;
         }
+        writeMetrics.recordRejectedOffer();
+        return false;
     }
 
     /**
-     * Gracefully closes the connection
+     * Installs the session keys agreed by this connection's handshake. A null
+     * session (the peer offered no key exchange) leaves the connection unencrypted.
+     * @return false if the connection already has a session; the first one is kept
      */
-    public void close() {
-        isRunning.set(false);
-        cleanup();
+    public synchronized boolean startSession(SessionCipher session) {
+        if (session == null) {
+            return true;
+        }
+        if (this.session != null) {
+            return false;
+        }
+        this.session = session;
+        return true;
+    }
+
+    public SessionCipher getSession() {
+        return session;
     }
 
-    private void cleanup() {
+    void setPeerId(String peerId) {
+        this.peerId = peerId;
+    }
+
+    /**
+     * ID of the peer this connection's handshake verified, or null until then.
+     */
+    public String getPeerId() {
+        return peerId;
+    }
+
+    void setPeerIntegrityOffer(byte[] peerIntegrityOffer) {
+        this.peerIntegrityOffer = peerIntegrityOffer;
+    }
+
+    byte[] getPeerIntegrityOffer() {
+        return peerIntegrityOffer;
+    }
+
+    void setIntegrityAlgorithm(IntegrityAlgorithm integrityAlgorithm) {
+        this.integrityAlgorithm = integrityAlgorithm;
+    }
+
+    /**
+     * Chunk integrity algorithm agreed for this connection; SHA-256 until the peer is verified.
+     */
+    public IntegrityAlgorithm getIntegrityAlgorithm() {
+        return integrityAlgorithm;
+    }
+
+    /**
+     * Encodes a message for the wire, sealing it first if a session is active.
+     * Handshake messages are always sent in the clear. Only called by the connection's
+     * single encoding task, in the order frames go on the wire, so sequence numbers
+     * arrive in order; never on a selector thread.
+     */
+    protected ByteBuffer[] encodePayload(MessageCodec codec, Message message) throws IOException {
+        SessionCipher cipher = session;
+        if (cipher == null || message instanceof HandshakeMessage) {
+            return codec.encodeSegments(message);
+        }
         try {
-            if (in != null) in.close();
-            if (out != null) out.close();
-            if (socket != null && !socket.isClosed()) {
-                socket.close();
-                logger.info("Closed connection to {}", socket.getRemoteSocketAddress());
-            }
-        } catch (IOException e) {
-            logger.error("Error during connection cleanup: {}", e.getMessage());
+            byte[] sealed = cipher.seal(codec.encodeSegments(message));
+            return codec.encodeSegments(new EncryptedMessage(nodeId, sealed));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encrypt message " + message.getMessageId(), e);
         }
     }
 
+    /**
+     * Makes sure the writer will drain the outbound queue. Called after every enqueue.
+     */
+    protected abstract void scheduleWrite();
+
+    /**
+     * Gracefully closes the connection
+     */
+    public abstract void close();
+
     /**
      * Returns the socket associated with this handler
      */
-    public Socket getSocket() {
-        return socket;
-    }
+    public abstract Socket getSocket();
+
+    /**
+     * Returns the codec agreed with the peer for this connection
+     */
+    public abstract MessageCodec getCodec();
 
     /**
      * Checks if the connection is still active
      */
-    public boolean isActive() {
-        return isRunning.get() && !socket.isClosed();
+    public abstract boolean isActive();
+
+    /**
+     * Number of messages waiting to be written
+     */
+    public int getQueueDepth() {
+        return outbound.size();
+    }
+
+    /**
+     * Number of transfers with chunks waiting to be written
+     */
+    public int getActiveStreamCount() {
+        return outbound.getActiveStreamCount();
+    }
+
+    public WriteQueueMetrics getWriteMetrics() {
+        return writeMetrics;
+    }
+
+    /**
+     * Checks the first two bytes a peer sent.
+     * @throws IOException naming the cause, so the connection is closed
+     */
+    protected static void checkPreambleMagic(short magic) throws IOException {
+        if (magic == ObjectStreamConstants.STREAM_MAGIC) {
+            throw new IOException("Peer speaks the pre-codec object stream protocol, which is not supported");
+        }
+        if (magic != CODEC_HELLO_MAGIC) {
+            throw new IOException("Peer did not send a codec preamble");
+        }
+    }
+
+    /**
+     * The lower codec ID wins so either side can force the legacy format.
+     * @throws IOException if the peer's codec wins but is unknown to us; the connection must be closed
+     */
+    protected static MessageCodec selectCodec(MessageCodec preferredCodec, byte peerCodecId) throws IOException {
+        if (peerCodecId >= preferredCodec.getId()) {
+            return preferredCodec;
+        }
+        try {
+            return MessageCodec.forId(peerCodecId);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Peer prefers unknown message codec: " + peerCodecId, e);
+        }
     }
-}
\ No newline at end of file
+}
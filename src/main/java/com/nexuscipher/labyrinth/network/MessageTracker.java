@@ -1,31 +1,173 @@
 package com.nexuscipher.labyrinth.network;
 
+import com.nexuscipher.labyrinth.network.protocol.DataMessage;
+import com.nexuscipher.labyrinth.util.MerkleTree;
+import java.nio.ByteBuffer;
 import java.util.BitSet;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
+/**
+ * Sender-side state of one outgoing transfer.
+ *
+ * Chunks are released under a credit window: at most {@code window} chunks may be
+ * sent but not yet acknowledged, and each acknowledgement returns one credit. This
+ * keeps a single large transfer from filling the connection's outbound queue.
+ *
+ * The transfer's Merkle tree is kept with it, so resent chunks reuse their proofs
+ * instead of being hashed again. A transfer with a tree sends no chunk until the
+ * receiver has acknowledged its manifest, the signed root the chunks are checked against.
+ */
 public class MessageTracker {
     private final String messageGroupId;
     private final int totalChunks;
     private final BitSet acknowledgedChunks;
     private final AtomicInteger retryCount;
     private final long creationTime;
+    private final String targetNodeId;
+    private final IntFunction<ByteBuffer> chunkSource;
+    private final MerkleTree integrity;  // Null if chunks carry no proofs
+    private final int window;
 
+    private int nextChunk;           // Next chunk that has never been sent
+    private long lastActivityTime;   // Last send or acknowledgement
+    private DataMessage manifest;    // Null until signed
+    private boolean manifestAcknowledged;
+
+    /**
+     * Tracks a transfer whose chunks have all been sent by the caller already.
+     */
     public MessageTracker(String messageGroupId, int totalChunks) {
+        this(messageGroupId, totalChunks, null, null, totalChunks);
+        this.nextChunk = totalChunks;
+    }
+
+    /**
+     * @param chunkSource returns the data of a chunk by number, for sending and resending
+     * @param window maximum number of chunks in flight
+     */
+    public MessageTracker(String messageGroupId, int totalChunks, String targetNodeId,
+                          IntFunction<ByteBuffer> chunkSource, int window) {
+        this(messageGroupId, totalChunks, targetNodeId, chunkSource, null, window);
+    }
+
+    /**
+     * @param integrity Merkle tree over the chunks, see {@link #getProof}
+     */
+    public MessageTracker(String messageGroupId, int totalChunks, String targetNodeId,
+                          IntFunction<ByteBuffer> chunkSource, MerkleTree integrity, int window) {
         this.messageGroupId = messageGroupId;
         this.totalChunks = totalChunks;
         this.acknowledgedChunks = new BitSet(totalChunks);
         this.retryCount = new AtomicInteger(0);
         this.creationTime = System.currentTimeMillis();
+        this.lastActivityTime = creationTime;
+        this.targetNodeId = targetNodeId;
+        this.chunkSource = chunkSource;
+        this.integrity = integrity;
+        this.window = Math.max(1, window);
+        this.manifestAcknowledged = integrity == null;
+    }
+
+    public synchronized void setManifest(DataMessage manifest) {
+        this.manifest = manifest;
+        lastActivityTime = System.currentTimeMillis();
+    }
+
+    /**
+     * The transfer's manifest, or null if it has not been signed yet.
+     */
+    public synchronized DataMessage getManifest() {
+        return manifest;
     }
 
-    public synchronized void acknowledgeChunk(int chunkNumber) {
+    /**
+     * Records that the receiver accepted the manifest, which opens the window.
+     * @return false if it was already acknowledged
+     */
+    public synchronized boolean acknowledgeManifest() {
+        if (manifestAcknowledged) {
+            return false;
+        }
+        manifestAcknowledged = true;
+        lastActivityTime = System.currentTimeMillis();
+        retryCount.set(0);
+        return true;
+    }
+
+    public synchronized boolean isManifestAcknowledged() {
+        return manifestAcknowledged;
+    }
+
+    /**
+     * Records an acknowledgement. A new one means the transfer is making progress,
+     * so the retry count starts over: only consecutive timeouts abort a transfer.
+     * @return false if the chunk was already acknowledged or never sent
+     */
+    public synchronized boolean acknowledgeChunk(int chunkNumber) {
+        if (chunkNumber < 0 || chunkNumber >= nextChunk || acknowledgedChunks.get(chunkNumber)) {
+            return false;
+        }
         acknowledgedChunks.set(chunkNumber);
+        lastActivityTime = System.currentTimeMillis();
+        retryCount.set(0);
+        return true;
+    }
+
+    /**
+     * Claims as many unsent chunks as the window currently allows. The caller must
+     * send every returned chunk.
+     */
+    public synchronized int[] takeSendableChunks() {
+        if (!manifestAcknowledged) {
+            return new int[0];
+        }
+        int inFlight = nextChunk - acknowledgedChunks.cardinality();
+        int count = Math.max(0, Math.min(window - inFlight, totalChunks - nextChunk));
+        int[] chunks = new int[count];
+        for (int i = 0; i < count; i++) {
+            chunks[i] = nextChunk++;
+        }
+        if (count > 0) {
+            lastActivityTime = System.currentTimeMillis();
+        }
+        return chunks;
+    }
+
+    /**
+     * Chunks that were sent but have not been acknowledged yet.
+     */
+    public synchronized int[] getInFlightChunks() {
+        BitSet inFlight = new BitSet(nextChunk);
+        inFlight.set(0, nextChunk);
+        inFlight.andNot(acknowledgedChunks);
+        return inFlight.stream().toArray();
+    }
+
+    public ByteBuffer getChunk(int chunkNumber) {
+        if (chunkSource == null) {
+            throw new IllegalStateException("No data retained for message " + messageGroupId);
+        }
+        return chunkSource.apply(chunkNumber);
+    }
+
+    /**
+     * Inclusion proof of a chunk in the transfer's Merkle tree.
+     */
+    public byte[] getProof(int chunkNumber) {
+        if (integrity == null) {
+            throw new IllegalStateException("No Merkle tree for message " + messageGroupId);
+        }
+        return integrity.proof(chunkNumber);
     }
 
     public synchronized boolean isComplete() {
         return acknowledgedChunks.cardinality() == totalChunks;
     }
 
+    /**
+     * @return retries since the last acknowledgement that made progress, this one included
+     */
     public int incrementRetryCount() {
         return retryCount.incrementAndGet();
     }
@@ -34,10 +176,22 @@ public class MessageTracker {
         return creationTime;
     }
 
+    public synchronized long getLastActivityTime() {
+        return lastActivityTime;
+    }
+
     public String getMessageGroupId() {
         return messageGroupId;
     }
 
+    public String getTargetNodeId() {
+        return targetNodeId;
+    }
+
+    public int getTotalChunks() {
+        return totalChunks;
+    }
+
     public synchronized int[] getMissingChunks() {
         BitSet missing = new BitSet(totalChunks);
         missing.set(0, totalChunks);
@@ -50,4 +204,4 @@ public class MessageTracker {
         }
         return missingChunks;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,404 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Selector-driven handler for one peer connection.
+ *
+ * All socket I/O happens on the owning {@link NioTransport.SelectorLoop}. Outgoing
+ * messages are encoded, and sealed if the connection has a session, by one task at a
+ * time on the transport's worker pool, in the order they leave the outbound queue;
+ * the loop only writes the finished frames, with a single gathering write per
+ * batch. Incoming messages are dispatched in order on the same pool. While too many decoded messages wait for
+ * dispatch, the loop stops reading the socket, so TCP flow control slows the peer
+ * down instead of the queue growing without bound.
+ */
+public class NioMessageHandler extends MessageHandler {
+    private static final Logger logger = LoggerFactory.getLogger(NioMessageHandler.class);
+
+    // Kept small: with thousands of peers the read buffers dominate memory
+    private static final int DEFAULT_READ_BUFFER_SIZE = 16 * 1024;
+    static final int INBOUND_QUEUE_CAPACITY = 256;  // Decoded messages waiting for dispatch
+    private static final int INBOUND_RESUME_THRESHOLD = INBOUND_QUEUE_CAPACITY / 2;
+
+    private final SocketChannel channel;
+    private final NioTransport.SelectorLoop loop;
+    private final MessageCodec preferredCodec;
+    private final Executor dispatchExecutor;  // Also encodes outgoing frames
+    private final Queue<ByteBuffer[]> encodedFrames;  // Ready for the loop to write
+    private final AtomicInteger encodedCount;
+    private final AtomicLong encodedBytes;
+    private final AtomicBoolean encoding;
+    private final Queue<Message> inbound;
+    private final AtomicInteger inboundCount;
+    private final AtomicBoolean readPaused;  // OP_READ dropped until dispatch catches up
+    private final AtomicBoolean flushScheduled;
+    private final AtomicBoolean dispatching;
+    private final AtomicBoolean isRunning;
+
+    private volatile MessageCodec codec;  // Null until the peer's preamble arrives
+
+    // Only touched on the loop thread
+    private SelectionKey key;
+    private ByteBuffer readBuffer;
+    private final ArrayDeque<ByteBuffer[]> pendingFrames;  // Header followed by payload segments
+    private int requiredCapacity;
+
+    NioMessageHandler(SocketChannel channel, NioTransport.SelectorLoop loop, String nodeId,
+                      ConnectionManager connectionManager, MessageCodec preferredCodec,
+                      Executor dispatchExecutor) {
+        super(nodeId, connectionManager);
+        this.channel = channel;
+        this.loop = loop;
+        this.preferredCodec = preferredCodec;
+        this.dispatchExecutor = dispatchExecutor;
+        this.pendingFrames = new ArrayDeque<>(MAX_BATCH_FRAMES);
+        this.encodedFrames = new ConcurrentLinkedQueue<>();
+        this.encodedCount = new AtomicInteger(0);
+        this.encodedBytes = new AtomicLong(0);
+        this.encoding = new AtomicBoolean(false);
+        this.inbound = new ConcurrentLinkedQueue<>();
+        this.inboundCount = new AtomicInteger(0);
+        this.readPaused = new AtomicBoolean(false);
+        this.flushScheduled = new AtomicBoolean(false);
+        this.dispatching = new AtomicBoolean(false);
+        this.isRunning = new AtomicBoolean(true);
+        this.readBuffer = ByteBuffer.allocate(DEFAULT_READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Called by the loop once the channel is registered; sends our codec preamble.
+     */
+    void start(SelectionKey key) {
+        this.key = key;
+        ByteBuffer hello = ByteBuffer.allocate(CODEC_HELLO_LENGTH);
+        hello.putShort(CODEC_HELLO_MAGIC).put(preferredCodec.getId()).flip();
+        pendingFrames.add(new ByteBuffer[]{hello});
+        flush();
+    }
+
+    @Override
+    protected void scheduleWrite() {
+        if (codec != null && hasEncodeRoom() && encoding.compareAndSet(false, true)) {
+            try {
+                dispatchExecutor.execute(this::encodeOutbound);
+            } catch (RejectedExecutionException e) {
+                encoding.set(false);  // The transport is shutting down
+            }
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::flush);
+        }
+    }
+
+    // At most a batch is encoded ahead of the loop, so later control messages can still go first
+    private boolean hasEncodeRoom() {
+        return encodedCount.get() < MAX_BATCH_FRAMES && encodedBytes.get() < MAX_BATCH_BYTES;
+    }
+
+    // Sealing assigns sequence numbers, so frames are encoded one task at a time in wire order
+    private void encodeOutbound() {
+        do {
+            boolean encoded = false;
+            try {
+                Message next;
+                while (isActive() && hasEncodeRoom() && (next = outbound.poll()) != null) {
+                    ByteBuffer[] frame = encodeFrame(next);
+                    encodedFrames.add(frame);
+                    encodedCount.incrementAndGet();
+                    encodedBytes.addAndGet(frameLength(frame));
+                    encoded = true;
+                }
+            } catch (IOException e) {
+                logger.error("Failed to encode message for {}: {}",
+                        channel.socket().getRemoteSocketAddress(), e.getMessage());
+                close();
+            } finally {
+                encoding.set(false);
+            }
+            if (encoded) {
+                scheduleFlush();
+            }
+        } while (isActive() && hasEncodeRoom() && !outbound.isEmpty() && encoding.compareAndSet(false, true));
+    }
+
+    private static long frameLength(ByteBuffer[] frame) {
+        return FRAME_HEADER_LENGTH + frame[0].getInt(0);
+    }
+
+    /**
+     * Writes encoded frames in batches of up to MAX_BATCH_FRAMES with one gathering
+     * write each, then waits for OP_WRITE if the socket stops accepting data.
+     * Runs on the loop thread.
+     */
+    void flush() {
+        flushScheduled.set(false);
+        if (!isActive()) {
+            return;
+        }
+        try {
+            while (true) {
+                fillBatch();
+                if (pendingFrames.isEmpty()) {
+                    break;
+                }
+                long written = channel.write(flattenPending());
+                int completed = 0;
+                while (!pendingFrames.isEmpty() && isWritten(pendingFrames.peekFirst())) {
+                    pendingFrames.pollFirst();
+                    completed++;
+                }
+                writeMetrics.recordBatch(completed, written);
+                if (!pendingFrames.isEmpty()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            logger.error("Failed to send message to {}: {}",
+                    channel.socket().getRemoteSocketAddress(), e.getMessage());
+            close();
+        }
+    }
+
+    // Takes encoded frames while the batch is small; the room this frees lets the encoder continue
+    private void fillBatch() {
+        boolean taken = false;
+        while (pendingFrames.size() < MAX_BATCH_FRAMES && pendingBytes() < MAX_BATCH_BYTES) {
+            ByteBuffer[] frame = encodedFrames.poll();
+            if (frame == null) {
+                break;
+            }
+            encodedCount.decrementAndGet();
+            encodedBytes.addAndGet(-frameLength(frame));
+            pendingFrames.add(frame);
+            taken = true;
+        }
+        if (taken || !outbound.isEmpty()) {
+            scheduleWrite();
+        }
+    }
+
+    private long pendingBytes() {
+        long bytes = 0;
+        for (ByteBuffer[] frame : pendingFrames) {
+            for (ByteBuffer segment : frame) {
+                bytes += segment.remaining();
+            }
+        }
+        return bytes;
+    }
+
+    // Chunk data stays in the caller's buffers; only the header segments are new
+    private ByteBuffer[] encodeFrame(Message message) throws IOException {
+        ByteBuffer[] payload = encodePayload(codec, message);
+        int length = 0;
+        for (ByteBuffer segment : payload) {
+            length += segment.remaining();
+        }
+        ByteBuffer[] frame = new ByteBuffer[payload.length + 1];
+        frame[0] = ByteBuffer.allocate(FRAME_HEADER_LENGTH).putInt(0, length);
+        System.arraycopy(payload, 0, frame, 1, payload.length);
+        logger.debug("Sending message type {} ({} bytes) to {}",
+                message.getType(), length, channel.socket().getRemoteSocketAddress());
+        return frame;
+    }
+
+    private ByteBuffer[] flattenPending() {
+        int count = 0;
+        for (ByteBuffer[] frame : pendingFrames) {
+            count += frame.length;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        int index = 0;
+        for (ByteBuffer[] frame : pendingFrames) {
+            System.arraycopy(frame, 0, buffers, index, frame.length);
+            index += frame.length;
+        }
+        return buffers;
+    }
+
+    private static boolean isWritten(ByteBuffer[] frame) {
+        return !frame[frame.length - 1].hasRemaining();
+    }
+
+    /**
+     * Reads available bytes and decodes every complete frame. Runs on the loop thread.
+     */
+    void onReadable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            logger.info("Peer at {} closed the connection", channel.socket().getRemoteSocketAddress());
+            close();
+            return;
+        }
+        processReadBuffer();
+    }
+
+    // Decodes what has been read so far; frames left over while reading is paused wait here
+    private void processReadBuffer() throws IOException {
+        readBuffer.flip();
+        requiredCapacity = 0;
+        if (codec == null) {
+            readPreamble();
+        }
+        if (codec != null) {
+            readFrames();
+        }
+        readBuffer.compact();
+        resizeReadBuffer();
+    }
+
+    private void readPreamble() throws IOException {
+        if (readBuffer.remaining() < CODEC_HELLO_LENGTH) {
+            return;
+        }
+        checkPreambleMagic(readBuffer.getShort());
+        codec = selectCodec(preferredCodec, readBuffer.get());
+        logger.debug("Negotiated message codec {} with {}",
+                codec.getId(), channel.socket().getRemoteSocketAddress());
+        // Messages queued before negotiation can go out now
+        scheduleWrite();
+    }
+
+    private void readFrames() throws IOException {
+        while (readBuffer.remaining() >= FRAME_HEADER_LENGTH) {
+            if (inboundCount.get() >= INBOUND_QUEUE_CAPACITY) {
+                pauseReading();
+                return;
+            }
+            int length = readBuffer.getInt(readBuffer.position());
+            if (length <= 0 || length > MAX_FRAME_SIZE) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            if (readBuffer.remaining() < FRAME_HEADER_LENGTH + length) {
+                requiredCapacity = FRAME_HEADER_LENGTH + length;
+                return;
+            }
+            readBuffer.getInt();
+            byte[] payload = new byte[length];
+            readBuffer.get(payload);
+            deliver(codec.decode(payload));
+        }
+    }
+
+    // Grow for a large frame in progress, shrink back once it has been consumed
+    private void resizeReadBuffer() {
+        if (requiredCapacity > readBuffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(requiredCapacity);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        } else if (readBuffer.position() == 0 && readBuffer.capacity() > DEFAULT_READ_BUFFER_SIZE) {
+            readBuffer = ByteBuffer.allocate(DEFAULT_READ_BUFFER_SIZE);
+        }
+    }
+
+    private void pauseReading() {
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        readPaused.set(true);
+        // The drain task may have emptied the queue before it could see the flag
+        resumeReadingIfDrained();
+    }
+
+    // Called from either thread; exactly one caller wins the flag and schedules the resume
+    private void resumeReadingIfDrained() {
+        if (inboundCount.get() <= INBOUND_RESUME_THRESHOLD && readPaused.compareAndSet(true, false)) {
+            loop.execute(this::resumeReading);
+        }
+    }
+
+    private void resumeReading() {
+        if (!isActive() || !key.isValid()) {
+            return;
+        }
+        key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+        try {
+            processReadBuffer();
+        } catch (IOException e) {
+            logger.error("Failed to read from {}: {}",
+                    channel.socket().getRemoteSocketAddress(), e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Hands a message to the dispatch pool while keeping per-connection ordering:
+     * at most one drain task runs for this handler at a time.
+     */
+    private void deliver(Message message) {
+        inbound.offer(message);
+        inboundCount.incrementAndGet();
+        if (dispatching.compareAndSet(false, true)) {
+            dispatchExecutor.execute(this::drainInbound);
+        }
+    }
+
+    private void drainInbound() {
+        do {
+            Message message;
+            while ((message = inbound.poll()) != null) {
+                inboundCount.decrementAndGet();
+                resumeReadingIfDrained();
+                try {
+                    connectionManager.handleMessage(message, this);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to handle message {} from {}",
+                            message.getMessageId(), message.getSenderId(), e);
+                }
+            }
+            dispatching.set(false);
+        } while (!inbound.isEmpty() && dispatching.compareAndSet(false, true));
+    }
+
+    @Override
+    public void close() {
+        if (isRunning.compareAndSet(true, false)) {
+            try {
+                channel.close();
+                logger.info("Closed connection to {}", channel.socket().getRemoteSocketAddress());
+            } catch (IOException e) {
+                logger.error("Error during connection cleanup: {}", e.getMessage());
+            }
+            outbound.clear();
+            encodedFrames.clear();
+            loop.execute(pendingFrames::clear);
+        }
+    }
+
+    @Override
+    public Socket getSocket() {
+        return channel.socket();
+    }
+
+    @Override
+    public MessageCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public boolean isActive() {
+        return isRunning.get() && channel.isOpen();
+    }
+}
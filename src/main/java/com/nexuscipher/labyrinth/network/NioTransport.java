@@ -0,0 +1,272 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking transport built on a small, fixed set of selector event loops.
+ *
+ * Each connection is pinned to one loop, which performs all of its socket reads
+ * and writes. Decoded messages are handed to a bounded dispatch pool so that slow
+ * message handling (handshake crypto, routing) never stalls the selectors. The
+ * number of threads stays the same whether a node has ten peers or ten thousand.
+ */
+public class NioTransport {
+    private static final Logger logger = LoggerFactory.getLogger(NioTransport.class);
+
+    private static final int DEFAULT_LOOP_COUNT =
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private final String nodeId;
+    private final ConnectionManager connectionManager;
+    private final MessageCodec preferredCodec;
+    private final SelectorLoop[] loops;
+    private final ExecutorService dispatchExecutor;
+    private final AtomicInteger nextLoop;
+    private final AtomicBoolean isRunning;
+
+    public NioTransport(String nodeId, ConnectionManager connectionManager,
+                        MessageCodec preferredCodec,
+                        ExecutorService dispatchExecutor) throws IOException {
+        this(nodeId, connectionManager, preferredCodec, dispatchExecutor, DEFAULT_LOOP_COUNT);
+    }
+
+    /**
+     * @param dispatchExecutor runs ConnectionManager.handleMessage; owned by the transport
+     */
+    public NioTransport(String nodeId, ConnectionManager connectionManager,
+                        MessageCodec preferredCodec, ExecutorService dispatchExecutor,
+                        int loopCount) throws IOException {
+        this.nodeId = nodeId;
+        this.connectionManager = connectionManager;
+        this.preferredCodec = preferredCodec;
+        this.nextLoop = new AtomicInteger(0);
+        this.isRunning = new AtomicBoolean(true);
+        this.dispatchExecutor = dispatchExecutor;
+        this.loops = new SelectorLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new SelectorLoop(i);
+            loops[i].start();
+        }
+        logger.info("NIO transport started with {} selector loops", loopCount);
+    }
+
+    /**
+     * Starts accepting connections on the given server channel.
+     * Accepted connections are spread across the selector loops.
+     */
+    public void listen(ServerSocketChannel serverChannel) throws IOException {
+        serverChannel.configureBlocking(false);
+        SelectorLoop acceptor = loops[0];
+        acceptor.execute(() -> {
+            try {
+                serverChannel.register(acceptor.selector, SelectionKey.OP_ACCEPT);
+                logger.info("Accepting connections on {}", serverChannel.getLocalAddress());
+            } catch (IOException e) {
+                logger.error("Failed to register server channel", e);
+            }
+        });
+    }
+
+    /**
+     * Opens a connection to a peer. The returned future completes once the
+     * TCP connection is established and the handler is registered with its loop.
+     */
+    public CompletableFuture<MessageHandler> connect(String address, int port) {
+        CompletableFuture<MessageHandler> future = new CompletableFuture<>();
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            SelectorLoop loop = nextLoop();
+            InetSocketAddress remote = new InetSocketAddress(address, port);
+            loop.execute(() -> {
+                try {
+                    if (channel.connect(remote)) {
+                        future.complete(loop.attach(channel, null));
+                    } else {
+                        channel.register(loop.selector, SelectionKey.OP_CONNECT, future);
+                    }
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public void shutdown() {
+        if (isRunning.compareAndSet(true, false)) {
+            for (SelectorLoop loop : loops) {
+                loop.selector.wakeup();
+            }
+            dispatchExecutor.shutdown();
+            logger.info("NIO transport stopped");
+        }
+    }
+
+    private SelectorLoop nextLoop() {
+        return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        try {
+            resource.close();
+        } catch (IOException e) {
+            logger.debug("Error closing {}: {}", resource, e.getMessage());
+        }
+    }
+
+    /**
+     * A single selector thread. Other threads talk to it only through {@link #execute}.
+     */
+    final class SelectorLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks;
+        private final Thread thread;
+
+        SelectorLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.tasks = new ConcurrentLinkedQueue<>();
+            this.thread = new Thread(this, "nio-loop-" + nodeId + "-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        /**
+         * Runs a task on this loop's thread and wakes the selector to pick it up.
+         */
+        void execute(Runnable task) {
+            tasks.offer(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (isRunning.get()) {
+                try {
+                    selector.select();
+                    runTasks();
+                    processSelectedKeys();
+                } catch (IOException | ClosedSelectorException e) {
+                    if (isRunning.get()) {
+                        logger.error("Selector loop failure", e);
+                    }
+                }
+            }
+            selector.keys().forEach(key -> closeQuietly(key.channel()));
+            closeQuietly(selector);
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Selector task failed", e);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void processSelectedKeys() {
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Object attachment = key.attachment();
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        acceptConnections((ServerSocketChannel) key.channel());
+                    } else if (key.isConnectable()) {
+                        finishConnect(key, (CompletableFuture<MessageHandler>) attachment);
+                    } else {
+                        NioMessageHandler handler = (NioMessageHandler) attachment;
+                        if (key.isReadable()) {
+                            handler.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            handler.flush();
+                        }
+                    }
+                } catch (IOException | CancelledKeyException e) {
+                    if (attachment instanceof NioMessageHandler) {
+                        logger.error("Connection error with peer: {}", e.getMessage());
+                        ((NioMessageHandler) attachment).close();
+                    } else {
+                        closeQuietly(key.channel());
+                    }
+                }
+            }
+        }
+
+        private void acceptConnections(ServerSocketChannel serverChannel) throws IOException {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                SocketChannel accepted = channel;
+                SelectorLoop loop = nextLoop();
+                loop.execute(() -> {
+                    try {
+                        connectionManager.registerIncomingConnection(loop.attach(accepted, null));
+                    } catch (IOException e) {
+                        logger.error("Failed to register incoming connection", e);
+                        closeQuietly(accepted);
+                    }
+                });
+            }
+        }
+
+        private void finishConnect(SelectionKey key,
+                                   CompletableFuture<MessageHandler> future) {
+            SocketChannel channel = (SocketChannel) key.channel();
+            try {
+                channel.finishConnect();
+                future.complete(attach(channel, key));
+            } catch (IOException e) {
+                closeQuietly(channel);
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Wraps a connected channel in a handler registered with this loop,
+         * reusing the key from a pending connect if there is one.
+         * Must be called on the loop thread.
+         */
+        private NioMessageHandler attach(SocketChannel channel, SelectionKey key) throws IOException {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            NioMessageHandler handler = new NioMessageHandler(channel, this, nodeId,
+                    connectionManager, preferredCodec, dispatchExecutor);
+            if (key == null) {
+                key = channel.register(selector, SelectionKey.OP_READ, handler);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+                key.attach(handler);
+            }
+            handler.start(key);
+            return handler;
+        }
+    }
+}
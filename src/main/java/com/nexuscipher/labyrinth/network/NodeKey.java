@@ -0,0 +1,74 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithm;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithms;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A node's position in the DHT key space: the first 128 bits of the SHA-256 of
+ * its node ID. Hashing spreads IDs evenly whatever their format, so every node
+ * computes the same key for an ID and the buckets stay balanced.
+ */
+public final class NodeKey implements Comparable<NodeKey> {
+    public static final int BITS = 128;
+
+    private final long high;
+    private final long low;
+
+    public NodeKey(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static NodeKey of(String nodeId) {
+        IntegrityAlgorithm.Digest digest = IntegrityAlgorithms.SHA256.digest();
+        digest.update(nodeId.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer hash = ByteBuffer.wrap(digest.finish());
+        return new NodeKey(hash.getLong(), hash.getLong());
+    }
+
+    /**
+     * The XOR distance to another key, itself a key so distances compare with {@link #compareTo}.
+     */
+    public NodeKey distanceTo(NodeKey other) {
+        return new NodeKey(high ^ other.high, low ^ other.low);
+    }
+
+    /**
+     * Index of the k-bucket {@code other} falls into as seen from this key: the
+     * position of the highest bit in which they differ, or -1 for the same key.
+     */
+    public int bucketIndex(NodeKey other) {
+        long highXor = high ^ other.high;
+        if (highXor != 0) {
+            return BITS - 1 - Long.numberOfLeadingZeros(highXor);
+        }
+        long lowXor = low ^ other.low;
+        return lowXor != 0 ? Long.SIZE - 1 - Long.numberOfLeadingZeros(lowXor) : -1;
+    }
+
+    // Getters
+    public long getHigh() { return high; }
+    public long getLow() { return low; }
+
+    /**
+     * Orders keys as unsigned 128-bit numbers.
+     */
+    @Override
+    public int compareTo(NodeKey other) {
+        int byHigh = Long.compareUnsigned(high, other.high);
+        return byHigh != 0 ? byHigh : Long.compareUnsigned(low, other.low);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof NodeKey key && key.high == high && key.low == low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high) * 31 + Long.hashCode(low);
+    }
+}
@@ -1,6 +1,7 @@
 package com.nexuscipher.labyrinth.network;
 
 import com.nexuscipher.labyrinth.network.protocol.PeerDiscoveryMessage;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
 import com.nexuscipher.labyrinth.util.SerializationUtil;  // For serialization utilities
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +33,9 @@ public class PeerDiscoveryManager {
         this.servicePort = servicePort;
         this.connectionManager = connectionManager;
         this.knownPeers = new ConcurrentHashMap<>();
-        this.scheduler = Executors.newScheduledThreadPool(2);
+        // One thread blocks in listenForDiscovery, the other runs the periodic tasks
+        this.scheduler = ExecutorFactory.newScheduler(
+                connectionManager.getExecutionMode(), "peer-discovery", 2);
         this.discoverySocket = new DatagramSocket(DISCOVERY_PORT);
         this.isRunning = new AtomicBoolean(false);
 
@@ -84,7 +87,7 @@ public class PeerDiscoveryManager {
             );
 
             // Serialize message
-            byte[] data = SerializationUtil.serialize(message);
+            byte[] data = SerializationUtil.serializeMessage(message);
 
             // Create broadcast packet
             DatagramPacket packet = new DatagramPacket(
@@ -113,7 +116,7 @@ public class PeerDiscoveryManager {
 
                 // Deserialize message
                 PeerDiscoveryMessage message = (PeerDiscoveryMessage)
-                        SerializationUtil.deserialize(
+                        SerializationUtil.deserializeMessage(
                                 Arrays.copyOf(packet.getData(), packet.getLength())
                         );
 
@@ -155,7 +158,7 @@ public class PeerDiscoveryManager {
             );
 
             // Send response directly to the requesting node
-            byte[] data = SerializationUtil.serialize(response);
+            byte[] data = SerializationUtil.serializeMessage(response);
             DatagramPacket packet = new DatagramPacket(
                     data,
                     data.length,
@@ -185,7 +188,10 @@ public class PeerDiscoveryManager {
         knownPeers.put(message.getSenderId(), peerInfo);
 
         // Initiate connection if we're not already connected
-        connectionManager.connectToPeer(message.getHost(), message.getPort());
+        if (connectionManager.isConnected(message.getSenderId())) {
+            return;
+        }
+        connectionManager.connectToPeer(message.getSenderId(), message.getHost(), message.getPort());
 
         logger.info("Discovered new peer: {} at {}:{}",
                 message.getSenderId(), message.getHost(), message.getPort());
@@ -203,7 +209,7 @@ public class PeerDiscoveryManager {
             );
 
             // Send response
-            byte[] data = SerializationUtil.serialize(response);
+            byte[] data = SerializationUtil.serializeMessage(response);
             DatagramPacket packet = new DatagramPacket(
                     data,
                     data.length,
@@ -223,7 +229,7 @@ public class PeerDiscoveryManager {
         for (PeerDiscoveryMessage.PeerInfo peer : message.getKnownPeers()) {
             if (!peer.getNodeId().equals(nodeId) && !knownPeers.containsKey(peer.getNodeId())) {
                 knownPeers.put(peer.getNodeId(), peer);
-                connectionManager.connectToPeer(peer.getHost(), peer.getPort());
+                connectionManager.connectToPeer(peer.getNodeId(), peer.getHost(), peer.getPort());
             }
         }
     }
@@ -0,0 +1,140 @@
+package com.nexuscipher.labyrinth.network;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Message IDs seen within a time window, for dropping duplicates and loops.
+ *
+ * IDs go into a ring of generation buckets, each covering an equal slice of the
+ * window. When the clock moves into a new slice, the oldest bucket is dropped
+ * whole, so expiry never scans entries and every operation is O(1) amortized.
+ * An ID is remembered for at least the window and at most one slice longer, and
+ * memory is bounded by the message rate times that.
+ *
+ * An ID recorded by a thread that races with a rotation may expire one slice
+ * early; that only lets a very late duplicate through, which callers tolerate.
+ */
+public class RecentMessageCache implements DuplicateFilter {
+    public static final int DEFAULT_BUCKETS = 10;
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Set<String>> buckets;  // One more than the window needs
+    private final LongSupplier clock;
+    private volatile long currentGeneration;
+    private final AtomicLong hits;
+    private final AtomicLong inserts;
+    private final AtomicLong evictions;
+
+    public RecentMessageCache(long windowMillis) {
+        this(windowMillis, DEFAULT_BUCKETS);
+    }
+
+    public RecentMessageCache(long windowMillis, int bucketCount) {
+        this(windowMillis, bucketCount, System::currentTimeMillis);
+    }
+
+    RecentMessageCache(long windowMillis, int bucketCount, LongSupplier clock) {
+        if (windowMillis <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("Window and bucket count must be positive");
+        }
+        this.bucketMillis = Math.max(1, windowMillis / bucketCount);
+        this.buckets = new AtomicReferenceArray<>(bucketCount + 1);
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, ConcurrentHashMap.newKeySet());
+        }
+        this.clock = clock;
+        this.currentGeneration = clock.getAsLong() / bucketMillis;
+        this.hits = new AtomicLong(0);
+        this.inserts = new AtomicLong(0);
+        this.evictions = new AtomicLong(0);
+    }
+
+    /**
+     * Records an ID.
+     * @return true if it was not seen within the window, false for a duplicate
+     */
+    @Override
+    public boolean markSeen(String messageId) {
+        long generation = advance();
+        if (containsIn(messageId, generation)) {
+            hits.incrementAndGet();
+            return false;
+        }
+        if (!buckets.get(index(generation)).add(messageId)) {
+            hits.incrementAndGet();
+            return false;
+        }
+        inserts.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Whether an ID was seen within the window, without recording it.
+     */
+    @Override
+    public boolean contains(String messageId) {
+        return containsIn(messageId, advance());
+    }
+
+    /**
+     * Number of IDs currently remembered
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            size += buckets.get(i).size();
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    // Getters
+    public long getHits() { return hits.get(); }
+    public long getInserts() { return inserts.get(); }
+    public long getEvictions() { return evictions.get(); }
+
+    private boolean containsIn(String messageId, long generation) {
+        // Newest first: duplicates of recent messages are the common case
+        for (int age = 0; age < buckets.length(); age++) {
+            if (buckets.get(index(generation - age)).contains(messageId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Moves to the clock's generation, dropping buckets that fell out of the window
+    private long advance() {
+        long generation = clock.getAsLong() / bucketMillis;
+        if (generation <= currentGeneration) {
+            return currentGeneration;
+        }
+        synchronized (this) {
+            long current = currentGeneration;
+            // After a long idle period every bucket is stale; never clear one twice
+            long first = Math.max(current + 1, generation - buckets.length() + 1);
+            for (long g = first; g <= generation; g++) {
+                Set<String> expired = buckets.getAndSet(index(g), ConcurrentHashMap.newKeySet());
+                evictions.addAndGet(expired.size());
+            }
+            if (generation > current) {
+                currentGeneration = generation;
+            }
+            return currentGeneration;
+        }
+    }
+
+    private int index(long generation) {
+        return (int) Math.floorMod(generation, (long) buckets.length());
+    }
+}
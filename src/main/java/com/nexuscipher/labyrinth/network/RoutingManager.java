@@ -2,14 +2,18 @@ package com.nexuscipher.labyrinth.network;
 
 import com.nexuscipher.labyrinth.core.PeerConnection;
 import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.network.protocol.DataMessage;
 import com.nexuscipher.labyrinth.network.protocol.Message;
 import com.nexuscipher.labyrinth.network.protocol.RoutingMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * Manages the routing of messages through the peer-to-peer network.
@@ -20,26 +24,84 @@ public class RoutingManager {
     private static final Logger logger = LoggerFactory.getLogger(RoutingManager.class);
     private static final int MAX_HOPS = 10;  // Maximum number of hops for a message
     private static final int MAX_PATHS = 3;  // Maximum paths for multipath routing
+    private static final long DEFAULT_ROUTE_COST = 1;  // One hop
 
     private final String nodeId;
     private final QuantumResistantCrypto crypto;
     private final ConnectionManager connectionManager;
-    private final Map<String, Set<String>> routingTable;  // NodeId -> Set of next hop options
+    private final RoutingTable routingTable;  // NodeId -> next hops, cheapest first
+    private final LinkStateRouter linkState;  // Least-latency next hops; null unless link-state routing runs
+    private final DhtRouter dht;              // Locates unknown targets; null unless the DHT runs
     private final Map<String, AtomicInteger> messageCount;  // Message ID -> Count (for multipath)
 
-    // Cache to prevent message loops and duplicates
-    private final Map<String, Long> recentMessages;
-    private static final long MESSAGE_CACHE_TIMEOUT = 300000; // 5 minutes
+    // Suppresses repeat copies of relayed floods; may be probabilistic, so nothing else goes through it
+    private final DuplicateFilter recentMessages;
+    private final DuplicateFilter deliveredFloods;  // Exact; floods addressed to this node
+    private volatile BiConsumer<DataMessage, MessageHandler> dataListener;  // Null until a DataManager runs
+    public static final long MESSAGE_CACHE_TIMEOUT = 300000; // 5 minutes
 
     public RoutingManager(String nodeId,
                           QuantumResistantCrypto crypto,
                           ConnectionManager connectionManager) {
+        this(nodeId, crypto, connectionManager, new RecentMessageCache(MESSAGE_CACHE_TIMEOUT));
+    }
+
+    /**
+     * @param recentMessages remembers the IDs of floods we relayed; a {@link BloomDuplicateFilter}
+     *                       keeps flood suppression to a few bytes per message in large meshes.
+     *                       A false positive makes this node drop a flood it has never seen, so
+     *                       the flood is not relayed from here and only arrives through other
+     *                       paths. Floods addressed to this node, direct and locally originated
+     *                       messages never consult it, so none is lost at its target
+     */
+    public RoutingManager(String nodeId,
+                          QuantumResistantCrypto crypto,
+                          ConnectionManager connectionManager,
+                          DuplicateFilter recentMessages) {
+        this(nodeId, crypto, connectionManager, recentMessages, null);
+    }
+
+    /**
+     * @param linkState if not null, direct routes follow its least-latency paths and
+     *                  fall back to the learned routing table for destinations it does not know
+     */
+    public RoutingManager(String nodeId,
+                          QuantumResistantCrypto crypto,
+                          ConnectionManager connectionManager,
+                          DuplicateFilter recentMessages,
+                          LinkStateRouter linkState) {
+        this(nodeId, crypto, connectionManager, recentMessages, linkState, null);
+    }
+
+    /**
+     * @param dht if not null, targets without a route are located with a DHT lookup
+     *            and sent to directly, instead of flooded through the mesh
+     */
+    public RoutingManager(String nodeId,
+                          QuantumResistantCrypto crypto,
+                          ConnectionManager connectionManager,
+                          DuplicateFilter recentMessages,
+                          LinkStateRouter linkState,
+                          DhtRouter dht) {
         this.nodeId = nodeId;
         this.crypto = crypto;
         this.connectionManager = connectionManager;
-        this.routingTable = new ConcurrentHashMap<>();
+        this.routingTable = new RoutingTable();
         this.messageCount = new ConcurrentHashMap<>();
-        this.recentMessages = new ConcurrentHashMap<>();
+        this.recentMessages = recentMessages;
+        this.deliveredFloods = new RecentMessageCache(MESSAGE_CACHE_TIMEOUT);
+        this.linkState = linkState;
+        this.dht = dht;
+
+        connectionManager.setRoutingListener(this::handleRoutingMessage);
+    }
+
+    /**
+     * Receives data messages addressed to this node, with the connection each arrived on,
+     * or null for messages this node sent itself; null to stop.
+     */
+    public void setDataListener(BiConsumer<DataMessage, MessageHandler> listener) {
+        this.dataListener = listener;
     }
 
     /**
@@ -47,15 +109,6 @@ public class RoutingManager {
      * This is the main entry point for routing new messages through the network.
      */
     public void routeMessage(String targetNodeId, Message message) {
-        // Prevent routing loops by checking recent message cache
-        if (recentMessages.containsKey(message.getMessageId())) {
-            return;
-        }
-
-        // Update recent messages cache
-        recentMessages.put(message.getMessageId(), System.currentTimeMillis());
-        cleanupMessageCache();
-
         // Handle local delivery
         if (targetNodeId.equals(nodeId)) {
             processLocalMessage(message);
@@ -87,20 +140,61 @@ public class RoutingManager {
             case DISCOVER_ROUTE:
                 handleRouteDiscovery(routingMessage);
                 break;
+            case DHT:
+                routeViaDht(routingMessage);
+                break;
         }
     }
 
+    /**
+     * Sends a message over our own connection to a neighbour, never through a relay.
+     * @return false if there is no live connection to the neighbour or the send failed
+     */
+    public boolean sendToNeighbour(String targetNodeId, Message message) {
+        if (!connectionManager.isConnected(targetNodeId)) {
+            return false;
+        }
+        RoutingMessage routingMessage = new RoutingMessage(
+                message.getSenderId(),
+                targetNodeId,
+                message.getMessageId(),
+                message,
+                RoutingMessage.RoutingType.DIRECT
+        );
+        routingMessage.addHop(nodeId);
+        try {
+            connectionManager.sendMessage(routingMessage, targetNodeId);
+            return true;
+        } catch (IOException e) {
+            logger.debug("Failed to send message {} to neighbour {}", message.getMessageId(), targetNodeId, e);
+            return false;
+        }
+    }
 
     public void handleRoutingMessage(RoutingMessage message, MessageHandler sourceHandler) {
-        // Don't process if we've seen this message too many times
-        if (message.getHopCount() >= MAX_HOPS) {
+        // Drop messages whose TTL ran out, and never go past our own limit
+        if (message.isExpired() || message.getHopCount() >= MAX_HOPS) {
             logger.warn("Message exceeded maximum hop count: {}", message.getMessageId());
             return;
         }
 
+        // A flood reaches us once per neighbour that forwards it; only handle the first copy.
+        // Copies of our own floods, and of floods for us, are recognised exactly: a false
+        // positive of the probabilistic filter must never lose a message at its target.
+        boolean flood = message.getRoutingType() == RoutingMessage.RoutingType.FLOOD;
+        if (flood && nodeId.equals(message.getSenderId())) {
+            return;
+        }
+
         // If we're the target, process the message
         if (message.getTargetNodeId().equals(nodeId)) {
-            processIncomingMessage(message);
+            if (!flood || deliveredFloods.markSeen(message.getMessageId())) {
+                processIncomingMessage(message, sourceHandler);
+            }
+            return;
+        }
+
+        if (flood && !recentMessages.markSeen(message.getMessageId())) {
             return;
         }
 
@@ -121,20 +215,59 @@ public class RoutingManager {
             case DISCOVER_ROUTE:
                 handleRouteDiscovery(message);
                 break;
+            case DHT:
+                routeViaDht(message);
+                break;
         }
     }
 
     private void routeDirect(RoutingMessage message) {
-        Set<String> nextHops = routingTable.get(message.getTargetNodeId());
-        if (nextHops != null && !nextHops.isEmpty()) {
-            // Get the first available next hop
-            String nextHop = nextHops.iterator().next();
+        String nextHop = linkState != null ? linkState.nextHop(message.getTargetNodeId()) : null;
+        if (nextHop == null) {
+            nextHop = routingTable.bestNextHop(message.getTargetNodeId());
+        }
+        if (nextHop != null) {
             forwardMessage(message, nextHop);
         } else {
             logger.warn("No route to target: {}", message.getTargetNodeId());
         }
     }
 
+    // Locates the target, connects to it, and remembers it as a neighbour for later messages.
+    // If the lookup or the connection fails, the message is flooded instead of dropped.
+    private void routeViaDht(RoutingMessage message) {
+        String target = message.getTargetNodeId();
+        if (dht == null || connectionManager.isConnected(target)) {
+            routeToNeighbour(message);
+            return;
+        }
+        dht.locate(target)
+                .thenCompose(contact -> {
+                    if (contact == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return connectionManager.connectToPeer(contact.getNodeId(), contact.getHost(), contact.getPort());
+                })
+                .whenComplete((handler, error) -> {
+                    if (error != null || handler == null) {
+                        logger.debug("DHT lookup found no route to {}, flooding message {}",
+                                target, message.getMessageId());
+                        floodMessage(message.asFlood(), null);
+                        return;
+                    }
+                    routingTable.update(target, target, DEFAULT_ROUTE_COST);
+                    forwardMessage(message, target);
+                });
+    }
+
+    private void routeToNeighbour(RoutingMessage message) {
+        if (connectionManager.isConnected(message.getTargetNodeId())) {
+            forwardMessage(message, message.getTargetNodeId());
+        } else {
+            routeDirect(message);
+        }
+    }
+
 //    private void floodMessage(RoutingMessage message, MessageHandler sourceHandler) {
 //        // Forward to all peers except the one we received it from
 //        connectionManager.getAllPeers().forEach(peer -> {
@@ -150,28 +283,34 @@ public class RoutingManager {
             if (!message.hasVisited(peer.getPeerId()) &&
                     (sourceHandler == null ||
                             !peer.getPeerId().equals(sourceHandler.getSocket().getInetAddress().getHostAddress()))) {
-                forwardMessage(message, peer.getPeerId());
+                // Floods are redundant by design, so skip a congested peer instead of waiting on it
+                if (!connectionManager.offerMessage(message, peer.getPeerId())) {
+                    logger.debug("Skipped flooding message {} to {}",
+                            message.getMessageId(), peer.getPeerId());
+                }
             }
         });
     }
 
     private void routeMultipath(RoutingMessage message) {
-        Set<String> nextHops = routingTable.get(message.getTargetNodeId());
-        if (nextHops != null && !nextHops.isEmpty()) {
-            // Use up to MAX_PATHS different paths
-            nextHops.stream()
-                    .limit(MAX_PATHS)
-                    .forEach(nextHop -> forwardMessage(message, nextHop));
+        // Use up to MAX_PATHS different paths, cheapest first
+        for (String nextHop : routingTable.nextHops(message.getTargetNodeId(), MAX_PATHS)) {
+            forwardMessage(message, nextHop);
         }
     }
 
     private void handleRouteDiscovery(RoutingMessage message) {
-        // Update routing table with the path this message took
+        // Learn the reverse path: every earlier node on the route is reachable
+        // through the neighbour that handed us the message, one hop per step back.
+        // Discovery messages carry their path; others have none to learn from.
         List<String> route = message.getRoute();
-        for (int i = 0; i < route.size() - 1; i++) {
-            String currentNode = route.get(i);
-            String nextHop = route.get(i + 1);
-            routingTable.computeIfAbsent(currentNode, k -> new HashSet<>()).add(nextHop);
+        int self = route.size() - 1;  // We added ourselves before getting here
+        if (self < 1) {
+            return;
+        }
+        String neighbour = route.get(self - 1);
+        for (int i = 0; i < self; i++) {
+            routingTable.update(route.get(i), neighbour, self - i);
         }
     }
 
@@ -183,17 +322,18 @@ public class RoutingManager {
         } catch (Exception e) {
             logger.error("Failed to forward message to {}", nextHopId, e);
             // Update routing table to remove failed route
-            routingTable.getOrDefault(message.getTargetNodeId(), new HashSet<>())
-                    .remove(nextHopId);
+            routingTable.remove(message.getTargetNodeId(), nextHopId);
         }
     }
 
-    private void processIncomingMessage(RoutingMessage message) {
+    private void processIncomingMessage(RoutingMessage message, MessageHandler sourceHandler) {
         try {
-            // Decrypt and process the message
-            // This would integrate with your application layer
-            logger.info("Received message {} via {} hops",
+            logger.debug("Received message {} via {} hops",
                     message.getMessageId(), message.getHopCount());
+            BiConsumer<DataMessage, MessageHandler> listener = dataListener;
+            if (listener != null && message.getPayload() instanceof DataMessage data) {
+                listener.accept(data, sourceHandler);
+            }
         } catch (Exception e) {
             logger.error("Failed to process incoming message", e);
         }
@@ -201,27 +341,60 @@ public class RoutingManager {
 
     // Method to update routing table based on network changes
     public void updateRoute(String targetNodeId, String nextHopId) {
-        routingTable.computeIfAbsent(targetNodeId, k -> new HashSet<>()).add(nextHopId);
-        logger.debug("Updated route to {} via {}", targetNodeId, nextHopId);
+        updateRoute(targetNodeId, nextHopId, DEFAULT_ROUTE_COST);
+    }
+
+    /**
+     * @param cost hop count or latency of the route; lower routes are preferred
+     */
+    public void updateRoute(String targetNodeId, String nextHopId, long cost) {
+        routingTable.update(targetNodeId, nextHopId, cost);
+        logger.debug("Updated route to {} via {} (cost {})", targetNodeId, nextHopId, cost);
     }
 
     public void removeRoute(String targetNodeId, String nextHopId) {
-        Set<String> routes = routingTable.get(targetNodeId);
-        if (routes != null) {
-            routes.remove(nextHopId);
-            if (routes.isEmpty()) {
-                routingTable.remove(targetNodeId);
-            }
-            logger.debug("Removed route to {} via {}", targetNodeId, nextHopId);
-        }
+        routingTable.remove(targetNodeId, nextHopId);
+        logger.debug("Removed route to {} via {}", targetNodeId, nextHopId);
+    }
+
+    public RoutingTable getRoutingTable() {
+        return routingTable;
+    }
+
+    /**
+     * Message IDs routed recently
+     */
+    public DuplicateFilter getRecentMessages() {
+        return recentMessages;
+    }
+
+    /**
+     * The link-state router, or null if link-state routing is off
+     */
+    public LinkStateRouter getLinkStateRouter() {
+        return linkState;
+    }
+
+    /**
+     * The DHT router, or null if the DHT is off
+     */
+    public DhtRouter getDhtRouter() {
+        return dht;
+    }
+
+    public ConnectionManager getConnectionManager() {
+        return connectionManager;
     }
 
     /**
      * Determines the best routing strategy based on network knowledge
      */
     private RoutingMessage.RoutingType determineRoutingType(String targetNodeId) {
-        if (routingTable.containsKey(targetNodeId)) {
+        if (routingTable.contains(targetNodeId)
+                || (linkState != null && linkState.hasRoute(targetNodeId))) {
             return RoutingMessage.RoutingType.DIRECT;
+        } else if (dht != null && dht.getTable().size() > 0) {
+            return RoutingMessage.RoutingType.DHT;  // O(log n) lookup messages instead of a flood
         } else {
             return RoutingMessage.RoutingType.FLOOD;
         }
@@ -231,26 +404,29 @@ public class RoutingManager {
      * Processes a message intended for this node
      */
     private void processLocalMessage(Message message) {
-        logger.info("Processing local message: {}", message.getMessageId());
-        // Implementation depends on message type and application needs
-    }
-
-    /**
-     * Removes expired entries from the recent messages cache
-     */
-    private void cleanupMessageCache() {
-        long currentTime = System.currentTimeMillis();
-        recentMessages.entrySet().removeIf(entry ->
-                currentTime - entry.getValue() > MESSAGE_CACHE_TIMEOUT);
+        logger.debug("Processing local message: {}", message.getMessageId());
+        BiConsumer<DataMessage, MessageHandler> listener = dataListener;
+        if (listener != null && message instanceof DataMessage data) {
+            listener.accept(data, null);
+        }
     }
 
     /**
      * Performs cleanup when shutting down the routing manager
      */
     public void shutdown() {
+        connectionManager.setRoutingListener(null);
+        dataListener = null;
+        if (linkState != null) {
+            linkState.shutdown();
+        }
+        if (dht != null) {
+            dht.shutdown();
+        }
         routingTable.clear();
         messageCount.clear();
         recentMessages.clear();
+        deliveredFloods.clear();
         logger.info("RoutingManager shutdown complete");
     }
 }
\ No newline at end of file
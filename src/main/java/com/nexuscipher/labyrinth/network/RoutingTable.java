@@ -0,0 +1,194 @@
+package com.nexuscipher.labyrinth.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Next hops towards each known destination, cheapest first.
+ *
+ * Each destination maps to an immutable array of {@link Route}s sorted by cost.
+ * Writers build a new array and swap it in with a compare-and-set, retrying if
+ * another writer got there first, so readers never lock and never see a
+ * half-updated entry. The best next hop is the first element of the array.
+ */
+public class RoutingTable {
+    // Keeps entries small; a destination rarely has more useful paths than this
+    public static final int MAX_NEXT_HOPS = 8;
+
+    private static final Route[] NO_ROUTES = new Route[0];
+
+    private final Map<String, Route[]> routes;
+
+    /**
+     * One way to reach a destination. Lower costs are preferred; the cost is a hop
+     * count or a latency, as long as one table does not mix the two.
+     */
+    public static final class Route {
+        private final String nextHop;
+        private final long cost;
+        private final long updatedAt;
+
+        Route(String nextHop, long cost, long updatedAt) {
+            this.nextHop = nextHop;
+            this.cost = cost;
+            this.updatedAt = updatedAt;
+        }
+
+        // Getters
+        public String getNextHop() { return nextHop; }
+        public long getCost() { return cost; }
+        public long getUpdatedAt() { return updatedAt; }
+    }
+
+    public RoutingTable() {
+        this.routes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a route, or replaces the cost of the existing route through the same
+     * next hop. If the destination already has {@link #MAX_NEXT_HOPS} routes, the
+     * most expensive one is dropped.
+     */
+    public void update(String destination, String nextHop, long cost) {
+        Route route = new Route(nextHop, cost, System.currentTimeMillis());
+        while (true) {
+            Route[] current = routes.get(destination);
+            if (current == null) {
+                if (routes.putIfAbsent(destination, new Route[]{route}) == null) {
+                    return;
+                }
+                continue;
+            }
+            if (routes.replace(destination, current, withRoute(current, route))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the route to a destination through one next hop.
+     */
+    public void remove(String destination, String nextHop) {
+        while (true) {
+            Route[] current = routes.get(destination);
+            if (current == null || indexOf(current, nextHop) < 0) {
+                return;
+            }
+            Route[] updated = withoutHop(current, nextHop);
+            boolean swapped = updated.length == 0
+                    ? routes.remove(destination, current)
+                    : routes.replace(destination, current, updated);
+            if (swapped) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes every route through a next hop, such as a peer that disconnected.
+     */
+    public void removeNextHop(String nextHop) {
+        for (String destination : routes.keySet()) {
+            remove(destination, nextHop);
+        }
+    }
+
+    /**
+     * Removes routes that have not been updated since {@code cutoffMillis}.
+     */
+    public void removeOlderThan(long cutoffMillis) {
+        routes.forEach((destination, current) -> {
+            for (Route route : current) {
+                if (route.updatedAt < cutoffMillis) {
+                    remove(destination, route.nextHop);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the cheapest next hop towards a destination, or null if there is no route
+     */
+    public String bestNextHop(String destination) {
+        Route[] current = routes.get(destination);
+        return current == null ? null : current[0].nextHop;
+    }
+
+    /**
+     * @return up to {@code limit} next hops towards a destination, cheapest first
+     */
+    public List<String> nextHops(String destination, int limit) {
+        Route[] current = routes.get(destination);
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        List<String> hops = new ArrayList<>(Math.min(limit, current.length));
+        for (int i = 0; i < current.length && i < limit; i++) {
+            hops.add(current[i].nextHop);
+        }
+        return hops;
+    }
+
+    /**
+     * @return the routes to a destination, cheapest first
+     */
+    public List<Route> getRoutes(String destination) {
+        return Arrays.asList(routes.getOrDefault(destination, NO_ROUTES).clone());
+    }
+
+    public boolean contains(String destination) {
+        return routes.containsKey(destination);
+    }
+
+    /**
+     * Number of destinations with at least one route
+     */
+    public int size() {
+        return routes.size();
+    }
+
+    public void clear() {
+        routes.clear();
+    }
+
+    // A sorted copy of current with route added or replacing the route through the same hop
+    private static Route[] withRoute(Route[] current, Route route) {
+        Route[] base = indexOf(current, route.nextHop) >= 0 ? withoutHop(current, route.nextHop) : current;
+        int length = Math.min(base.length + 1, MAX_NEXT_HOPS);
+        Route[] updated = new Route[length];
+        int from = 0;
+        int to = 0;
+        boolean placed = false;
+        while (to < length) {
+            if (!placed && (from == base.length || route.cost < base[from].cost)) {
+                updated[to++] = route;
+                placed = true;
+            } else {
+                updated[to++] = base[from++];
+            }
+        }
+        // Not placed only if the table is full and the route costs more than all of it
+        return placed ? updated : base;
+    }
+
+    private static Route[] withoutHop(Route[] current, String nextHop) {
+        int index = indexOf(current, nextHop);
+        Route[] updated = new Route[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        return updated;
+    }
+
+    private static int indexOf(Route[] current, String nextHop) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].nextHop.equals(nextHop)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
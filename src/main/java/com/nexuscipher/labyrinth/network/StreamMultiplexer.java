@@ -0,0 +1,184 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.protocol.DataMessage;
+import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.RoutingMessage;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Outbound queue for one connection that keeps bulk transfers from starving
+ * everything else.
+ *
+ * Data chunks are queued per stream (their message group) and taken round-robin,
+ * one chunk per stream per turn. Everything else (handshakes, discovery,
+ * acknowledgements, routed control traffic) goes to a control lane that is always
+ * served first and has its own capacity, so it never waits behind a full bulk lane.
+ */
+public class StreamMultiplexer {
+    private final int controlCapacity;
+    private final int bulkCapacity;
+
+    private final ReentrantLock lock;
+    private final Condition controlNotFull;
+    private final Condition bulkNotFull;
+    private final ArrayDeque<Message> control;
+    private final Map<String, ArrayDeque<Message>> streams;
+    private final ArrayDeque<String> activeStreams;  // Round-robin order of non-empty streams
+    private int bulkSize;
+
+    public StreamMultiplexer(int controlCapacity, int bulkCapacity) {
+        this.controlCapacity = controlCapacity;
+        this.bulkCapacity = bulkCapacity;
+        this.lock = new ReentrantLock();
+        this.controlNotFull = lock.newCondition();
+        this.bulkNotFull = lock.newCondition();
+        this.control = new ArrayDeque<>();
+        this.streams = new HashMap<>();
+        this.activeStreams = new ArrayDeque<>();
+    }
+
+    /**
+     * Returns the stream a message belongs to, or null for control traffic.
+     * Routed chunks keep the stream of the chunk they carry.
+     */
+    static String streamOf(Message message) {
+        if (message instanceof RoutingMessage) {
+            return streamOf(((RoutingMessage) message).getPayload());
+        }
+        if (message instanceof DataMessage) {
+            DataMessage data = (DataMessage) message;
+            if (data.getState() == DataMessage.MessageState.DATA_CHUNK) {
+                return data.getMessageGroupId();
+            }
+        }
+        return null;
+    }
+
+    public boolean offer(Message message) {
+        String stream = streamOf(message);
+        lock.lock();
+        try {
+            if (isFull(stream)) {
+                return false;
+            }
+            enqueue(stream, message);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean offer(Message message, long timeout, TimeUnit unit) throws InterruptedException {
+        String stream = streamOf(message);
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            Condition notFull = stream == null ? controlNotFull : bulkNotFull;
+            while (isFull(stream)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            enqueue(stream, message);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next message to write: control traffic first, then one chunk from
+     * the stream whose turn it is.
+     */
+    public Message poll() {
+        lock.lock();
+        try {
+            Message next = control.poll();
+            if (next != null) {
+                controlNotFull.signal();
+                return next;
+            }
+            String stream = activeStreams.poll();
+            if (stream == null) {
+                return null;
+            }
+            ArrayDeque<Message> queue = streams.get(stream);
+            next = queue.poll();
+            if (queue.isEmpty()) {
+                streams.remove(stream);
+            } else {
+                activeStreams.add(stream);
+            }
+            bulkSize--;
+            bulkNotFull.signal();
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return control.size() + bulkSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Number of streams with chunks waiting.
+     */
+    public int getActiveStreamCount() {
+        lock.lock();
+        try {
+            return activeStreams.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            control.clear();
+            streams.clear();
+            activeStreams.clear();
+            bulkSize = 0;
+            controlNotFull.signalAll();
+            bulkNotFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isFull(String stream) {
+        return stream == null ? control.size() >= controlCapacity : bulkSize >= bulkCapacity;
+    }
+
+    private void enqueue(String stream, Message message) {
+        if (stream == null) {
+            control.add(message);
+            return;
+        }
+        ArrayDeque<Message> queue = streams.get(stream);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            streams.put(stream, queue);
+            activeStreams.add(stream);
+        }
+        queue.add(message);
+        bulkSize++;
+    }
+}
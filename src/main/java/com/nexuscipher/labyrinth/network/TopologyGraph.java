@@ -0,0 +1,246 @@
+package com.nexuscipher.labyrinth.network;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The network as seen from one node (the root), built from link-state
+ * advertisements, with the least-latency path from the root to every node.
+ *
+ * Paths are kept up to date incrementally. When a link gets worse or disappears,
+ * only the nodes whose shortest path used it are reset, and they are reattached
+ * from their unaffected neighbours. When a link gets better or appears, Dijkstra
+ * continues from that link only. Nodes the change cannot affect are not visited.
+ *
+ * Not thread-safe: {@link LinkStateRouter} only uses it from its own thread.
+ */
+public class TopologyGraph {
+    private final String root;
+    private final Map<String, Map<String, Long>> links;  // Origin -> neighbour -> latency, as advertised
+    private final Map<String, Set<String>> inLinks;      // Node -> origins with a link to it
+    private final Map<String, Long> sequences;           // Newest advertisement applied per origin
+    private final Map<String, Long> distance;            // Latency of the shortest path from the root
+    private final Map<String, String> parent;            // Previous node on that path
+    private final Map<String, String> firstHop;          // Root's neighbour the path starts with
+    private final List<String[]> worse;                  // Links changed for the worse since the last recompute
+    private final List<String[]> better;                 // Links changed for the better
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final String node;
+        final long distance;
+
+        Candidate(String node, long distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Long.compare(distance, other.distance);
+        }
+    }
+
+    public TopologyGraph(String root) {
+        this.root = root;
+        this.links = new HashMap<>();
+        this.inLinks = new HashMap<>();
+        this.sequences = new HashMap<>();
+        this.distance = new HashMap<>();
+        this.parent = new HashMap<>();
+        this.firstHop = new HashMap<>();
+        this.worse = new ArrayList<>();
+        this.better = new ArrayList<>();
+        distance.put(root, 0L);
+    }
+
+    /**
+     * Replaces the links an origin advertised, unless this advertisement is not newer.
+     * Paths change on the next {@link #recompute()}.
+     * @return whether the advertisement was applied
+     */
+    public boolean applyLinkState(String origin, long sequence, Map<String, Long> latencies) {
+        Long known = sequences.get(origin);
+        if (known != null && sequence <= known) {
+            return false;
+        }
+        replaceLinks(origin, latencies);
+        sequences.put(origin, sequence);
+        return true;
+    }
+
+    /**
+     * Forgets everything an origin advertised, such as a node that stopped advertising.
+     */
+    public void removeOrigin(String origin) {
+        sequences.remove(origin);
+        replaceLinks(origin, Collections.emptyMap());
+    }
+
+    /**
+     * Brings paths up to date with the advertisements applied since the last call.
+     * @return every node whose path may have changed, with the first hop it had before
+     *         (null if it was unreachable)
+     */
+    public Map<String, String> recompute() {
+        Map<String, String> touched = new HashMap<>();
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+
+        // Nodes whose shortest path used a link that got worse lose their path
+        Set<String> detached = new HashSet<>();
+        if (!worse.isEmpty()) {
+            Map<String, List<String>> children = children();
+            for (String[] link : worse) {
+                if (link[0].equals(parent.get(link[1]))) {
+                    collectSubtree(link[1], children, detached);
+                }
+            }
+        }
+        for (String node : detached) {
+            touched.put(node, firstHop.get(node));
+            distance.remove(node);
+            parent.remove(node);
+            firstHop.remove(node);
+        }
+        // ... and are reattached through whichever unaffected neighbour is closest
+        for (String node : detached) {
+            for (String from : inLinks.getOrDefault(node, Collections.emptySet())) {
+                if (!detached.contains(from)) {
+                    relax(from, node, queue, touched);
+                }
+            }
+        }
+        for (String[] link : better) {
+            relax(link[0], link[1], queue, touched);
+        }
+        worse.clear();
+        better.clear();
+
+        while (!queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if (candidate.distance != distance.getOrDefault(candidate.node, Long.MAX_VALUE)) {
+                continue;  // Superseded by a shorter path
+            }
+            for (String neighbour : links.getOrDefault(candidate.node, Collections.emptyMap()).keySet()) {
+                relax(candidate.node, neighbour, queue, touched);
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Recomputes every path from scratch, for comparison with {@link #recompute()}.
+     */
+    public Map<String, String> recomputeAll() {
+        Map<String, String> touched = new HashMap<>(firstHop);
+        distance.clear();
+        parent.clear();
+        firstHop.clear();
+        distance.put(root, 0L);
+        better.clear();
+        worse.clear();
+        for (String neighbour : links.getOrDefault(root, Collections.emptyMap()).keySet()) {
+            better.add(new String[]{root, neighbour});
+        }
+        recompute().forEach(touched::putIfAbsent);
+        return touched;
+    }
+
+    /**
+     * @return the root's neighbour on the least-latency path to a node, or null if it is unreachable
+     */
+    public String nextHop(String node) {
+        return firstHop.get(node);
+    }
+
+    /**
+     * @return the latency of the shortest path to a node, or -1 if it is unreachable
+     */
+    public long distance(String node) {
+        return distance.getOrDefault(node, -1L);
+    }
+
+    /**
+     * Number of nodes with a path from the root, the root included
+     */
+    public int reachableCount() {
+        return distance.size();
+    }
+
+    private void replaceLinks(String origin, Map<String, Long> latencies) {
+        for (Map.Entry<String, Long> link : latencies.entrySet()) {
+            if (link.getValue() < 0) {
+                throw new IllegalArgumentException("Negative latency to " + link.getKey());
+            }
+        }
+        Map<String, Long> previous = links.getOrDefault(origin, Collections.emptyMap());
+        for (Map.Entry<String, Long> link : previous.entrySet()) {
+            Long latency = latencies.get(link.getKey());
+            if (latency == null) {
+                inLinks.get(link.getKey()).remove(origin);
+                worse.add(new String[]{origin, link.getKey()});
+            } else if (latency > link.getValue()) {
+                worse.add(new String[]{origin, link.getKey()});
+            } else if (latency < link.getValue()) {
+                better.add(new String[]{origin, link.getKey()});
+            }
+        }
+        for (Map.Entry<String, Long> link : latencies.entrySet()) {
+            if (!previous.containsKey(link.getKey())) {
+                inLinks.computeIfAbsent(link.getKey(), id -> new HashSet<>()).add(origin);
+                better.add(new String[]{origin, link.getKey()});
+            }
+        }
+        if (latencies.isEmpty()) {
+            links.remove(origin);
+        } else {
+            links.put(origin, new HashMap<>(latencies));
+        }
+    }
+
+    private void relax(String from, String to, PriorityQueue<Candidate> queue, Map<String, String> touched) {
+        Long base = distance.get(from);
+        Long latency = links.getOrDefault(from, Collections.emptyMap()).get(to);
+        if (base == null || latency == null || to.equals(root)) {
+            return;
+        }
+        long candidate = base + latency;
+        if (candidate < distance.getOrDefault(to, Long.MAX_VALUE)) {
+            if (!touched.containsKey(to)) {
+                touched.put(to, firstHop.get(to));
+            }
+            distance.put(to, candidate);
+            parent.put(to, from);
+            firstHop.put(to, from.equals(root) ? to : firstHop.get(from));
+            queue.add(new Candidate(to, candidate));
+        }
+    }
+
+    private Map<String, List<String>> children() {
+        Map<String, List<String>> children = new HashMap<>();
+        for (Map.Entry<String, String> entry : parent.entrySet()) {
+            children.computeIfAbsent(entry.getValue(), id -> new ArrayList<>()).add(entry.getKey());
+        }
+        return children;
+    }
+
+    private static void collectSubtree(String top, Map<String, List<String>> children, Set<String> into) {
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push(top);
+        while (!pending.isEmpty()) {
+            String node = pending.pop();
+            if (into.add(node)) {
+                for (String child : children.getOrDefault(node, Collections.emptyList())) {
+                    pending.push(child);
+                }
+            }
+        }
+    }
+}
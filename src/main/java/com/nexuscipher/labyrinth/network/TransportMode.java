@@ -0,0 +1,9 @@
+package com.nexuscipher.labyrinth.network;
+
+/**
+ * How a node moves bytes between itself and its peers.
+ */
+public enum TransportMode {
+    BLOCKING,   // One thread per connection running a BlockingMessageHandler
+    NIO         // A fixed set of selector loops shared by all connections
+}
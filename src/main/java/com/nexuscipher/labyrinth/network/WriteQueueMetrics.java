@@ -0,0 +1,46 @@
+package com.nexuscipher.labyrinth.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for one connection's outbound write queue: how many frames each
+ * batched write carried and how often senders were turned away by a full queue.
+ */
+public class WriteQueueMetrics {
+    private final AtomicLong batches;
+    private final AtomicLong framesWritten;
+    private final AtomicLong bytesWritten;
+    private final AtomicLong maxBatchSize;
+    private final AtomicLong rejectedOffers;
+
+    public WriteQueueMetrics() {
+        this.batches = new AtomicLong(0);
+        this.framesWritten = new AtomicLong(0);
+        this.bytesWritten = new AtomicLong(0);
+        this.maxBatchSize = new AtomicLong(0);
+        this.rejectedOffers = new AtomicLong(0);
+    }
+
+    public void recordBatch(int frames, long bytes) {
+        batches.incrementAndGet();
+        framesWritten.addAndGet(frames);
+        bytesWritten.addAndGet(bytes);
+        maxBatchSize.accumulateAndGet(frames, Math::max);
+    }
+
+    public void recordRejectedOffer() {
+        rejectedOffers.incrementAndGet();
+    }
+
+    // Getters
+    public long getBatchCount() { return batches.get(); }
+    public long getFramesWritten() { return framesWritten.get(); }
+    public long getBytesWritten() { return bytesWritten.get(); }
+    public long getMaxBatchSize() { return maxBatchSize.get(); }
+    public long getRejectedOffers() { return rejectedOffers.get(); }
+
+    public double getAverageBatchSize() {
+        long count = batches.get();
+        return count == 0 ? 0 : (double) framesWritten.get() / count;
+    }
+}
@@ -0,0 +1,475 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import com.nexuscipher.labyrinth.crypto.DilithiumLevel;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary codec for the protocol message hierarchy.
+ *
+ * Every payload starts with a format version and the message type, followed by
+ * the common header (message ID, sender ID, timestamp) and the fields of the
+ * concrete message in a fixed order. Strings and byte arrays are length-prefixed,
+ * with a length of -1 standing for null. Routing payloads are nested inline, after
+ * a fixed-size routing header; node IDs on a recorded path are sent as raw UUIDs.
+ *
+ * {@link #encodeSegments} leaves large chunk data where it is: the encoded frame is
+ * returned as small header segments around views of the original data buffers.
+ */
+public final class BinaryMessageCodec implements MessageCodec {
+    public static final BinaryMessageCodec INSTANCE = new BinaryMessageCodec();
+
+    // 2: constant-size routing header
+    private static final byte FORMAT_VERSION = 2;
+    private static final int NULL_LENGTH = -1;
+    private static final byte NODE_ID_STRING = 0;
+    private static final byte NODE_ID_UUID = 1;
+    // Data smaller than this is cheaper to copy inline than to send as its own segment
+    private static final int INLINE_DATA_LIMIT = 4096;
+
+    // MessageType constants are written by ordinal, so new types must only be appended
+    private static final Message.MessageType[] MESSAGE_TYPES = Message.MessageType.values();
+
+    private BinaryMessageCodec() {
+    }
+
+    @Override
+    public byte getId() {
+        return BINARY;
+    }
+
+    @Override
+    public byte[] encode(Message message) throws IOException {
+        ByteBuffer[] segments = encodeSegments(message);
+        int length = 0;
+        for (ByteBuffer segment : segments) {
+            length += segment.remaining();
+        }
+        byte[] encoded = new byte[length];
+        ByteBuffer target = ByteBuffer.wrap(encoded);
+        for (ByteBuffer segment : segments) {
+            target.put(segment);
+        }
+        return encoded;
+    }
+
+    @Override
+    public ByteBuffer[] encodeSegments(Message message) throws IOException {
+        SegmentedOutput out = new SegmentedOutput();
+        out.writeByte(FORMAT_VERSION);
+        writeMessage(out, message);
+        return out.toSegments();
+    }
+
+    @Override
+    public Message decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary message format version: " + version);
+        }
+        return readMessage(in, payload.length);
+    }
+
+    private void writeMessage(SegmentedOutput out, Message message) throws IOException {
+        out.writeByte(message.getType().ordinal());
+        writeString(out, message.getMessageId());
+        writeString(out, message.getSenderId());
+        out.writeLong(message.getTimestamp());
+
+        if (message instanceof DataMessage) {
+            writeData(out, (DataMessage) message);
+        } else if (message instanceof RoutingMessage) {
+            writeRouting(out, (RoutingMessage) message);
+        } else if (message instanceof HandshakeMessage) {
+            writeHandshake(out, (HandshakeMessage) message);
+        } else if (message instanceof PeerDiscoveryMessage) {
+            writeDiscovery(out, (PeerDiscoveryMessage) message);
+        } else if (message instanceof EncryptedMessage) {
+            writeEncrypted(out, (EncryptedMessage) message);
+        } else if (message instanceof LinkStateMessage) {
+            writeLinkState(out, (LinkStateMessage) message);
+        } else if (message instanceof FindNodeMessage) {
+            writeFindNode(out, (FindNodeMessage) message);
+        } else if (message instanceof PingMessage) {
+            PingMessage ping = (PingMessage) message;
+            out.writeBoolean(ping.isResponse());
+            writeString(out, ping.getPingId());
+        } else {
+            throw new IOException("No binary layout for " + message.getClass().getName());
+        }
+    }
+
+    private Message readMessage(DataInputStream in, int limit) throws IOException {
+        int typeIndex = in.readUnsignedByte();
+        if (typeIndex >= MESSAGE_TYPES.length) {
+            throw new IOException("Unknown message type: " + typeIndex);
+        }
+        Message.MessageType type = MESSAGE_TYPES[typeIndex];
+        String messageId = readString(in, limit);
+        String senderId = readString(in, limit);
+        long timestamp = in.readLong();
+
+        switch (type) {
+            case DATA:
+                return readData(in, limit, messageId, senderId, timestamp);
+            case ROUTING:
+                return readRouting(in, limit, messageId, senderId, timestamp);
+            case HANDSHAKE_INIT:
+            case HANDSHAKE_RESPONSE:
+            case HANDSHAKE_CONFIRM:
+            case HANDSHAKE_RESUME:
+            case HANDSHAKE_RESUME_ACCEPT:
+            case HANDSHAKE_RESUME_REJECT:
+                return readHandshake(in, limit, messageId, senderId, type, timestamp);
+            case PEER_DISCOVERY:
+                return readDiscovery(in, limit, messageId, senderId, timestamp);
+            case ENCRYPTED:
+                return new EncryptedMessage(messageId, senderId, timestamp, readBytes(in, limit));
+            case LINK_STATE:
+                return readLinkState(in, limit, messageId, senderId, timestamp);
+            case FIND_NODE:
+                return readFindNode(in, limit, messageId, senderId, timestamp);
+            case PING:
+                return new PingMessage(messageId, senderId, timestamp, in.readBoolean(), readString(in, limit));
+            default:
+                throw new IOException("No binary layout for message type " + type);
+        }
+    }
+
+    private void writeData(SegmentedOutput out, DataMessage message) throws IOException {
+        writeString(out, message.getMessageGroupId());
+        out.writeInt(message.getTotalChunks());
+        out.writeInt(message.getChunkNumber());
+        out.writeLong(message.getTimestamp());
+        out.writeByte(message.getState().ordinal());
+        ByteBuffer data = message.dataView();
+        if (data == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            out.writeInt(data.remaining());
+            out.writeBuffer(data);
+        }
+        writeBytes(out, message.getChecksum());
+    }
+
+    private DataMessage readData(DataInputStream in, int limit, String messageId,
+                                 String senderId, long messageTimestamp) throws IOException {
+        String messageGroupId = readString(in, limit);
+        int totalChunks = in.readInt();
+        int chunkNumber = in.readInt();
+        long timestamp = in.readLong();
+        DataMessage.MessageState state = readEnum(in, DataMessage.MessageState.values());
+        byte[] data = readBytes(in, limit);
+        byte[] checksum = readBytes(in, limit);
+        return new DataMessage(messageId, senderId, messageTimestamp, messageGroupId,
+                totalChunks, chunkNumber, data, checksum, timestamp, state);
+    }
+
+    private void writeRouting(SegmentedOutput out, RoutingMessage message) throws IOException {
+        writeString(out, message.getTargetNodeId());
+        out.writeByte(message.getRoutingType().ordinal());
+        out.writeByte(Math.min(message.getHopCount(), RoutingMessage.MAX_HOP_LIMIT));
+        out.writeByte(message.getTtl());
+        for (long word : message.visitedFilter()) {
+            out.writeLong(word);
+        }
+        if (!message.recordsPath()) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            List<String> route = message.getRoute();
+            out.writeInt(route.size());
+            for (String hop : route) {
+                writeNodeId(out, hop);
+            }
+        }
+        out.writeBoolean(message.getPayload() != null);
+        if (message.getPayload() != null) {
+            writeMessage(out, message.getPayload());
+        }
+    }
+
+    private RoutingMessage readRouting(DataInputStream in, int limit, String messageId,
+                                       String senderId, long timestamp) throws IOException {
+        String targetNodeId = readString(in, limit);
+        RoutingMessage.RoutingType routingType = readEnum(in, RoutingMessage.RoutingType.values());
+        int hopCount = in.readUnsignedByte();
+        int ttl = in.readUnsignedByte();
+        long[] visited = new long[RoutingMessage.VISITED_WORDS];
+        for (int i = 0; i < visited.length; i++) {
+            visited[i] = in.readLong();
+        }
+        List<String> path = null;
+        int hops = in.readInt();
+        if (hops != NULL_LENGTH) {
+            if (hops < 0 || hops > limit) {
+                throw new IOException("Invalid element count: " + hops);
+            }
+            path = new ArrayList<>(hops);
+            for (int i = 0; i < hops; i++) {
+                path.add(readNodeId(in, limit));
+            }
+        }
+        Message payload = in.readBoolean() ? readMessage(in, limit) : null;
+        return new RoutingMessage(messageId, senderId, timestamp, targetNodeId, routingType,
+                hopCount, ttl, visited, path, payload);
+    }
+
+    private void writeHandshake(SegmentedOutput out, HandshakeMessage message) throws IOException {
+        writeBytes(out, message.getPublicKey());
+        writeBytes(out, message.getSignature());
+        writeString(out, message.getChallenge());
+        writeBytes(out, message.getChallengeResponse());
+        writeBytes(out, message.getKeyExchange());
+        writeBytes(out, message.getIntegrityAlgorithms());
+        out.writeByte(message.getSignatureLevel() == null ? 0 : message.getSignatureLevel().getId());
+    }
+
+    private HandshakeMessage readHandshake(DataInputStream in, int limit, String messageId,
+                                           String senderId, Message.MessageType type,
+                                           long timestamp) throws IOException {
+        byte[] publicKey = readBytes(in, limit);
+        byte[] signature = readBytes(in, limit);
+        String challenge = readString(in, limit);
+        byte[] challengeResponse = readBytes(in, limit);
+        // Appended fields: peers that predate them stop reading before them, and send none
+        byte[] keyExchange = in.available() > 0 ? readBytes(in, limit) : null;
+        byte[] integrityAlgorithms = in.available() > 0 ? readBytes(in, limit) : null;
+        // Null if not advertised, or a level newer than this build knows
+        DilithiumLevel signatureLevel = in.available() > 0 ? DilithiumLevel.fromId(in.readByte()) : null;
+        return new HandshakeMessage(messageId, senderId, type, timestamp, publicKey, signature,
+                challenge, challengeResponse, keyExchange, integrityAlgorithms, signatureLevel);
+    }
+
+    private void writeEncrypted(SegmentedOutput out, EncryptedMessage message) throws IOException {
+        // Large sealed records go out as their own segment instead of being copied again
+        out.writeInt(message.getSealed().length);
+        out.writeBuffer(ByteBuffer.wrap(message.getSealed()));
+    }
+
+    private void writeDiscovery(SegmentedOutput out, PeerDiscoveryMessage message) throws IOException {
+        out.writeByte(message.getSubType().ordinal());
+        writeString(out, message.getHost());
+        out.writeInt(message.getPort());
+        List<PeerDiscoveryMessage.PeerInfo> peers = message.getKnownPeers();
+        out.writeInt(peers.size());
+        for (PeerDiscoveryMessage.PeerInfo peer : peers) {
+            writeString(out, peer.getNodeId());
+            writeString(out, peer.getHost());
+            out.writeInt(peer.getPort());
+        }
+    }
+
+    private PeerDiscoveryMessage readDiscovery(DataInputStream in, int limit, String messageId,
+                                               String senderId, long timestamp) throws IOException {
+        PeerDiscoveryMessage.MessageSubType subType =
+                readEnum(in, PeerDiscoveryMessage.MessageSubType.values());
+        String host = readString(in, limit);
+        int port = in.readInt();
+        int count = readCount(in, limit);
+        List<PeerDiscoveryMessage.PeerInfo> peers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            peers.add(new PeerDiscoveryMessage.PeerInfo(
+                    readString(in, limit), readString(in, limit), in.readInt()));
+        }
+        return new PeerDiscoveryMessage(messageId, senderId, timestamp, subType, host, port, peers);
+    }
+
+    private void writeLinkState(SegmentedOutput out, LinkStateMessage message) throws IOException {
+        writeNodeId(out, message.getOriginId());
+        out.writeLong(message.getSequence());
+        Map<String, Long> latencies = message.getLatencies();
+        out.writeInt(latencies.size());
+        for (Map.Entry<String, Long> link : latencies.entrySet()) {
+            writeNodeId(out, link.getKey());
+            out.writeLong(link.getValue());
+        }
+    }
+
+    private LinkStateMessage readLinkState(DataInputStream in, int limit, String messageId,
+                                           String senderId, long timestamp) throws IOException {
+        String originId = readNodeId(in, limit);
+        long sequence = in.readLong();
+        int count = readCount(in, limit);
+        Map<String, Long> latencies = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            latencies.put(readNodeId(in, limit), in.readLong());
+        }
+        return new LinkStateMessage(messageId, senderId, timestamp, originId, sequence, latencies);
+    }
+
+    private void writeFindNode(SegmentedOutput out, FindNodeMessage message) throws IOException {
+        out.writeBoolean(message.isResponse());
+        writeString(out, message.getRequestId());
+        writeNodeId(out, message.getTargetId());
+        writeString(out, message.getHost());
+        out.writeInt(message.getPort());
+        List<PeerDiscoveryMessage.PeerInfo> contacts = message.getContacts();
+        out.writeInt(contacts.size());
+        for (PeerDiscoveryMessage.PeerInfo contact : contacts) {
+            writeNodeId(out, contact.getNodeId());
+            writeString(out, contact.getHost());
+            out.writeInt(contact.getPort());
+        }
+    }
+
+    private FindNodeMessage readFindNode(DataInputStream in, int limit, String messageId,
+                                         String senderId, long timestamp) throws IOException {
+        boolean response = in.readBoolean();
+        String requestId = readString(in, limit);
+        String targetId = readNodeId(in, limit);
+        String host = readString(in, limit);
+        int port = in.readInt();
+        int count = readCount(in, limit);
+        List<PeerDiscoveryMessage.PeerInfo> contacts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            contacts.add(new PeerDiscoveryMessage.PeerInfo(
+                    readNodeId(in, limit), readString(in, limit), in.readInt()));
+        }
+        return new FindNodeMessage(messageId, senderId, timestamp, response, requestId,
+                targetId, host, port, contacts);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in, int limit) throws IOException {
+        byte[] bytes = readBytes(in, limit);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Node IDs are normally UUIDs, which take 16 bytes instead of a 36-character string
+    private static void writeNodeId(DataOutputStream out, String nodeId) throws IOException {
+        UUID uuid = asUuid(nodeId);
+        if (uuid == null) {
+            out.writeByte(NODE_ID_STRING);
+            writeString(out, nodeId);
+            return;
+        }
+        out.writeByte(NODE_ID_UUID);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static String readNodeId(DataInputStream in, int limit) throws IOException {
+        byte form = in.readByte();
+        switch (form) {
+            case NODE_ID_STRING:
+                return readString(in, limit);
+            case NODE_ID_UUID:
+                return new UUID(in.readLong(), in.readLong()).toString();
+            default:
+                throw new IOException("Invalid node ID form: " + form);
+        }
+    }
+
+    // Only IDs that print back exactly as they were, so decoding restores the same string
+    private static UUID asUuid(String nodeId) {
+        if (nodeId == null || nodeId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(nodeId);
+            return uuid.toString().equals(nodeId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in, int limit) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > limit) {
+            throw new IOException("Invalid field length: " + length);
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    private static int readCount(DataInputStream in, int limit) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > limit) {
+            throw new IOException("Invalid element count: " + count);
+        }
+        return count;
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, E[] values) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("Invalid " + values.getClass().getComponentType().getSimpleName()
+                    + " ordinal: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * DataOutputStream that records large buffers as separate segments instead of
+     * copying them, so an encoded chunk still points at the sender's data.
+     */
+    private static final class SegmentedOutput extends DataOutputStream {
+        private final ByteArrayOutputStream bytes;
+        private final List<Integer> insertOffsets = new ArrayList<>();
+        private final List<ByteBuffer> inserts = new ArrayList<>();
+
+        SegmentedOutput() {
+            this(new ByteArrayOutputStream(256));
+        }
+
+        private SegmentedOutput(ByteArrayOutputStream bytes) {
+            super(bytes);
+            this.bytes = bytes;
+        }
+
+        void writeBuffer(ByteBuffer buffer) throws IOException {
+            if (buffer.remaining() < INLINE_DATA_LIMIT) {
+                byte[] copy = new byte[buffer.remaining()];
+                buffer.duplicate().get(copy);
+                write(copy);
+                return;
+            }
+            flush();
+            insertOffsets.add(bytes.size());
+            inserts.add(buffer.slice());
+        }
+
+        ByteBuffer[] toSegments() throws IOException {
+            flush();
+            byte[] encoded = bytes.toByteArray();
+            List<ByteBuffer> segments = new ArrayList<>(inserts.size() * 2 + 1);
+            int offset = 0;
+            for (int i = 0; i < inserts.size(); i++) {
+                int insertAt = insertOffsets.get(i);
+                if (insertAt > offset) {
+                    segments.add(ByteBuffer.wrap(encoded, offset, insertAt - offset));
+                }
+                segments.add(inserts.get(i));
+                offset = insertAt;
+            }
+            if (offset < encoded.length) {
+                segments.add(ByteBuffer.wrap(encoded, offset, encoded.length - offset));
+            }
+            return segments.toArray(new ByteBuffer[0]);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.nexuscipher.labyrinth.network.protocol;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 public class DataMessage extends Message {
@@ -9,8 +13,8 @@ public class DataMessage extends Message {
     private final String messageGroupId;    // Groups chunks of the same message
     private final int totalChunks;          // Total number of chunks in complete message
     private final int chunkNumber;          // Current chunk number
-    private final byte[] data;              // Actual data chunk
-    private final byte[] checksum;          // Integrity verification
+    private transient ByteBuffer data;      // Actual data chunk, possibly a view into a larger buffer
+    private final byte[] checksum;          // Integrity verification: Merkle root and proof for chunks
     private final long timestamp;           // For ordering and timeout handling
     private final MessageState state;       // Current state of the message
 
@@ -18,7 +22,8 @@ public class DataMessage extends Message {
         DATA_CHUNK,         // Regular data chunk
         ACKNOWLEDGMENT,     // Confirmation of receipt
         RETRANSMIT_REQUEST, // Request for missing chunks
-        COMPLETE           // Final chunk received
+        COMPLETE,          // Final chunk received
+        MANIFEST           // Signed Merkle root, sent before any chunk
     }
 
     public DataMessage(String senderId,
@@ -28,21 +33,74 @@ public class DataMessage extends Message {
                        byte[] data,
                        byte[] checksum,
                        MessageState state) {
+        this(senderId, messageGroupId, totalChunks, chunkNumber,
+                data == null ? null : ByteBuffer.wrap(data), checksum, state);
+    }
+
+    /**
+     * Creates a chunk backed by a view of the caller's buffer (for example a slice of
+     * a larger payload or of a mapped file). The bytes are not copied, so the
+     * buffer must not be modified until the chunk has been sent.
+     */
+    public DataMessage(String senderId,
+                       String messageGroupId,
+                       int totalChunks,
+                       int chunkNumber,
+                       ByteBuffer data,
+                       byte[] checksum,
+                       MessageState state) {
         super(senderId, MessageType.DATA);
         this.messageGroupId = messageGroupId;
         this.totalChunks = totalChunks;
         this.chunkNumber = chunkNumber;
-        this.data = data;
+        this.data = data == null ? null : data.slice();
         this.checksum = checksum;
         this.timestamp = System.currentTimeMillis();
         this.state = state;
     }
 
+    // Restores a decoded chunk, see BinaryMessageCodec
+    DataMessage(String messageId,
+                String senderId,
+                long messageTimestamp,
+                String messageGroupId,
+                int totalChunks,
+                int chunkNumber,
+                byte[] data,
+                byte[] checksum,
+                long timestamp,
+                MessageState state) {
+        super(messageId, senderId, MessageType.DATA, messageTimestamp);
+        this.messageGroupId = messageGroupId;
+        this.totalChunks = totalChunks;
+        this.chunkNumber = chunkNumber;
+        this.data = data == null ? null : ByteBuffer.wrap(data);
+        this.checksum = checksum;
+        this.timestamp = timestamp;
+        this.state = state;
+    }
+
     // Getters
     public String getMessageGroupId() { return messageGroupId; }
     public int getTotalChunks() { return totalChunks; }
     public int getChunkNumber() { return chunkNumber; }
-    public byte[] getData() { return data; }
+    public byte[] getData() { return toArray(data); }
+
+    /**
+     * Returns a read-only view of the chunk without copying it.
+     */
+    public ByteBuffer getDataBuffer() {
+        return data == null ? null : data.asReadOnlyBuffer();
+    }
+
+    // Writable view for the codec, so transports can use the backing array directly
+    ByteBuffer dataView() {
+        return data == null ? null : data.duplicate();
+    }
+
+    public int getDataLength() {
+        return data == null ? 0 : data.remaining();
+    }
     public byte[] getChecksum() { return checksum; }
     public long getTimestamp() { return timestamp; }
     public MessageState getState() { return state; }
@@ -53,4 +111,38 @@ public class DataMessage extends Message {
     public boolean isLastChunk() {
         return chunkNumber == totalChunks - 1;
     }
+
+    // Whole-array chunks are returned as-is, views into larger buffers are copied out
+    private static byte[] toArray(ByteBuffer buffer) {
+        if (buffer == null) {
+            return null;
+        }
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.duplicate().get(copy);
+        return copy;
+    }
+
+    // ByteBuffer is not serializable; keeps the Java serialization fallback working
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        byte[] bytes = toArray(data);
+        out.writeInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            out.write(bytes);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int length = in.readInt();
+        if (length >= 0) {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            data = ByteBuffer.wrap(bytes);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+/**
+ * A message sealed with the connection's session keys, see
+ * {@link com.nexuscipher.labyrinth.crypto.SessionCipher}. The payload is the
+ * codec encoding of the original message, so only the outer header is readable
+ * on the wire.
+ */
+public class EncryptedMessage extends Message {
+    private final byte[] sealed;  // Sequence number, ciphertext and tag
+
+    public EncryptedMessage(String senderId, byte[] sealed) {
+        super(senderId, MessageType.ENCRYPTED);
+        this.sealed = sealed;
+    }
+
+    // Restores a decoded message, see BinaryMessageCodec
+    EncryptedMessage(String messageId, String senderId, long timestamp, byte[] sealed) {
+        super(messageId, senderId, MessageType.ENCRYPTED, timestamp);
+        this.sealed = sealed;
+    }
+
+    // Getters
+    public byte[] getSealed() { return sealed; }
+}
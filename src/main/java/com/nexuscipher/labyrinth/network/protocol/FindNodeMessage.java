@@ -0,0 +1,67 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import com.nexuscipher.labyrinth.network.protocol.PeerDiscoveryMessage.PeerInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A DHT lookup step: a request for the contacts a node knows closest to a
+ * target ID, or the reply listing them. Replies carry the request's ID. Both
+ * carry the address the sender accepts connections on, so the receiver can add
+ * the sender to its own table.
+ */
+public class FindNodeMessage extends Message {
+    private final boolean response;
+    private final String requestId;
+    private final String targetId;
+    private final String host;              // Where the sender listens
+    private final int port;
+    private final List<PeerInfo> contacts;  // Closest known to the target; empty in requests
+
+    /**
+     * Creates a request for the contacts closest to a target.
+     */
+    public FindNodeMessage(String senderId, String targetId, String host, int port) {
+        this(senderId, false, UUID.randomUUID().toString(), targetId, host, port, List.of());
+    }
+
+    private FindNodeMessage(String senderId, boolean response, String requestId, String targetId,
+                            String host, int port, List<PeerInfo> contacts) {
+        super(senderId, MessageType.FIND_NODE);
+        this.response = response;
+        this.requestId = requestId;
+        this.targetId = targetId;
+        this.host = host;
+        this.port = port;
+        this.contacts = new ArrayList<>(contacts);
+    }
+
+    // Restores a decoded lookup message, see BinaryMessageCodec
+    FindNodeMessage(String messageId, String senderId, long timestamp, boolean response, String requestId,
+                    String targetId, String host, int port, List<PeerInfo> contacts) {
+        super(messageId, senderId, MessageType.FIND_NODE, timestamp);
+        this.response = response;
+        this.requestId = requestId;
+        this.targetId = targetId;
+        this.host = host;
+        this.port = port;
+        this.contacts = new ArrayList<>(contacts);
+    }
+
+    /**
+     * The reply to this request.
+     */
+    public FindNodeMessage reply(String senderId, String host, int port, List<PeerInfo> contacts) {
+        return new FindNodeMessage(senderId, true, requestId, targetId, host, port, contacts);
+    }
+
+    // Getters
+    public boolean isResponse() { return response; }
+    public String getRequestId() { return requestId; }
+    public String getTargetId() { return targetId; }
+    public String getHost() { return host; }
+    public int getPort() { return port; }
+    public List<PeerInfo> getContacts() { return new ArrayList<>(contacts); }
+}
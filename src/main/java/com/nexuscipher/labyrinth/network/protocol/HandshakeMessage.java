@@ -1,18 +1,68 @@
 package com.nexuscipher.labyrinth.network.protocol;
 
+import com.nexuscipher.labyrinth.crypto.DilithiumLevel;
+import com.nexuscipher.labyrinth.crypto.SessionCipher;
+
 public class HandshakeMessage extends Message {
     private final byte[] publicKey;      // Quantum-resistant public key
-    private final byte[] signature;      // Cryptographic signature
+    private final byte[] signature;      // Cryptographic signature, or ticket proof when resuming
     private final String challenge;      // Random challenge for verification
     private final byte[] challengeResponse;  // Response to previous challenge (if any)
+    private final byte[] keyExchange;    // KEM public key (init), encapsulated secret (response)
+                                         // or resumption ticket ID (resume)
+    private final byte[] integrityAlgorithms;  // IDs of the chunk integrity algorithms the sender supports
+    private final DilithiumLevel signatureLevel;  // Level of publicKey, if the sender advertised it
+
+    // Session agreed while creating this message; local to the creating node, never sent
+    private transient SessionCipher session;
 
     public HandshakeMessage(String senderId, MessageType type, byte[] publicKey,
                             byte[] signature, String challenge, byte[] challengeResponse) {
+        this(senderId, type, publicKey, signature, challenge, challengeResponse, null);
+    }
+
+    public HandshakeMessage(String senderId, MessageType type, byte[] publicKey,
+                            byte[] signature, String challenge, byte[] challengeResponse,
+                            byte[] keyExchange) {
+        this(senderId, type, publicKey, signature, challenge, challengeResponse, keyExchange, null);
+    }
+
+    public HandshakeMessage(String senderId, MessageType type, byte[] publicKey,
+                            byte[] signature, String challenge, byte[] challengeResponse,
+                            byte[] keyExchange, byte[] integrityAlgorithms) {
+        this(senderId, type, publicKey, signature, challenge, challengeResponse, keyExchange,
+                integrityAlgorithms, null);
+    }
+
+    public HandshakeMessage(String senderId, MessageType type, byte[] publicKey,
+                            byte[] signature, String challenge, byte[] challengeResponse,
+                            byte[] keyExchange, byte[] integrityAlgorithms, DilithiumLevel signatureLevel) {
         super(senderId, type);
         this.publicKey = publicKey;
         this.signature = signature;
         this.challenge = challenge;
         this.challengeResponse = challengeResponse;
+        this.keyExchange = keyExchange;
+        this.integrityAlgorithms = integrityAlgorithms;
+        this.signatureLevel = signatureLevel;
+    }
+
+    // Restores a decoded handshake message, see BinaryMessageCodec
+    HandshakeMessage(String messageId, String senderId, MessageType type, long timestamp,
+                     byte[] publicKey, byte[] signature, String challenge, byte[] challengeResponse,
+                     byte[] keyExchange, byte[] integrityAlgorithms, DilithiumLevel signatureLevel) {
+        super(messageId, senderId, type, timestamp);
+        this.publicKey = publicKey;
+        this.signature = signature;
+        this.challenge = challenge;
+        this.challengeResponse = challengeResponse;
+        this.keyExchange = keyExchange;
+        this.integrityAlgorithms = integrityAlgorithms;
+        this.signatureLevel = signatureLevel;
+    }
+
+    void setSession(SessionCipher session) {
+        this.session = session;
     }
 
     // Getters
@@ -20,4 +70,13 @@ public class HandshakeMessage extends Message {
     public byte[] getSignature() { return signature; }
     public String getChallenge() { return challenge; }
     public byte[] getChallengeResponse() { return challengeResponse; }
+    public byte[] getKeyExchange() { return keyExchange; }
+    public byte[] getIntegrityAlgorithms() { return integrityAlgorithms; }
+    public DilithiumLevel getSignatureLevel() { return signatureLevel; }
+
+    /**
+     * Session keys agreed by the handshake step that created this reply, or null if
+     * the peer did not offer a key exchange. Only set on the node that created it.
+     */
+    public SessionCipher getSession() { return session; }
 }
\ No newline at end of file
@@ -1,29 +1,71 @@
 package com.nexuscipher.labyrinth.network.protocol;
 
+import com.nexuscipher.labyrinth.crypto.DilithiumLevel;
 import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.crypto.ResumptionTicket;
+import com.nexuscipher.labyrinth.crypto.ResumptionTicketCache;
+import com.nexuscipher.labyrinth.crypto.SessionCipher;
+import com.nexuscipher.labyrinth.crypto.SessionKeyExchange;
+import com.nexuscipher.labyrinth.crypto.SignatureVerificationService;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithms;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HandshakeProtocol {
     private static final Logger logger = LoggerFactory.getLogger(HandshakeProtocol.class);
     private static final int CHALLENGE_LENGTH = 32;  // Length of challenge in bytes
+    private static final String RESUME_LABEL = "labyrinth resume";
+    private static final String ACCEPT_LABEL = "labyrinth resume accept";
     private final SecureRandom random = new SecureRandom();
 
     private final String nodeId;
     private final QuantumResistantCrypto crypto;
+    private final ResumptionTicketCache tickets;
 
-    // Store ongoing handshakes - Map<messageId, challenge>
-    private final Map<String, String> pendingHandshakes = new HashMap<>();
+    // Store ongoing handshakes - Map<challenge we sent, who we sent it to>.
+    // Replies echo our challenge back, which is how they are matched up.
+    private final Map<String, PendingHandshake> pendingHandshakes = new ConcurrentHashMap<>();
+    // Resumptions we started - Map<challenge we sent, ticket we presented>
+    private final Map<String, ResumptionTicket> pendingResumptions = new ConcurrentHashMap<>();
+
+    private static final class PendingHandshake {
+        final String peerId;        // Null until the peer has identified itself
+        final byte[] publicKey;
+        final PrivateKey keyExchangeKey;  // Our ephemeral KEM key, only for handshakes we started
+        final SessionCipher session;      // Agreed session, ticketed once the peer confirms
+
+        PendingHandshake(String peerId, byte[] publicKey, PrivateKey keyExchangeKey, SessionCipher session) {
+            this.peerId = peerId;
+            this.publicKey = publicKey;
+            this.keyExchangeKey = keyExchangeKey;
+            this.session = session;
+        }
+    }
 
     public HandshakeProtocol(String nodeId, QuantumResistantCrypto crypto) {
+        this(nodeId, crypto, new ResumptionTicketCache(ResumptionTicketCache.DEFAULT_CAPACITY,
+                ResumptionTicketCache.DEFAULT_LIFETIME_MS));
+    }
+
+    /**
+     * @param tickets where tickets from completed handshakes are kept for resuming later
+     */
+    public HandshakeProtocol(String nodeId, QuantumResistantCrypto crypto, ResumptionTicketCache tickets) {
         this.nodeId = nodeId;
         this.crypto = crypto;
+        this.tickets = tickets;
     }
 
     /**
@@ -32,14 +74,14 @@ public class HandshakeProtocol {
      */
     public HandshakeMessage createInitialHandshake() {
         // Generate a random challenge
-        byte[] challengeBytes = new byte[CHALLENGE_LENGTH];
-        random.nextBytes(challengeBytes);
-        String challenge = Base64.getEncoder().encodeToString(challengeBytes);
+        String challenge = newChallenge();
 
-        // Sign our node ID to prove it's really us
+        // Sign our node ID and key exchange offer to prove it's really us
+        KeyPair keyExchange;
         byte[] signature;
         try {
-            signature = crypto.sign(nodeId.getBytes());
+            keyExchange = SessionKeyExchange.generateKeyPair();
+            signature = crypto.sign(signedData(nodeId, keyExchange.getPublic().getEncoded()));
         } catch (Exception e) {
             logger.error("Failed to sign handshake init message", e);
             throw new RuntimeException("Handshake initialization failed", e);
@@ -51,11 +93,14 @@ public class HandshakeProtocol {
                 crypto.getPublicKey(),
                 signature,
                 challenge,
-                null  // No challenge response in initial message
+                null,  // No challenge response in initial message
+                keyExchange.getPublic().getEncoded(),
+                IntegrityAlgorithms.offer(),
+                crypto.getLevel()
         );
 
         // Store the challenge we sent
-        pendingHandshakes.put(message.getMessageId(), challenge);
+        pendingHandshakes.put(challenge, new PendingHandshake(null, null, keyExchange.getPrivate(), null));
         return message;
     }
 
@@ -65,33 +110,64 @@ public class HandshakeProtocol {
      */
     public HandshakeMessage handleInitialHandshake(HandshakeMessage initMessage) {
         // Verify the signature of the initiating node
+        boolean validSignature;
         try {
-            boolean validSignature = crypto.verify(
-                    initMessage.getSenderId().getBytes(),
+            validSignature = crypto.verify(
+                    signedData(initMessage.getSenderId(), initMessage.getKeyExchange()),
                     initMessage.getSignature(),
                     initMessage.getPublicKey()
             );
-
-            if (!validSignature) {
-                logger.error("Invalid signature in handshake init from {}", initMessage.getSenderId());
-                throw new SecurityException("Invalid signature in handshake");
-            }
         } catch (Exception e) {
             logger.error("Failed to verify handshake init signature", e);
             throw new SecurityException("Signature verification failed", e);
         }
+        return createResponse(initMessage, validSignature);
+    }
+
+    /**
+     * Step 2 with the signature check done by {@code verifier}. The response is
+     * signed on the verifier's thread, so the caller never runs the signature math.
+     * The future fails with a {@link SecurityException} if the signature is invalid.
+     */
+    public CompletableFuture<HandshakeMessage> handleInitialHandshakeAsync(
+            HandshakeMessage initMessage, SignatureVerificationService verifier) {
+        return verifier.verify(
+                signedData(initMessage.getSenderId(), initMessage.getKeyExchange()),
+                initMessage.getSignature(),
+                initMessage.getPublicKey()
+        ).thenApply(validSignature -> createResponse(initMessage, validSignature));
+    }
+
+    private HandshakeMessage createResponse(HandshakeMessage initMessage, boolean validSignature) {
+        if (!validSignature) {
+            logger.error("Invalid signature in handshake init from {}", initMessage.getSenderId());
+            throw new SecurityException("Invalid signature in handshake");
+        }
+        checkSignatureLevel(initMessage);
 
         // Generate our own challenge
-        byte[] challengeBytes = new byte[CHALLENGE_LENGTH];
-        random.nextBytes(challengeBytes);
-        String newChallenge = Base64.getEncoder().encodeToString(challengeBytes);
+        String newChallenge = newChallenge();
+
+        // Encapsulate a session secret if the initiator offered a key exchange
+        SessionKeyExchange.Encapsulation encapsulation = null;
+        SessionCipher session = null;
+        if (initMessage.getKeyExchange() != null) {
+            try {
+                encapsulation = SessionKeyExchange.encapsulate(initMessage.getKeyExchange());
+                session = SessionCipher.derive(encapsulation.getSecret(),
+                        sessionContext(initMessage.getChallenge(), newChallenge), false);
+            } catch (GeneralSecurityException e) {
+                logger.error("Invalid key exchange in handshake init from {}", initMessage.getSenderId(), e);
+                throw new SecurityException("Key exchange failed", e);
+            }
+        }
+        byte[] keyExchange = encapsulation == null ? null : encapsulation.getEncapsulation();
 
         // Sign our response
         byte[] signature;
         try {
-            // Sign both our ID and our response to their challenge
-            String dataToSign = nodeId + initMessage.getChallenge();
-            signature = crypto.sign(dataToSign.getBytes());
+            // Sign our ID, our response to their challenge and the encapsulated secret
+            signature = crypto.sign(signedData(nodeId + initMessage.getChallenge(), keyExchange));
         } catch (Exception e) {
             logger.error("Failed to sign handshake response", e);
             throw new RuntimeException("Handshake response creation failed", e);
@@ -104,11 +180,16 @@ public class HandshakeProtocol {
                 crypto.getPublicKey(),
                 signature,
                 newChallenge,
-                initMessage.getChallenge().getBytes()  // Echo back their challenge
+                initMessage.getChallenge().getBytes(),  // Echo back their challenge
+                keyExchange,
+                IntegrityAlgorithms.offer(),
+                crypto.getLevel()
         );
+        response.setSession(session);
 
-        // Store our challenge
-        pendingHandshakes.put(response.getMessageId(), newChallenge);
+        // Store our challenge; the confirmation must come from the same identity
+        pendingHandshakes.put(newChallenge,
+                new PendingHandshake(initMessage.getSenderId(), initMessage.getPublicKey(), null, session));
         return response;
     }
 
@@ -117,25 +198,91 @@ public class HandshakeProtocol {
      * This is step 3 of the 3-way handshake.
      */
     public HandshakeMessage handleHandshakeResponse(HandshakeMessage responseMessage) {
+        PendingHandshake pending = claimChallenge(responseMessage);
+        String ourChallenge = echoedChallenge(responseMessage);
+
         // Verify their signature
+        boolean validSignature;
         try {
-            String expectedData = responseMessage.getSenderId() +
-                    pendingHandshakes.get(responseMessage.getMessageId());
-            boolean validSignature = crypto.verify(
-                    expectedData.getBytes(),
+            validSignature = crypto.verify(
+                    signedData(responseMessage.getSenderId() + ourChallenge, responseMessage.getKeyExchange()),
                     responseMessage.getSignature(),
                     responseMessage.getPublicKey()
             );
-
-            if (!validSignature) {
-                logger.error("Invalid signature in handshake response from {}",
-                        responseMessage.getSenderId());
-                throw new SecurityException("Invalid signature in handshake response");
-            }
         } catch (Exception e) {
             logger.error("Failed to verify handshake response signature", e);
             throw new SecurityException("Signature verification failed", e);
         }
+        return createConfirmation(responseMessage, ourChallenge, pending, validSignature);
+    }
+
+    /**
+     * Step 3 with the signature check done by {@code verifier}; the confirmation is
+     * signed on the verifier's thread. The future fails with a {@link SecurityException}
+     * if the response does not answer our challenge or is not validly signed.
+     */
+    public CompletableFuture<HandshakeMessage> handleHandshakeResponseAsync(
+            HandshakeMessage responseMessage, SignatureVerificationService verifier) {
+        PendingHandshake pending;
+        try {
+            pending = claimChallenge(responseMessage);
+        } catch (SecurityException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String ourChallenge = echoedChallenge(responseMessage);
+        return verifier.verify(
+                signedData(responseMessage.getSenderId() + ourChallenge, responseMessage.getKeyExchange()),
+                responseMessage.getSignature(),
+                responseMessage.getPublicKey()
+        ).thenApply(validSignature -> createConfirmation(responseMessage, ourChallenge, pending, validSignature));
+    }
+
+    // Peers may sign at any level, but one they advertise has to be the level of their key
+    private void checkSignatureLevel(HandshakeMessage message) {
+        DilithiumLevel advertised = message.getSignatureLevel();
+        DilithiumLevel actual = crypto.levelOf(message.getPublicKey());
+        if (advertised != null && advertised != actual) {
+            logger.error("{} advertised {} but its key is {}", message.getSenderId(), advertised, actual);
+            throw new SecurityException("Advertised signature level does not match the key");
+        }
+        logger.debug("{} signs at {}", message.getSenderId(), actual);
+    }
+
+    // Match the response to the challenge we sent; each challenge is answered once
+    private PendingHandshake claimChallenge(HandshakeMessage responseMessage) {
+        String ourChallenge = echoedChallenge(responseMessage);
+        PendingHandshake pending = ourChallenge == null ? null : pendingHandshakes.remove(ourChallenge);
+        if (pending == null) {
+            logger.error("Handshake response from {} does not answer a pending challenge",
+                    responseMessage.getSenderId());
+            throw new SecurityException("Unexpected handshake response");
+        }
+        return pending;
+    }
+
+    private HandshakeMessage createConfirmation(HandshakeMessage responseMessage, String ourChallenge,
+                                                PendingHandshake pending, boolean validSignature) {
+        if (!validSignature) {
+            logger.error("Invalid signature in handshake response from {}",
+                    responseMessage.getSenderId());
+            throw new SecurityException("Invalid signature in handshake response");
+        }
+        checkSignatureLevel(responseMessage);
+
+        // Recover the session secret; peers without key exchange support send none
+        SessionCipher session = null;
+        if (pending.keyExchangeKey != null && responseMessage.getKeyExchange() != null) {
+            try {
+                byte[] secret = SessionKeyExchange.decapsulate(
+                        pending.keyExchangeKey, responseMessage.getKeyExchange());
+                session = SessionCipher.derive(secret,
+                        sessionContext(ourChallenge, responseMessage.getChallenge()), true);
+            } catch (GeneralSecurityException e) {
+                logger.error("Invalid key exchange in handshake response from {}",
+                        responseMessage.getSenderId(), e);
+                throw new SecurityException("Key exchange failed", e);
+            }
+        }
 
         // Sign our final confirmation
         byte[] signature;
@@ -147,14 +294,20 @@ public class HandshakeProtocol {
         }
 
         // Create confirmation message
-        return new HandshakeMessage(
+        HandshakeMessage confirmation = new HandshakeMessage(
                 nodeId,
                 Message.MessageType.HANDSHAKE_CONFIRM,
                 crypto.getPublicKey(),
                 signature,
                 null,  // No new challenge needed
-                responseMessage.getChallenge().getBytes()
+                responseMessage.getChallenge().getBytes(),
+                null,
+                null,
+                crypto.getLevel()
         );
+        confirmation.setSession(session);
+        issueTicket(responseMessage.getSenderId(), session);
+        return confirmation;
     }
 
     /**
@@ -162,25 +315,257 @@ public class HandshakeProtocol {
      * Returns true if the handshake is complete and valid.
      */
     public boolean verifyHandshakeConfirmation(HandshakeMessage confirmMessage) {
+        String ourChallenge = matchConfirmation(confirmMessage);
+        if (ourChallenge == null) {
+            return false;
+        }
+
         try {
             boolean validSignature = crypto.verify(
-                    pendingHandshakes.get(confirmMessage.getMessageId()).getBytes(),
+                    ourChallenge.getBytes(),
                     confirmMessage.getSignature(),
                     confirmMessage.getPublicKey()
             );
+            return completeConfirmation(confirmMessage, ourChallenge, validSignature);
+        } catch (Exception e) {
+            logger.error("Failed to verify handshake confirmation", e);
+            return false;
+        }
+    }
 
-            if (validSignature) {
-                // Clean up stored challenge
-                pendingHandshakes.remove(confirmMessage.getMessageId());
-                return true;
-            }
+    /**
+     * Final step with the signature check done by {@code verifier}.
+     * Completes with true if the handshake is complete and valid.
+     */
+    public CompletableFuture<Boolean> verifyHandshakeConfirmationAsync(
+            HandshakeMessage confirmMessage, SignatureVerificationService verifier) {
+        String ourChallenge = matchConfirmation(confirmMessage);
+        if (ourChallenge == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return verifier.verify(
+                ourChallenge.getBytes(),
+                confirmMessage.getSignature(),
+                confirmMessage.getPublicKey()
+        ).thenApply(validSignature -> completeConfirmation(confirmMessage, ourChallenge, validSignature));
+    }
+
+    // Returns the challenge the confirmation answers, or null if it matches no pending handshake.
+    // Handshakes we initiated are stored without a peer; only a response can answer those.
+    private String matchConfirmation(HandshakeMessage confirmMessage) {
+        String ourChallenge = echoedChallenge(confirmMessage);
+        PendingHandshake pending = ourChallenge == null ? null : pendingHandshakes.get(ourChallenge);
+        if (pending == null
+                || pending.peerId == null
+                || !pending.peerId.equals(confirmMessage.getSenderId())
+                || !Arrays.equals(pending.publicKey, confirmMessage.getPublicKey())) {
+            logger.error("Handshake confirmation from {} does not match a pending handshake",
+                    confirmMessage.getSenderId());
+            return null;
+        }
+        return ourChallenge;
+    }
 
+    private boolean completeConfirmation(HandshakeMessage confirmMessage, String ourChallenge,
+                                         boolean validSignature) {
+        if (!validSignature) {
             logger.error("Invalid signature in handshake confirmation from {}",
                     confirmMessage.getSenderId());
             return false;
-        } catch (Exception e) {
-            logger.error("Failed to verify handshake confirmation", e);
+        }
+        // Clean up stored challenge; a confirmation replayed concurrently loses here
+        PendingHandshake pending = pendingHandshakes.remove(ourChallenge);
+        if (pending == null) {
             return false;
         }
+        issueTicket(pending.peerId, pending.session);
+        return true;
+    }
+
+    /**
+     * Starts an abbreviated handshake with a peer we hold a resumption ticket for:
+     * one round trip, no signatures. Returns null if there is no usable ticket, in
+     * which case the caller runs the full handshake instead.
+     */
+    public HandshakeMessage createResumption(String peerId) {
+        ResumptionTicket ticket = tickets.takeForPeer(peerId);
+        if (ticket == null) {
+            return null;
+        }
+
+        String challenge = newChallenge();
+        byte[] proof;
+        try {
+            proof = ticket.proof(RESUME_LABEL, nodeId, challenge);
+        } catch (GeneralSecurityException e) {
+            logger.error("Failed to create resumption proof for {}", peerId, e);
+            return null;
+        }
+
+        pendingResumptions.put(challenge, ticket);
+        return new HandshakeMessage(
+                nodeId,
+                Message.MessageType.HANDSHAKE_RESUME,
+                null,  // The ticket stands in for our public key
+                proof,
+                challenge,
+                null,
+                ticket.getTicketId().getBytes(StandardCharsets.UTF_8),
+                IntegrityAlgorithms.offer()
+        );
+    }
+
+    /**
+     * Answers a resumption attempt. An unknown or expired ticket gets a reject, after
+     * which the peer falls back to the full handshake; an accept carries the new session.
+     * A peer that presents a valid proof has verified its identity.
+     * @throws SecurityException if the ticket proof is wrong
+     */
+    public HandshakeMessage handleResumption(HandshakeMessage resumeMessage) {
+        String theirChallenge = resumeMessage.getChallenge();
+        byte[] ticketId = resumeMessage.getKeyExchange();
+        if (theirChallenge == null || ticketId == null) {
+            logger.error("Malformed resumption from {}", resumeMessage.getSenderId());
+            throw new SecurityException("Malformed resumption");
+        }
+
+        ResumptionTicket ticket = tickets.take(new String(ticketId, StandardCharsets.UTF_8));
+        if (ticket == null || !ticket.getPeerId().equals(resumeMessage.getSenderId())) {
+            logger.info("No resumption ticket for {}, asking for a full handshake",
+                    resumeMessage.getSenderId());
+            return new HandshakeMessage(
+                    nodeId,
+                    Message.MessageType.HANDSHAKE_RESUME_REJECT,
+                    null,
+                    null,
+                    null,
+                    theirChallenge.getBytes()
+            );
+        }
+
+        String newChallenge = newChallenge();
+        try {
+            if (!ticket.verifyProof(resumeMessage.getSignature(), RESUME_LABEL,
+                    resumeMessage.getSenderId(), theirChallenge)) {
+                logger.error("Invalid resumption proof from {}", resumeMessage.getSenderId());
+                throw new SecurityException("Invalid resumption proof");
+            }
+            SessionCipher session = ticket.resume(sessionContext(theirChallenge, newChallenge), false);
+            HandshakeMessage accept = new HandshakeMessage(
+                    nodeId,
+                    Message.MessageType.HANDSHAKE_RESUME_ACCEPT,
+                    null,
+                    ticket.proof(ACCEPT_LABEL, nodeId, theirChallenge, newChallenge),
+                    newChallenge,
+                    theirChallenge.getBytes(),  // Echo back their challenge
+                    null,
+                    IntegrityAlgorithms.offer()
+            );
+            accept.setSession(session);
+            issueTicket(resumeMessage.getSenderId(), session);
+            return accept;
+        } catch (GeneralSecurityException e) {
+            logger.error("Failed to resume session with {}", resumeMessage.getSenderId(), e);
+            throw new SecurityException("Resumption failed", e);
+        }
+    }
+
+    /**
+     * Verifies the peer's acceptance of our resumption and returns the new session.
+     * @throws SecurityException if it does not answer our attempt or its proof is wrong
+     */
+    public SessionCipher handleResumptionAccept(HandshakeMessage acceptMessage) {
+        String ourChallenge = echoedChallenge(acceptMessage);
+        ResumptionTicket ticket = ourChallenge == null ? null : pendingResumptions.remove(ourChallenge);
+        if (ticket == null || acceptMessage.getChallenge() == null
+                || !ticket.getPeerId().equals(acceptMessage.getSenderId())) {
+            logger.error("Resumption accept from {} does not answer a pending resumption",
+                    acceptMessage.getSenderId());
+            throw new SecurityException("Unexpected resumption accept");
+        }
+
+        try {
+            if (!ticket.verifyProof(acceptMessage.getSignature(), ACCEPT_LABEL,
+                    acceptMessage.getSenderId(), ourChallenge, acceptMessage.getChallenge())) {
+                logger.error("Invalid resumption proof from {}", acceptMessage.getSenderId());
+                throw new SecurityException("Invalid resumption proof");
+            }
+            SessionCipher session = ticket.resume(
+                    sessionContext(ourChallenge, acceptMessage.getChallenge()), true);
+            issueTicket(acceptMessage.getSenderId(), session);
+            return session;
+        } catch (GeneralSecurityException e) {
+            logger.error("Failed to resume session with {}", acceptMessage.getSenderId(), e);
+            throw new SecurityException("Resumption failed", e);
+        }
+    }
+
+    /**
+     * Drops our resumption attempt after the peer declined it.
+     * @return true if the reject answers one of our attempts, so a full handshake should follow
+     */
+    public boolean handleResumptionReject(HandshakeMessage rejectMessage) {
+        String ourChallenge = echoedChallenge(rejectMessage);
+        return ourChallenge != null && pendingResumptions.remove(ourChallenge) != null;
+    }
+
+    /**
+     * Forgets a handshake or resumption we started that will not be answered, such as
+     * one whose connection failed or timed out. Otherwise only a reply removes it.
+     * @param challenge the challenge of the message we sent
+     */
+    public void abandon(String challenge) {
+        pendingHandshakes.remove(challenge);
+        pendingResumptions.remove(challenge);
+    }
+
+    /**
+     * Handshakes and resumptions we started that are still waiting for a reply
+     */
+    public int getPendingCount() {
+        return pendingHandshakes.size() + pendingResumptions.size();
+    }
+
+    public ResumptionTicketCache getTicketCache() {
+        return tickets;
+    }
+
+    // A failure only costs the peer a full handshake next time
+    private void issueTicket(String peerId, SessionCipher session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            tickets.put(ResumptionTicket.issue(peerId, session, tickets.getLifetimeMillis()));
+        } catch (GeneralSecurityException e) {
+            logger.warn("Failed to issue resumption ticket for {}", peerId, e);
+        }
+    }
+
+    private String newChallenge() {
+        byte[] challengeBytes = new byte[CHALLENGE_LENGTH];
+        random.nextBytes(challengeBytes);
+        return Base64.getEncoder().encodeToString(challengeBytes);
+    }
+
+    // The key exchange field is signed with the text, so it cannot be replaced or stripped in transit
+    private static byte[] signedData(String text, byte[] keyExchange) {
+        byte[] textBytes = text.getBytes();
+        if (keyExchange == null) {
+            return textBytes;
+        }
+        byte[] data = Arrays.copyOf(textBytes, textBytes.length + keyExchange.length);
+        System.arraycopy(keyExchange, 0, data, textBytes.length, keyExchange.length);
+        return data;
+    }
+
+    // Both challenges, initiator's first, so the session keys are unique to this handshake
+    private static byte[] sessionContext(String initiatorChallenge, String responderChallenge) {
+        return (initiatorChallenge + responderChallenge).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String echoedChallenge(HandshakeMessage message) {
+        byte[] echoed = message.getChallengeResponse();
+        return echoed == null ? null : new String(echoed);
     }
-}
\ No newline at end of file
+}
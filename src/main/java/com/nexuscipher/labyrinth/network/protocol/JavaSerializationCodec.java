@@ -0,0 +1,49 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import java.io.*;
+
+/**
+ * Fallback codec that keeps the original Java object serialization format.
+ * Each message is written to its own object stream so it can be framed like any other payload.
+ */
+public final class JavaSerializationCodec implements MessageCodec {
+    public static final JavaSerializationCodec INSTANCE = new JavaSerializationCodec();
+
+    // First two bytes of every ObjectOutputStream (STREAM_MAGIC)
+    private static final int STREAM_MAGIC = 0xACED;
+
+    private JavaSerializationCodec() {
+    }
+
+    @Override
+    public byte getId() {
+        return JAVA_SERIALIZATION;
+    }
+
+    @Override
+    public byte[] encode(Message message) throws IOException {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(message);
+            oos.flush();
+            return bos.toByteArray();
+        }
+    }
+
+    @Override
+    public Message decode(byte[] payload) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (Message) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Malformed serialized message", e);
+        }
+    }
+
+    /**
+     * Checks whether the payload looks like a Java serialization stream.
+     */
+    public static boolean isSerializedStream(byte[] payload) {
+        return payload.length >= 2
+                && ((payload[0] & 0xFF) << 8 | (payload[1] & 0xFF)) == STREAM_MAGIC;
+    }
+}
@@ -0,0 +1,45 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A link-state advertisement: the latency from one node (the origin) to each of
+ * its neighbours. Advertisements are flooded hop by hop; the sender is the node
+ * that passed this copy on, the origin the node it describes. A higher sequence
+ * number from the same origin replaces everything it advertised before.
+ */
+public class LinkStateMessage extends Message {
+    private final String originId;
+    private final long sequence;
+    private final Map<String, Long> latencies;  // Neighbour ID -> latency in ms
+
+    public LinkStateMessage(String senderId, String originId, long sequence, Map<String, Long> latencies) {
+        super(senderId, MessageType.LINK_STATE);
+        this.originId = originId;
+        this.sequence = sequence;
+        this.latencies = new LinkedHashMap<>(latencies);
+    }
+
+    // Restores a decoded advertisement, see BinaryMessageCodec
+    LinkStateMessage(String messageId, String senderId, long timestamp,
+                     String originId, long sequence, Map<String, Long> latencies) {
+        super(messageId, senderId, MessageType.LINK_STATE, timestamp);
+        this.originId = originId;
+        this.sequence = sequence;
+        this.latencies = new LinkedHashMap<>(latencies);
+    }
+
+    /**
+     * The same advertisement, as passed on by another node.
+     */
+    public LinkStateMessage relayedBy(String nodeId) {
+        return new LinkStateMessage(nodeId, originId, sequence, latencies);
+    }
+
+    // Getters
+    public String getOriginId() { return originId; }
+    public long getSequence() { return sequence; }
+    public Map<String, Long> getLatencies() { return Collections.unmodifiableMap(latencies); }
+}
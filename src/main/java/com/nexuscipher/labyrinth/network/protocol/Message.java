@@ -21,7 +21,24 @@ public abstract class Message implements Serializable {
 
         // Network discovery messages
         PEER_DISCOVERY,
-        PEER_LIST
+        PEER_LIST,
+
+        // Any of the above, sealed with the connection's session keys
+        ENCRYPTED,
+
+        // Abbreviated handshake for a peer holding a resumption ticket
+        HANDSHAKE_RESUME,
+        HANDSHAKE_RESUME_ACCEPT,
+        HANDSHAKE_RESUME_REJECT,
+
+        // Neighbour latencies a node advertises for link-state routing
+        LINK_STATE,
+
+        // DHT lookup: a request for the contacts closest to a key, and the reply
+        FIND_NODE,
+
+        // Round-trip probe between neighbours, and its reply
+        PING
     }
 
     protected Message(String senderId, MessageType type) {
@@ -31,6 +48,16 @@ public abstract class Message implements Serializable {
         this.timestamp = System.currentTimeMillis();
     }
 
+    /**
+     * Restores a message with its original identity, used when decoding from the wire.
+     */
+    protected Message(String messageId, String senderId, MessageType type, long timestamp) {
+        this.messageId = messageId;
+        this.senderId = senderId;
+        this.type = type;
+        this.timestamp = timestamp;
+    }
+
     // Getters
     public String getMessageId() { return messageId; }
     public String getSenderId() { return senderId; }
@@ -0,0 +1,44 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Turns protocol messages into frame payloads and back.
+ * Framing (the length prefix) is left to the transport, so a codec only
+ * has to agree with its counterpart on the other side of the connection.
+ */
+public interface MessageCodec {
+    byte JAVA_SERIALIZATION = 1;
+    byte BINARY = 2;
+
+    /**
+     * Identifier exchanged during codec negotiation. When two peers prefer
+     * different codecs the lower identifier wins, so older formats act as fallback.
+     */
+    byte getId();
+
+    byte[] encode(Message message) throws IOException;
+
+    /**
+     * Encodes a message as a sequence of buffers that together form the payload,
+     * so transports can write it with a gathering write. Codecs that can reference
+     * large data in place (instead of copying it) override this.
+     */
+    default ByteBuffer[] encodeSegments(Message message) throws IOException {
+        return new ByteBuffer[]{ByteBuffer.wrap(encode(message))};
+    }
+
+    Message decode(byte[] payload) throws IOException;
+
+    static MessageCodec forId(byte id) {
+        switch (id) {
+            case JAVA_SERIALIZATION:
+                return JavaSerializationCodec.INSTANCE;
+            case BINARY:
+                return BinaryMessageCodec.INSTANCE;
+            default:
+                throw new IllegalArgumentException("Unknown message codec: " + id);
+        }
+    }
+}
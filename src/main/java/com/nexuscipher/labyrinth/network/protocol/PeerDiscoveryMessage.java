@@ -30,6 +30,17 @@ public class PeerDiscoveryMessage extends Message {
         this.knownPeers.addAll(knownPeers);
     }
 
+    // Restores a decoded discovery message, see BinaryMessageCodec
+    PeerDiscoveryMessage(String messageId, String senderId, long timestamp,
+                         MessageSubType subType, String host, int port,
+                         java.util.List<PeerInfo> knownPeers) {
+        super(messageId, senderId, MessageType.PEER_DISCOVERY, timestamp);
+        this.subType = subType;
+        this.host = host;
+        this.port = port;
+        this.knownPeers = new java.util.ArrayList<>(knownPeers);
+    }
+
     // Getters
     public String getHost() { return host; }
     public int getPort() { return port; }
@@ -0,0 +1,43 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import java.util.UUID;
+
+/**
+ * A liveness probe between directly connected peers, or the reply to one. The
+ * reply carries the request's ID, so the prober can time the round trip.
+ */
+public class PingMessage extends Message {
+    private final boolean response;
+    private final String pingId;
+
+    /**
+     * Creates a probe.
+     */
+    public PingMessage(String senderId) {
+        this(senderId, false, UUID.randomUUID().toString());
+    }
+
+    private PingMessage(String senderId, boolean response, String pingId) {
+        super(senderId, MessageType.PING);
+        this.response = response;
+        this.pingId = pingId;
+    }
+
+    // Restores a decoded probe, see BinaryMessageCodec
+    PingMessage(String messageId, String senderId, long timestamp, boolean response, String pingId) {
+        super(messageId, senderId, MessageType.PING, timestamp);
+        this.response = response;
+        this.pingId = pingId;
+    }
+
+    /**
+     * The reply to this probe.
+     */
+    public PingMessage reply(String senderId) {
+        return new PingMessage(senderId, true, pingId);
+    }
+
+    // Getters
+    public boolean isResponse() { return response; }
+    public String getPingId() { return pingId; }
+}
@@ -1,19 +1,33 @@
 package com.nexuscipher.labyrinth.network.protocol;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Represents a message being routed through the peer-to-peer network.
  * This class encapsulates all routing-related information and provides
  * quantum-resistant security for message delivery.
+ *
+ * The routing header has a constant size: a hop count, a hop limit (TTL) and a
+ * small Bloom filter of the nodes the message passed through. The full path is
+ * only carried when route learning was requested, as for {@link RoutingType#DISCOVER_ROUTE}.
  */
 public class RoutingMessage extends Message {
+    public static final int DEFAULT_HOP_LIMIT = 10;
+    public static final int MAX_HOP_LIMIT = 255;  // Sent as one byte
+
+    // 256 bits and 3 hashes: under 0.2% false positives for the nodes a message can visit
+    static final int VISITED_WORDS = 4;
+    private static final int VISITED_HASHES = 3;
+
     private final String targetNodeId;              // Final destination node
-    private final List<String> route;              // Complete path taken by message
     private final Message payload;                 // Actual message being routed
     private final RoutingType routingType;         // Strategy for message routing
+    private int hopCount;                          // Hops taken so far
+    private int ttl;                               // Hops left before the message is dropped
+    private final long[] visited;                  // Bloom filter of nodes passed through
+    private final List<String> path;               // Complete path, or null if not recorded
 
     /**
      * Defines different strategies for routing messages through the network.
@@ -23,11 +37,13 @@ public class RoutingMessage extends Message {
         DIRECT,             // Point-to-point delivery for known routes
         FLOOD,              // Network-wide broadcast for discovery
         MULTIPATH,          // Multiple simultaneous paths for redundancy
-        DISCOVER_ROUTE      // Active route discovery with path learning
+        DISCOVER_ROUTE,     // Active route discovery with path learning
+        DHT                 // Target located by a DHT lookup, then sent directly
     }
 
     /**
      * Creates a new routing message that wraps and delivers a payload message.
+     * The path is recorded for route discovery only.
      * @param senderId ID of the originating node
      * @param targetNodeId ID of the destination node
      * @param messageId Unique identifier for tracking
@@ -39,54 +55,171 @@ public class RoutingMessage extends Message {
                           String messageId,
                           Message payload,
                           RoutingType routingType) {
+        this(senderId, targetNodeId, messageId, payload, routingType,
+                DEFAULT_HOP_LIMIT, routingType == RoutingType.DISCOVER_ROUTE);
+    }
+
+    /**
+     * @param hopLimit hops the message may take before it is dropped, at most {@link #MAX_HOP_LIMIT}
+     * @param recordPath whether to carry the full path, for nodes that learn routes from it
+     */
+    public RoutingMessage(String senderId,
+                          String targetNodeId,
+                          String messageId,
+                          Message payload,
+                          RoutingType routingType,
+                          int hopLimit,
+                          boolean recordPath) {
         super(senderId, MessageType.ROUTING);  // Mark as routing message
+        if (hopLimit < 1 || hopLimit > MAX_HOP_LIMIT) {
+            throw new IllegalArgumentException("Hop limit must be between 1 and " + MAX_HOP_LIMIT);
+        }
         this.targetNodeId = targetNodeId;
         this.payload = payload;
         this.routingType = routingType;
-        this.route = new ArrayList<>();
-        this.route.add(senderId);  // Initialize route with sender
+        this.ttl = hopLimit;
+        this.visited = new long[VISITED_WORDS];
+        this.path = recordPath ? new ArrayList<>() : null;
+        if (senderId != null) {
+            markVisited(senderId);
+        }
+        if (path != null) {
+            path.add(senderId);  // Initialize route with sender
+        }
     }
 
     /**
-     * Records a node in the message's path through the network.
+     * Restores a routing message decoded from the wire, keeping its identity and header.
+     */
+    RoutingMessage(String messageId,
+                   String senderId,
+                   long timestamp,
+                   String targetNodeId,
+                   RoutingType routingType,
+                   int hopCount,
+                   int ttl,
+                   long[] visited,
+                   List<String> path,
+                   Message payload) {
+        super(messageId, senderId, MessageType.ROUTING, timestamp);
+        this.targetNodeId = targetNodeId;
+        this.payload = payload;
+        this.routingType = routingType;
+        this.hopCount = hopCount;
+        this.ttl = ttl;
+        this.visited = visited.clone();
+        this.path = path == null ? null : new ArrayList<>(path);
+    }
+
+    /**
+     * Copy of this message to be flooded instead, keeping its identity, header and path so far.
+     */
+    public RoutingMessage asFlood() {
+        return new RoutingMessage(getMessageId(), getSenderId(), getTimestamp(), targetNodeId,
+                RoutingType.FLOOD, hopCount, ttl, visited, path, payload);
+    }
+
+    /**
+     * Records a node in the message's path through the network and uses up one hop.
      * This helps prevent routing loops and enables route learning.
      */
     public void addHop(String nodeId) {
-        route.add(nodeId);
+        hopCount++;
+        ttl = Math.max(0, ttl - 1);
+        markVisited(nodeId);
+        if (path != null) {
+            path.add(nodeId);
+        }
     }
 
     // Getters with defensive copies where needed
     public String getTargetNodeId() { return targetNodeId; }
 
     /**
-     * Returns a copy of the route to prevent external modification.
+     * Returns a copy of the route, starting with the sender. Empty unless the
+     * path is recorded, see {@link #recordsPath()}.
      */
     public List<String> getRoute() {
-        return new ArrayList<>(route);
+        return path == null ? Collections.emptyList() : new ArrayList<>(path);
+    }
+
+    public boolean recordsPath() {
+        return path != null;
     }
 
     public Message getPayload() { return payload; }
     public RoutingType getRoutingType() { return routingType; }
 
     /**
-     * Returns the last node this message passed through.
+     * Returns the last node this message passed through, or null if the path is not recorded.
      */
     public String getLastHop() {
-        return route.isEmpty() ? null : route.get(route.size() - 1);
+        return path == null || path.isEmpty() ? null : path.get(path.size() - 1);
     }
 
     /**
      * Returns the number of hops excluding the sender.
      */
     public int getHopCount() {
-        return route.size() - 1;
+        return hopCount;
+    }
+
+    /**
+     * Returns the hops left before the message must be dropped.
+     */
+    public int getTtl() {
+        return ttl;
+    }
+
+    public boolean isExpired() {
+        return ttl <= 0;
     }
 
     /**
      * Checks if this message has already visited a specific node.
-     * Used to prevent routing loops in the network.
+     * Used to prevent routing loops in the network. A small fraction of nodes
+     * that were not visited are reported as visited; never the other way round.
      */
     public boolean hasVisited(String nodeId) {
-        return route.contains(nodeId);
+        long hash = hash(nodeId);
+        for (int i = 0; i < VISITED_HASHES; i++) {
+            int bit = bit(hash, i);
+            if ((visited[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // For the codec, which writes the filter as is
+    long[] visitedFilter() {
+        return visited;
+    }
+
+    private void markVisited(String nodeId) {
+        long hash = hash(nodeId);
+        for (int i = 0; i < VISITED_HASHES; i++) {
+            int bit = bit(hash, i);
+            visited[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // Double hashing over the two halves of one 64-bit hash
+    private static int bit(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return (h1 + i * h2) & (VISITED_WORDS * Long.SIZE - 1);
+    }
+
+    // FNV-1a with a MurmurHash3 finalizer; every node must compute the same positions
+    private static long hash(String nodeId) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < nodeId.length(); i++) {
+            hash = (hash ^ nodeId.charAt(i)) * 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return hash;
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,22 @@
 package com.nexuscipher.labyrinth.util;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
 
 public class CryptoUtil {
+    // Uses the calling thread's cached SHA-256 engine, see IntegrityAlgorithms
     public static byte[] calculateChecksum(byte[] data) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            return digest.digest(data);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
-        }
+        IntegrityAlgorithm.Digest digest = IntegrityAlgorithms.SHA256.digest();
+        digest.update(data);
+        return digest.finish();
     }
-}
\ No newline at end of file
+
+    /**
+     * Checksums the remaining bytes of a buffer without moving its position
+     * or copying it to the heap first.
+     */
+    public static byte[] calculateChecksum(ByteBuffer data) {
+        IntegrityAlgorithm.Digest digest = IntegrityAlgorithms.SHA256.digest();
+        digest.update(data);
+        return digest.finish();
+    }
+}
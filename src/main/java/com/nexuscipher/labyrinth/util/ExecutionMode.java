@@ -0,0 +1,22 @@
+package com.nexuscipher.labyrinth.util;
+
+/**
+ * Which kind of threads run connection handling, handshakes and background tasks.
+ *
+ * The default comes from the {@code nexuscipher.executionMode} system property
+ * (PLATFORM or VIRTUAL) so a whole node can be switched without code changes.
+ */
+public enum ExecutionMode {
+    PLATFORM,   // Cached and scheduled pools of platform threads
+    VIRTUAL;    // One virtual thread per task; blocking I/O no longer costs a platform thread
+
+    public static final String SYSTEM_PROPERTY = "nexuscipher.executionMode";
+
+    public static ExecutionMode current() {
+        String configured = System.getProperty(SYSTEM_PROPERTY);
+        if (configured == null || configured.isBlank()) {
+            return PLATFORM;
+        }
+        return valueOf(configured.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,74 @@
+package com.nexuscipher.labyrinth.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the executors used across the node for a given {@link ExecutionMode},
+ * so every component switches between platform and virtual threads the same way.
+ */
+public final class ExecutorFactory {
+
+    private ExecutorFactory() {
+    }
+
+    /**
+     * Executor for open-ended blocking work such as per-connection read loops
+     * and outgoing connection attempts.
+     */
+    public static ExecutorService newTaskExecutor(ExecutionMode mode, String name) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(virtualThreadFactory(name));
+        }
+        return Executors.newCachedThreadPool(platformThreadFactory(name));
+    }
+
+    /**
+     * Executor for a fixed amount of parallel work. In virtual mode the pool size
+     * no longer limits concurrency; each task gets its own virtual thread.
+     */
+    public static ExecutorService newWorkerExecutor(ExecutionMode mode, String name, int threads) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(virtualThreadFactory(name));
+        }
+        return Executors.newFixedThreadPool(threads, platformThreadFactory(name));
+    }
+
+    /**
+     * Executor with exactly {@code threads} workers and a queue of {@code queueCapacity}
+     * tasks in both modes; tasks beyond that are rejected rather than queued. For
+     * CPU-bound work, where more threads than cores only add contention.
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(ExecutionMode mode, String name,
+                                                        int threads, int queueCapacity) {
+        ThreadFactory factory = mode == ExecutionMode.VIRTUAL
+                ? virtualThreadFactory(name)
+                : platformThreadFactory(name);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Scheduler for periodic tasks. The scheduling threads stay the same; in
+     * virtual mode they are virtual, so timers never pin a platform thread.
+     */
+    public static ScheduledExecutorService newScheduler(ExecutionMode mode, String name, int threads) {
+        ThreadFactory factory = mode == ExecutionMode.VIRTUAL
+                ? virtualThreadFactory(name)
+                : platformThreadFactory(name);
+        return Executors.newScheduledThreadPool(threads, factory);
+    }
+
+    private static ThreadFactory virtualThreadFactory(String name) {
+        return Thread.ofVirtual().name(name + "-", 0).factory();
+    }
+
+    private static ThreadFactory platformThreadFactory(String name) {
+        return Thread.ofPlatform().name(name + "-", 0).factory();
+    }
+}
@@ -0,0 +1,46 @@
+package com.nexuscipher.labyrinth.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A hash function for chunk integrity, see {@link MerkleTree}. Each algorithm is
+ * identified on the wire by {@link #getId()}, and peers agree on one per connection
+ * during the handshake (see {@link IntegrityAlgorithms#negotiate}).
+ */
+public interface IntegrityAlgorithm {
+
+    byte getId();
+
+    String getName();
+
+    int getDigestLength();
+
+    /**
+     * Whether the hash resists deliberate forgery. Other algorithms only catch
+     * accidental corruption and are only chosen for links the transport already
+     * authenticates.
+     */
+    boolean isCryptographic();
+
+    /**
+     * Returns the calling thread's digest, reset and ready for use. It must not be
+     * kept across calls or handed to another thread.
+     */
+    Digest digest();
+
+    interface Digest {
+        void update(byte value);
+
+        void update(byte[] bytes);
+
+        /**
+         * Hashes the remaining bytes without moving the buffer's position.
+         */
+        void update(ByteBuffer data);
+
+        /**
+         * Returns the hash of everything since the digest was handed out.
+         */
+        byte[] finish();
+    }
+}
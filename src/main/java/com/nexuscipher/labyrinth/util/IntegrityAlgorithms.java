@@ -0,0 +1,159 @@
+package com.nexuscipher.labyrinth.util;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * The built-in integrity algorithms and the rule peers use to pick one.
+ *
+ * Digests are cached per thread, so hashing a chunk never looks up a provider
+ * or allocates an engine.
+ */
+public final class IntegrityAlgorithms {
+
+    /** SHA-256; the default, and the only choice for links without a session */
+    public static final IntegrityAlgorithm SHA256 = new Sha256();
+
+    /**
+     * CRC32C, which the JDK computes with hardware instructions. It only detects
+     * accidental corruption, so it is only used on links whose session AEAD already
+     * authenticates every message.
+     */
+    public static final IntegrityAlgorithm CRC32C = new Crc32c();
+
+    public static final IntegrityAlgorithm DEFAULT = SHA256;
+
+    // Preference order for authenticated links, cheapest first
+    private static final List<IntegrityAlgorithm> SUPPORTED = List.of(CRC32C, SHA256);
+
+    private IntegrityAlgorithms() {
+    }
+
+    /**
+     * IDs of every algorithm we support, to offer during the handshake.
+     */
+    public static byte[] offer() {
+        byte[] ids = new byte[SUPPORTED.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = SUPPORTED.get(i).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Picks the cheapest algorithm both sides support; non-cryptographic ones only if
+     * the link is authenticated. Both ends reach the same answer from each other's offers.
+     * @param peerOffer the peer's {@link #offer()}, or null if it sent none
+     */
+    public static IntegrityAlgorithm negotiate(byte[] peerOffer, boolean authenticatedLink) {
+        if (peerOffer == null) {
+            return DEFAULT;
+        }
+        for (IntegrityAlgorithm algorithm : SUPPORTED) {
+            if ((authenticatedLink || algorithm.isCryptographic()) && contains(peerOffer, algorithm.getId())) {
+                return algorithm;
+            }
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * @return the algorithm with this wire ID, or null if it is not supported
+     */
+    public static IntegrityAlgorithm byId(byte id) {
+        for (IntegrityAlgorithm algorithm : SUPPORTED) {
+            if (algorithm.getId() == id) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the algorithm with this name, or null if it is not supported
+     */
+    public static IntegrityAlgorithm byName(String name) {
+        for (IntegrityAlgorithm algorithm : SUPPORTED) {
+            if (algorithm.getName().equals(name)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(byte[] ids, byte id) {
+        for (byte candidate : ids) {
+            if (candidate == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Sha256 implements IntegrityAlgorithm {
+        private final ThreadLocal<MessageDigestAdapter> digests = ThreadLocal.withInitial(() -> {
+            try {
+                return new MessageDigestAdapter(MessageDigest.getInstance("SHA-256"));
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("SHA-256 not available", e);
+            }
+        });
+
+        @Override public byte getId() { return 1; }
+        @Override public String getName() { return "SHA-256"; }
+        @Override public int getDigestLength() { return 32; }
+        @Override public boolean isCryptographic() { return true; }
+
+        @Override
+        public Digest digest() {
+            MessageDigestAdapter digest = digests.get();
+            digest.digest.reset();
+            return digest;
+        }
+    }
+
+    private static final class MessageDigestAdapter implements IntegrityAlgorithm.Digest {
+        private final MessageDigest digest;
+
+        MessageDigestAdapter(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override public void update(byte value) { digest.update(value); }
+        @Override public void update(byte[] bytes) { digest.update(bytes); }
+        @Override public void update(ByteBuffer data) { digest.update(data.duplicate()); }
+        @Override public byte[] finish() { return digest.digest(); }
+    }
+
+    private static final class Crc32c implements IntegrityAlgorithm {
+        private final ThreadLocal<Crc32cAdapter> digests = ThreadLocal.withInitial(Crc32cAdapter::new);
+
+        @Override public byte getId() { return 2; }
+        @Override public String getName() { return "CRC32C"; }
+        @Override public int getDigestLength() { return Integer.BYTES; }
+        @Override public boolean isCryptographic() { return false; }
+
+        @Override
+        public Digest digest() {
+            Crc32cAdapter digest = digests.get();
+            digest.crc.reset();
+            return digest;
+        }
+    }
+
+    private static final class Crc32cAdapter implements IntegrityAlgorithm.Digest {
+        private final CRC32C crc = new CRC32C();
+
+        @Override public void update(byte value) { crc.update(value); }
+        @Override public void update(byte[] bytes) { crc.update(bytes); }
+        @Override public void update(ByteBuffer data) { crc.update(data.duplicate()); }
+
+        @Override
+        public byte[] finish() {
+            return ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array();
+        }
+    }
+}
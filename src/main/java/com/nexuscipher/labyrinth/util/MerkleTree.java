@@ -0,0 +1,203 @@
+package com.nexuscipher.labyrinth.util;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Merkle tree over the chunks of one transfer, hashed with an {@link IntegrityAlgorithm}.
+ *
+ * Leaves and inner nodes are hashed with different prefixes, so a leaf can never
+ * pass for an inner node. A node without a sibling is carried up a level unchanged.
+ * The root also covers the chunk count, so a proof only holds for one transfer size.
+ *
+ * A chunk proof is the algorithm ID, the root, and the sibling hashes on the path
+ * from the chunk's leaf to the root. It lets a receiver check any chunk on its own,
+ * in any order and from any source, and chunks that all prove the same root make
+ * up exactly the payload the sender hashed. Every proof carries its own root, so
+ * the root a receiver checks against must reach it some authenticated way first.
+ */
+public final class MerkleTree {
+    private static final byte LEAF_PREFIX = 0;
+    private static final byte NODE_PREFIX = 1;
+    private static final byte ROOT_PREFIX = 2;
+    private static final int ID_LENGTH = 1;
+
+    private final IntegrityAlgorithm algorithm;
+    private final byte[][][] levels;  // levels[0] are the leaf hashes, the last level is the top node
+    private final byte[] root;
+
+    private MerkleTree(IntegrityAlgorithm algorithm, byte[][][] levels, byte[] root) {
+        this.algorithm = algorithm;
+        this.levels = levels;
+        this.root = root;
+    }
+
+    /**
+     * Builds the tree with the default algorithm.
+     */
+    public static MerkleTree build(int chunkCount, IntFunction<ByteBuffer> chunks) {
+        return build(IntegrityAlgorithms.DEFAULT, chunkCount, chunks);
+    }
+
+    /**
+     * Hashes every chunk once and builds the tree over them.
+     * @param chunks returns the data of a chunk by number; its position is not moved
+     */
+    public static MerkleTree build(IntegrityAlgorithm algorithm, int chunkCount, IntFunction<ByteBuffer> chunks) {
+        if (chunkCount < 1) {
+            throw new IllegalArgumentException("A Merkle tree needs at least one chunk");
+        }
+        byte[][] level = new byte[chunkCount][];
+        for (int i = 0; i < chunkCount; i++) {
+            level[i] = leafHash(algorithm, chunks.apply(i));
+        }
+
+        int height = 1;
+        for (int n = chunkCount; n > 1; n = (n + 1) / 2) {
+            height++;
+        }
+        byte[][][] levels = new byte[height][][];
+        levels[0] = level;
+        for (int h = 1; h < height; h++) {
+            byte[][] below = levels[h - 1];
+            byte[][] above = new byte[(below.length + 1) / 2][];
+            for (int i = 0; i < above.length; i++) {
+                int left = 2 * i;
+                above[i] = left + 1 < below.length
+                        ? nodeHash(algorithm, below[left], below[left + 1])
+                        : below[left];
+            }
+            levels[h] = above;
+        }
+        return new MerkleTree(algorithm, levels, rootHash(algorithm, chunkCount, levels[height - 1][0]));
+    }
+
+    public byte[] getRoot() {
+        return root.clone();
+    }
+
+    /**
+     * The algorithm ID and root, in the form {@link #rootOf} takes them from a proof.
+     */
+    public byte[] rootRecord() {
+        byte[] record = new byte[ID_LENGTH + root.length];
+        record[0] = algorithm.getId();
+        System.arraycopy(root, 0, record, ID_LENGTH, root.length);
+        return record;
+    }
+
+    /**
+     * Whether {@code record} is an algorithm ID and root of the right length for it.
+     */
+    public static boolean isRootRecord(byte[] record) {
+        IntegrityAlgorithm algorithm = algorithmOf(record);
+        return algorithm != null && record.length == ID_LENGTH + algorithm.getDigestLength();
+    }
+
+    public IntegrityAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getChunkCount() {
+        return levels[0].length;
+    }
+
+    /**
+     * The algorithm ID, the root and the sibling hashes that connect chunk {@code index} to it.
+     */
+    public byte[] proof(int index) {
+        if (index < 0 || index >= getChunkCount()) {
+            throw new IllegalArgumentException("Chunk " + index + " is not in the tree");
+        }
+        ByteBuffer proof = ByteBuffer.allocate(proofLength(algorithm, index, getChunkCount()));
+        proof.put(algorithm.getId());
+        proof.put(root);
+        for (int h = 0; h < levels.length - 1; h++) {
+            int sibling = index ^ 1;
+            if (sibling < levels[h].length) {
+                proof.put(levels[h][sibling]);
+            }
+            index >>= 1;
+        }
+        return proof.array();
+    }
+
+    /**
+     * Checks that {@code data} is chunk {@code index} of {@code chunkCount} under the
+     * root in {@code proof}. Proofs made with an unsupported algorithm never verify.
+     */
+    public static boolean verify(ByteBuffer data, int index, int chunkCount, byte[] proof) {
+        IntegrityAlgorithm algorithm = algorithmOf(proof);
+        if (algorithm == null || index < 0 || index >= chunkCount
+                || proof.length != proofLength(algorithm, index, chunkCount)) {
+            return false;
+        }
+        int hashLength = algorithm.getDigestLength();
+        byte[] hash = leafHash(algorithm, data);
+        int offset = ID_LENGTH + hashLength;
+        for (int n = chunkCount; n > 1; n = (n + 1) / 2) {
+            int sibling = index ^ 1;
+            if (sibling < n) {
+                byte[] siblingHash = Arrays.copyOfRange(proof, offset, offset + hashLength);
+                offset += hashLength;
+                hash = (index & 1) == 0
+                        ? nodeHash(algorithm, hash, siblingHash)
+                        : nodeHash(algorithm, siblingHash, hash);
+            }
+            index >>= 1;
+        }
+        return MessageDigest.isEqual(rootHash(algorithm, chunkCount, hash),
+                Arrays.copyOfRange(proof, ID_LENGTH, ID_LENGTH + hashLength));
+    }
+
+    /**
+     * The algorithm a proof was made with, or null if it is missing or unsupported.
+     */
+    public static IntegrityAlgorithm algorithmOf(byte[] proof) {
+        return proof == null || proof.length < ID_LENGTH ? null : IntegrityAlgorithms.byId(proof[0]);
+    }
+
+    /**
+     * The algorithm ID and root a proof claims; only meaningful once {@link #verify}
+     * accepted the proof. Roots made with different algorithms never compare equal.
+     */
+    public static byte[] rootOf(byte[] proof) {
+        return Arrays.copyOf(proof, ID_LENGTH + algorithmOf(proof).getDigestLength());
+    }
+
+    private static int proofLength(IntegrityAlgorithm algorithm, int index, int chunkCount) {
+        int siblings = 0;
+        for (int n = chunkCount; n > 1; n = (n + 1) / 2) {
+            if ((index ^ 1) < n) {
+                siblings++;
+            }
+            index >>= 1;
+        }
+        return ID_LENGTH + (1 + siblings) * algorithm.getDigestLength();
+    }
+
+    private static byte[] leafHash(IntegrityAlgorithm algorithm, ByteBuffer data) {
+        IntegrityAlgorithm.Digest digest = algorithm.digest();
+        digest.update(LEAF_PREFIX);
+        digest.update(data);
+        return digest.finish();
+    }
+
+    private static byte[] nodeHash(IntegrityAlgorithm algorithm, byte[] left, byte[] right) {
+        IntegrityAlgorithm.Digest digest = algorithm.digest();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.finish();
+    }
+
+    private static byte[] rootHash(IntegrityAlgorithm algorithm, int chunkCount, byte[] top) {
+        IntegrityAlgorithm.Digest digest = algorithm.digest();
+        digest.update(ROOT_PREFIX);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(chunkCount).array());
+        digest.update(top);
+        return digest.finish();
+    }
+}
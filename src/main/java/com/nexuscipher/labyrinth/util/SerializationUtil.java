@@ -1,5 +1,10 @@
 package com.nexuscipher.labyrinth.util;
 
+import com.nexuscipher.labyrinth.network.protocol.BinaryMessageCodec;
+import com.nexuscipher.labyrinth.network.protocol.JavaSerializationCodec;
+import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+
 import java.io.*;
 
 public class SerializationUtil {
@@ -17,4 +22,26 @@ public class SerializationUtil {
             return ois.readObject();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Encodes a protocol message with the compact binary codec
+     */
+    public static byte[] serializeMessage(Message message) throws IOException {
+        return serializeMessage(message, BinaryMessageCodec.INSTANCE);
+    }
+
+    public static byte[] serializeMessage(Message message, MessageCodec codec) throws IOException {
+        return codec.encode(message);
+    }
+
+    /**
+     * Decodes a protocol message, falling back to Java serialization
+     * when the bytes come from a node that still uses the old format
+     */
+    public static Message deserializeMessage(byte[] bytes) throws IOException {
+        MessageCodec codec = JavaSerializationCodec.isSerializedStream(bytes)
+                ? JavaSerializationCodec.INSTANCE
+                : BinaryMessageCodec.INSTANCE;
+        return codec.decode(bytes);
+    }
+}
@@ -0,0 +1,107 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.core.Node;
+import com.nexuscipher.labyrinth.network.BlockingMessageHandler;
+import com.nexuscipher.labyrinth.network.ConnectionManager;
+import com.nexuscipher.labyrinth.network.MessageHandler;
+import com.nexuscipher.labyrinth.network.NioTransport;
+import com.nexuscipher.labyrinth.network.TransportMode;
+import com.nexuscipher.labyrinth.network.protocol.BinaryMessageCodec;
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.ExecutorFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens many loopback peer connections to a single node and reports how many it
+ * holds, how fast they were established, the platform threads they cost and the
+ * heap used per connection, for each execution mode and transport.
+ *
+ * This measures connection handling only, so no handshakes are performed.
+ * Run with: java -cp target/test-classes:<test classpath> \
+ *     com.nexuscipher.labyrinth.benchmark.ConnectionScalingBenchmark [peers]
+ * Raise the open file limit (ulimit -n) for runs above a few thousand peers.
+ */
+public class ConnectionScalingBenchmark {
+    private static final long SETTLE_TIMEOUT_MS = 60_000;
+
+    private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int peers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        System.out.printf("%-9s %-9s %8s %10s %16s %18s%n",
+                "mode", "transport", "peers", "peers/s", "platform threads", "heap/connection");
+        run(ExecutionMode.PLATFORM, TransportMode.BLOCKING, peers);
+        run(ExecutionMode.VIRTUAL, TransportMode.BLOCKING, peers);
+        run(ExecutionMode.PLATFORM, TransportMode.NIO, peers);
+    }
+
+    private static void run(ExecutionMode mode, TransportMode transportMode, int peers) throws Exception {
+        ConnectionManager server = new ConnectionManager("server", null, transportMode, mode);
+        ConnectionManager client = new ConnectionManager("client", null, transportMode, mode);
+        Node node = new Node(0, server);
+        node.start();
+
+        ExecutorService clientLoops = ExecutorFactory.newTaskExecutor(mode, "bench-client");
+        NioTransport clientTransport = transportMode == TransportMode.NIO
+                ? new NioTransport("client", client, BinaryMessageCodec.INSTANCE,
+                        ExecutorFactory.newWorkerExecutor(mode, "bench-dispatch", 2))
+                : null;
+
+        long heapBefore = usedHeap();
+        int threadsBefore = threads.getThreadCount();
+        long start = System.nanoTime();
+
+        List<MessageHandler> handlers = new ArrayList<>(peers);
+        for (int i = 0; i < peers; i++) {
+            if (clientTransport != null) {
+                handlers.add(clientTransport.connect("localhost", node.getPort()).get(5, TimeUnit.SECONDS));
+            } else {
+                BlockingMessageHandler handler = new BlockingMessageHandler(
+                        new Socket("localhost", node.getPort()), "client", null, client);
+                clientLoops.submit(handler);
+                handlers.add(handler);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + SETTLE_TIMEOUT_MS;
+        while (server.getActiveConnectionCount() < peers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int held = server.getActiveConnectionCount();
+        int threadCost = threads.getThreadCount() - threadsBefore;
+        // Both ends of every connection live in this JVM
+        long heapPerConnection = (usedHeap() - heapBefore) / Math.max(1, 2L * held);
+
+        System.out.printf("%-9s %-9s %8d %10.0f %16d %15d B%n",
+                mode, transportMode, held, held / seconds, threadCost, heapPerConnection);
+
+        handlers.forEach(MessageHandler::close);
+        clientLoops.shutdownNow();
+        if (clientTransport != null) {
+            clientTransport.shutdown();
+        }
+        node.stop();
+        server.shutdown();
+        client.shutdown();
+        Thread.sleep(500);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
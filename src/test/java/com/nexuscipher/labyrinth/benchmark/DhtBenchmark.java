@@ -0,0 +1,275 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.network.KademliaLookup;
+import com.nexuscipher.labyrinth.network.KademliaTable;
+import com.nexuscipher.labyrinth.network.NodeKey;
+import com.nexuscipher.labyrinth.network.protocol.PeerDiscoveryMessage.PeerInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Locating a node with a Kademlia lookup against flooding the mesh. {@link #main}
+ * simulates networks of 1k, 10k and 100k nodes and prints, per lookup, the query
+ * rounds and messages (a request and a reply per query) next to the hops and
+ * messages a flood through a random mesh of degree 8 takes to reach the same node.
+ * Each simulated node's k-buckets hold a random sample of the nodes in their
+ * range, as a node that has been up for a while would have; tables are built
+ * when a node is first asked. The JMH part measures the CPU cost of one lookup.
+ *
+ * Run with: java -Xmx2g -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.DhtBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Threads(1)
+public class DhtBenchmark {
+    private static final int LOOKUPS = 500;
+    private static final int MESH_LINKS = 4;  // Each node links to 4 others: average degree 8
+
+    @Param({"1000", "10000", "100000"})
+    public int nodes;
+
+    private SimulatedNetwork network;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        network = new SimulatedNetwork(nodes, new Random(1));
+        random = new Random(2);
+    }
+
+    @Benchmark
+    public KademliaLookup.Result lookup() {
+        return network.lookup(random.nextInt(nodes), random.nextInt(nodes));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        System.out.printf("%d lookups per network, k=%d, alpha=%d%n",
+                LOOKUPS, KademliaTable.DEFAULT_BUCKET_SIZE, KademliaLookup.DEFAULT_PARALLELISM);
+        System.out.printf("%-8s %8s %14s %14s %8s %12s %14s%n", "Nodes", "Found",
+                "Rounds (avg)", "Rounds (max)", "Msgs", "Flood hops", "Flood msgs");
+        for (int size : new int[]{1000, 10000, 100000}) {
+            compare(size);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(DhtBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static void compare(int size) {
+        SimulatedNetwork network = new SimulatedNetwork(size, new Random(size));
+        int[][] mesh = randomMesh(size, new Random(size + 1));
+        Random random = new Random(size + 2);
+        int found = 0;
+        long rounds = 0;
+        int maxRounds = 0;
+        long messages = 0;
+        long floodHops = 0;
+        long floodMessages = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            int origin = random.nextInt(size);
+            int target = random.nextInt(size);
+            KademliaLookup.Result result = network.lookup(origin, target);
+            if (result.getTarget() != null) {
+                found++;
+            }
+            rounds += result.getRounds();
+            maxRounds = Math.max(maxRounds, result.getRounds());
+            messages += 2L * result.getQueries();
+            long[] flood = flood(mesh, origin, target);
+            floodHops += flood[0];
+            floodMessages += flood[1];
+        }
+        System.out.printf("%-8d %7.1f%% %14.2f %14d %8.1f %12.2f %14.1f%n", size, 100.0 * found / LOOKUPS,
+                (double) rounds / LOOKUPS, maxRounds, (double) messages / LOOKUPS,
+                (double) floodHops / LOOKUPS, (double) floodMessages / LOOKUPS);
+    }
+
+    // Hops to the target, and messages sent until every node has the flood
+    private static long[] flood(int[][] mesh, int origin, int target) {
+        int[] depth = new int[mesh.length];
+        int[] parent = new int[mesh.length];
+        Arrays.fill(depth, -1);
+        depth[origin] = 0;
+        parent[origin] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(origin);
+        long messages = 0;
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int next : mesh[node]) {
+                // Everyone forwards to all neighbours but the one it heard from
+                if (next != parent[node]) {
+                    messages++;
+                }
+                if (depth[next] < 0) {
+                    depth[next] = depth[node] + 1;
+                    parent[next] = node;
+                    queue.add(next);
+                }
+            }
+        }
+        return new long[]{depth[target], messages};
+    }
+
+    private static int[][] randomMesh(int size, Random random) {
+        List<List<Integer>> links = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            links.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            // A ring keeps the mesh connected
+            int ring = (i + 1) % size;
+            links.get(i).add(ring);
+            links.get(ring).add(i);
+            for (int j = 1; j < MESH_LINKS; j++) {
+                int other = random.nextInt(size);
+                if (other != i && !links.get(i).contains(other)) {
+                    links.get(i).add(other);
+                    links.get(other).add(i);
+                }
+            }
+        }
+        int[][] mesh = new int[size][];
+        for (int i = 0; i < size; i++) {
+            mesh[i] = links.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return mesh;
+    }
+
+    /**
+     * Nodes "node-0".."node-n" whose tables are filled on first use from a sorted key index.
+     */
+    private static final class SimulatedNetwork {
+        private final int size;
+        private final Random random;
+        private final NodeKey[] keys;        // By node index
+        private final Integer[] byKey;       // Node indexes sorted by key
+        private final NodeKey[] sortedKeys;
+        private final Map<String, Integer> indexes;
+        private final Map<Integer, KademliaTable> tables;
+
+        SimulatedNetwork(int size, Random random) {
+            this.size = size;
+            this.random = random;
+            this.keys = new NodeKey[size];
+            this.indexes = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                keys[i] = NodeKey.of(id(i));
+                indexes.put(id(i), i);
+            }
+            this.byKey = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byKey[i] = i;
+            }
+            Arrays.sort(byKey, Comparator.comparing(i -> keys[i]));
+            this.sortedKeys = new NodeKey[size];
+            for (int i = 0; i < size; i++) {
+                sortedKeys[i] = keys[byKey[i]];
+            }
+            this.tables = new HashMap<>();
+        }
+
+        KademliaLookup.Result lookup(int origin, int target) {
+            // A fresh copy, so lookups do not teach the origin's table for the next run
+            KademliaTable table = copy(table(origin));
+            return new KademliaLookup(table, this::answer).lookup(id(target)).join();
+        }
+
+        private CompletableFuture<List<PeerInfo>> answer(PeerInfo contact, String targetId) {
+            List<PeerInfo> reply = new ArrayList<>();
+            for (KademliaTable.Contact known : table(indexes.get(contact.getNodeId()))
+                    .closest(NodeKey.of(targetId), KademliaTable.DEFAULT_BUCKET_SIZE)) {
+                reply.add(known.getPeer());
+            }
+            return CompletableFuture.completedFuture(reply);
+        }
+
+        private KademliaTable table(int node) {
+            KademliaTable table = tables.get(node);
+            if (table == null) {
+                table = new KademliaTable(id(node));
+                for (int bucket = 0; bucket < NodeKey.BITS; bucket++) {
+                    fillBucket(table, keys[node], bucket);
+                }
+                tables.put(node, table);
+            }
+            return table;
+        }
+
+        // Up to k random nodes from the key range bucket i covers: same bits above i, the other bit at i
+        private void fillBucket(KademliaTable table, NodeKey self, int i) {
+            NodeKey lower;
+            NodeKey upper;
+            if (i >= 64) {
+                long bit = 1L << (i - 64);
+                long flipped = self.getHigh() ^ bit;
+                lower = new NodeKey(flipped & ~(bit - 1), 0);
+                upper = new NodeKey(flipped | (bit - 1), -1L);
+            } else {
+                long bit = 1L << i;
+                long flipped = self.getLow() ^ bit;
+                lower = new NodeKey(self.getHigh(), flipped & ~(bit - 1));
+                upper = new NodeKey(self.getHigh(), flipped | (bit - 1));
+            }
+            int from = firstAbove(lower, false);
+            int count = firstAbove(upper, true) - from;
+            int bucketSize = table.getBucketSize();
+            for (int n = 0; n < Math.min(count, bucketSize); n++) {
+                // Without replacement for small ranges, random picks for large ones
+                int pick = count <= bucketSize ? from + n : from + random.nextInt(count);
+                int node = byKey[pick];
+                table.observe(new KademliaTable.Contact(peer(node), keys[node]));
+            }
+        }
+
+        // Index of the first sorted key at or above the given one, or strictly above it if strict
+        private int firstAbove(NodeKey key, boolean strict) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int order = sortedKeys[mid].compareTo(key);
+                if (order < 0 || (strict && order == 0)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private KademliaTable copy(KademliaTable table) {
+            KademliaTable copy = new KademliaTable(table.getSelfId(), table.getBucketSize());
+            for (KademliaTable.Contact contact : table.closest(table.getSelfKey(), Integer.MAX_VALUE)) {
+                copy.observe(contact);
+            }
+            return copy;
+        }
+
+        private static PeerInfo peer(int node) {
+            return new PeerInfo(id(node), "10.0.0.1", 9000 + node);
+        }
+    }
+
+    private static String id(int node) {
+        return "node-" + node;
+    }
+}
@@ -0,0 +1,84 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.crypto.DilithiumLevel;
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeMessage;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeProtocol;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Dilithium levels a node can be configured with: key generation,
+ * signing and verifying a handshake-sized message, and a complete three-way
+ * handshake between two nodes at that level. Key and signature sizes, which
+ * every handshake sends, are printed before the run.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.DilithiumBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class DilithiumBenchmark {
+
+    @Param({"DILITHIUM2", "DILITHIUM3", "DILITHIUM5"})
+    public DilithiumLevel level;
+
+    private final byte[] data = "node-a4f1c9e2-challenge".getBytes();
+    private QuantumResistantCrypto crypto;
+    private byte[] signature;
+    private HandshakeProtocol initiator;
+    private HandshakeProtocol responder;
+
+    @Setup
+    public void setUp() throws Exception {
+        crypto = new QuantumResistantCrypto(level, null);
+        signature = crypto.sign(data);
+        initiator = new HandshakeProtocol("node-a", new QuantumResistantCrypto(level, null));
+        responder = new HandshakeProtocol("node-b", new QuantumResistantCrypto(level, null));
+    }
+
+    @Benchmark
+    public KeyPair keyGeneration() {
+        return QuantumResistantCrypto.generateKeyPair(level);
+    }
+
+    @Benchmark
+    public byte[] sign() throws Exception {
+        return crypto.sign(data);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return crypto.verify(data, signature, crypto.getPublicKey());
+    }
+
+    @Benchmark
+    public boolean handshake() {
+        HandshakeMessage init = initiator.createInitialHandshake();
+        HandshakeMessage response = responder.handleInitialHandshake(init);
+        HandshakeMessage confirm = initiator.handleHandshakeResponse(response);
+        return responder.verifyHandshakeConfirmation(confirm);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-12s %12s %12s%n", "Level", "Public key", "Signature");
+        for (DilithiumLevel level : DilithiumLevel.values()) {
+            QuantumResistantCrypto crypto = new QuantumResistantCrypto(level, null);
+            System.out.printf("%-12s %10d B %10d B%n", level,
+                    crypto.getPublicKey().length, crypto.sign(new byte[1]).length);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(DilithiumBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,178 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.network.BloomDuplicateFilter;
+import com.nexuscipher.labyrinth.network.DuplicateFilter;
+import com.nexuscipher.labyrinth.network.RecentMessageCache;
+import com.nexuscipher.labyrinth.network.RoutingManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Flood duplicate suppression with the exact {@link RecentMessageCache} against
+ * {@link BloomDuplicateFilter}. The JMH part measures one duplicate check on a
+ * node that holds a full window. {@link #main} first floods broadcasts through a
+ * simulated 1000-node mesh in which every node runs its own filter, and prints
+ * the heap the filters take, how long the flood took, and how many nodes a
+ * broadcast missed because of false positives.
+ *
+ * Run with: java -Xmx4g -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.FloodFilterBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Threads(1)
+public class FloodFilterBenchmark {
+    private static final int NODES = 1000;
+    private static final int NEIGHBOURS = 8;
+    private static final int BROADCASTS = 2000;
+    private static final int ID_POOL = 1 << 16;
+
+    @Param({"exact", "bloom"})
+    public String filterType;
+
+    @Param({"100000"})
+    public int windowEntries;
+
+    private DuplicateFilter filter;
+    private String[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        filter = newFilter(filterType, windowEntries);
+        for (int i = 0; i < windowEntries; i++) {
+            filter.markSeen(UUID.randomUUID().toString());
+        }
+        ids = new String[ID_POOL];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+        }
+    }
+
+    @Benchmark
+    public boolean markSeen() {
+        return filter.markSeen(ids[next++ & (ID_POOL - 1)]);
+    }
+
+    private static DuplicateFilter newFilter(String type, int expectedMessages) {
+        return type.equals("bloom")
+                ? new BloomDuplicateFilter(RoutingManager.MESSAGE_CACHE_TIMEOUT, expectedMessages)
+                : new RecentMessageCache(RoutingManager.MESSAGE_CACHE_TIMEOUT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int[][] mesh = randomMesh(new Random(42));
+        String[] broadcasts = new String[BROADCASTS];
+        for (int i = 0; i < broadcasts.length; i++) {
+            broadcasts[i] = UUID.randomUUID().toString();
+        }
+
+        System.out.printf("%d nodes, %d neighbours each, %d broadcasts%n", NODES, NEIGHBOURS, BROADCASTS);
+        System.out.printf("%-6s %14s %14s %12s %14s%n",
+                "Filter", "Heap/node", "Bytes/message", "Flood ms", "Missed nodes");
+        for (String type : new String[]{"exact", "bloom"}) {
+            simulate(type, mesh, broadcasts);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(FloodFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static void simulate(String type, int[][] mesh, String[] broadcasts) {
+        long before = usedHeap();
+        DuplicateFilter[] filters = new DuplicateFilter[NODES];
+        for (int i = 0; i < NODES; i++) {
+            filters[i] = newFilter(type, BROADCASTS);
+        }
+
+        long missed = 0;
+        long start = System.nanoTime();
+        Random random = new Random(7);
+        for (String id : broadcasts) {
+            missed += NODES - flood(mesh, filters, random.nextInt(NODES), id);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        long heap = usedHeap() - before;
+        System.out.printf("%-6s %12d B %14.1f %12d %14d%n", type, heap / NODES,
+                (double) heap / NODES / broadcasts.length, elapsedMs, missed);
+        Arrays.fill(filters, null);
+    }
+
+    // Breadth-first flood; each node forwards only the first copy it sees. Returns the nodes reached.
+    private static int flood(int[][] mesh, DuplicateFilter[] filters, int origin, String id) {
+        ArrayDeque<int[]> inFlight = new ArrayDeque<>();  // {node, sender}
+        filters[origin].markSeen(id);
+        int reached = 1;
+        for (int neighbour : mesh[origin]) {
+            inFlight.add(new int[]{neighbour, origin});
+        }
+        while (!inFlight.isEmpty()) {
+            int[] delivery = inFlight.poll();
+            int node = delivery[0];
+            // Every node decodes its own copy of the ID off the wire
+            if (!filters[node].markSeen(new String(id.toCharArray()))) {
+                continue;
+            }
+            reached++;
+            for (int neighbour : mesh[node]) {
+                if (neighbour != delivery[1]) {
+                    inFlight.add(new int[]{neighbour, node});
+                }
+            }
+        }
+        return reached;
+    }
+
+    // A ring, so the mesh is connected, plus random links up to NEIGHBOURS per node
+    private static int[][] randomMesh(Random random) {
+        List<List<Integer>> links = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            links.add(new ArrayList<>());
+        }
+        for (int i = 0; i < NODES; i++) {
+            connect(links, i, (i + 1) % NODES);
+        }
+        for (int i = 0; i < NODES; i++) {
+            while (links.get(i).size() < NEIGHBOURS) {
+                int other = random.nextInt(NODES);
+                if (other != i && !links.get(i).contains(other)) {
+                    connect(links, i, other);
+                }
+            }
+        }
+        int[][] mesh = new int[NODES][];
+        for (int i = 0; i < NODES; i++) {
+            mesh[i] = links.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return mesh;
+    }
+
+    private static void connect(List<List<Integer>> links, int a, int b) {
+        links.get(a).add(b);
+        links.get(b).add(a);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
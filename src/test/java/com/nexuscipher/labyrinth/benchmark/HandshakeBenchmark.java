@@ -0,0 +1,75 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeMessage;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeProtocol;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs complete three-way handshakes (three signatures, three verifications)
+ * between two nodes whose crypto is shared by all benchmark threads, the way a
+ * node's single QuantumResistantCrypto is shared by its connections.
+ * Divide the 4-thread score by the thread count for handshakes per second per core.
+ * The resumed case reconnects with the ticket of the previous handshake instead,
+ * which takes two HMACs and a key derivation on each side.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.HandshakeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandshakeBenchmark {
+
+    private HandshakeProtocol initiator;
+    private HandshakeProtocol responder;
+
+    @Setup
+    public void setUp() {
+        initiator = new HandshakeProtocol("node-a", new QuantumResistantCrypto());
+        responder = new HandshakeProtocol("node-b", new QuantumResistantCrypto());
+    }
+
+    private boolean handshake() {
+        HandshakeMessage init = initiator.createInitialHandshake();
+        HandshakeMessage response = responder.handleInitialHandshake(init);
+        HandshakeMessage confirm = initiator.handleHandshakeResponse(response);
+        return responder.verifyHandshakeConfirmation(confirm);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean singleThread() {
+        return handshake();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean fourThreads() {
+        return handshake();
+    }
+
+    // Single thread only: each resumption uses up the ticket the next one needs
+    @Benchmark
+    @Threads(1)
+    public boolean resumed() {
+        HandshakeMessage resume = initiator.createResumption("node-b");
+        if (resume == null) {
+            return handshake();  // First iteration, or the ticket expired
+        }
+        return initiator.handleResumptionAccept(responder.handleResumption(resume)) != null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HandshakeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.crypto.IdentityStore;
+import com.nexuscipher.labyrinth.crypto.NodeIdentity;
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a node takes to get its identity and crypto ready at startup.
+ * The cold case has no identity file, so it generates a Dilithium key pair and
+ * writes it out; the warm case reads and decodes the file left by an earlier run.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.IdentityStartupBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentityStartupBenchmark {
+
+    private Path directory;
+    private Path storedIdentity;
+    private Path coldIdentity;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("identity-bench");
+        storedIdentity = directory.resolve("warm.bin");
+        coldIdentity = directory.resolve("cold.bin");
+        new IdentityStore(storedIdentity).loadOrCreate();
+    }
+
+    @Setup(Level.Invocation)
+    public void removeColdIdentity() throws IOException {
+        Files.deleteIfExists(coldIdentity);
+    }
+
+    @Benchmark
+    public QuantumResistantCrypto coldStart() throws IOException {
+        return start(coldIdentity);
+    }
+
+    @Benchmark
+    public QuantumResistantCrypto warmStart() throws IOException {
+        return start(storedIdentity);
+    }
+
+    // A fresh store each time, the way a new process starts with nothing loaded
+    private static QuantumResistantCrypto start(Path file) throws IOException {
+        NodeIdentity identity = new IdentityStore(file).loadOrCreate();
+        return new QuantumResistantCrypto(identity.getKeyPair(), null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(coldIdentity);
+        Files.deleteIfExists(storedIdentity);
+        Files.deleteIfExists(directory);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IdentityStartupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithm;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithms;
+import com.nexuscipher.labyrinth.util.MerkleTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the chunk integrity algorithms on one core: hashing a single chunk,
+ * building the Merkle tree of a 16-chunk transfer, and verifying one chunk's proof.
+ * {@code lookupPerChunk} hashes the way the code did before digests were cached,
+ * with a provider lookup for every chunk, as a baseline for the cached SHA-256 case.
+ *
+ * Throughput is reported in chunks (or trees) per second; multiply by chunkSize
+ * for bytes per second.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.IntegrityBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class IntegrityBenchmark {
+    private static final int TRANSFER_CHUNKS = 16;
+
+    @Param({"SHA-256", "CRC32C"})
+    public String algorithmName;
+
+    @Param({"4096", "65536", "1048576"})
+    public int chunkSize;
+
+    private IntegrityAlgorithm algorithm;
+    private ByteBuffer[] chunks;
+    private byte[] proof;
+
+    @Setup
+    public void setUp() {
+        algorithm = IntegrityAlgorithms.byName(algorithmName);
+        SecureRandom random = new SecureRandom();
+        chunks = new ByteBuffer[TRANSFER_CHUNKS];
+        for (int i = 0; i < chunks.length; i++) {
+            byte[] data = new byte[chunkSize];
+            random.nextBytes(data);
+            chunks[i] = ByteBuffer.wrap(data);
+        }
+        proof = MerkleTree.build(algorithm, TRANSFER_CHUNKS, i -> chunks[i]).proof(5);
+    }
+
+    @Benchmark
+    public byte[] hashChunk() {
+        IntegrityAlgorithm.Digest digest = algorithm.digest();
+        digest.update(chunks[0]);
+        return digest.finish();
+    }
+
+    @Benchmark
+    public byte[] lookupPerChunk() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(chunks[0].duplicate());
+        return digest.digest();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFER_CHUNKS)
+    public MerkleTree buildTree() {
+        return MerkleTree.build(algorithm, TRANSFER_CHUNKS, i -> chunks[i]);
+    }
+
+    @Benchmark
+    public boolean verifyChunk() {
+        return MerkleTree.verify(chunks[5], 5, TRANSFER_CHUNKS, proof);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IntegrityBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,200 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.network.TopologyGraph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Link-state routing on simulated 500-node topologies: nodes scattered over a
+ * plane, linked to their nearest neighbours plus a few long links, with latency
+ * growing with distance. {@link #main} first prints the end-to-end latency of
+ * random node pairs over the least-latency path the link-state graph picks and
+ * over a fewest-hops path, which is what hop-count route discovery learns. The
+ * JMH part measures recomputing paths after one node re-advertises a changed
+ * link, incrementally and from scratch.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.LinkStateBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class LinkStateBenchmark {
+    private static final int NODES = 500;
+    private static final int NEAREST = 4;
+    private static final int LONG_LINKS = 100;
+    private static final int PAIRS = 2000;
+
+    private long[][] latency;  // 0 where there is no link
+    private TopologyGraph graph;
+    private Random random;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        latency = topology(new Random(1));
+        graph = new TopologyGraph(id(0));
+        for (int node = 0; node < NODES; node++) {
+            graph.applyLinkState(id(node), 1, links(latency, node));
+        }
+        graph.recomputeAll();
+        random = new Random(2);
+        sequence = 1;
+    }
+
+    // One node re-advertises with one of its links 50% slower or faster
+    private void changeOneLink() {
+        int node = random.nextInt(NODES);
+        Map<String, Long> links = links(latency, node);
+        String neighbour = links.keySet().iterator().next();
+        long base = links.get(neighbour);
+        links.put(neighbour, random.nextBoolean() ? base + base / 2 : Math.max(1, base / 2));
+        graph.applyLinkState(id(node), ++sequence, links);
+    }
+
+    @Benchmark
+    public Map<String, String> incremental() {
+        changeOneLink();
+        return graph.recompute();
+    }
+
+    @Benchmark
+    public Map<String, String> fromScratch() {
+        changeOneLink();
+        return graph.recomputeAll();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        System.out.printf("%d nodes, %d nearest neighbours each, %d long links, %d random pairs%n",
+                NODES, NEAREST, LONG_LINKS, PAIRS);
+        System.out.printf("%-9s %22s %22s %10s%n", "Topology", "Least latency (avg/p95)",
+                "Fewest hops (avg/p95)", "Saving");
+        for (int seed = 1; seed <= 5; seed++) {
+            compareRoutes(seed);
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(LinkStateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static void compareRoutes(int seed) {
+        long[][] latency = topology(new Random(seed));
+        Random random = new Random(seed + 100);
+        long[] leastLatency = new long[PAIRS];
+        long[] fewestHops = new long[PAIRS];
+        TopologyGraph[] graphs = new TopologyGraph[NODES];
+        for (int i = 0; i < PAIRS; i++) {
+            int source = random.nextInt(NODES);
+            int target = random.nextInt(NODES);
+            if (graphs[source] == null) {
+                graphs[source] = new TopologyGraph(id(source));
+                for (int node = 0; node < NODES; node++) {
+                    graphs[source].applyLinkState(id(node), 1, links(latency, node));
+                }
+                graphs[source].recompute();
+            }
+            leastLatency[i] = Math.max(0, graphs[source].distance(id(target)));
+            fewestHops[i] = fewestHopsLatency(latency, source, target);
+        }
+        double least = Arrays.stream(leastLatency).average().orElse(0);
+        double hops = Arrays.stream(fewestHops).average().orElse(0);
+        System.out.printf("%-9d %13.1f / %4d ms %13.1f / %4d ms %9.1f%%%n", seed,
+                least, p95(leastLatency), hops, p95(fewestHops), 100 * (1 - least / hops));
+    }
+
+    // Latency of the first fewest-hops path breadth-first search finds
+    private static long fewestHopsLatency(long[][] latency, int source, int target) {
+        long[] pathLatency = new long[NODES];
+        Arrays.fill(pathLatency, -1);
+        pathLatency[source] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (node == target) {
+                return pathLatency[node];
+            }
+            for (int next = 0; next < NODES; next++) {
+                if (latency[node][next] > 0 && pathLatency[next] < 0) {
+                    pathLatency[next] = pathLatency[node] + latency[node][next];
+                    queue.add(next);
+                }
+            }
+        }
+        return 0;
+    }
+
+    // Nodes in a 1000 x 1000 km plane, 1 ms per 10 km plus 1 ms per link
+    private static long[][] topology(Random random) {
+        double[] x = new double[NODES];
+        double[] y = new double[NODES];
+        for (int i = 0; i < NODES; i++) {
+            x[i] = random.nextDouble() * 1000;
+            y[i] = random.nextDouble() * 1000;
+        }
+        long[][] latency = new long[NODES][NODES];
+        for (int i = 0; i < NODES; i++) {
+            Integer[] byDistance = new Integer[NODES];
+            for (int j = 0; j < NODES; j++) {
+                byDistance[j] = j;
+            }
+            final int from = i;
+            Arrays.sort(byDistance, (a, b) -> Double.compare(
+                    Math.hypot(x[from] - x[a], y[from] - y[a]), Math.hypot(x[from] - x[b], y[from] - y[b])));
+            for (int k = 1; k <= NEAREST; k++) {
+                link(latency, x, y, i, byDistance[k]);
+            }
+        }
+        // A ring keeps the mesh connected, long links give hop-count routing its shortcuts
+        for (int i = 0; i < NODES; i++) {
+            link(latency, x, y, i, (i + 1) % NODES);
+        }
+        for (int i = 0; i < LONG_LINKS; i++) {
+            int a = random.nextInt(NODES);
+            int b = random.nextInt(NODES);
+            if (a != b) {
+                link(latency, x, y, a, b);
+            }
+        }
+        return latency;
+    }
+
+    private static void link(long[][] latency, double[] x, double[] y, int a, int b) {
+        long ms = 1 + Math.round(Math.hypot(x[a] - x[b], y[a] - y[b]) / 10);
+        latency[a][b] = ms;
+        latency[b][a] = ms;
+    }
+
+    private static Map<String, Long> links(long[][] latency, int node) {
+        Map<String, Long> links = new HashMap<>();
+        for (int next = 0; next < NODES; next++) {
+            if (latency[node][next] > 0) {
+                links.put(id(next), latency[node][next]);
+            }
+        }
+        return links;
+    }
+
+    private static long p95(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) (sorted.length * 0.95)];
+    }
+
+    private static String id(int node) {
+        return "node-" + node;
+    }
+}
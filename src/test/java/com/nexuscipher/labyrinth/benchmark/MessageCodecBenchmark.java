@@ -0,0 +1,95 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.network.protocol.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Java object serialization with the binary codec on the messages
+ * that dominate our traffic. Throughput is reported in messages per second;
+ * encoded sizes are printed before the run so both numbers come from one invocation.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.MessageCodecBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({"JAVA_SERIALIZATION", "BINARY"})
+    public String codecName;
+
+    @Param({"ACK", "HANDSHAKE", "CHUNK_64K", "FLOOD_8_HOPS"})
+    public String messageKind;
+
+    private MessageCodec codec;
+    private Message message;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = "BINARY".equals(codecName) ? BinaryMessageCodec.INSTANCE : JavaSerializationCodec.INSTANCE;
+        message = sampleMessage(messageKind);
+        encoded = codec.encode(message);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codec.encode(message);
+    }
+
+    @Benchmark
+    public Message decode() throws IOException {
+        return codec.decode(encoded);
+    }
+
+    static Message sampleMessage(String kind) {
+        switch (kind) {
+            case "HANDSHAKE":
+                // Dilithium3 public key and signature sizes
+                return new HandshakeMessage("node-a", Message.MessageType.HANDSHAKE_INIT,
+                        new byte[1952], new byte[3293], "challenge-challenge-challenge-ch", null);
+            case "CHUNK_64K":
+                return new RoutingMessage("node-a", "node-b", null,
+                        new DataMessage("node-a", "group-1", 16, 3, new byte[64 * 1024],
+                                new byte[32], DataMessage.MessageState.DATA_CHUNK),
+                        RoutingMessage.RoutingType.DIRECT);
+            case "FLOOD_8_HOPS":
+                // The routing header stays the same size however far a flood travels
+                RoutingMessage flood = new RoutingMessage(UUID.randomUUID().toString(), "node-b", null,
+                        new DataMessage("node-a", "group-1", 16, 3, new byte[0],
+                                new byte[0], DataMessage.MessageState.ACKNOWLEDGMENT),
+                        RoutingMessage.RoutingType.FLOOD);
+                for (int i = 0; i < 8; i++) {
+                    flood.addHop(UUID.randomUUID().toString());
+                }
+                return flood;
+            default:
+                return new RoutingMessage("node-a", "node-b", null,
+                        new DataMessage("node-a", "group-1", 16, 3, new byte[0],
+                                new byte[0], DataMessage.MessageState.ACKNOWLEDGMENT),
+                        RoutingMessage.RoutingType.DIRECT);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        for (String kind : new String[]{"ACK", "HANDSHAKE", "CHUNK_64K", "FLOOD_8_HOPS"}) {
+            Message message = sampleMessage(kind);
+            System.out.printf("%-10s java=%7d bytes  binary=%7d bytes%n", kind,
+                    JavaSerializationCodec.INSTANCE.encode(message).length,
+                    BinaryMessageCodec.INSTANCE.encode(message).length);
+        }
+        new Runner(new OptionsBuilder()
+                .include(MessageCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.crypto.PublicKeyCache;
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.SignatureException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Dilithium verification throughput with the decoded-key cache and with
+ * a key parse on every call. The cached case models a peer whose key we have
+ * already seen, which is every handshake step after the first.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.PublicKeyCacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicKeyCacheBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private QuantumResistantCrypto verifier;
+    private byte[] publicKey;
+    private byte[] data;
+    private byte[] signature;
+
+    @Setup
+    public void setUp() throws SignatureException {
+        QuantumResistantCrypto signer = new QuantumResistantCrypto(null);
+        publicKey = signer.getPublicKey();
+        data = "node-a3q2mV8f0J1Xw9a7b6c5d4e3f2g1h0i9j8k7l6m5".getBytes();
+        signature = signer.sign(data);
+        verifier = new QuantumResistantCrypto(cached ? new PublicKeyCache(PublicKeyCache.DEFAULT_CAPACITY) : null);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return verifier.verify(data, signature, publicKey);
+    }
+
+    @TearDown
+    public void report() {
+        PublicKeyCache cache = verifier.getKeyCache();
+        if (cache != null) {
+            System.out.printf("%nkey cache: %d hits, %d misses (%.4f hit rate)%n",
+                    cache.getHits(), cache.getMisses(), cache.getHitRate());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PublicKeyCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
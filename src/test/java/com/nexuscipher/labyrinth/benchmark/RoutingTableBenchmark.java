@@ -0,0 +1,120 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.network.RoutingTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forwarding lookups against the routing table while routes change, compared with
+ * the map of next-hop sets RoutingManager used before. Each group runs three
+ * forwarding threads and one thread updating routes, as discovery and link-state
+ * traffic would. The old table's values were plain HashSets, which fail under
+ * concurrent updates, so the baseline uses concurrent sets; it still picks an
+ * arbitrary next hop rather than the cheapest.
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.RoutingTableBenchmark
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingTableBenchmark {
+
+    @Param({"1000", "100000"})
+    public int destinations;
+
+    private static final int HOPS_PER_DESTINATION = 4;
+
+    private String[] ids;
+    private String[] hops;
+    private RoutingTable table;
+    private Map<String, Set<String>> setTable;
+
+    @Setup
+    public void setUp() {
+        ids = new String[destinations];
+        hops = new String[HOPS_PER_DESTINATION * 2];
+        for (int i = 0; i < hops.length; i++) {
+            hops[i] = "hop-" + i;
+        }
+        table = new RoutingTable();
+        setTable = new ConcurrentHashMap<>();
+        for (int i = 0; i < destinations; i++) {
+            ids[i] = "node-" + i;
+            for (int h = 0; h < HOPS_PER_DESTINATION; h++) {
+                table.update(ids[i], hops[h], h + 1);
+                setTable.computeIfAbsent(ids[i], k -> ConcurrentHashMap.newKeySet()).add(hops[h]);
+            }
+        }
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private String randomHop() {
+        return hops[ThreadLocalRandom.current().nextInt(hops.length)];
+    }
+
+    @Benchmark
+    @Group("routingTable")
+    @GroupThreads(3)
+    public String routingTableLookup() {
+        return table.bestNextHop(randomId());
+    }
+
+    @Benchmark
+    @Group("routingTable")
+    @GroupThreads(1)
+    public void routingTableUpdate() {
+        String id = randomId();
+        String hop = randomHop();
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            table.update(id, hop, ThreadLocalRandom.current().nextInt(1, 100));
+        } else if (table.getRoutes(id).size() > 1) {
+            table.remove(id, hop);
+        }
+    }
+
+    @Benchmark
+    @Group("setTable")
+    @GroupThreads(3)
+    public String setTableLookup() {
+        Set<String> nextHops = setTable.get(randomId());
+        if (nextHops == null) {
+            return null;
+        }
+        Iterator<String> iterator = nextHops.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Benchmark
+    @Group("setTable")
+    @GroupThreads(1)
+    public void setTableUpdate() {
+        Set<String> nextHops = setTable.get(randomId());
+        String hop = randomHop();
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            nextHops.add(hop);
+        } else if (nextHops.size() > 1) {
+            nextHops.remove(hop);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RoutingTableBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
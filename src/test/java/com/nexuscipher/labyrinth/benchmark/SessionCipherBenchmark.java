@@ -0,0 +1,84 @@
+package com.nexuscipher.labyrinth.benchmark;
+
+import com.nexuscipher.labyrinth.crypto.SessionCipher;
+import com.nexuscipher.labyrinth.network.protocol.BinaryMessageCodec;
+import com.nexuscipher.labyrinth.network.protocol.DataMessage;
+import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encrypted data path on one core: a chunk is encoded and sealed the
+ * way a connection writer does it, and opened and decoded the way the receiving
+ * side does. The plain case encodes and decodes without a session, for comparison.
+ *
+ * Throughput is reported in chunks per second; multiply by chunkSize for bytes
+ * per second (e.g. 10,000 ops/s at 65536 is 625 MB/s).
+ *
+ * Run with: java -cp target/test-classes:<test classpath> com.nexuscipher.labyrinth.benchmark.SessionCipherBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class SessionCipherBenchmark {
+
+    @Param({"4096", "65536", "1048576"})
+    public int chunkSize;
+
+    private final MessageCodec codec = BinaryMessageCodec.INSTANCE;
+    private SessionCipher sender;
+    private SessionCipher receiver;
+    private DataMessage chunk;
+    private byte[] plainPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        SecureRandom random = new SecureRandom();
+        byte[] secret = new byte[32];
+        byte[] context = new byte[64];
+        random.nextBytes(secret);
+        random.nextBytes(context);
+        sender = SessionCipher.derive(secret, context, true);
+        receiver = SessionCipher.derive(secret, context, false);
+
+        byte[] data = new byte[chunkSize];
+        random.nextBytes(data);
+        chunk = new DataMessage("node-a", "group-1", 16, 3, data, null,
+                DataMessage.MessageState.DATA_CHUNK);
+        plainPayload = codec.encode(chunk);
+    }
+
+    @Benchmark
+    public byte[] seal() throws Exception {
+        return sender.seal(codec.encodeSegments(chunk));
+    }
+
+    // Each iteration seals a fresh record, since the receiver rejects replays
+    @Benchmark
+    public Message sealAndOpen() throws Exception {
+        return codec.decode(receiver.open(sender.seal(codec.encodeSegments(chunk))));
+    }
+
+    @Benchmark
+    public Message plainEncodeAndDecode(Blackhole blackhole) throws Exception {
+        blackhole.consume(codec.encodeSegments(chunk));
+        return codec.decode(plainPayload);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SessionCipherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
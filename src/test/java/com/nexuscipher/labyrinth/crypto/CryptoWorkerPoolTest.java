@@ -0,0 +1,92 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CryptoWorkerPool.
+ */
+public class CryptoWorkerPoolTest {
+    private CryptoWorkerPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should run tasks on worker threads and record their latency")
+    void testRunsTasks() throws Exception {
+        pool = new CryptoWorkerPool(2);
+        Thread caller = Thread.currentThread();
+
+        for (int i = 0; i < 10; i++) {
+            Thread worker = pool.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+            assertNotSame(caller, worker);
+        }
+
+        assertEquals(10, pool.getSubmittedCount());
+        assertEquals(10, pool.getCompletedCount());
+        assertEquals(0, pool.getRejectedCount());
+        assertEquals(0, pool.getQueueDepth());
+        assertTrue(pool.getAverageRunMillis() >= 0);
+    }
+
+    @Test
+    @DisplayName("Should pass task failures to the future")
+    void testPropagatesFailures() {
+        pool = new CryptoWorkerPool(1);
+
+        CompletableFuture<Object> result = pool.submit(() -> {
+            throw new SecurityException("bad signature");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(SecurityException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("Should report saturation before the queue fills, then reject")
+    void testSaturatesAndRejects() throws Exception {
+        pool = new CryptoWorkerPool(1, 4, 0.5, ExecutionMode.PLATFORM);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> queued = pool.submit(() -> true);
+        assertFalse(pool.isSaturated());
+        pool.submit(() -> true);
+        assertTrue(pool.isSaturated());
+        pool.submit(() -> true);
+        CompletableFuture<Boolean> last = pool.submit(() -> true);
+
+        CompletableFuture<Boolean> overflow = pool.submit(() -> true);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> overflow.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(1, pool.getRejectedCount());
+        assertEquals(4, pool.getMaxQueueDepth());
+
+        release.countDown();
+        // Tasks run in order, so the queue is empty once the last one is done
+        assertTrue(queued.get(10, TimeUnit.SECONDS));
+        assertTrue(last.get(10, TimeUnit.SECONDS));
+        pool.submit(() -> true).get(10, TimeUnit.SECONDS);
+        assertFalse(pool.isSaturated());
+    }
+}
@@ -0,0 +1,62 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for IdentityStore.
+ */
+public class IdentityStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should keep the node ID and key pair across restarts")
+    void testIdentitySurvivesRestart() throws Exception {
+        Path file = directory.resolve("identity.bin");
+        NodeIdentity created = new IdentityStore(file).loadOrCreate();
+        assertTrue(Files.exists(file));
+
+        NodeIdentity loaded = new IdentityStore(file).loadOrCreate();
+        assertEquals(created.getNodeId(), loaded.getNodeId());
+        assertArrayEquals(created.getKeyPair().getPublic().getEncoded(),
+                loaded.getKeyPair().getPublic().getEncoded());
+
+        // The restored private key signs for the stored public key
+        QuantumResistantCrypto crypto = new QuantumResistantCrypto(loaded.getKeyPair(), null);
+        byte[] data = loaded.getNodeId().getBytes();
+        assertTrue(crypto.verify(data, crypto.sign(data), created.getKeyPair().getPublic().getEncoded()));
+    }
+
+    @Test
+    @DisplayName("Should create keys at the configured level and keep a stored key's level")
+    void testKeepsSignatureLevel() throws Exception {
+        Path file = directory.resolve("identity.bin");
+        NodeIdentity created = new IdentityStore(file, DilithiumLevel.DILITHIUM2).loadOrCreate();
+        assertEquals(DilithiumLevel.DILITHIUM2, DilithiumLevel.of(created.getKeyPair().getPublic()));
+
+        NodeIdentity loaded = new IdentityStore(file, DilithiumLevel.DILITHIUM5).loadOrCreate();
+        assertEquals(DilithiumLevel.DILITHIUM2, new QuantumResistantCrypto(loaded.getKeyPair(), null).getLevel());
+    }
+
+    @Test
+    @DisplayName("Should refuse a corrupt identity file instead of replacing it")
+    void testRejectsCorruptFile() throws Exception {
+        Path file = directory.resolve("identity.bin");
+        new IdentityStore(file).loadOrCreate();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThrows(IOException.class, () -> new IdentityStore(file).loadOrCreate());
+        assertEquals(bytes.length / 2, Files.size(file));
+    }
+}
@@ -0,0 +1,49 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PublicKeyCache and its use by QuantumResistantCrypto.verify.
+ */
+public class PublicKeyCacheTest {
+
+    @Test
+    @DisplayName("Should decode a peer key once and reuse it")
+    void testVerifyUsesCache() throws Exception {
+        QuantumResistantCrypto signer = new QuantumResistantCrypto(null);
+        PublicKeyCache cache = new PublicKeyCache(4);
+        QuantumResistantCrypto verifier = new QuantumResistantCrypto(cache);
+        byte[] data = "node-a".getBytes();
+        byte[] signature = signer.sign(data);
+
+        assertTrue(verifier.verify(data, signature, signer.getPublicKey()));
+        assertTrue(verifier.verify(data, signature, signer.getPublicKey()));
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("Should evict the oldest keys beyond capacity")
+    void testEviction() throws Exception {
+        PublicKeyCache cache = new PublicKeyCache(2);
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        PublicKey[] keys = new PublicKey[3];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = generator.generateKeyPair().getPublic();
+            cache.put(keys[i].getEncoded(), keys[i]);
+        }
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(keys[0].getEncoded()));
+        assertSame(keys[2], cache.get(keys[2].getEncoded()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SessionCipher and the session key exchange.
+ */
+public class SessionCipherTest {
+    private SessionCipher initiator;
+    private SessionCipher responder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPair keyPair = SessionKeyExchange.generateKeyPair();
+        SessionKeyExchange.Encapsulation encapsulation =
+                SessionKeyExchange.encapsulate(keyPair.getPublic().getEncoded());
+        byte[] recovered = SessionKeyExchange.decapsulate(keyPair.getPrivate(), encapsulation.getEncapsulation());
+        assertArrayEquals(encapsulation.getSecret(), recovered);
+
+        byte[] context = "challenge-a|challenge-b".getBytes();
+        initiator = SessionCipher.derive(recovered, context, true);
+        responder = SessionCipher.derive(encapsulation.getSecret(), context, false);
+    }
+
+    @Test
+    @DisplayName("Should round-trip records in both directions")
+    void testRoundTrip() throws Exception {
+        ByteBuffer header = ByteBuffer.wrap("header".getBytes());
+        ByteBuffer body = ByteBuffer.wrap(new byte[10000]);
+        byte[] sealed = initiator.seal(header, body);
+
+        assertEquals(6 + 10000 + SessionCipher.OVERHEAD, sealed.length);
+        assertEquals(0, header.position());  // Inputs are not consumed
+        byte[] opened = responder.open(sealed);
+        assertEquals("header", new String(opened, 0, 6));
+        assertEquals(10006, opened.length);
+
+        assertArrayEquals("reply".getBytes(), initiator.open(responder.seal(ByteBuffer.wrap("reply".getBytes()))));
+    }
+
+    @Test
+    @DisplayName("Should reject tampered, replayed and reflected records")
+    void testRejectsForgedRecords() throws Exception {
+        byte[] first = initiator.seal(ByteBuffer.wrap("first".getBytes()));
+        byte[] second = initiator.seal(ByteBuffer.wrap("second".getBytes()));
+
+        byte[] tampered = second.clone();
+        tampered[tampered.length - 1] ^= 1;
+        assertThrows(GeneralSecurityException.class, () -> responder.open(tampered));
+
+        responder.open(second);
+        // Older sequence numbers are refused once a later record was accepted
+        assertThrows(GeneralSecurityException.class, () -> responder.open(first));
+        assertThrows(GeneralSecurityException.class, () -> responder.open(second));
+        // Each direction has its own key, so a record cannot be sent back to its author
+        assertThrows(GeneralSecurityException.class, () -> initiator.open(
+                initiator.seal(ByteBuffer.wrap("echo".getBytes()))));
+    }
+}
@@ -0,0 +1,102 @@
+package com.nexuscipher.labyrinth.crypto;
+
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SignatureVerificationService.
+ */
+public class SignatureVerificationServiceTest {
+    private QuantumResistantCrypto crypto;
+    private SignatureVerificationService service;
+
+    @BeforeEach
+    void setUp() {
+        crypto = new QuantumResistantCrypto();
+        service = new SignatureVerificationService(crypto, 2, 64, ExecutionMode.PLATFORM);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should verify valid and invalid signatures off the calling thread")
+    void testVerifiesAsynchronously() throws Exception {
+        byte[] data = "node-a".getBytes();
+        byte[] signature = crypto.sign(data);
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            byte[] signed = i % 2 == 0 ? data : "node-b".getBytes();
+            results.add(service.verify(signed, signature, crypto.getPublicKey()));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i % 2 == 0, results.get(i).get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(20, service.getVerificationCount());
+        assertEquals(0, service.getQueueDepth());
+        assertTrue(service.getBatchCount() >= 2);
+    }
+
+    @Test
+    @DisplayName("Should reject requests beyond the queue capacity")
+    void testRejectsWhenFull() throws Exception {
+        SignatureVerificationService tiny = new SignatureVerificationService(
+                crypto, 1, 1, ExecutionMode.PLATFORM);
+        try {
+            byte[] data = "node-a".getBytes();
+            byte[] signature = crypto.sign(data);
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                results.add(tiny.verify(data, signature, crypto.getPublicKey()));
+            }
+
+            long rejected = results.stream().filter(result -> {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                    return false;
+                } catch (ExecutionException e) {
+                    return e.getCause() instanceof RejectedExecutionException;
+                } catch (Exception e) {
+                    return false;
+                }
+            }).count();
+            assertTrue(rejected > 0);
+        } finally {
+            tiny.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should verify on a shared crypto pool and leave it running on shutdown")
+    void testVerifiesOnSharedPool() throws Exception {
+        CryptoWorkerPool pool = new CryptoWorkerPool(2);
+        try {
+            SignatureVerificationService shared = new SignatureVerificationService(crypto, pool);
+            byte[] data = "node-a".getBytes();
+            assertTrue(shared.verify(data, crypto.sign(data), crypto.getPublicKey())
+                    .get(10, TimeUnit.SECONDS));
+            assertTrue(pool.getSubmittedCount() > 0);  // Counted before the drain task can finish
+
+            shared.shutdown();
+            assertEquals("still running", pool.submit(() -> "still running").get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.nexuscipher.labyrinth.network.ConnectionManager;
 import com.nexuscipher.labyrinth.core.PeerConnection;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.time.Instant;  // For timestamp comparisons
 import static org.mockito.Mockito.*;
@@ -31,6 +32,8 @@ public class NetworkMonitorTest {
     @BeforeEach
     void setUp() {
         mockitoContext = MockitoAnnotations.openMocks(this);
+        // Probes go unanswered
+        when(connectionManager.ping(anyString())).thenReturn(new CompletableFuture<>());
         networkMonitor = new NetworkMonitor(TEST_NODE_ID, connectionManager);
     }
 
@@ -63,7 +66,7 @@ public class NetworkMonitorTest {
 
             // Verify recovery attempt was made
             verify(connectionManager, timeout(1000))
-                    .connectToPeer(eq("localhost"), eq(8080));
+                    .connectToPeer(eq("test-peer"), eq("localhost"), eq(8080));
 
         } catch (InterruptedException e) {
             fail("Test interrupted");
@@ -0,0 +1,84 @@
+package com.nexuscipher.labyrinth.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BloomDuplicateFilter.
+ */
+public class BloomDuplicateFilterTest {
+
+    @Test
+    @DisplayName("Should report every duplicate within the window")
+    void testSuppressesDuplicates() {
+        AtomicLong now = new AtomicLong(0);
+        BloomDuplicateFilter filter = new BloomDuplicateFilter(1000, 1000, 0.001, now::get);
+        String[] ids = new String[500];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            filter.markSeen(ids[i]);
+        }
+
+        now.set(999);
+        for (String id : ids) {
+            assertFalse(filter.markSeen(id));
+        }
+        assertFalse(filter.markSeen(ids[0]));
+        assertTrue(filter.markSeen("not-a-uuid"));
+        assertFalse(filter.markSeen("not-a-uuid"));
+    }
+
+    @Test
+    @DisplayName("Should keep false positives near the configured rate")
+    void testFalsePositiveRate() {
+        BloomDuplicateFilter filter = new BloomDuplicateFilter(60_000, 10_000, 0.01);
+        for (int i = 0; i < 10_000 - 1; i++) {
+            filter.markSeen(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.contains(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200, "False positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should remember IDs for one window after they rotate out")
+    void testRotation() {
+        AtomicLong now = new AtomicLong(0);
+        BloomDuplicateFilter filter = new BloomDuplicateFilter(1000, 1000, 0.001, now::get);
+        filter.markSeen("msg-1");
+
+        now.set(1500);
+        assertTrue(filter.contains("msg-1"));
+        assertEquals(1, filter.getRotations());
+
+        now.set(2500);
+        assertFalse(filter.contains("msg-1"));
+
+        // Idle for longer than two windows: nothing survives
+        filter.markSeen("msg-2");
+        now.set(10_000);
+        assertTrue(filter.markSeen("msg-2"));
+    }
+
+    @Test
+    @DisplayName("Should rotate early when more messages arrive than expected")
+    void testRotatesWhenFull() {
+        AtomicLong now = new AtomicLong(0);
+        BloomDuplicateFilter filter = new BloomDuplicateFilter(1000, 100, 0.001, now::get);
+        for (int i = 0; i < 250; i++) {
+            filter.markSeen(UUID.randomUUID().toString());
+        }
+        assertTrue(filter.getRotations() >= 2);
+        assertTrue(filter.getInserts() > 240);
+    }
+}
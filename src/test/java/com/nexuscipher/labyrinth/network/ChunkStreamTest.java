@@ -0,0 +1,161 @@
+package com.nexuscipher.labyrinth.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ChunkStream.
+ * Chunks must reach the subscriber in order and only as fast as it asks for them.
+ */
+public class ChunkStreamTest {
+
+    private static class RecordingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        final List<Integer> received = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            received.add((int) item.get(0));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private static ByteBuffer chunk(int number) {
+        return ByteBuffer.wrap(new byte[]{(byte) number});
+    }
+
+    @Test
+    @DisplayName("Should deliver contiguous prefixes in order")
+    void testInOrderDelivery() {
+        ChunkStream stream = new ChunkStream("group-1", "node-a", 4);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        stream.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        stream.addChunk(1, chunk(1));
+        stream.addChunk(2, chunk(2));
+        assertTrue(subscriber.received.isEmpty());
+
+        stream.addChunk(0, chunk(0));
+        assertEquals(List.of(0, 1, 2), subscriber.received);
+        assertFalse(subscriber.completed);
+
+        assertFalse(stream.addChunk(1, chunk(1)));
+        stream.addChunk(3, chunk(3));
+        assertEquals(List.of(0, 1, 2, 3), subscriber.received);
+        assertTrue(subscriber.completed);
+        assertTrue(stream.isComplete());
+    }
+
+    @Test
+    @DisplayName("Should respect subscriber demand")
+    void testDemand() {
+        ChunkStream stream = new ChunkStream("group-1", "node-a", 3);
+        for (int i = 0; i < 3; i++) {
+            stream.addChunk(i, chunk(i));
+        }
+        assertTrue(stream.isComplete());
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        stream.subscribe(subscriber);
+        subscriber.subscription.request(2);
+        assertEquals(List.of(0, 1), subscriber.received);
+        assertEquals(2, stream.getDeliveredCount());
+
+        subscriber.subscription.request(1);
+        assertEquals(List.of(0, 1, 2), subscriber.received);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    @DisplayName("Should report failures and drop chunks after cancel")
+    void testFailureAndCancel() {
+        ChunkStream failed = new ChunkStream("group-1", "node-a", 2);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        failed.subscribe(subscriber);
+        failed.fail(new TimeoutException("timed out"));
+        assertInstanceOf(TimeoutException.class, subscriber.error);
+
+        ChunkStream cancelled = new ChunkStream("group-2", "node-a", 2);
+        RecordingSubscriber cancelling = new RecordingSubscriber();
+        cancelled.subscribe(cancelling);
+        cancelling.subscription.cancel();
+        cancelled.addChunk(0, chunk(0));
+        cancelled.addChunk(1, chunk(1));
+        assertTrue(cancelling.received.isEmpty());
+        assertTrue(cancelled.isComplete());
+    }
+
+    @Test
+    @DisplayName("Should hold the sender to its window while the subscriber is slow")
+    void testSlowSubscriberPacesSender() {
+        int window = 4;
+        int totalChunks = 40;
+        MessageTracker sender = new MessageTracker("group-1", totalChunks, "node-b",
+                ChunkStreamTest::chunk, window);
+        List<Integer> acknowledgements = new ArrayList<>();
+        ChunkStream stream = new ChunkStream("group-1", "node-a", totalChunks, acknowledgements::add);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        stream.subscribe(subscriber);
+
+        int maxInFlight = 0;
+        for (int round = 0; round < 10 * totalChunks && !subscriber.completed; round++) {
+            for (int chunkNumber : sender.takeSendableChunks()) {
+                stream.addChunk(chunkNumber, sender.getChunk(chunkNumber));
+            }
+            maxInFlight = Math.max(maxInFlight, sender.getInFlightChunks().length);
+            if (round % 5 == 0) {
+                subscriber.subscription.request(1);  // One chunk every fifth round trip
+            }
+            acknowledgements.forEach(sender::acknowledgeChunk);
+            acknowledgements.clear();
+        }
+
+        assertTrue(subscriber.completed);
+        assertEquals(totalChunks, subscriber.received.size());
+        assertTrue(maxInFlight <= window, "in flight: " + maxInFlight);
+        assertTrue(sender.isComplete());
+    }
+
+    @Test
+    @DisplayName("Should count chunks dropped after cancel as consumed")
+    void testCancelReleasesCredits() {
+        List<Integer> acknowledgements = new ArrayList<>();
+        ChunkStream stream = new ChunkStream("group-1", "node-a", 3, acknowledgements::add);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        stream.subscribe(subscriber);
+        stream.addChunk(1, chunk(1));
+        assertTrue(acknowledgements.isEmpty());
+
+        subscriber.subscription.cancel();
+        stream.addChunk(0, chunk(0));
+
+        assertEquals(List.of(1, 0), acknowledgements);
+        assertTrue(stream.isConsumed(0));
+        assertFalse(stream.isConsumed(2));
+    }
+}
@@ -0,0 +1,139 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.crypto.SignatureVerificationService;
+import com.nexuscipher.labyrinth.network.protocol.BinaryMessageCodec;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeMessage;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeProtocol;
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ConnectionManager.
+ */
+public class ConnectionManagerTest {
+    private ConnectionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new ConnectionManager("node-b", new QuantumResistantCrypto());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should refuse new handshakes while verifications are backed up")
+    void testRefusesHandshakesUnderInitFlood() {
+        HandshakeMessage init = new HandshakeProtocol("node-a", new QuantumResistantCrypto())
+                .createInitialHandshake();
+        SignatureVerificationService verifier = manager.getVerificationService();
+
+        int maxBacklog = 0;
+        for (int i = 0; i < SignatureVerificationService.DEFAULT_QUEUE_CAPACITY; i++) {
+            manager.handleMessage(init, new IdleHandler(manager));
+            maxBacklog = Math.max(maxBacklog, verifier.getQueueDepth());
+        }
+
+        assertTrue(manager.getHandshakeMetrics().getRefusedHandshakes() > 0);
+        // Turned away before the queue filled and failed handshakes it had already admitted
+        assertTrue(maxBacklog < SignatureVerificationService.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    @Test
+    @DisplayName("Should time a ping round trip to a connected peer and report its traffic")
+    void testPingMeasuresRoundTrip() throws Exception {
+        ConnectionManager client = new ConnectionManager("node-a", new QuantumResistantCrypto());
+        Set<String> active = ConcurrentHashMap.newKeySet();
+        client.setPeerActivityListener(active::add);
+        try (ServerSocket server = acceptOnce()) {
+            client.connectToPeer(server.getInetAddress().getHostAddress(), server.getLocalPort())
+                    .get(10, TimeUnit.SECONDS);
+            long rtt = client.ping("node-b").get(10, TimeUnit.SECONDS);
+
+            assertTrue(rtt >= 1);
+            assertTrue(active.contains("node-b"));
+            assertThrows(ExecutionException.class, () -> client.ping("node-c").get());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail a dial for one peer when another answers")
+    void testRejectsUnexpectedPeer() throws Exception {
+        ConnectionManager client = new ConnectionManager("node-a", new QuantumResistantCrypto());
+        try (ServerSocket server = acceptOnce()) {
+            assertThrows(ExecutionException.class, () -> client.connectToPeer(
+                    "node-c", server.getInetAddress().getHostAddress(), server.getLocalPort())
+                    .get(10, TimeUnit.SECONDS));
+
+            assertFalse(client.isConnected("node-b"));
+            assertFalse(client.isConnected("node-c"));
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    // Hands the first connection to the manager under test
+    private ServerSocket acceptOnce() throws IOException {
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        new Thread(() -> {
+            try {
+                manager.handleIncomingConnection(server.accept());
+            } catch (IOException e) {
+                // Closed before a client connected
+            }
+        }).start();
+        return server;
+    }
+
+    // A connection that writes nothing; enough to drive the handshake path
+    static final class IdleHandler extends MessageHandler {
+        private volatile boolean open = true;
+
+        IdleHandler(ConnectionManager manager) {
+            super(manager.getNodeId(), manager);
+        }
+
+        @Override
+        protected void scheduleWrite() {
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public Socket getSocket() {
+            return new Socket();
+        }
+
+        @Override
+        public MessageCodec getCodec() {
+            return BinaryMessageCodec.INSTANCE;
+        }
+
+        @Override
+        public boolean isActive() {
+            return open;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.network.protocol.BinaryMessageCodec;
+import com.nexuscipher.labyrinth.network.protocol.DataMessage;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeMessage;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeProtocol;
+import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+import com.nexuscipher.labyrinth.network.protocol.RoutingMessage;
+import com.nexuscipher.labyrinth.util.MerkleTree;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for DataManager.
+ */
+public class DataManagerTest {
+    private ConnectionManager connections;
+    private RoutingManager routing;
+    private DataManager dataManager;
+
+    @BeforeEach
+    void setUp() {
+        QuantumResistantCrypto crypto = new QuantumResistantCrypto();
+        connections = new ConnectionManager("node-b", crypto);
+        routing = new RoutingManager("node-b", crypto, connections);
+        dataManager = new DataManager("node-b", crypto, routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataManager.shutdown();
+        routing.shutdown();
+        connections.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should reject relayed chunks that the sender's signed manifest does not vouch for")
+    void testRejectsForgedFirstChunk() throws Exception {
+        // node-b learns node-a's key in a full handshake
+        QuantumResistantCrypto cryptoA = new QuantumResistantCrypto();
+        HandshakeProtocol protocolA = new HandshakeProtocol("node-a", cryptoA);
+        RecordingHandler link = new RecordingHandler(connections);
+        connections.handleMessage(protocolA.createInitialHandshake(), link);
+        HandshakeMessage response = (HandshakeMessage) link.take();
+        connections.handleMessage(protocolA.handleHandshakeResponse(response), link);
+        for (int i = 0; i < 100 && !connections.isConnected("node-a"); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(connections.isConnected("node-a"));
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        CountDownLatch completed = new CountDownLatch(1);
+        dataManager.setStreamHandler(stream -> stream.subscribe(new Collector(received, completed)));
+
+        String groupId = "transfer-1";
+        byte[][] genuine = chunks("genuine");
+        byte[][] forged = chunks("forged!");
+        MerkleTree genuineTree = MerkleTree.build(genuine.length, i -> ByteBuffer.wrap(genuine[i]));
+        MerkleTree forgedTree = MerkleTree.build(forged.length, i -> ByteBuffer.wrap(forged[i]));
+
+        // A relay gets its chunk in first; its proof is consistent with its own root
+        dataManager.handleDataMessage(chunk(groupId, 0, forged[0], forgedTree.proof(0)));
+
+        // A manifest for the forged root, signed by a key other than node-a's
+        byte[] manifestData = DataManager.manifestData("node-a", "node-b", groupId,
+                forged.length, forgedTree.rootRecord());
+        dataManager.handleDataMessage(manifest(groupId, forged.length,
+                new QuantumResistantCrypto().sign(manifestData), forgedTree.rootRecord()));
+
+        // The manifest node-a really signed
+        manifestData = DataManager.manifestData("node-a", "node-b", groupId,
+                genuine.length, genuineTree.rootRecord());
+        dataManager.handleDataMessage(manifest(groupId, genuine.length,
+                cryptoA.sign(manifestData), genuineTree.rootRecord()));
+        DataMessage ack = nextDataMessage(link);
+        assertEquals(DataMessage.MessageState.ACKNOWLEDGMENT, ack.getState());
+        assertEquals(DataManager.MANIFEST_CHUNK, ack.getChunkNumber());
+
+        // Now the transfer is open, but the forged chunk still fails against the signed root
+        dataManager.handleDataMessage(chunk(groupId, 0, forged[0], forgedTree.proof(0)));
+        for (int i = 0; i < genuine.length; i++) {
+            dataManager.handleDataMessage(chunk(groupId, i, genuine[i], genuineTree.proof(i)));
+        }
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals("genuine-0genuine-1genuine-2", received.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should deliver a transfer checked with CRC32C over a sealed link")
+    void testReceivesChecksummedTransferFromNeighbour() throws Exception {
+        QuantumResistantCrypto cryptoA = new QuantumResistantCrypto();
+        ConnectionManager connectionsA = new ConnectionManager("node-a", cryptoA);
+        RoutingManager routingA = new RoutingManager("node-a", cryptoA, connectionsA);
+        DataManager dataManagerA = new DataManager("node-a", cryptoA, routingA);
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            new Thread(() -> {
+                try {
+                    connections.handleIncomingConnection(server.accept());
+                } catch (IOException e) {
+                    // Closed before a client connected
+                }
+            }).start();
+            connectionsA.connectToPeer(server.getInetAddress().getHostAddress(), server.getLocalPort())
+                    .get(10, TimeUnit.SECONDS);
+            assertFalse(connectionsA.getIntegrityAlgorithm("node-b").isCryptographic());
+
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            CountDownLatch completed = new CountDownLatch(1);
+            dataManager.setStreamHandler(stream -> stream.subscribe(new Collector(received, completed)));
+            byte[] data = new byte[3 * 1024 * 1024 + 17];
+            new Random(42).nextBytes(data);
+            dataManagerA.sendData("node-b", data);
+
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+            assertArrayEquals(data, received.toByteArray());
+        } finally {
+            dataManagerA.shutdown();
+            routingA.shutdown();
+            connectionsA.shutdown();
+        }
+    }
+
+    private static byte[][] chunks(String prefix) {
+        byte[][] chunks = new byte[3][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = (prefix + "-" + i).getBytes(StandardCharsets.UTF_8);
+        }
+        return chunks;
+    }
+
+    private static DataMessage chunk(String groupId, int chunkNumber, byte[] data, byte[] proof) {
+        return new DataMessage("node-a", groupId, 3, chunkNumber, data, proof,
+                DataMessage.MessageState.DATA_CHUNK);
+    }
+
+    private static DataMessage manifest(String groupId, int totalChunks, byte[] signature, byte[] root) {
+        return new DataMessage("node-a", groupId, totalChunks, DataManager.MANIFEST_CHUNK,
+                signature, root, DataMessage.MessageState.MANIFEST);
+    }
+
+    private static DataMessage nextDataMessage(RecordingHandler link) throws InterruptedException {
+        while (true) {
+            Message message = link.take();
+            if (message instanceof RoutingMessage routed && routed.getPayload() instanceof DataMessage data) {
+                return data;
+            }
+        }
+    }
+
+    // Collects a stream's bytes and counts down once it completes
+    private static final class Collector implements Flow.Subscriber<ByteBuffer> {
+        private final ByteArrayOutputStream received;
+        private final CountDownLatch completed;
+
+        Collector(ByteArrayOutputStream received, CountDownLatch completed) {
+            this.received = received;
+            this.completed = completed;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            byte[] bytes = new byte[item.remaining()];
+            item.get(bytes);
+            received.write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    // A connection to node-a that records what node-b sends on it
+    private static final class RecordingHandler extends MessageHandler {
+        private final BlockingQueue<Message> sent = new LinkedBlockingQueue<>();
+        private volatile boolean open = true;
+
+        RecordingHandler(ConnectionManager manager) {
+            super(manager.getNodeId(), manager);
+        }
+
+        Message take() throws InterruptedException {
+            Message message = sent.poll(10, TimeUnit.SECONDS);
+            assertNotNull(message, "Nothing was sent");
+            return message;
+        }
+
+        @Override
+        public void sendMessage(Message message) {
+            sent.add(message);
+        }
+
+        @Override
+        public boolean offerMessage(Message message) {
+            return sent.add(message);
+        }
+
+        @Override
+        protected void scheduleWrite() {
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public Socket getSocket() {
+            return new Socket() {
+                @Override
+                public InetAddress getInetAddress() {
+                    return InetAddress.getLoopbackAddress();
+                }
+            };
+        }
+
+        @Override
+        public MessageCodec getCodec() {
+            return BinaryMessageCodec.INSTANCE;
+        }
+
+        @Override
+        public boolean isActive() {
+            return open;
+        }
+    }
+}
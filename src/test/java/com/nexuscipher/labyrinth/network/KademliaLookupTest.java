@@ -0,0 +1,113 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.protocol.PeerDiscoveryMessage.PeerInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for KademliaLookup, over a simulated network of KademliaTables.
+ */
+public class KademliaLookupTest {
+    private static final int NODES = 500;
+
+    @Test
+    @DisplayName("Should find any node in a few rounds from a single seed")
+    void testFindsNodes() {
+        Map<String, KademliaTable> network = network(NODES, new Random(1));
+        KademliaTable origin = new KademliaTable("origin");
+        origin.observe(peer("node-0"));
+        KademliaLookup lookup = new KademliaLookup(origin, answeredBy(network));
+
+        for (int i = 1; i < NODES; i += 37) {
+            KademliaLookup.Result result = lookup.lookup("node-" + i).join();
+
+            assertNotNull(result.getTarget(), "node-" + i);
+            assertEquals("node-" + i, result.getTarget().getNodeId());
+            assertTrue(result.getRounds() <= 6, "rounds: " + result.getRounds());
+        }
+        // Lookups fill the origin's own buckets
+        assertTrue(origin.size() > 20);
+    }
+
+    @Test
+    @DisplayName("Should return the closest nodes when the target does not exist")
+    void testMissingTarget() {
+        Map<String, KademliaTable> network = network(NODES, new Random(2));
+        KademliaTable origin = new KademliaTable("origin");
+        origin.observe(peer("node-0"));
+
+        KademliaLookup.Result result = new KademliaLookup(origin, answeredBy(network)).lookup("missing").join();
+
+        assertNull(result.getTarget());
+        assertEquals(KademliaTable.DEFAULT_BUCKET_SIZE, result.getClosest().size());
+        // The true closest node in the network is among them
+        NodeKey target = NodeKey.of("missing");
+        String closest = null;
+        for (String id : network.keySet()) {
+            if (closest == null || NodeKey.of(id).distanceTo(target)
+                    .compareTo(NodeKey.of(closest).distanceTo(target)) < 0) {
+                closest = id;
+            }
+        }
+        assertEquals(closest, result.getClosest().get(0).getNodeId());
+    }
+
+    @Test
+    @DisplayName("Should route around contacts that fail and drop them from the table")
+    void testFailedContacts() {
+        Map<String, KademliaTable> network = network(NODES, new Random(3));
+        KademliaTable origin = new KademliaTable("origin");
+        origin.observe(peer("node-0"));
+        origin.observe(peer("dead"));
+        KademliaLookup.Query query = answeredBy(network);
+        KademliaLookup lookup = new KademliaLookup(origin, (contact, target) -> contact.getNodeId().equals("dead")
+                ? CompletableFuture.failedFuture(new IllegalStateException("timed out"))
+                : query.findNode(contact, target));
+
+        KademliaLookup.Result result = lookup.lookup("node-77").join();
+
+        assertNotNull(result.getTarget());
+        assertNull(origin.get("dead"));
+    }
+
+    // Every node offered all others in a random order, so each bucket keeps a random sample
+    private static Map<String, KademliaTable> network(int size, Random random) {
+        List<KademliaTable.Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            contacts.add(new KademliaTable.Contact(peer("node-" + i)));
+        }
+        Map<String, KademliaTable> network = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            KademliaTable table = new KademliaTable("node-" + i);
+            Collections.shuffle(contacts, random);
+            contacts.forEach(table::observe);
+            network.put("node-" + i, table);
+        }
+        return network;
+    }
+
+    private static KademliaLookup.Query answeredBy(Map<String, KademliaTable> network) {
+        return (contact, target) -> {
+            List<PeerInfo> reply = new ArrayList<>();
+            for (KademliaTable.Contact known : network.get(contact.getNodeId())
+                    .closest(NodeKey.of(target), KademliaTable.DEFAULT_BUCKET_SIZE)) {
+                reply.add(known.getPeer());
+            }
+            return CompletableFuture.completedFuture(reply);
+        };
+    }
+
+    private static PeerInfo peer(String nodeId) {
+        return new PeerInfo(nodeId, "127.0.0.1", 9000);
+    }
+}
@@ -0,0 +1,91 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.protocol.PeerDiscoveryMessage.PeerInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for KademliaTable.
+ */
+public class KademliaTableTest {
+
+    @Test
+    @DisplayName("Should measure XOR distance and bucket index between keys")
+    void testKeyDistance() {
+        NodeKey zero = new NodeKey(0, 0);
+        assertEquals(-1, zero.bucketIndex(zero));
+        assertEquals(0, zero.bucketIndex(new NodeKey(0, 1)));
+        assertEquals(63, zero.bucketIndex(new NodeKey(0, Long.MIN_VALUE)));
+        assertEquals(127, zero.bucketIndex(new NodeKey(Long.MIN_VALUE, 0)));
+        // Unsigned: a set top bit is the farthest, not a negative distance
+        assertTrue(zero.distanceTo(new NodeKey(Long.MIN_VALUE, 0))
+                .compareTo(zero.distanceTo(new NodeKey(1, 0))) > 0);
+        assertEquals(NodeKey.of("node-a"), NodeKey.of("node-a"));
+    }
+
+    @Test
+    @DisplayName("Should return the contacts closest to a key, closest first")
+    void testClosest() {
+        KademliaTable table = new KademliaTable("self");
+        for (int i = 0; i < 100; i++) {
+            table.observe(peer("node-" + i));
+        }
+        NodeKey target = NodeKey.of("node-42");
+
+        List<KademliaTable.Contact> closest = table.closest(target, 5);
+
+        assertEquals(5, closest.size());
+        assertEquals("node-42", closest.get(0).getPeer().getNodeId());
+        for (int i = 1; i < closest.size(); i++) {
+            assertTrue(closest.get(i - 1).getKey().distanceTo(target)
+                    .compareTo(closest.get(i).getKey().distanceTo(target)) < 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep long-known contacts when a bucket is full")
+    void testFullBucketKeepsOldContacts() {
+        KademliaTable table = new KademliaTable("self", 2);
+        NodeKey self = NodeKey.of("self");
+        // Half of all keys fall into the farthest bucket
+        int added = 0;
+        String rejected = null;
+        for (int i = 0; rejected == null; i++) {
+            String id = "node-" + i;
+            if (self.bucketIndex(NodeKey.of(id)) == NodeKey.BITS - 1) {
+                if (added < 2) {
+                    assertTrue(table.observe(peer(id)));
+                    added++;
+                } else {
+                    rejected = id;
+                }
+            }
+        }
+
+        assertFalse(table.observe(peer(rejected)));
+        assertEquals(2, table.size());
+        assertNull(table.get(rejected));
+    }
+
+    @Test
+    @DisplayName("Should make room when a contact is removed, and never hold itself")
+    void testRemove() {
+        KademliaTable table = new KademliaTable("self");
+        assertFalse(table.observe(peer("self")));
+        table.observe(peer("node-a"));
+        assertNotNull(table.get("node-a"));
+
+        table.remove("node-a");
+
+        assertNull(table.get("node-a"));
+        assertEquals(0, table.size());
+    }
+
+    private static PeerInfo peer(String nodeId) {
+        return new PeerInfo(nodeId, "127.0.0.1", 9000);
+    }
+}
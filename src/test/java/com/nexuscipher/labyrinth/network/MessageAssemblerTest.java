@@ -0,0 +1,73 @@
+package com.nexuscipher.labyrinth.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for MessageAssembler.
+ * Chunks may arrive in any order and must land at their final offsets.
+ */
+public class MessageAssemblerTest {
+
+    private static byte[] payload(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    private static void addChunk(MessageAssembler assembler, byte[] data, int chunkSize, int chunkNumber) {
+        int start = chunkNumber * chunkSize;
+        int end = Math.min(start + chunkSize, data.length);
+        assembler.addChunk(chunkNumber, ByteBuffer.wrap(data, start, end - start));
+    }
+
+    @Test
+    @DisplayName("Should assemble chunks received out of order")
+    void testOutOfOrderAssembly() {
+        byte[] data = payload(1000);
+        MessageAssembler assembler = new MessageAssembler(4);
+
+        for (int chunk : new int[]{2, 0, 3, 1}) {
+            assertFalse(assembler.isComplete());
+            addChunk(assembler, data, 300, chunk);
+        }
+
+        assertTrue(assembler.isComplete());
+        assertArrayEquals(data, assembler.assembleMessage());
+        assertEquals(ByteBuffer.wrap(data), assembler.assembleBuffer());
+    }
+
+    @Test
+    @DisplayName("Should size the message exactly when the last chunk arrives first")
+    void testLastChunkFirst() {
+        byte[] data = payload(700);
+        MessageAssembler assembler = new MessageAssembler(3);
+
+        addChunk(assembler, data, 300, 2);
+        assertArrayEquals(new int[]{0, 1}, assembler.getMissingChunks());
+        addChunk(assembler, data, 300, 1);
+        addChunk(assembler, data, 300, 0);
+
+        byte[] assembled = assembler.assembleMessage();
+        assertArrayEquals(data, assembled);
+        assertSame(assembled, assembler.assembleMessage());
+    }
+
+    @Test
+    @DisplayName("Should reject chunks that do not match the chunk size")
+    void testRejectsInconsistentChunks() {
+        MessageAssembler assembler = new MessageAssembler(3);
+        assembler.addChunk(0, new byte[300]);
+
+        assertThrows(IllegalArgumentException.class, () -> assembler.addChunk(1, new byte[200]));
+        assertThrows(IllegalArgumentException.class, () -> assembler.addChunk(2, new byte[301]));
+        assertThrows(IllegalArgumentException.class, () -> assembler.addChunk(3, new byte[300]));
+        assertArrayEquals(new int[]{1, 2}, assembler.getMissingChunks());
+    }
+}
@@ -0,0 +1,49 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.protocol.BinaryMessageCodec;
+import com.nexuscipher.labyrinth.network.protocol.JavaSerializationCodec;
+import com.nexuscipher.labyrinth.network.protocol.MessageCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for codec negotiation in MessageHandler.
+ */
+public class MessageHandlerTest {
+
+    @Test
+    @DisplayName("Should pick the lower of the two preferred codecs")
+    void testLowerCodecWins() throws IOException {
+        assertSame(JavaSerializationCodec.INSTANCE,
+                MessageHandler.selectCodec(BinaryMessageCodec.INSTANCE, MessageCodec.JAVA_SERIALIZATION));
+        assertSame(BinaryMessageCodec.INSTANCE,
+                MessageHandler.selectCodec(BinaryMessageCodec.INSTANCE, MessageCodec.BINARY));
+        // Codecs newer than ours lose to ours
+        assertSame(BinaryMessageCodec.INSTANCE,
+                MessageHandler.selectCodec(BinaryMessageCodec.INSTANCE, (byte) 9));
+    }
+
+    @Test
+    @DisplayName("Should reject a winning codec it does not know as a protocol error")
+    void testUnknownLowerCodec() {
+        assertThrows(IOException.class,
+                () -> MessageHandler.selectCodec(BinaryMessageCodec.INSTANCE, (byte) 0));
+        assertThrows(IOException.class,
+                () -> MessageHandler.selectCodec(BinaryMessageCodec.INSTANCE, (byte) -3));
+    }
+
+    @Test
+    @DisplayName("Should turn away peers that open an object stream instead of a preamble")
+    void testRejectsObjectStreamPeer() throws IOException {
+        IOException legacy = assertThrows(IOException.class,
+                () -> MessageHandler.checkPreambleMagic(ObjectStreamConstants.STREAM_MAGIC));
+        assertTrue(legacy.getMessage().contains("object stream"));
+        assertThrows(IOException.class, () -> MessageHandler.checkPreambleMagic((short) 0x1234));
+        MessageHandler.checkPreambleMagic(MessageHandler.CODEC_HELLO_MAGIC);
+    }
+}
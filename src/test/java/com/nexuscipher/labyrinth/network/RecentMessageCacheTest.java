@@ -0,0 +1,53 @@
+package com.nexuscipher.labyrinth.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RecentMessageCache.
+ */
+public class RecentMessageCacheTest {
+
+    @Test
+    @DisplayName("Should report duplicates within the window")
+    void testSuppressesDuplicates() {
+        AtomicLong now = new AtomicLong(0);
+        RecentMessageCache cache = new RecentMessageCache(1000, 10, now::get);
+
+        assertTrue(cache.markSeen("msg-1"));
+        now.set(500);
+        assertFalse(cache.markSeen("msg-1"));
+        assertTrue(cache.markSeen("msg-2"));
+        now.set(999);
+        assertTrue(cache.contains("msg-1"));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getInserts());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should forget IDs once a full window has passed")
+    void testExpiresWholeBuckets() {
+        AtomicLong now = new AtomicLong(0);
+        RecentMessageCache cache = new RecentMessageCache(1000, 10, now::get);
+        cache.markSeen("msg-1");
+        now.set(550);
+        cache.markSeen("msg-2");
+
+        now.set(1100);
+        assertFalse(cache.contains("msg-1"));
+        assertTrue(cache.contains("msg-2"));
+        assertEquals(1, cache.getEvictions());
+
+        // A long idle period drops everything without visiting a bucket twice
+        now.set(60_000);
+        assertTrue(cache.markSeen("msg-2"));
+        assertEquals(2, cache.getEvictions());
+        assertEquals(1, cache.size());
+    }
+}
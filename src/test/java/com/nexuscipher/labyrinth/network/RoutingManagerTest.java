@@ -0,0 +1,70 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.network.protocol.DataMessage;
+import com.nexuscipher.labyrinth.network.protocol.RoutingMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RoutingManager.
+ */
+public class RoutingManagerTest {
+    private ConnectionManager connections;
+    private RoutingManager routing;
+
+    @BeforeEach
+    void setUp() {
+        QuantumResistantCrypto crypto = new QuantumResistantCrypto();
+        connections = new ConnectionManager("node-b", crypto);
+        routing = new RoutingManager("node-b", crypto, connections, new SaturatedFilter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.shutdown();
+        connections.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should deliver a flood addressed to this node once, even if the filter reports it seen")
+    void testDeliversFloodDespiteFilterFalsePositive() {
+        List<DataMessage> delivered = new CopyOnWriteArrayList<>();
+        routing.setDataListener((message, receivedOn) -> delivered.add(message));
+
+        DataMessage data = new DataMessage("node-a", "transfer-1", 1, 0, new byte[]{1, 2, 3},
+                new byte[0], DataMessage.MessageState.DATA_CHUNK);
+        RoutingMessage flood = new RoutingMessage("node-a", "node-b", data.getMessageId(),
+                data, RoutingMessage.RoutingType.FLOOD);
+        // The same flood arriving through two neighbours
+        routing.handleRoutingMessage(flood, null);
+        routing.handleRoutingMessage(flood.asFlood(), null);
+
+        assertEquals(1, delivered.size());
+        assertSame(data, delivered.get(0));
+    }
+
+    // A probabilistic filter at its worst: every ID is a false positive
+    private static final class SaturatedFilter implements DuplicateFilter {
+        @Override
+        public boolean markSeen(String messageId) {
+            return false;
+        }
+
+        @Override
+        public boolean contains(String messageId) {
+            return true;
+        }
+
+        @Override
+        public void clear() {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.nexuscipher.labyrinth.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RoutingTable.
+ */
+public class RoutingTableTest {
+
+    @Test
+    @DisplayName("Should pick the cheapest next hop and re-rank when costs change")
+    void testPicksCheapestHop() {
+        RoutingTable table = new RoutingTable();
+        table.update("node-z", "node-a", 30);
+        table.update("node-z", "node-b", 10);
+        table.update("node-z", "node-c", 20);
+
+        assertEquals("node-b", table.bestNextHop("node-z"));
+        assertEquals(List.of("node-b", "node-c"), table.nextHops("node-z", 2));
+
+        table.update("node-z", "node-b", 40);
+        assertEquals(List.of("node-c", "node-a", "node-b"), table.nextHops("node-z", 5));
+        assertEquals(3, table.getRoutes("node-z").size());
+    }
+
+    @Test
+    @DisplayName("Should drop destinations whose last route is removed")
+    void testRemovesRoutes() {
+        RoutingTable table = new RoutingTable();
+        table.update("node-y", "node-a", 1);
+        table.update("node-z", "node-a", 2);
+        table.update("node-z", "node-b", 3);
+
+        table.removeNextHop("node-a");
+
+        assertFalse(table.contains("node-y"));
+        assertNull(table.bestNextHop("node-y"));
+        assertEquals("node-b", table.bestNextHop("node-z"));
+        table.remove("node-z", "node-b");
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    @DisplayName("Should keep only the cheapest routes once a destination is full")
+    void testBoundsRoutesPerDestination() {
+        RoutingTable table = new RoutingTable();
+        for (int i = 0; i < RoutingTable.MAX_NEXT_HOPS + 4; i++) {
+            table.update("node-z", "hop-" + i, RoutingTable.MAX_NEXT_HOPS + 4 - i);
+        }
+
+        List<String> hops = table.nextHops("node-z", Integer.MAX_VALUE);
+        assertEquals(RoutingTable.MAX_NEXT_HOPS, hops.size());
+        assertEquals("hop-" + (RoutingTable.MAX_NEXT_HOPS + 3), hops.get(0));
+        assertFalse(hops.contains("hop-0"));
+    }
+
+    @Test
+    @DisplayName("Should keep every concurrent update")
+    void testConcurrentUpdates() throws Exception {
+        RoutingTable table = new RoutingTable();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        table.update("node-" + (i % 50), "hop-" + thread, thread);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(50, table.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(List.of("hop-0", "hop-1", "hop-2", "hop-3"), table.nextHops("node-" + i, 4));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.nexuscipher.labyrinth.network;
+
+import com.nexuscipher.labyrinth.network.protocol.DataMessage;
+import com.nexuscipher.labyrinth.network.protocol.HandshakeMessage;
+import com.nexuscipher.labyrinth.network.protocol.Message;
+import com.nexuscipher.labyrinth.network.protocol.RoutingMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for StreamMultiplexer and the per-transfer credit window in MessageTracker.
+ */
+public class StreamMultiplexerTest {
+
+    private static Message chunk(String group, int number) {
+        DataMessage data = new DataMessage("node-a", group, 100, number,
+                new byte[1], new byte[0], DataMessage.MessageState.DATA_CHUNK);
+        return new RoutingMessage("node-a", "node-b", data.getMessageId(), data,
+                RoutingMessage.RoutingType.DIRECT);
+    }
+
+    private static String describe(Message message) {
+        if (message instanceof RoutingMessage) {
+            DataMessage data = (DataMessage) ((RoutingMessage) message).getPayload();
+            return data.getMessageGroupId() + data.getChunkNumber();
+        }
+        return "control";
+    }
+
+    @Test
+    @DisplayName("Should send control messages ahead of queued chunks")
+    void testControlFirst() {
+        StreamMultiplexer queue = new StreamMultiplexer(8, 8);
+        queue.offer(chunk("a", 0));
+        queue.offer(chunk("a", 1));
+        queue.offer(new HandshakeMessage("node-a", Message.MessageType.HANDSHAKE_INIT,
+                new byte[0], new byte[0], "challenge", null));
+
+        assertEquals("control", describe(queue.poll()));
+        assertEquals("a0", describe(queue.poll()));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    @DisplayName("Should interleave chunks of concurrent transfers")
+    void testRoundRobin() {
+        StreamMultiplexer queue = new StreamMultiplexer(8, 8);
+        for (int i = 0; i < 3; i++) {
+            queue.offer(chunk("a", i));
+        }
+        queue.offer(chunk("b", 0));
+        assertEquals(2, queue.getActiveStreamCount());
+
+        List<String> order = new ArrayList<>();
+        Message next;
+        while ((next = queue.poll()) != null) {
+            order.add(describe(next));
+        }
+        assertEquals(List.of("a0", "b0", "a1", "a2"), order);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep room for control traffic when bulk lane is full")
+    void testSeparateCapacity() throws InterruptedException {
+        StreamMultiplexer queue = new StreamMultiplexer(1, 2);
+        assertTrue(queue.offer(chunk("a", 0)));
+        assertTrue(queue.offer(chunk("b", 0)));
+        assertFalse(queue.offer(chunk("c", 0)));
+        assertFalse(queue.offer(chunk("c", 0), 10, TimeUnit.MILLISECONDS));
+
+        assertTrue(queue.offer(new HandshakeMessage("node-a", Message.MessageType.HANDSHAKE_INIT,
+                new byte[0], new byte[0], "challenge", null)));
+    }
+
+    @Test
+    @DisplayName("Should release chunks only as acknowledgements return credit")
+    void testCreditWindow() {
+        MessageTracker tracker = new MessageTracker("group-1", 5, "node-b", i -> null, 2);
+
+        assertArrayEquals(new int[]{0, 1}, tracker.takeSendableChunks());
+        assertArrayEquals(new int[0], tracker.takeSendableChunks());
+
+        assertFalse(tracker.acknowledgeChunk(3));
+        assertTrue(tracker.acknowledgeChunk(1));
+        assertFalse(tracker.acknowledgeChunk(1));
+        assertArrayEquals(new int[]{0}, tracker.getInFlightChunks());
+        assertArrayEquals(new int[]{2}, tracker.takeSendableChunks());
+    }
+
+    @Test
+    @DisplayName("Should count only retries since the last progress")
+    void testRetriesResetOnProgress() {
+        MessageTracker tracker = new MessageTracker("group-1", 10, "node-b", i -> null, 2);
+        tracker.takeSendableChunks();
+
+        // Five timeouts over the transfer, each followed by an acknowledgement
+        for (int chunkNumber = 0; chunkNumber < 5; chunkNumber++) {
+            assertEquals(1, tracker.incrementRetryCount());
+            assertTrue(tracker.acknowledgeChunk(chunkNumber));
+            tracker.takeSendableChunks();
+        }
+
+        // A duplicate acknowledgement is no progress
+        assertEquals(1, tracker.incrementRetryCount());
+        assertFalse(tracker.acknowledgeChunk(0));
+        assertEquals(2, tracker.incrementRetryCount());
+    }
+}
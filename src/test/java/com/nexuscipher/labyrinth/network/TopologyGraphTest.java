@@ -0,0 +1,97 @@
+package com.nexuscipher.labyrinth.network;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TopologyGraph.
+ */
+public class TopologyGraphTest {
+
+    @Test
+    @DisplayName("Should prefer the least-latency path over the fewest hops")
+    void testLeastLatencyPath() {
+        TopologyGraph graph = new TopologyGraph("a");
+        graph.applyLinkState("a", 1, Map.of("b", 5L, "d", 100L));
+        graph.applyLinkState("b", 1, Map.of("c", 5L));
+        graph.applyLinkState("c", 1, Map.of("d", 5L));
+        graph.recompute();
+
+        assertEquals("b", graph.nextHop("d"));
+        assertEquals(15, graph.distance("d"));
+        assertEquals(4, graph.reachableCount());
+    }
+
+    @Test
+    @DisplayName("Should reroute when a link on the path gets slower or disappears")
+    void testReroutes() {
+        TopologyGraph graph = new TopologyGraph("a");
+        graph.applyLinkState("a", 1, Map.of("b", 5L, "d", 100L));
+        graph.applyLinkState("b", 1, Map.of("c", 5L));
+        graph.applyLinkState("c", 1, Map.of("d", 5L));
+        graph.recompute();
+
+        graph.applyLinkState("b", 2, Map.of("c", 500L));
+        Map<String, String> changed = graph.recompute();
+        assertEquals("b", changed.get("d"));
+        assertEquals("d", graph.nextHop("d"));
+        assertEquals(100, graph.distance("d"));
+
+        graph.applyLinkState("a", 2, Map.of("b", 5L));
+        graph.recompute();
+        assertEquals("b", graph.nextHop("d"));
+        assertEquals(510, graph.distance("d"));
+
+        graph.removeOrigin("b");
+        graph.recompute();
+        assertNull(graph.nextHop("d"));
+        assertEquals(-1, graph.distance("c"));
+    }
+
+    @Test
+    @DisplayName("Should ignore advertisements that are not newer")
+    void testSequences() {
+        TopologyGraph graph = new TopologyGraph("a");
+        assertTrue(graph.applyLinkState("a", 2, Map.of("b", 5L)));
+        assertFalse(graph.applyLinkState("a", 2, Map.of("b", 1L)));
+        assertFalse(graph.applyLinkState("a", 1, Map.of()));
+        graph.recompute();
+        assertEquals(5, graph.distance("b"));
+    }
+
+    @Test
+    @DisplayName("Should match a full recomputation after random link changes")
+    void testIncrementalMatchesFull() {
+        Random random = new Random(42);
+        int nodes = 60;
+        TopologyGraph incremental = new TopologyGraph("n0");
+        TopologyGraph full = new TopologyGraph("n0");
+        long[] sequences = new long[nodes];
+
+        for (int round = 0; round < 300; round++) {
+            int origin = round < nodes ? round : random.nextInt(nodes);
+            Map<String, Long> latencies = new HashMap<>();
+            for (int i = 0; i < 1 + random.nextInt(4); i++) {
+                int neighbour = random.nextInt(nodes);
+                if (neighbour != origin) {
+                    latencies.put("n" + neighbour, 1L + random.nextInt(50));
+                }
+            }
+            sequences[origin]++;
+            incremental.applyLinkState("n" + origin, sequences[origin], latencies);
+            full.applyLinkState("n" + origin, sequences[origin], latencies);
+            incremental.recompute();
+            full.recomputeAll();
+
+            for (int i = 0; i < nodes; i++) {
+                assertEquals(full.distance("n" + i), incremental.distance("n" + i), "n" + i + " in round " + round);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import com.nexuscipher.labyrinth.crypto.DilithiumLevel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the binary wire codec.
+ * Every message type must come back with the same identity and fields it was sent with.
+ */
+public class BinaryMessageCodecTest {
+    private final MessageCodec codec = BinaryMessageCodec.INSTANCE;
+
+    @Test
+    @DisplayName("Should round-trip data chunks")
+    void testDataMessageRoundTrip() throws IOException {
+        DataMessage original = new DataMessage("node-a", "group-1", 4, 2,
+                new byte[]{1, 2, 3}, new byte[]{9, 9}, DataMessage.MessageState.DATA_CHUNK);
+
+        DataMessage decoded = (DataMessage) codec.decode(codec.encode(original));
+
+        assertEquals(original.getMessageId(), decoded.getMessageId());
+        assertEquals(original.getSenderId(), decoded.getSenderId());
+        assertEquals(original.getMessageGroupId(), decoded.getMessageGroupId());
+        assertEquals(4, decoded.getTotalChunks());
+        assertEquals(2, decoded.getChunkNumber());
+        assertArrayEquals(original.getData(), decoded.getData());
+        assertArrayEquals(original.getChecksum(), decoded.getChecksum());
+        assertEquals(DataMessage.MessageState.DATA_CHUNK, decoded.getState());
+    }
+
+    @Test
+    @DisplayName("Should reference large chunk data instead of copying it")
+    void testLargeChunkSegments() throws IOException {
+        byte[] payload = new byte[64 * 1024];
+        Arrays.fill(payload, (byte) 7);
+        ByteBuffer chunk = ByteBuffer.wrap(payload).slice(1024, 32 * 1024);
+        DataMessage original = new DataMessage("node-a", "group-1", 2, 1,
+                chunk, new byte[]{9}, DataMessage.MessageState.DATA_CHUNK);
+
+        ByteBuffer[] segments = codec.encodeSegments(original);
+        boolean shared = Arrays.stream(segments)
+                .anyMatch(segment -> segment.hasArray() && segment.array() == payload);
+        assertTrue(shared);
+
+        DataMessage decoded = (DataMessage) codec.decode(codec.encode(original));
+        assertEquals(32 * 1024, decoded.getDataLength());
+        assertArrayEquals(original.getData(), decoded.getData());
+        assertArrayEquals(new byte[]{9}, decoded.getChecksum());
+    }
+
+    @Test
+    @DisplayName("Should round-trip handshakes with null fields")
+    void testHandshakeRoundTrip() throws IOException {
+        HandshakeMessage original = new HandshakeMessage("node-a",
+                Message.MessageType.HANDSHAKE_INIT, new byte[]{4, 5}, new byte[]{6}, "challenge", null);
+
+        HandshakeMessage decoded = (HandshakeMessage) codec.decode(codec.encode(original));
+
+        assertEquals(Message.MessageType.HANDSHAKE_INIT, decoded.getType());
+        assertEquals(original.getMessageId(), decoded.getMessageId());
+        assertArrayEquals(original.getPublicKey(), decoded.getPublicKey());
+        assertEquals("challenge", decoded.getChallenge());
+        assertNull(decoded.getChallengeResponse());
+        assertNull(decoded.getIntegrityAlgorithms());
+        assertNull(decoded.getSignatureLevel());
+    }
+
+    @Test
+    @DisplayName("Should round-trip the integrity algorithms and signature level a handshake advertises")
+    void testHandshakeIntegrityOfferRoundTrip() throws IOException {
+        HandshakeMessage original = new HandshakeMessage("node-a",
+                Message.MessageType.HANDSHAKE_INIT, new byte[]{4, 5}, new byte[]{6}, "challenge", null,
+                new byte[]{7}, new byte[]{2, 1}, DilithiumLevel.DILITHIUM5);
+
+        HandshakeMessage decoded = (HandshakeMessage) codec.decode(codec.encode(original));
+
+        assertArrayEquals(new byte[]{7}, decoded.getKeyExchange());
+        assertArrayEquals(new byte[]{2, 1}, decoded.getIntegrityAlgorithms());
+        assertEquals(DilithiumLevel.DILITHIUM5, decoded.getSignatureLevel());
+    }
+
+    @Test
+    @DisplayName("Should round-trip routing envelopes with nested payloads")
+    void testRoutingRoundTrip() throws IOException {
+        DataMessage payload = new DataMessage("node-a", "group-1", 1, 0,
+                new byte[]{7}, new byte[0], DataMessage.MessageState.ACKNOWLEDGMENT);
+        RoutingMessage original = new RoutingMessage("node-a", "node-c", payload.getMessageId(),
+                payload, RoutingMessage.RoutingType.FLOOD);
+        original.addHop("node-b");
+
+        RoutingMessage decoded = (RoutingMessage) codec.decode(codec.encode(original));
+
+        assertEquals("node-c", decoded.getTargetNodeId());
+        assertEquals(1, decoded.getHopCount());
+        assertEquals(original.getTtl(), decoded.getTtl());
+        assertTrue(decoded.hasVisited("node-a"));
+        assertTrue(decoded.hasVisited("node-b"));
+        assertFalse(decoded.recordsPath());
+        assertEquals(RoutingMessage.RoutingType.FLOOD, decoded.getRoutingType());
+        assertEquals(payload.getMessageId(), decoded.getPayload().getMessageId());
+    }
+
+    @Test
+    @DisplayName("Should keep the routing header the same size as hops are added")
+    void testRoutingHeaderSize() throws IOException {
+        RoutingMessage message = new RoutingMessage("node-a", "node-c", null,
+                null, RoutingMessage.RoutingType.FLOOD);
+        int size = codec.encode(message).length;
+        for (int i = 0; i < 8; i++) {
+            message.addHop(UUID.randomUUID().toString());
+        }
+
+        assertEquals(size, codec.encode(message).length);
+    }
+
+    @Test
+    @DisplayName("Should round-trip recorded paths, packing UUID node IDs")
+    void testRoutingPathRoundTrip() throws IOException {
+        String uuidHop = UUID.randomUUID().toString();
+        RoutingMessage original = new RoutingMessage("node-a", "node-c", null,
+                null, RoutingMessage.RoutingType.DISCOVER_ROUTE);
+        original.addHop(uuidHop);
+        original.addHop("node-b");
+
+        RoutingMessage decoded = (RoutingMessage) codec.decode(codec.encode(original));
+
+        assertTrue(decoded.recordsPath());
+        assertEquals(Arrays.asList("node-a", uuidHop, "node-b"), decoded.getRoute());
+        assertEquals("node-b", decoded.getLastHop());
+    }
+
+    @Test
+    @DisplayName("Should round-trip link-state advertisements")
+    void testLinkStateRoundTrip() throws IOException {
+        String neighbour = UUID.randomUUID().toString();
+        Map<String, Long> latencies = new LinkedHashMap<>();
+        latencies.put(neighbour, 12L);
+        latencies.put("node-c", 40L);
+        LinkStateMessage original = new LinkStateMessage("node-a", "node-a", 7, latencies).relayedBy("node-b");
+
+        LinkStateMessage decoded = (LinkStateMessage) codec.decode(codec.encode(original));
+
+        assertEquals("node-b", decoded.getSenderId());
+        assertEquals("node-a", decoded.getOriginId());
+        assertEquals(7, decoded.getSequence());
+        assertEquals(latencies, decoded.getLatencies());
+    }
+
+    @Test
+    @DisplayName("Should round-trip DHT lookup requests and replies")
+    void testFindNodeRoundTrip() throws IOException {
+        String target = UUID.randomUUID().toString();
+        FindNodeMessage request = new FindNodeMessage("node-a", target, "10.0.0.1", 9000);
+        FindNodeMessage reply = request.reply("node-b", "10.0.0.2", 9001,
+                List.of(new PeerDiscoveryMessage.PeerInfo(target, "10.0.0.3", 9002)));
+
+        FindNodeMessage decodedRequest = (FindNodeMessage) codec.decode(codec.encode(request));
+        FindNodeMessage decodedReply = (FindNodeMessage) codec.decode(codec.encode(reply));
+
+        assertFalse(decodedRequest.isResponse());
+        assertEquals(target, decodedRequest.getTargetId());
+        assertEquals("10.0.0.1", decodedRequest.getHost());
+        assertEquals(9000, decodedRequest.getPort());
+        assertTrue(decodedReply.isResponse());
+        assertEquals(request.getRequestId(), decodedReply.getRequestId());
+        assertEquals(1, decodedReply.getContacts().size());
+        assertEquals(target, decodedReply.getContacts().get(0).getNodeId());
+        assertEquals(9002, decodedReply.getContacts().get(0).getPort());
+    }
+
+    @Test
+    @DisplayName("Should round-trip pings and their replies")
+    void testPingRoundTrip() throws IOException {
+        PingMessage request = new PingMessage("node-a");
+        PingMessage reply = request.reply("node-b");
+
+        PingMessage decodedRequest = (PingMessage) codec.decode(codec.encode(request));
+        PingMessage decodedReply = (PingMessage) codec.decode(codec.encode(reply));
+
+        assertFalse(decodedRequest.isResponse());
+        assertTrue(decodedReply.isResponse());
+        assertEquals(request.getPingId(), decodedReply.getPingId());
+        assertEquals("node-b", decodedReply.getSenderId());
+    }
+
+    @Test
+    @DisplayName("Should round-trip peer lists")
+    void testDiscoveryRoundTrip() throws IOException {
+        PeerDiscoveryMessage original = new PeerDiscoveryMessage("node-a",
+                PeerDiscoveryMessage.MessageSubType.PEER_LIST_RESPONSE, "10.0.0.1", 9000,
+                List.of(new PeerDiscoveryMessage.PeerInfo("node-b", "10.0.0.2", 9001)));
+
+        PeerDiscoveryMessage decoded = (PeerDiscoveryMessage) codec.decode(codec.encode(original));
+
+        assertEquals(PeerDiscoveryMessage.MessageSubType.PEER_LIST_RESPONSE, decoded.getSubType());
+        assertEquals(9000, decoded.getPort());
+        assertEquals(1, decoded.getKnownPeers().size());
+        assertEquals("node-b", decoded.getKnownPeers().get(0).getNodeId());
+    }
+
+    @Test
+    @DisplayName("Should be smaller than Java serialization")
+    void testEncodingIsCompact() throws IOException {
+        DataMessage message = new DataMessage("node-a", "group-1", 1, 0,
+                new byte[0], new byte[0], DataMessage.MessageState.ACKNOWLEDGMENT);
+
+        assertTrue(codec.encode(message).length
+                < JavaSerializationCodec.INSTANCE.encode(message).length);
+    }
+
+    @Test
+    @DisplayName("Should reject truncated payloads")
+    void testTruncatedPayload() throws IOException {
+        byte[] encoded = codec.encode(new DataMessage("node-a", "group-1", 1, 0,
+                new byte[16], new byte[0], DataMessage.MessageState.DATA_CHUNK));
+
+        assertThrows(IOException.class,
+                () -> codec.decode(Arrays.copyOf(encoded, encoded.length - 8)));
+    }
+}
@@ -0,0 +1,228 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import com.nexuscipher.labyrinth.crypto.DilithiumLevel;
+import com.nexuscipher.labyrinth.crypto.QuantumResistantCrypto;
+import com.nexuscipher.labyrinth.crypto.SessionCipher;
+import com.nexuscipher.labyrinth.crypto.SessionKeyExchange;
+import com.nexuscipher.labyrinth.crypto.SignatureVerificationService;
+import com.nexuscipher.labyrinth.util.ExecutionMode;
+import com.nexuscipher.labyrinth.util.IntegrityAlgorithms;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the three-way handshake between two nodes.
+ */
+public class HandshakeProtocolTest {
+    private HandshakeProtocol initiator;
+    private HandshakeProtocol responder;
+
+    @BeforeEach
+    void setUp() {
+        initiator = new HandshakeProtocol("node-a", new QuantumResistantCrypto());
+        responder = new HandshakeProtocol("node-b", new QuantumResistantCrypto());
+    }
+
+    @Test
+    @DisplayName("Should complete a handshake between two nodes")
+    void testHandshakeCompletes() {
+        HandshakeMessage init = initiator.createInitialHandshake();
+        HandshakeMessage response = responder.handleInitialHandshake(init);
+        HandshakeMessage confirm = initiator.handleHandshakeResponse(response);
+
+        assertTrue(responder.verifyHandshakeConfirmation(confirm));
+        // A challenge can only be answered once
+        assertFalse(responder.verifyHandshakeConfirmation(confirm));
+    }
+
+    @Test
+    @DisplayName("Should agree session keys during the handshake")
+    void testHandshakeAgreesSession() throws Exception {
+        HandshakeMessage init = initiator.createInitialHandshake();
+        HandshakeMessage response = responder.handleInitialHandshake(init);
+        HandshakeMessage confirm = initiator.handleHandshakeResponse(response);
+
+        assertNotNull(init.getKeyExchange());
+        assertNotNull(response.getKeyExchange());
+        assertArrayEquals(IntegrityAlgorithms.offer(), init.getIntegrityAlgorithms());
+        assertArrayEquals(IntegrityAlgorithms.offer(), response.getIntegrityAlgorithms());
+        SessionCipher initiatorSession = confirm.getSession();
+        SessionCipher responderSession = response.getSession();
+        assertNotNull(initiatorSession);
+        assertNotNull(responderSession);
+        assertArrayEquals("chunk".getBytes(),
+                responderSession.open(initiatorSession.seal(ByteBuffer.wrap("chunk".getBytes()))));
+    }
+
+    @Test
+    @DisplayName("Should complete handshakes between nodes at different Dilithium levels")
+    void testMixedSignatureLevels() {
+        HandshakeProtocol low = new HandshakeProtocol("node-c",
+                new QuantumResistantCrypto(DilithiumLevel.DILITHIUM2, null));
+        HandshakeProtocol high = new HandshakeProtocol("node-d",
+                new QuantumResistantCrypto(DilithiumLevel.DILITHIUM5, null));
+
+        HandshakeMessage init = low.createInitialHandshake();
+        HandshakeMessage response = high.handleInitialHandshake(init);
+        assertEquals(DilithiumLevel.DILITHIUM2, init.getSignatureLevel());
+        assertEquals(DilithiumLevel.DILITHIUM5, response.getSignatureLevel());
+        assertTrue(high.verifyHandshakeConfirmation(low.handleHandshakeResponse(response)));
+    }
+
+    @Test
+    @DisplayName("Should reject a handshake whose advertised level does not match its key")
+    void testRejectsMismatchedSignatureLevel() {
+        HandshakeMessage init = initiator.createInitialHandshake();
+        HandshakeMessage relabelled = new HandshakeMessage("node-a", Message.MessageType.HANDSHAKE_INIT,
+                init.getPublicKey(), init.getSignature(), init.getChallenge(), null,
+                init.getKeyExchange(), init.getIntegrityAlgorithms(), DilithiumLevel.DILITHIUM5);
+
+        assertThrows(SecurityException.class, () -> responder.handleInitialHandshake(relabelled));
+    }
+
+    @Test
+    @DisplayName("Should reject an init whose key exchange was replaced")
+    void testRejectsSwappedKeyExchange() throws Exception {
+        HandshakeMessage init = initiator.createInitialHandshake();
+        HandshakeMessage swapped = new HandshakeMessage("node-a", Message.MessageType.HANDSHAKE_INIT,
+                init.getPublicKey(), init.getSignature(), init.getChallenge(), null,
+                SessionKeyExchange.generateKeyPair().getPublic().getEncoded());
+
+        assertThrows(SecurityException.class, () -> responder.handleInitialHandshake(swapped));
+    }
+
+    @Test
+    @DisplayName("Should resume a session from the ticket of a full handshake")
+    void testResumesWithTicket() throws Exception {
+        HandshakeMessage response = responder.handleInitialHandshake(initiator.createInitialHandshake());
+        assertTrue(responder.verifyHandshakeConfirmation(initiator.handleHandshakeResponse(response)));
+
+        HandshakeMessage resume = initiator.createResumption("node-b");
+        assertNotNull(resume);
+        assertNull(resume.getPublicKey());
+        HandshakeMessage accept = responder.handleResumption(resume);
+        assertEquals(Message.MessageType.HANDSHAKE_RESUME_ACCEPT, accept.getType());
+        SessionCipher initiatorSession = initiator.handleResumptionAccept(accept);
+
+        assertArrayEquals("chunk".getBytes(),
+                accept.getSession().open(initiatorSession.seal(ByteBuffer.wrap("chunk".getBytes()))));
+        // The resumed session issued the next ticket on both sides
+        assertNotNull(initiator.createResumption("node-b"));
+        assertNull(initiator.createResumption("node-b"));
+    }
+
+    @Test
+    @DisplayName("Should reject a replayed ticket and a forged resumption proof")
+    void testRejectsReusedOrForgedResumption() throws Exception {
+        HandshakeMessage response = responder.handleInitialHandshake(initiator.createInitialHandshake());
+        assertTrue(responder.verifyHandshakeConfirmation(initiator.handleHandshakeResponse(response)));
+
+        HandshakeMessage resume = initiator.createResumption("node-b");
+        HandshakeMessage forged = new HandshakeMessage("node-a", Message.MessageType.HANDSHAKE_RESUME,
+                null, new byte[32], resume.getChallenge(), null, resume.getKeyExchange());
+        assertThrows(SecurityException.class, () -> responder.handleResumption(forged));
+
+        // The forgery used up the ticket, so the real attempt falls back to a full handshake
+        HandshakeMessage reject = responder.handleResumption(resume);
+        assertEquals(Message.MessageType.HANDSHAKE_RESUME_REJECT, reject.getType());
+        assertTrue(initiator.handleResumptionReject(reject));
+        assertFalse(initiator.handleResumptionReject(reject));
+    }
+
+    @Test
+    @DisplayName("Should forget abandoned handshakes and resumptions")
+    void testAbandonUnansweredAttempts() {
+        HandshakeMessage response = responder.handleInitialHandshake(initiator.createInitialHandshake());
+        assertTrue(responder.verifyHandshakeConfirmation(initiator.handleHandshakeResponse(response)));
+        assertEquals(0, initiator.getPendingCount());
+
+        HandshakeMessage init = initiator.createInitialHandshake();
+        HandshakeMessage resume = initiator.createResumption("node-b");
+        assertEquals(2, initiator.getPendingCount());
+
+        initiator.abandon(init.getChallenge());
+        initiator.abandon(resume.getChallenge());
+
+        assertEquals(0, initiator.getPendingCount());
+        // A late accept no longer matches anything
+        HandshakeMessage accept = responder.handleResumption(resume);
+        assertThrows(SecurityException.class, () -> initiator.handleResumptionAccept(accept));
+    }
+
+    @Test
+    @DisplayName("Should reject responses to challenges that were never sent")
+    void testRejectsUnsolicitedResponse() {
+        HandshakeProtocol other = new HandshakeProtocol("node-c", new QuantumResistantCrypto());
+        HandshakeMessage response = responder.handleInitialHandshake(other.createInitialHandshake());
+
+        assertThrows(SecurityException.class, () -> initiator.handleHandshakeResponse(response));
+    }
+
+    @Test
+    @DisplayName("Should reject confirmations from a different identity")
+    void testRejectsConfirmationFromOtherNode() throws Exception {
+        HandshakeMessage response = responder.handleInitialHandshake(initiator.createInitialHandshake());
+
+        // Correctly signed, but with a key other than the one node-a introduced itself with
+        QuantumResistantCrypto impostor = new QuantumResistantCrypto();
+        byte[] challenge = response.getChallenge().getBytes();
+        HandshakeMessage forged = new HandshakeMessage("node-a", Message.MessageType.HANDSHAKE_CONFIRM,
+                impostor.getPublicKey(), impostor.sign(challenge), null, challenge);
+
+        assertFalse(responder.verifyHandshakeConfirmation(forged));
+    }
+
+    @Test
+    @DisplayName("Should reject a confirmation that echoes a challenge we initiated with")
+    void testRejectsConfirmationOfOwnInit() throws Exception {
+        HandshakeMessage init = responder.createInitialHandshake();
+
+        QuantumResistantCrypto attacker = new QuantumResistantCrypto();
+        byte[] challenge = init.getChallenge().getBytes();
+        HandshakeMessage forged = new HandshakeMessage("node-c", Message.MessageType.HANDSHAKE_CONFIRM,
+                attacker.getPublicKey(), attacker.sign(challenge), null, challenge);
+
+        assertFalse(responder.verifyHandshakeConfirmation(forged));
+        SignatureVerificationService verifier = new SignatureVerificationService(
+                new QuantumResistantCrypto(), 1, 16, ExecutionMode.PLATFORM);
+        try {
+            assertFalse(responder.verifyHandshakeConfirmationAsync(forged, verifier)
+                    .get(10, TimeUnit.SECONDS));
+        } finally {
+            verifier.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should complete a handshake with verification on the service")
+    void testAsyncHandshakeCompletes() throws Exception {
+        SignatureVerificationService verifier = new SignatureVerificationService(
+                new QuantumResistantCrypto(), 2, 16, ExecutionMode.PLATFORM);
+        try {
+            HandshakeMessage init = initiator.createInitialHandshake();
+            HandshakeMessage response = responder.handleInitialHandshakeAsync(init, verifier)
+                    .get(10, TimeUnit.SECONDS);
+            HandshakeMessage confirm = initiator.handleHandshakeResponseAsync(response, verifier)
+                    .get(10, TimeUnit.SECONDS);
+
+            assertTrue(responder.verifyHandshakeConfirmationAsync(confirm, verifier)
+                    .get(10, TimeUnit.SECONDS));
+
+            // A tampered init fails the future instead of throwing on the caller
+            HandshakeMessage forged = new HandshakeMessage("node-c", Message.MessageType.HANDSHAKE_INIT,
+                    init.getPublicKey(), init.getSignature(), init.getChallenge(), null);
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> responder.handleInitialHandshakeAsync(forged, verifier).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(SecurityException.class, failure.getCause());
+        } finally {
+            verifier.shutdown();
+        }
+    }
+}
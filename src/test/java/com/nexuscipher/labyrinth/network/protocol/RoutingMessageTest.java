@@ -0,0 +1,87 @@
+package com.nexuscipher.labyrinth.network.protocol;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the RoutingMessage header.
+ */
+public class RoutingMessageTest {
+
+    @Test
+    @DisplayName("Should count hops down to the hop limit")
+    void testTtl() {
+        RoutingMessage message = new RoutingMessage("node-a", "node-z", null, null,
+                RoutingMessage.RoutingType.DIRECT, 2, false);
+        assertEquals(2, message.getTtl());
+
+        message.addHop("node-b");
+        assertFalse(message.isExpired());
+        message.addHop("node-c");
+        assertTrue(message.isExpired());
+        assertEquals(2, message.getHopCount());
+
+        assertThrows(IllegalArgumentException.class, () -> new RoutingMessage("node-a", "node-z",
+                null, null, RoutingMessage.RoutingType.DIRECT, 256, false));
+    }
+
+    @Test
+    @DisplayName("Should remember every visited node and rarely report others")
+    void testVisitedFilter() {
+        RoutingMessage message = new RoutingMessage("node-a", "node-z", null, null,
+                RoutingMessage.RoutingType.FLOOD);
+        String[] hops = new String[RoutingMessage.DEFAULT_HOP_LIMIT];
+        for (int i = 0; i < hops.length; i++) {
+            hops[i] = UUID.randomUUID().toString();
+            message.addHop(hops[i]);
+        }
+
+        assertTrue(message.hasVisited("node-a"));
+        for (String hop : hops) {
+            assertTrue(message.hasVisited(hop));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (message.hasVisited(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 100, "False positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should only record the path when route learning is requested")
+    void testPathRecording() {
+        RoutingMessage flood = new RoutingMessage("node-a", "node-z", null, null,
+                RoutingMessage.RoutingType.FLOOD);
+        flood.addHop("node-b");
+        assertTrue(flood.getRoute().isEmpty());
+        assertNull(flood.getLastHop());
+
+        RoutingMessage discovery = new RoutingMessage("node-a", "node-z", null, null,
+                RoutingMessage.RoutingType.DISCOVER_ROUTE);
+        discovery.addHop("node-b");
+        assertEquals(List.of("node-a", "node-b"), discovery.getRoute());
+    }
+
+    @Test
+    @DisplayName("Should keep identity and hops when switching a message to a flood")
+    void testAsFlood() {
+        RoutingMessage dht = new RoutingMessage("node-a", "node-z", null, null,
+                RoutingMessage.RoutingType.DHT);
+        dht.addHop("node-b");
+
+        RoutingMessage flood = dht.asFlood();
+        assertEquals(RoutingMessage.RoutingType.FLOOD, flood.getRoutingType());
+        assertEquals(dht.getMessageId(), flood.getMessageId());
+        assertEquals(dht.getSenderId(), flood.getSenderId());
+        assertEquals(1, flood.getHopCount());
+        assertEquals(dht.getTtl(), flood.getTtl());
+        assertTrue(flood.hasVisited("node-b"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.nexuscipher.labyrinth.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for IntegrityAlgorithms negotiation and the cached digests.
+ */
+public class IntegrityAlgorithmsTest {
+
+    @Test
+    @DisplayName("Should only pick CRC32C for authenticated links")
+    void testNegotiation() {
+        byte[] offer = IntegrityAlgorithms.offer();
+
+        assertSame(IntegrityAlgorithms.CRC32C, IntegrityAlgorithms.negotiate(offer, true));
+        assertSame(IntegrityAlgorithms.SHA256, IntegrityAlgorithms.negotiate(offer, false));
+        assertSame(IntegrityAlgorithms.SHA256, IntegrityAlgorithms.negotiate(null, true));
+        assertSame(IntegrityAlgorithms.SHA256,
+                IntegrityAlgorithms.negotiate(new byte[]{IntegrityAlgorithms.SHA256.getId()}, true));
+        assertSame(IntegrityAlgorithms.DEFAULT, IntegrityAlgorithms.negotiate(new byte[]{99}, true));
+    }
+
+    @Test
+    @DisplayName("Should look algorithms up by ID and name")
+    void testLookups() {
+        for (byte id : IntegrityAlgorithms.offer()) {
+            IntegrityAlgorithm algorithm = IntegrityAlgorithms.byId(id);
+            assertNotNull(algorithm);
+            assertSame(algorithm, IntegrityAlgorithms.byName(algorithm.getName()));
+        }
+        assertNull(IntegrityAlgorithms.byId((byte) 99));
+        assertNull(IntegrityAlgorithms.byName("MD5"));
+    }
+
+    @Test
+    @DisplayName("Should reset the cached digest and leave buffer positions alone")
+    void testDigestReuse() throws Exception {
+        byte[] data = "some chunk data".getBytes();
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest(data);
+
+        IntegrityAlgorithm.Digest digest = IntegrityAlgorithms.SHA256.digest();
+        digest.update(new byte[]{1, 2, 3});  // Abandoned without finishing
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        digest = IntegrityAlgorithms.SHA256.digest();
+        digest.update(buffer);
+        assertArrayEquals(expected, digest.finish());
+        assertEquals(0, buffer.position());
+
+        digest = IntegrityAlgorithms.CRC32C.digest();
+        digest.update(data);
+        assertEquals(IntegrityAlgorithms.CRC32C.getDigestLength(), digest.finish().length);
+    }
+}
@@ -0,0 +1,78 @@
+package com.nexuscipher.labyrinth.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for MerkleTree chunk proofs.
+ */
+public class MerkleTreeTest {
+
+    private static ByteBuffer chunk(int i) {
+        return ByteBuffer.wrap(("chunk-" + i).getBytes());
+    }
+
+    @Test
+    @DisplayName("Should verify every chunk against the root for any chunk count and algorithm")
+    void testProofsVerify() {
+        for (IntegrityAlgorithm algorithm : new IntegrityAlgorithm[]{
+                IntegrityAlgorithms.SHA256, IntegrityAlgorithms.CRC32C}) {
+            for (int count = 1; count <= 9; count++) {
+                MerkleTree tree = MerkleTree.build(algorithm, count, MerkleTreeTest::chunk);
+                for (int i = 0; i < count; i++) {
+                    byte[] proof = tree.proof(i);
+                    assertTrue(MerkleTree.verify(chunk(i), i, count, proof),
+                            algorithm.getName() + " chunk " + i + " of " + count);
+                    assertSame(algorithm, MerkleTree.algorithmOf(proof));
+                    byte[] root = MerkleTree.rootOf(proof);
+                    assertArrayEquals(tree.getRoot(), Arrays.copyOfRange(root, 1, root.length));
+                    assertArrayEquals(tree.rootRecord(), root);
+                    assertTrue(MerkleTree.isRootRecord(root));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject altered data, positions and proofs")
+    void testRejectsMismatches() {
+        MerkleTree tree = MerkleTree.build(5, MerkleTreeTest::chunk);
+        byte[] proof = tree.proof(2);
+
+        assertFalse(MerkleTree.verify(chunk(3), 2, 5, proof));
+        assertFalse(MerkleTree.verify(chunk(2), 3, 5, proof));
+        assertFalse(MerkleTree.verify(chunk(2), 2, 6, proof));
+
+        byte[] tampered = proof.clone();
+        tampered[tampered.length - 1] ^= 1;
+        assertFalse(MerkleTree.verify(chunk(2), 2, 5, tampered));
+
+        // A proof from another payload is consistent with its own root; only comparing
+        // against the root the sender vouched for tells them apart
+        MerkleTree other = MerkleTree.build(5, i -> ByteBuffer.wrap(("other-" + i).getBytes()));
+        assertTrue(MerkleTree.verify(ByteBuffer.wrap("other-2".getBytes()), 2, 5, other.proof(2)));
+        assertFalse(Arrays.equals(tree.rootRecord(), MerkleTree.rootOf(other.proof(2))));
+        assertFalse(MerkleTree.isRootRecord(proof));
+    }
+
+    @Test
+    @DisplayName("Should reject proofs with an unknown or relabelled algorithm")
+    void testRejectsWrongAlgorithm() {
+        byte[] proof = MerkleTree.build(IntegrityAlgorithms.CRC32C, 4, MerkleTreeTest::chunk).proof(1);
+
+        byte[] unknown = proof.clone();
+        unknown[0] = 99;
+        assertNull(MerkleTree.algorithmOf(unknown));
+        assertFalse(MerkleTree.verify(chunk(1), 1, 4, unknown));
+
+        byte[] relabelled = proof.clone();
+        relabelled[0] = IntegrityAlgorithms.SHA256.getId();
+        assertFalse(MerkleTree.verify(chunk(1), 1, 4, relabelled));
+        assertFalse(MerkleTree.verify(chunk(1), 1, 4, null));
+    }
+}